@@ -17,6 +17,8 @@
  */
 package io.micronaut.bots.googlechat.core;
 
+import io.micronaut.bots.core.AdmissionPolicy;
+import io.micronaut.bots.core.BotMentionMatcher;
 import io.micronaut.context.annotation.EachBean;
 import io.micronaut.context.annotation.Factory;
 
@@ -25,6 +27,12 @@ public class GoogleBotFactory {
 
     @EachBean(GoogleChatBotConfiguration.class)
     public GoogleChatBot buildGoogleChatBot(GoogleChatBotConfiguration configuration) {
-        return new GoogleChatBot(configuration.getProjectId(), configuration.getAtUsername());
+        GoogleChatBot bot = new GoogleChatBot(configuration.getProjectId(),
+                configuration.getAtUsername(),
+                new BotMentionMatcher(configuration.getAtUsername()));
+        bot.setDeduplicateEvents(configuration.isDeduplicateEvents());
+        bot.setAdmissionPolicy(AdmissionPolicy.of(configuration));
+        bot.setResponseDeadline(configuration.getResponseDeadline());
+        return bot;
     }
 }
\ No newline at end of file
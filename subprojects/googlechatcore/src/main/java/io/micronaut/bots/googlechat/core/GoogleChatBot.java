@@ -18,9 +18,14 @@
 package io.micronaut.bots.googlechat.core;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.micronaut.bots.core.AdmissionPolicy;
+import io.micronaut.bots.core.BotMentionMatcher;
 import io.micronaut.bots.core.ChatBot;
 
 import javax.validation.constraints.NotBlank;
+import java.time.Duration;
+import java.util.Optional;
 
 public class GoogleChatBot implements ChatBot {
     @NotBlank
@@ -31,9 +36,25 @@ public class GoogleChatBot implements ChatBot {
     @NonNull
     private String atUsername;
 
+    @NonNull
+    private BotMentionMatcher mentionMatcher;
+
+    @NonNull
+    private AdmissionPolicy admissionPolicy = AdmissionPolicy.UNLIMITED;
+
+    @Nullable
+    private Duration responseDeadline;
+
+    private boolean deduplicateEvents;
+
     public GoogleChatBot(String projectId, String atUsername) {
+        this(projectId, atUsername, new BotMentionMatcher(atUsername));
+    }
+
+    public GoogleChatBot(String projectId, String atUsername, BotMentionMatcher mentionMatcher) {
         this.projectId = projectId;
         this.atUsername = atUsername;
+        this.mentionMatcher = mentionMatcher;
     }
 
 
@@ -44,8 +65,34 @@ public class GoogleChatBot implements ChatBot {
 
     public void setAtUsername(@NonNull String atUsername) {
         this.atUsername = atUsername;
+        this.mentionMatcher = new BotMentionMatcher(atUsername);
     }
 
+    @Override
+    @NonNull
+    public BotMentionMatcher getMentionMatcher() {
+        return mentionMatcher;
+    }
+
+    @Override
+    @NonNull
+    public AdmissionPolicy getAdmissionPolicy() {
+        return admissionPolicy;
+    }
+
+    public void setAdmissionPolicy(@NonNull AdmissionPolicy admissionPolicy) {
+        this.admissionPolicy = admissionPolicy;
+    }
+
+    public boolean isDeduplicateEvents() {
+        return deduplicateEvents;
+    }
+
+    public void setDeduplicateEvents(boolean deduplicateEvents) {
+        this.deduplicateEvents = deduplicateEvents;
+    }
+
+    @Override
     @NonNull
     public String getProjectId() {
         return projectId;
@@ -54,4 +101,14 @@ public class GoogleChatBot implements ChatBot {
     public void setProjectId(@NonNull String projectId) {
         this.projectId = projectId;
     }
+
+    @Override
+    @NonNull
+    public Optional<Duration> getResponseDeadline() {
+        return Optional.ofNullable(responseDeadline);
+    }
+
+    public void setResponseDeadline(@Nullable Duration responseDeadline) {
+        this.responseDeadline = responseDeadline;
+    }
 }
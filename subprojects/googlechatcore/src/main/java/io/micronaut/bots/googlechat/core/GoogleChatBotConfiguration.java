@@ -18,14 +18,33 @@
 package io.micronaut.bots.googlechat.core;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.micronaut.bots.core.AdmissionConfiguration;
 import io.micronaut.core.naming.Named;
 import io.micronaut.core.util.Toggleable;
 
-public interface GoogleChatBotConfiguration extends Named, Toggleable {
+import java.time.Duration;
+
+public interface GoogleChatBotConfiguration extends Named, Toggleable, AdmissionConfiguration {
 
     @NonNull
     String getProjectId();
 
     @NonNull
     String getAtUsername();
+
+    /**
+     * @return Whether events redelivered with the same message name are dropped
+     */
+    default boolean isDeduplicateEvents() {
+        return false;
+    }
+
+    /**
+     * @return Maximum time a webhook waits for the reply of the bot, or null to wait until the handler finishes
+     */
+    @Nullable
+    default Duration getResponseDeadline() {
+        return null;
+    }
 }
\ No newline at end of file
@@ -18,18 +18,24 @@
 package io.micronaut.bots.googlechat.core;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import io.micronaut.context.annotation.EachProperty;
 import io.micronaut.context.annotation.Parameter;
 
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.PositiveOrZero;
+import java.time.Duration;
 
 @EachProperty("googlechat.bots")
 public class GoogleChatBotConfigurationProperties implements GoogleChatBotConfiguration {
 
     private final static boolean DEFAULT_ENABLED = true;
+    private final static boolean DEFAULT_DEDUPLICATE_EVENTS = false;
 
     private boolean enabled = DEFAULT_ENABLED;
 
+    private boolean deduplicateEvents = DEFAULT_DEDUPLICATE_EVENTS;
+
     @NonNull
     private final String name;
 
@@ -42,6 +48,21 @@ public class GoogleChatBotConfigurationProperties implements GoogleChatBotConfig
     @NonNull
     private String atUsername;
 
+    @PositiveOrZero
+    private int userBurst;
+
+    @PositiveOrZero
+    private int userRatePerMinute;
+
+    @PositiveOrZero
+    private int chatBurst;
+
+    @PositiveOrZero
+    private int chatRatePerMinute;
+
+    @Nullable
+    private Duration responseDeadline;
+
     public GoogleChatBotConfigurationProperties(@Parameter String name) {
         this.name = name;
     }
@@ -80,5 +101,83 @@ public class GoogleChatBotConfigurationProperties implements GoogleChatBotConfig
     public void setAtUsername(@NonNull String atUsername) {
         this.atUsername = atUsername;
     }
-}
 
+    @Override
+    public boolean isDeduplicateEvents() {
+        return deduplicateEvents;
+    }
+
+    /**
+     * Whether events redelivered with the same message name are dropped. Default value ({@value #DEFAULT_DEDUPLICATE_EVENTS}).
+     * @param deduplicateEvents deduplicate events flag
+     */
+    public void setDeduplicateEvents(boolean deduplicateEvents) {
+        this.deduplicateEvents = deduplicateEvents;
+    }
+
+    @Override
+    public int getUserBurst() {
+        return userBurst;
+    }
+
+    /**
+     * Maximum number of updates a user can send in a burst. Default value 0, no limit.
+     * @param userBurst User burst
+     */
+    public void setUserBurst(int userBurst) {
+        this.userBurst = userBurst;
+    }
+
+    @Override
+    public int getUserRatePerMinute() {
+        return userRatePerMinute;
+    }
+
+    /**
+     * Number of updates per minute a user is allowed once the burst is consumed. Default value 0, no limit.
+     * @param userRatePerMinute User rate per minute
+     */
+    public void setUserRatePerMinute(int userRatePerMinute) {
+        this.userRatePerMinute = userRatePerMinute;
+    }
+
+    @Override
+    public int getChatBurst() {
+        return chatBurst;
+    }
+
+    /**
+     * Maximum number of updates a chat can receive in a burst. Default value 0, no limit.
+     * @param chatBurst Chat burst
+     */
+    public void setChatBurst(int chatBurst) {
+        this.chatBurst = chatBurst;
+    }
+
+    @Override
+    public int getChatRatePerMinute() {
+        return chatRatePerMinute;
+    }
+
+    /**
+     * Number of updates per minute a chat is allowed once the burst is consumed. Default value 0, no limit.
+     * @param chatRatePerMinute Chat rate per minute
+     */
+    public void setChatRatePerMinute(int chatRatePerMinute) {
+        this.chatRatePerMinute = chatRatePerMinute;
+    }
+
+    @Override
+    @Nullable
+    public Duration getResponseDeadline() {
+        return responseDeadline;
+    }
+
+    /**
+     * Maximum time a webhook waits for the reply before answering and sending the reply out of band. Default value null, no deadline.
+     * @param responseDeadline Response deadline
+     */
+    public void setResponseDeadline(@Nullable Duration responseDeadline) {
+        this.responseDeadline = responseDeadline;
+    }
+}
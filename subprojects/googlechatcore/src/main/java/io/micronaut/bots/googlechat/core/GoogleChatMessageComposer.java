@@ -20,6 +20,7 @@ package io.micronaut.bots.googlechat.core;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import io.micronaut.bots.core.ChatBotMessageReceive;
 import io.micronaut.bots.core.ChatBotMessageSend;
+import io.micronaut.bots.core.DispatchContext;
 import io.micronaut.bots.core.MessageComposer;
 import io.micronaut.bots.core.ParseMode;
 
@@ -44,4 +45,12 @@ public class GoogleChatMessageComposer implements MessageComposer {
     public <T extends ChatBotMessageSend> Optional<T> compose(@NonNull @NotBlank String text, @NonNull ParseMode parseMode, @NonNull @Valid @NotNull ChatBotMessageReceive messageReceive) {
         return compose(text, messageReceive);
     }
+
+    /**
+     * Google Chat replies are the body of the response to the event, so they are not addressed to a space.
+     */
+    @Override
+    public Optional<ChatBotMessageSend> retarget(@NonNull ChatBotMessageSend reply, @NonNull DispatchContext context) {
+        return Optional.of(reply);
+    }
 }
@@ -22,6 +22,7 @@ import io.micronaut.bots.core.ChatBot;
 import io.micronaut.bots.core.ChatBotMessageParser;
 import io.micronaut.bots.core.ChatBotMessageReceive;
 import io.micronaut.bots.core.ChatBotSpace;
+import io.micronaut.bots.core.DispatchContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,6 +33,7 @@ import java.util.Optional;
 @Singleton
 public class GoogleChatMessageParser implements ChatBotMessageParser {
     private static final Logger LOG = LoggerFactory.getLogger(GoogleChatMessageParser.class);
+    private static final String EVENT_TYPE_MESSAGE = "MESSAGE";
 
     @Override
     public Optional<ChatBotSpace> parseChat(@NonNull ChatBotMessageReceive messageReceive) {
@@ -77,7 +79,7 @@ public class GoogleChatMessageParser implements ChatBotMessageParser {
         Optional<String> textOptional = parseText(event);
         if (textOptional.isPresent()) {
             String text = textOptional.get();
-            return Optional.of(text.replaceAll(bot.getAtUsername(), "").trim());
+            return Optional.of(bot.getMentionMatcher().strip(text).trim());
         }
         return Optional.empty();
     }
@@ -103,4 +105,53 @@ public class GoogleChatMessageParser implements ChatBotMessageParser {
         }
         return Optional.empty();
     }
+
+    @Override
+    public Optional<Serializable> parseMessageId(@NonNull ChatBot bot, @NonNull ChatBotMessageReceive messageReceive) {
+        if (!(bot instanceof GoogleChatBot) || !((GoogleChatBot) bot).isDeduplicateEvents()) {
+            return Optional.empty();
+        }
+        if (messageReceive instanceof Event) {
+            Event event = (Event) messageReceive;
+            // card clicks carry the name of the message holding the card, so only new messages are deduplicated
+            if (EVENT_TYPE_MESSAGE.equals(event.getType()) &&
+                    event.getMessage() != null &&
+                    event.getMessage().getName() != null) {
+                return Optional.of(event.getMessage().getName());
+            }
+        }
+        return Optional.empty();
+    }
+
+    @NonNull
+    @Override
+    public DispatchContext parseContext(@NonNull ChatBot bot, @NonNull ChatBotMessageReceive messageReceive) {
+        if (!(messageReceive instanceof Event)) {
+            LOG.warn("Message not of type Event");
+            return DispatchContext.builder(DispatchContext.KIND_MESSAGE).build();
+        }
+        Event event = (Event) messageReceive;
+        String text = null;
+        if (event.getAction() != null) {
+            text = event.getAction().getActionMethodName();
+        }
+        if (text == null && event.getMessage() != null) {
+            text = event.getMessage().getText();
+        }
+        User user = event.getUser();
+        if (user == null && event.getMessage() != null) {
+            user = event.getMessage().getSender();
+        }
+        Space space = event.getSpace();
+        return DispatchContext.builder(event.getType() != null ? event.getType() : DispatchContext.KIND_MESSAGE)
+                .text(text)
+                .textWithoutBotName(bot.getMentionMatcher().strip(text))
+                .chat(space)
+                .chatId(space != null ? space.getName() : null)
+                .chatType(space != null ? space.getType() : null)
+                .chatTitle(space != null ? space.getDisplayName() : null)
+                .userId(user != null ? user.getName() : null)
+                .userFirstName(user != null ? user.getDisplayName() : null)
+                .build();
+    }
 }
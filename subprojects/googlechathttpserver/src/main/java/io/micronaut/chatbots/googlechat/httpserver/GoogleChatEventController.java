@@ -17,15 +17,20 @@
  */
 package io.micronaut.chatbots.googlechat.httpserver;
 
-import io.micronaut.bots.core.ChatBotMessageDispatcher;
+import io.micronaut.bots.core.AsyncChatBotMessageDispatcher;
 import io.micronaut.bots.core.ChatBotMessageSend;
+import io.micronaut.bots.core.ChatBotRegistry;
+import io.micronaut.bots.core.RedeliveryResponse;
+import io.micronaut.bots.core.ResponseDeadlines;
 import io.micronaut.bots.googlechat.core.Event;
 import io.micronaut.bots.googlechat.core.GoogleChatBot;
 import io.micronaut.bots.googlechat.security.GoogleChatBearerTokenVerifier;
 import io.micronaut.bots.googlechat.security.UnauthorizedGoogleChatToken;
 import io.micronaut.http.HttpHeaders;
 import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
 import io.micronaut.http.MediaType;
+import io.micronaut.http.MutableHttpResponse;
 import io.micronaut.http.annotation.Body;
 import io.micronaut.http.annotation.Controller;
 import io.micronaut.http.annotation.Header;
@@ -33,28 +38,33 @@ import io.micronaut.http.annotation.Post;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 @Controller
 public class GoogleChatEventController {
     private static final Logger LOG = LoggerFactory.getLogger(GoogleChatEventController.class);
 
     protected final GoogleChatBearerTokenVerifier googleChatBearerTokenVerifier;
-    protected final ChatBotMessageDispatcher messageDispatcher;
-    private final Collection<GoogleChatBot> googleChatBots;
+    protected final AsyncChatBotMessageDispatcher messageDispatcher;
+    protected final ResponseDeadlines responseDeadlines;
+    private final ChatBotRegistry chatBotRegistry;
 
     public GoogleChatEventController(GoogleChatBearerTokenVerifier googleChatBearerTokenVerifier,
-                                     Collection<GoogleChatBot> googleChatBots,
-                                     ChatBotMessageDispatcher messageDispatcher) {
+                                     ChatBotRegistry chatBotRegistry,
+                                     AsyncChatBotMessageDispatcher messageDispatcher,
+                                     ResponseDeadlines responseDeadlines) {
         this.googleChatBearerTokenVerifier = googleChatBearerTokenVerifier;
         this.messageDispatcher = messageDispatcher;
-        this.googleChatBots = googleChatBots;
+        this.responseDeadlines = responseDeadlines;
+        this.chatBotRegistry = chatBotRegistry;
     }
 
     @Post("/")
-    public HttpResponse update(@Body Event event, @Header(HttpHeaders.AUTHORIZATION) String authorization) {
+    public CompletionStage<HttpResponse> update(@Body Event event, @Header(HttpHeaders.AUTHORIZATION) String authorization) {
         if (LOG.isInfoEnabled()) {
             LOG.info("Received event {}", event.toString());
         }
@@ -62,7 +72,9 @@ public class GoogleChatEventController {
             if (LOG.isWarnEnabled()) {
                 LOG.warn("bearerToken is null");
             }
-            return HttpResponse.unauthorized().body("bearerToken is null").contentType(MediaType.TEXT_PLAIN_TYPE);
+            return CompletableFuture.completedFuture(HttpResponse.unauthorized()
+                    .body("bearerToken is null")
+                    .contentType(MediaType.TEXT_PLAIN_TYPE));
         }
         try {
             List<String> audiencies = googleChatBearerTokenVerifier.verify(authorization);
@@ -70,40 +82,58 @@ public class GoogleChatEventController {
                 if (LOG.isWarnEnabled()) {
                     LOG.warn("audiencies could not be parsed from bearer token {}", authorization);
                 }
-                return HttpResponse.badRequest()
+                return CompletableFuture.completedFuture(HttpResponse.badRequest()
                         .body("audiencies could not be parsed from bearer token")
-                        .contentType(MediaType.TEXT_PLAIN_TYPE);
+                        .contentType(MediaType.TEXT_PLAIN_TYPE));
+            }
+            Optional<GoogleChatBot> optionalGoogleChatBot = Optional.empty();
+            for (String audience : audiencies) {
+                optionalGoogleChatBot = chatBotRegistry.findByProjectId(audience, GoogleChatBot.class);
+                if (optionalGoogleChatBot.isPresent()) {
+                    break;
+                }
             }
-            Optional<GoogleChatBot> optionalGoogleChatBot = googleChatBots.stream()
-                    .filter(bot -> audiencies.contains(bot.getProjectId()))
-                    .findFirst();
             if (!optionalGoogleChatBot.isPresent()) {
                 if (LOG.isWarnEnabled()) {
                     LOG.warn("no google chat bot found for audiencies {}", audiencies);
                 }
-                return HttpResponse.badRequest()
+                return CompletableFuture.completedFuture(HttpResponse.badRequest()
                         .body("no google chat bot found for audiencies " + audiencies)
-                        .contentType(MediaType.TEXT_PLAIN_TYPE);
+                        .contentType(MediaType.TEXT_PLAIN_TYPE));
             }
             GoogleChatBot chatBot = optionalGoogleChatBot.get();
-            Optional<ChatBotMessageSend> messageOptional = messageDispatcher.dispatch(chatBot, event);
-            if (messageOptional.isPresent()) {
-                ChatBotMessageSend message = messageOptional.get();
-                if (LOG.isInfoEnabled()) {
-                    LOG.info("Returning {}", message.toString());
-                }
-                return HttpResponse.ok(message);
-            }
-            if (LOG.isInfoEnabled()) {
-                LOG.info("Returning just 200, no message received from dispatcher");
-            }
-            return HttpResponse.ok();
+            return responseDeadlines.withDeadline(chatBot, messageDispatcher.dispatchAsync(chatBot, event))
+                    .handle((message, throwable) -> throwable == null ?
+                            createResponse(message) :
+                            RedeliveryResponse.ifRejected(throwable, GoogleChatEventController::serviceUnavailable));
 
         } catch (UnauthorizedGoogleChatToken e) {
             if (LOG.isWarnEnabled()) {
                 LOG.warn("Unauthorized google chat token {}", e.getMessage());
             }
-            return HttpResponse.unauthorized().body(e.getMessage()).contentType(MediaType.TEXT_PLAIN_TYPE);
+            return CompletableFuture.completedFuture(HttpResponse.unauthorized()
+                    .body(e.getMessage())
+                    .contentType(MediaType.TEXT_PLAIN_TYPE));
         }
     }
-}
\ No newline at end of file
+
+    private HttpResponse createResponse(Optional<ChatBotMessageSend> messageOptional) {
+        if (messageOptional.isPresent()) {
+            ChatBotMessageSend message = messageOptional.get();
+            if (LOG.isInfoEnabled()) {
+                LOG.info("Returning {}", message.toString());
+            }
+            return HttpResponse.ok(message);
+        }
+        if (LOG.isInfoEnabled()) {
+            LOG.info("Returning just 200, no message received from dispatcher");
+        }
+        return HttpResponse.ok();
+    }
+
+    private static HttpResponse serviceUnavailable(int status, Map<String, String> headers) {
+        MutableHttpResponse<?> response = HttpResponse.status(HttpStatus.valueOf(status));
+        headers.forEach(response::header);
+        return response;
+    }
+}
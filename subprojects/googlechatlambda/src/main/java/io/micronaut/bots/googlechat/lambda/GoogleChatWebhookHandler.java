@@ -21,8 +21,12 @@ import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import io.micronaut.bots.core.ChatBotMessageDispatcher;
+import io.micronaut.bots.core.AsyncChatBotMessageDispatcher;
 import io.micronaut.bots.core.ChatBotMessageSend;
+import io.micronaut.bots.core.ChatBotRegistry;
+import io.micronaut.bots.core.DispatchResult;
+import io.micronaut.bots.core.RedeliveryResponse;
+import io.micronaut.bots.core.ResponseDeadlines;
 import io.micronaut.bots.googlechat.core.Event;
 import io.micronaut.bots.googlechat.core.GoogleChatBot;
 import io.micronaut.bots.googlechat.security.GoogleChatBearerTokenVerifier;
@@ -38,10 +42,10 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
 import java.io.IOException;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @Introspected
 public class GoogleChatWebhookHandler extends MicronautRequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
@@ -63,10 +67,13 @@ public class GoogleChatWebhookHandler extends MicronautRequestHandler<APIGateway
     private ObjectMapper objectMapper;
 
     @Inject
-    private ChatBotMessageDispatcher messageDispatcher;
+    private AsyncChatBotMessageDispatcher messageDispatcher;
 
     @Inject
-    Collection<GoogleChatBot> googleChatBots;
+    private ResponseDeadlines responseDeadlines;
+
+    @Inject
+    ChatBotRegistry chatBotRegistry;
 
     @Inject
     private GoogleChatBearerTokenVerifier googleChatBearerTokenVerifier;
@@ -128,13 +135,15 @@ public class GoogleChatWebhookHandler extends MicronautRequestHandler<APIGateway
         }
 
         try {
-            Optional<GoogleChatBot> botOptional = googleChatBots.stream().filter(bot -> bot.getProjectId().equals(AUDIENCE)).findFirst();
+            Optional<GoogleChatBot> botOptional = AUDIENCE != null ?
+                    chatBotRegistry.findByProjectId(AUDIENCE, GoogleChatBot.class) :
+                    Optional.empty();
             if (botOptional.isPresent()) {
                 GoogleChatBot bot = botOptional.get();
                 if (input.getBody() != null && !input.getBody().trim().isEmpty()) {
                     Event update = objectMapper.readValue(input.getBody(), Event.class);
                     LOG.info("dispatching message to bot {}", bot.getAtUsername());
-                    Optional<ChatBotMessageSend> message = messageDispatcher.dispatch(bot, update);
+                    Optional<ChatBotMessageSend> message = DispatchResult.join(responseDeadlines.withDeadline(bot, messageDispatcher.dispatchAsync(bot, update)));
                     if (message.isPresent()) {
                         try {
                             String json  = objectMapper.writeValueAsString(message);
@@ -171,6 +180,12 @@ public class GoogleChatWebhookHandler extends MicronautRequestHandler<APIGateway
             LOG.error("error binding body " + input.getBody() + " to " + Event.class.getSimpleName());
             apiGatewayProxyResponseEvent.setStatusCode(400);
             return apiGatewayProxyResponseEvent;
+        } catch (RejectedExecutionException e) {
+            return RedeliveryResponse.ifRejected(e, (status, retryHeaders) -> {
+                apiGatewayProxyResponseEvent.setHeaders(retryHeaders);
+                apiGatewayProxyResponseEvent.setStatusCode(status);
+                return apiGatewayProxyResponseEvent;
+            });
         }
     }
 
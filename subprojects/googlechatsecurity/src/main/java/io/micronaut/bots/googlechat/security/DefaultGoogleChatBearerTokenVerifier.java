@@ -22,6 +22,7 @@ import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.JWTParser;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
+import io.micronaut.bots.core.ChatBotRegistry;
 import io.micronaut.bots.googlechat.core.GoogleChatBot;
 import io.micronaut.http.HttpHeaderValues;
 import org.slf4j.Logger;
@@ -30,7 +31,6 @@ import org.slf4j.LoggerFactory;
 import javax.inject.Singleton;
 import javax.validation.constraints.NotBlank;
 import java.text.ParseException;
-import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -41,10 +41,10 @@ import java.util.stream.Collectors;
 public class DefaultGoogleChatBearerTokenVerifier implements GoogleChatBearerTokenVerifier {
     private static final Logger LOG = LoggerFactory.getLogger(DefaultGoogleChatBearerTokenVerifier.class);
     static String CHAT_ISSUER = "chat@system.gserviceaccount.com";
-    protected final Collection<GoogleChatBot> googleChatBots;
+    protected final ChatBotRegistry chatBotRegistry;
 
-    public DefaultGoogleChatBearerTokenVerifier(Collection<GoogleChatBot> googleChatBots) {
-        this.googleChatBots = googleChatBots;
+    public DefaultGoogleChatBearerTokenVerifier(ChatBotRegistry chatBotRegistry) {
+        this.chatBotRegistry = chatBotRegistry;
     }
 
     @Override
@@ -74,8 +74,8 @@ public class DefaultGoogleChatBearerTokenVerifier implements GoogleChatBearerTok
                 LOG.warn("audience is null");
                 throw new UnauthorizedGoogleChatToken("audiencies is null");
             }
-            if (googleChatBots.stream().noneMatch(googleChatBot -> audiencies.contains(googleChatBot.getProjectId()))) {
-                throw new UnauthorizedGoogleChatToken("no bot project id " + googleChatBots.stream().map(GoogleChatBot::getProjectId).collect(Collectors.joining(",")) + " matches audiencies " + audiencies.stream().collect(Collectors.joining(",")));
+            if (audiencies.stream().noneMatch(audience -> chatBotRegistry.findByProjectId(audience, GoogleChatBot.class).isPresent())) {
+                throw new UnauthorizedGoogleChatToken("no bot project id " + chatBotRegistry.getBots(GoogleChatBot.class).stream().map(GoogleChatBot::getProjectId).collect(Collectors.joining(",")) + " matches audiencies " + audiencies.stream().collect(Collectors.joining(",")));
             }
             return audiencies;
         } catch (ParseException e) {
@@ -0,0 +1,511 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.conversationjdbc;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.micronaut.bots.core.ConversationKey;
+import io.micronaut.bots.core.ConversationState;
+import io.micronaut.bots.core.ConversationStore;
+import io.micronaut.bots.core.ConversationStoreConfiguration;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.exceptions.ConfigurationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import javax.sql.DataSource;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * {@link ConversationStore} backed by a relational database. Saves are coalesced per conversation in memory and
+ * written behind in batches, when the number of pending conversations reaches the batch size or when the flush
+ * interval passes. Loads are read through a cache bounded by {@link ConversationStoreConfiguration}.
+ * Pending conversations are written when the store is closed.
+ * <p>
+ * Chat and user ids are stored as strings, so a numeric id and a string id with the same digits share a row.
+ */
+@Singleton
+@Requires(beans = JdbcConversationStoreConfiguration.class)
+public class JdbcConversationStore implements ConversationStore, AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(JdbcConversationStore.class);
+    private static final Pattern TABLE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*(\\.[A-Za-z_][A-Za-z0-9_]*)?");
+    private static final String UTF_8 = "UTF-8";
+    private static final int STRIPES = 16;
+
+    private final DataSource dataSource;
+    private final String tableName;
+    private final int batchSize;
+    private final Stripe[] stripes;
+    private final Map<ConversationKey, Map<String, String>> pending = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    private volatile Map<ConversationKey, Map<String, String>> flushing = Collections.emptyMap();
+
+    public JdbcConversationStore(DataSource dataSource,
+                                 JdbcConversationStoreConfiguration configuration,
+                                 ConversationStoreConfiguration cacheConfiguration) {
+        this(dataSource, configuration.getTableName(), configuration.getBatchSize(), configuration.getFlushInterval(),
+                cacheConfiguration.getMaximumSize(), cacheConfiguration.getTimeToIdle());
+        if (configuration.isCreateTable()) {
+            createTable();
+        }
+    }
+
+    /**
+     * @param dataSource Data source
+     * @param tableName Table where the conversations are stored
+     * @param batchSize Number of pending conversations which triggers a flush
+     * @param flushInterval Interval at which pending conversations are written, null to only write full batches
+     * @param cacheSize Maximum number of conversations cached in memory
+     * @param timeToIdle Time after which a cached conversation without updates is dropped, null to never drop it
+     */
+    public JdbcConversationStore(@NonNull DataSource dataSource,
+                                 @NonNull String tableName,
+                                 int batchSize,
+                                 @Nullable Duration flushInterval,
+                                 int cacheSize,
+                                 @Nullable Duration timeToIdle) {
+        if (!TABLE_NAME.matcher(tableName).matches()) {
+            throw new ConfigurationException("invalid conversations table name " + tableName);
+        }
+        this.dataSource = dataSource;
+        this.tableName = tableName;
+        this.batchSize = batchSize;
+        int stripeCapacity = Math.max(1, (cacheSize + STRIPES - 1) / STRIPES);
+        long timeToIdleNanos = timeToIdle != null ? timeToIdle.toNanos() : 0;
+        this.stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(stripeCapacity, timeToIdleNanos);
+        }
+        this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "chatbots-conversation-jdbc");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        if (flushInterval != null) {
+            long nanos = flushInterval.toNanos();
+            scheduler.scheduleWithFixedDelay(this::scheduledFlush, nanos, nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Creates the table of the conversations if it does not exist.
+     */
+    public void createTable() {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + tableName + " (" +
+                    "chat_id VARCHAR(255) NOT NULL, " +
+                    "user_id VARCHAR(255) NOT NULL, " +
+                    "attributes TEXT NOT NULL, " +
+                    "PRIMARY KEY (chat_id, user_id))");
+        } catch (SQLException e) {
+            throw new IllegalStateException("could not create the conversations table " + tableName, e);
+        }
+    }
+
+    @NonNull
+    @Override
+    public ConversationState load(@NonNull ConversationKey key) {
+        long now = System.nanoTime();
+        Stripe stripe = stripeFor(key);
+        ConversationState state;
+        synchronized (stripe) {
+            state = stripe.get(key, now);
+        }
+        if (state != null) {
+            return state;
+        }
+        Map<String, String> attributes = pending.get(key);
+        if (attributes == null) {
+            attributes = flushing.get(key);
+        }
+        if (attributes == null) {
+            attributes = select(key);
+        }
+        ConversationState loaded = new ConversationState(key, attributes);
+        synchronized (stripe) {
+            state = stripe.get(key, now);
+            if (state != null) {
+                return state;
+            }
+            stripe.put(key, loaded, now);
+        }
+        return loaded;
+    }
+
+    @Override
+    public void save(@NonNull ConversationState state) {
+        ConversationKey key = state.getKey();
+        long now = System.nanoTime();
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            if (!state.isModified() && stripe.get(key, now) == state) {
+                return;
+            }
+            stripe.put(key, state, now);
+        }
+        enqueue(key, new HashMap<>(state.getAttributes()));
+        state.markSaved();
+    }
+
+    @Override
+    public void remove(@NonNull ConversationKey key) {
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            stripe.put(key, new ConversationState(key), System.nanoTime());
+        }
+        enqueue(key, Collections.emptyMap());
+    }
+
+    /**
+     * @return Number of conversations waiting to be written
+     */
+    public int getPending() {
+        return pending.size();
+    }
+
+    /**
+     * Writes the pending conversations.
+     * @throws IllegalStateException If the conversations cannot be written. They are kept pending.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            for (int batches = pending.size() / batchSize + 1; batches > 0 && !pending.isEmpty(); batches--) {
+                Map<ConversationKey, Map<String, String>> batch = new ConcurrentHashMap<>();
+                flushing = batch;
+                try {
+                    Iterator<Map.Entry<ConversationKey, Map<String, String>>> entries = pending.entrySet().iterator();
+                    while (entries.hasNext() && batch.size() < batchSize) {
+                        Map.Entry<ConversationKey, Map<String, String>> entry = entries.next();
+                        batch.put(entry.getKey(), entry.getValue());
+                        pending.remove(entry.getKey(), entry.getValue());
+                    }
+                    write(batch);
+                } catch (SQLException e) {
+                    for (Map.Entry<ConversationKey, Map<String, String>> entry : batch.entrySet()) {
+                        pending.putIfAbsent(entry.getKey(), entry.getValue());
+                    }
+                    throw new IllegalStateException("could not write " + batch.size() + " conversations to " + tableName, e);
+                } finally {
+                    flushing = Collections.emptyMap();
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        flush();
+    }
+
+    private void enqueue(ConversationKey key, Map<String, String> attributes) {
+        pending.put(key, attributes);
+        if (pending.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                flushRequested.set(false);
+                scheduledFlush();
+            });
+        }
+    }
+
+    private void scheduledFlush() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            if (LOG.isErrorEnabled()) {
+                LOG.error("{} conversations pending. {}", pending.size(), e.getMessage(), e);
+            }
+        }
+    }
+
+    @NonNull
+    private Map<String, String> select(ConversationKey key) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT attributes FROM " + tableName + " WHERE chat_id = ? AND user_id = ?")) {
+            statement.setString(1, String.valueOf(key.getChatId()));
+            statement.setString(2, String.valueOf(key.getUserId()));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? decode(resultSet.getString(1)) : Collections.emptyMap();
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("could not load conversation " + key + " from " + tableName, e);
+        }
+    }
+
+    /**
+     * Writes a batch in one transaction. Conversations are updated first and the ones without a row are inserted,
+     * which works on any database without a dialect specific upsert.
+     */
+    private void write(Map<ConversationKey, Map<String, String>> batch) throws SQLException {
+        List<Map.Entry<ConversationKey, Map<String, String>>> upserts = new ArrayList<>(batch.size());
+        List<ConversationKey> deletes = new ArrayList<>();
+        for (Map.Entry<ConversationKey, Map<String, String>> entry : batch.entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                deletes.add(entry.getKey());
+            } else {
+                upserts.add(entry);
+            }
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                if (!deletes.isEmpty()) {
+                    delete(connection, deletes);
+                }
+                if (!upserts.isEmpty()) {
+                    upsert(connection, upserts);
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Wrote {} and deleted {} conversations", upserts.size(), deletes.size());
+        }
+    }
+
+    private void delete(Connection connection, List<ConversationKey> keys) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "DELETE FROM " + tableName + " WHERE chat_id = ? AND user_id = ?")) {
+            for (ConversationKey key : keys) {
+                statement.setString(1, String.valueOf(key.getChatId()));
+                statement.setString(2, String.valueOf(key.getUserId()));
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private void upsert(Connection connection, List<Map.Entry<ConversationKey, Map<String, String>>> entries) throws SQLException {
+        int[] updated;
+        try (PreparedStatement statement = connection.prepareStatement(
+                "UPDATE " + tableName + " SET attributes = ? WHERE chat_id = ? AND user_id = ?")) {
+            for (Map.Entry<ConversationKey, Map<String, String>> entry : entries) {
+                bindUpdate(statement, entry);
+                statement.addBatch();
+            }
+            updated = statement.executeBatch();
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == Statement.SUCCESS_NO_INFO) {
+                    // the driver does not report which rows exist, update them one at a time to find out
+                    bindUpdate(statement, entries.get(i));
+                    updated[i] = statement.executeUpdate();
+                }
+            }
+        }
+        List<Map.Entry<ConversationKey, Map<String, String>>> inserts = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            if (updated[i] <= 0) {
+                inserts.add(entries.get(i));
+            }
+        }
+        if (!inserts.isEmpty()) {
+            insert(connection, inserts);
+        }
+    }
+
+    /**
+     * Inserts conversations which had no row when they were updated. A row inserted concurrently by another store
+     * makes the insert fail with a duplicate key, in which case the conversation is updated instead.
+     */
+    private void insert(Connection connection, List<Map.Entry<ConversationKey, Map<String, String>>> entries) throws SQLException {
+        String sql = "INSERT INTO " + tableName + " (chat_id, user_id, attributes) VALUES (?, ?, ?)";
+        if (!connection.getMetaData().supportsSavepoints()) {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (Map.Entry<ConversationKey, Map<String, String>> entry : entries) {
+                    bindInsert(statement, entry);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (Map.Entry<ConversationKey, Map<String, String>> entry : entries) {
+                Savepoint savepoint = connection.setSavepoint();
+                try {
+                    bindInsert(statement, entry);
+                    statement.executeUpdate();
+                    connection.releaseSavepoint(savepoint);
+                } catch (SQLException e) {
+                    if (!isDuplicateKey(e)) {
+                        throw e;
+                    }
+                    connection.rollback(savepoint);
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Conversation {} was inserted concurrently, updating it", entry.getKey());
+                    }
+                    try (PreparedStatement update = connection.prepareStatement(
+                            "UPDATE " + tableName + " SET attributes = ? WHERE chat_id = ? AND user_id = ?")) {
+                        bindUpdate(update, entry);
+                        update.executeUpdate();
+                    }
+                }
+            }
+        }
+    }
+
+    private static void bindUpdate(PreparedStatement statement, Map.Entry<ConversationKey, Map<String, String>> entry) throws SQLException {
+        statement.setString(1, encode(entry.getValue()));
+        statement.setString(2, String.valueOf(entry.getKey().getChatId()));
+        statement.setString(3, String.valueOf(entry.getKey().getUserId()));
+    }
+
+    private static void bindInsert(PreparedStatement statement, Map.Entry<ConversationKey, Map<String, String>> entry) throws SQLException {
+        statement.setString(1, String.valueOf(entry.getKey().getChatId()));
+        statement.setString(2, String.valueOf(entry.getKey().getUserId()));
+        statement.setString(3, encode(entry.getValue()));
+    }
+
+    /**
+     * @param e Exception thrown by an insert
+     * @return Whether the insert violated a unique constraint, SQL state class 23 being integrity constraint violations
+     */
+    static boolean isDuplicateKey(@NonNull SQLException e) {
+        return e instanceof SQLIntegrityConstraintViolationException ||
+                (e.getSQLState() != null && e.getSQLState().startsWith("23"));
+    }
+
+    @NonNull
+    private Stripe stripeFor(@NonNull ConversationKey key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return stripes[hash & (STRIPES - 1)];
+    }
+
+    /**
+     * @param attributes Attributes
+     * @return The attributes as an url encoded form, readable with plain SQL
+     */
+    @NonNull
+    static String encode(@NonNull Map<String, String> attributes) {
+        StringBuilder form = new StringBuilder();
+        try {
+            for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+                if (form.length() > 0) {
+                    form.append('&');
+                }
+                form.append(URLEncoder.encode(attribute.getKey(), UTF_8))
+                        .append('=')
+                        .append(URLEncoder.encode(attribute.getValue(), UTF_8));
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        return form.toString();
+    }
+
+    @NonNull
+    static Map<String, String> decode(@Nullable String form) {
+        Map<String, String> attributes = new HashMap<>();
+        if (form == null || form.isEmpty()) {
+            return attributes;
+        }
+        try {
+            for (String pair : form.split("&")) {
+                int separator = pair.indexOf('=');
+                if (separator > 0) {
+                    attributes.put(URLDecoder.decode(pair.substring(0, separator), UTF_8),
+                            URLDecoder.decode(pair.substring(separator + 1), UTF_8));
+                }
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        return attributes;
+    }
+
+    private static final class Stripe {
+        private final Map<ConversationKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final int capacity;
+        private final long timeToIdleNanos;
+
+        private Stripe(int capacity, long timeToIdleNanos) {
+            this.capacity = capacity;
+            this.timeToIdleNanos = timeToIdleNanos;
+        }
+
+        private ConversationState get(ConversationKey key, long now) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (timeToIdleNanos > 0 && now - entry.lastAccess > timeToIdleNanos) {
+                entries.remove(key);
+                return null;
+            }
+            entry.lastAccess = now;
+            return entry.state;
+        }
+
+        private void put(ConversationKey key, ConversationState state, long now) {
+            entries.put(key, new Entry(state, now));
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (entries.size() > capacity && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final ConversationState state;
+        private long lastAccess;
+
+        private Entry(ConversationState state, long lastAccess) {
+            this.state = state;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.conversationjdbc;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.time.Duration;
+
+public interface JdbcConversationStoreConfiguration {
+
+    /**
+     * @return Table where the conversations are stored
+     */
+    @NonNull
+    String getTableName();
+
+    /**
+     * @return Number of pending conversations which triggers a flush, and maximum number of rows written per batch
+     */
+    int getBatchSize();
+
+    /**
+     * @return Interval at which pending conversations are written, or null to only write them when a batch is full
+     */
+    @Nullable
+    Duration getFlushInterval();
+
+    /**
+     * @return Whether to create the table on startup if it does not exist
+     */
+    boolean isCreateTable();
+}
@@ -0,0 +1,104 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.conversationjdbc;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.context.annotation.Requires;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import java.time.Duration;
+
+@Requires(property = JdbcConversationStoreConfigurationProperties.PREFIX + ".enabled", value = "true")
+@ConfigurationProperties(JdbcConversationStoreConfigurationProperties.PREFIX)
+public class JdbcConversationStoreConfigurationProperties implements JdbcConversationStoreConfiguration {
+    public static final String PREFIX = "chatbots.conversations.jdbc";
+
+    private static final String DEFAULT_TABLE_NAME = "chatbots_conversations";
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(1);
+    private static final boolean DEFAULT_CREATE_TABLE = false;
+
+    @NonNull
+    @NotBlank
+    private String tableName = DEFAULT_TABLE_NAME;
+
+    @Min(1)
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    @Nullable
+    private Duration flushInterval = DEFAULT_FLUSH_INTERVAL;
+
+    private boolean createTable = DEFAULT_CREATE_TABLE;
+
+    @Override
+    @NonNull
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Table where the conversations are stored. Default value ({@value #DEFAULT_TABLE_NAME}).
+     * @param tableName Table name
+     */
+    public void setTableName(@NonNull String tableName) {
+        this.tableName = tableName;
+    }
+
+    @Override
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Number of pending conversations which triggers a flush. Default value ({@value #DEFAULT_BATCH_SIZE}).
+     * @param batchSize Batch size
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    @Nullable
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+
+    /**
+     * Interval at which pending conversations are written. Default value 1 second.
+     * @param flushInterval Flush interval
+     */
+    public void setFlushInterval(@Nullable Duration flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    @Override
+    public boolean isCreateTable() {
+        return createTable;
+    }
+
+    /**
+     * Whether to create the table on startup if it does not exist. Default value ({@value #DEFAULT_CREATE_TABLE}).
+     * @param createTable Whether to create the table
+     */
+    public void setCreateTable(boolean createTable) {
+        this.createTable = createTable;
+    }
+}
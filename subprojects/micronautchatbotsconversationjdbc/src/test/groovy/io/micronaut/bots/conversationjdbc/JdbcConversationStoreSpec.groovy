@@ -0,0 +1,243 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.conversationjdbc
+
+import io.micronaut.bots.core.ConversationKey
+import io.micronaut.bots.core.ConversationState
+import org.h2.jdbcx.JdbcDataSource
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import javax.sql.DataSource
+import java.lang.reflect.InvocationHandler
+import java.lang.reflect.InvocationTargetException
+import java.lang.reflect.Method
+import java.lang.reflect.Proxy
+import java.sql.Connection
+import java.sql.PreparedStatement
+import java.sql.ResultSet
+import java.sql.SQLException
+import java.sql.Statement
+
+class JdbcConversationStoreSpec extends Specification {
+
+    JdbcDataSource dataSource = new JdbcDataSource(url: "jdbc:h2:mem:${UUID.randomUUID()};DB_CLOSE_DELAY=-1")
+
+    void "saves are written behind in batches"() {
+        given:
+        JdbcConversationStore store = open(3)
+
+        when:
+        save(store, new ConversationKey(1L, 1L), 'step', 'email')
+        save(store, new ConversationKey(1L, 1L), 'step', 'name')
+
+        then: 'updates of a conversation are coalesced'
+        store.pending == 1
+        rows() == 0
+
+        when:
+        save(store, new ConversationKey(2L, 1L), 'step', 'email')
+        save(store, new ConversationKey('spaces/a', 'users/b'), 'step', 'email')
+
+        then: 'a full batch is flushed'
+        new PollingConditions(timeout: 5).eventually {
+            assert rows() == 3
+        }
+        query("SELECT attributes FROM chatbots_conversations WHERE chat_id = '1' AND user_id = '1'") == 'step=name'
+
+        cleanup:
+        store.close()
+    }
+
+    void "pending conversations are written on close and read through on load"() {
+        given:
+        JdbcConversationStore store = open(100)
+        save(store, new ConversationKey(1L, 2L), 'step', 'a b&c=d')
+        save(store, new ConversationKey(3L, 4L), 'step', 'age')
+        store.flush()
+        store.remove(new ConversationKey(3L, 4L))
+
+        expect:
+        store.load(new ConversationKey(3L, 4L)).empty
+
+        when:
+        store.close()
+        store = open(100)
+
+        then:
+        rows() == 1
+        store.load(new ConversationKey(1, 2)).get('step') == 'a b&c=d'
+        store.load(new ConversationKey(3L, 4L)).empty
+
+        cleanup:
+        store.close()
+    }
+
+    void "unsaved conversations are loaded from the pending ones after they leave the cache"() {
+        given:
+        JdbcConversationStore store = new JdbcConversationStore(dataSource, 'chatbots_conversations', 100, null, 1, null)
+        store.createTable()
+        save(store, new ConversationKey(1L, 1L), 'step', 'email')
+
+        when: 'the conversation is evicted from the cache'
+        200.times { store.load(new ConversationKey(it + 2 as Long, 1L)) }
+
+        then:
+        rows() == 0
+        store.load(new ConversationKey(1L, 1L)).get('step') == 'email'
+
+        cleanup:
+        store.close()
+    }
+
+    void "rows of a batch reported without an update count are inserted when missing"() {
+        given:
+        JdbcConversationStore store = open(100)
+        save(store, new ConversationKey(1L, 1L), 'step', 'email')
+        store.flush()
+        store.close()
+        store = new JdbcConversationStore(wrap { Connection connection, String sql ->
+            PreparedStatement statement = connection.prepareStatement(sql)
+            if (!sql.startsWith('UPDATE')) {
+                return statement
+            }
+            wrap(PreparedStatement, statement, 'executeBatch') { Object[] args ->
+                int[] counts = statement.executeBatch()
+                counts.collect { Statement.SUCCESS_NO_INFO } as int[]
+            }
+        }, 'chatbots_conversations', 100, null, 100, null)
+
+        when:
+        save(store, new ConversationKey(1L, 1L), 'step', 'name')
+        save(store, new ConversationKey(2L, 1L), 'step', 'email')
+        store.flush()
+
+        then:
+        rows() == 2
+        query("SELECT attributes FROM chatbots_conversations WHERE chat_id = '1' AND user_id = '1'") == 'step=name'
+        query("SELECT attributes FROM chatbots_conversations WHERE chat_id = '2' AND user_id = '1'") == 'step=email'
+
+        cleanup:
+        store.close()
+    }
+
+    void "a conversation inserted concurrently is updated instead"() {
+        given:
+        open(100).close()
+        boolean inserted = false
+        JdbcConversationStore store = new JdbcConversationStore(wrap { Connection connection, String sql ->
+            if (sql.startsWith('INSERT') && !inserted) {
+                inserted = true
+                execute("INSERT INTO chatbots_conversations (chat_id, user_id, attributes) VALUES ('1', '1', 'step=other')")
+            }
+            connection.prepareStatement(sql)
+        }, 'chatbots_conversations', 100, null, 100, null)
+
+        when:
+        save(store, new ConversationKey(1L, 1L), 'step', 'email')
+        save(store, new ConversationKey(2L, 1L), 'step', 'email')
+        store.flush()
+
+        then:
+        inserted
+        store.pending == 0
+        rows() == 2
+        query("SELECT attributes FROM chatbots_conversations WHERE chat_id = '1' AND user_id = '1'") == 'step=email'
+
+        cleanup:
+        store.close()
+    }
+
+    void "duplicate keys are recognised by their SQL state"() {
+        expect:
+        JdbcConversationStore.isDuplicateKey(new SQLException('duplicate', '23505'))
+        !JdbcConversationStore.isDuplicateKey(new SQLException('timeout', '57014'))
+        !JdbcConversationStore.isDuplicateKey(new SQLException('unknown'))
+    }
+
+    void "attributes are stored as an url encoded form"() {
+        expect:
+        JdbcConversationStore.decode(JdbcConversationStore.encode(attributes)) == attributes
+
+        where:
+        attributes << [[:], [step: 'email'], [step: 'a b&c=d', 'ñ': '=']]
+    }
+
+    private JdbcConversationStore open(int batchSize) {
+        JdbcConversationStore store = new JdbcConversationStore(dataSource, 'chatbots_conversations', batchSize, null, 100, null)
+        store.createTable()
+        store
+    }
+
+    private int rows() {
+        query('SELECT COUNT(*) FROM chatbots_conversations') as int
+    }
+
+    private String query(String select) {
+        Connection connection = dataSource.connection
+        try {
+            ResultSet resultSet = connection.createStatement().executeQuery(select)
+            resultSet.next()
+            resultSet.getString(1)
+        } finally {
+            connection.close()
+        }
+    }
+
+    private void execute(String sql) {
+        Connection connection = dataSource.connection
+        try {
+            connection.createStatement().execute(sql)
+        } finally {
+            connection.close()
+        }
+    }
+
+    /**
+     * @param prepare Prepares the statements of the connections given by the returned data source
+     */
+    private DataSource wrap(Closure<PreparedStatement> prepare) {
+        DataSource wrapped = dataSource
+        [getConnection: { ->
+            Connection connection = wrapped.connection
+            wrap(Connection, connection, 'prepareStatement') { Object[] args -> prepare.call(connection, args[0]) }
+        }] as DataSource
+    }
+
+    private static <T> T wrap(Class<T> type, T target, String methodName, Closure<?> replacement) {
+        (T) Proxy.newProxyInstance(type.classLoader, [type] as Class[], new InvocationHandler() {
+            @Override
+            Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (method.name == methodName) {
+                    return replacement.call((Object) (args ?: new Object[0]))
+                }
+                try {
+                    method.invoke(target, args)
+                } catch (InvocationTargetException e) {
+                    throw e.cause
+                }
+            }
+        })
+    }
+
+    private static void save(JdbcConversationStore store, ConversationKey key, String name, String value) {
+        ConversationState state = store.load(key)
+        state.put(name, value)
+        store.save(state)
+    }
+}
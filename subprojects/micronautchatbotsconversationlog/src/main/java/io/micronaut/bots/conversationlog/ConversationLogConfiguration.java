@@ -0,0 +1,49 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.conversationlog;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.time.Duration;
+
+public interface ConversationLogConfiguration {
+
+    /**
+     * @return Directory where the log segments and snapshots are written
+     */
+    @NonNull
+    String getDirectory();
+
+    /**
+     * @return Size in bytes of each memory-mapped log segment
+     */
+    int getSegmentSize();
+
+    /**
+     * @return Interval at which the log is forced to disk, or null to leave it to the operating system
+     */
+    @Nullable
+    Duration getFlushInterval();
+
+    /**
+     * @return Interval at which a snapshot is written and the log segments it covers are deleted, or null to never compact
+     */
+    @Nullable
+    Duration getSnapshotInterval();
+}
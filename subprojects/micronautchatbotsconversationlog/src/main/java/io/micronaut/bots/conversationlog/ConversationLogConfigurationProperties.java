@@ -0,0 +1,105 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.conversationlog;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.context.annotation.Requires;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import java.time.Duration;
+
+@Requires(property = ConversationLogConfigurationProperties.PREFIX + ".directory")
+@ConfigurationProperties(ConversationLogConfigurationProperties.PREFIX)
+public class ConversationLogConfigurationProperties implements ConversationLogConfiguration {
+    public static final String PREFIX = "chatbots.conversations.log";
+
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(1);
+    private static final Duration DEFAULT_SNAPSHOT_INTERVAL = Duration.ofMinutes(10);
+
+    @NonNull
+    @NotBlank
+    private String directory;
+
+    @Min(4096)
+    private int segmentSize = DEFAULT_SEGMENT_SIZE;
+
+    @Nullable
+    private Duration flushInterval = DEFAULT_FLUSH_INTERVAL;
+
+    @Nullable
+    private Duration snapshotInterval = DEFAULT_SNAPSHOT_INTERVAL;
+
+    @Override
+    @NonNull
+    public String getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Directory where the log segments and snapshots are written.
+     * @param directory Directory
+     */
+    public void setDirectory(@NonNull String directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * Size in bytes of each memory-mapped log segment. Default value ({@value #DEFAULT_SEGMENT_SIZE}).
+     * @param segmentSize Segment size
+     */
+    public void setSegmentSize(int segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    @Override
+    @Nullable
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+
+    /**
+     * Interval at which the log is forced to disk. Default value 1 second.
+     * @param flushInterval Flush interval
+     */
+    public void setFlushInterval(@Nullable Duration flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    @Override
+    @Nullable
+    public Duration getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    /**
+     * Interval at which a snapshot is written and the log segments it covers are deleted. Default value 10 minutes.
+     * @param snapshotInterval Snapshot interval
+     */
+    public void setSnapshotInterval(@Nullable Duration snapshotInterval) {
+        this.snapshotInterval = snapshotInterval;
+    }
+}
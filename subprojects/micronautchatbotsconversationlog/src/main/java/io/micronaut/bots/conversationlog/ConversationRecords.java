@@ -0,0 +1,230 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.conversationlog;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.micronaut.bots.core.ConversationKey;
+import io.micronaut.bots.core.ConversationState;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary format of the conversation log. Each record is framed by the length and the CRC32 of its payload, so a
+ * record torn by a crash is detected and everything after it is ignored.
+ * <pre>
+ * record  := length:int crc:int payload
+ * payload := PUT key count:int (name:string value:string)* | REMOVE key | END
+ * key     := id id
+ * id      := LONG value:long | STRING value:string
+ * string  := length:int utf8
+ * </pre>
+ */
+final class ConversationRecords {
+    static final int HEADER = 8;
+
+    static final byte PUT = 1;
+    static final byte REMOVE = 2;
+    static final byte END = 3;
+
+    private static final byte LONG = 1;
+    private static final byte STRING = 2;
+
+    private static final int WINDOW = 64 * 1024 * 1024;
+
+    private ConversationRecords() {
+    }
+
+    /**
+     * Receives the records read from a log segment or a snapshot.
+     */
+    interface Visitor {
+        void put(@NonNull ConversationKey key, @NonNull Map<String, String> attributes);
+
+        void remove(@NonNull ConversationKey key);
+
+        void end();
+    }
+
+    @NonNull
+    static byte[] put(@NonNull ConversationState state) {
+        Map<String, String> attributes = new HashMap<>(state.getAttributes());
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + attributes.size() * 32);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(PUT);
+            writeKey(out, state.getKey());
+            out.writeInt(attributes.size());
+            for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+                writeString(out, attribute.getKey());
+                writeString(out, attribute.getValue());
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @NonNull
+    static byte[] remove(@NonNull ConversationKey key) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(REMOVE);
+            writeKey(out, key);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @NonNull
+    static byte[] end() {
+        return new byte[] {END};
+    }
+
+    static int crc(@NonNull byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+
+    static void writeFramed(@NonNull DataOutputStream out, @NonNull byte[] payload) throws IOException {
+        out.writeInt(payload.length);
+        out.writeInt(crc(payload));
+        out.write(payload);
+    }
+
+    /**
+     * Reads the records of a file until its end or the first torn record. The file is mapped in windows, so its size is
+     * not limited by the size of a {@link MappedByteBuffer}.
+     * @param channel File channel
+     * @param size Number of bytes to read
+     * @param visitor Visitor of the records
+     * @return The offset after the last valid record
+     * @throws IOException If the file cannot be mapped
+     */
+    static long replay(@NonNull FileChannel channel, long size, @NonNull Visitor visitor) throws IOException {
+        long position = 0;
+        long windowStart = 0;
+        ByteBuffer window = ByteBuffer.allocate(0);
+        CRC32 crc = new CRC32();
+        while (size - position >= HEADER) {
+            int offset = (int) (position - windowStart);
+            if (window.capacity() - offset < HEADER) {
+                windowStart = position;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(size - position, WINDOW));
+                offset = 0;
+            }
+            int length = window.getInt(offset);
+            int checksum = window.getInt(offset + 4);
+            if (length <= 0 || length > size - position - HEADER) {
+                break;
+            }
+            if (window.capacity() - offset - HEADER < length) {
+                windowStart = position;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(size - position, Math.max(WINDOW, (long) HEADER + length)));
+                offset = 0;
+            }
+            ByteBuffer payload = window.duplicate();
+            payload.limit(offset + HEADER + length).position(offset + HEADER);
+            payload = payload.slice();
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            read(payload, visitor);
+            position += HEADER + length;
+        }
+        return position;
+    }
+
+    static void read(@NonNull ByteBuffer payload, @NonNull Visitor visitor) {
+        byte op = payload.get();
+        if (op == END) {
+            visitor.end();
+            return;
+        }
+        ConversationKey key = new ConversationKey(readId(payload), readId(payload));
+        if (op == REMOVE) {
+            visitor.remove(key);
+            return;
+        }
+        int count = payload.getInt();
+        Map<String, String> attributes = new HashMap<>(Math.max(4, count * 2));
+        for (int i = 0; i < count; i++) {
+            attributes.put(readString(payload), readString(payload));
+        }
+        visitor.put(key, attributes);
+    }
+
+    private static void writeKey(DataOutputStream out, ConversationKey key) throws IOException {
+        writeId(out, key.getChatId());
+        writeId(out, key.getUserId());
+    }
+
+    private static void writeId(DataOutputStream out, Serializable id) throws IOException {
+        if (id instanceof Long || id instanceof Integer || id instanceof Short || id instanceof Byte) {
+            out.writeByte(LONG);
+            out.writeLong(((Number) id).longValue());
+        } else if (id instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) id);
+        } else {
+            throw new IllegalArgumentException("conversation ids must be integral numbers or strings, found " + id.getClass().getName());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static Serializable readId(ByteBuffer payload) {
+        byte type = payload.get();
+        if (type == LONG) {
+            return payload.getLong();
+        }
+        return readString(payload);
+    }
+
+    private static String readString(ByteBuffer payload) {
+        int length = payload.getInt();
+        if (payload.hasArray()) {
+            String value = new String(payload.array(), payload.arrayOffset() + payload.position(), length, StandardCharsets.UTF_8);
+            payload.position(payload.position() + length);
+            return value;
+        }
+        byte[] bytes = new byte[length];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
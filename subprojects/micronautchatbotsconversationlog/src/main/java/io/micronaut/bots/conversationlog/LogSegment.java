@@ -0,0 +1,143 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.conversationlog;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Log segment open for appends. The whole segment is mapped up front, so an append is a copy into memory which the
+ * operating system writes back even if the process crashes. Unused bytes are zero, which marks the end of the log.
+ */
+final class LogSegment implements Closeable {
+
+    private final long sequence;
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    private LogSegment(long sequence, Path path, FileChannel channel, int capacity, int position) throws IOException {
+        this.sequence = sequence;
+        this.path = path;
+        this.channel = channel;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        this.buffer.position(position);
+    }
+
+    /**
+     * @param sequence Sequence of the segment
+     * @param path Path of the segment, which must not exist
+     * @param capacity Size in bytes of the segment
+     * @return A new empty segment
+     * @throws IOException If the segment cannot be created
+     */
+    @NonNull
+    static LogSegment create(long sequence, @NonNull Path path, int capacity) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new LogSegment(sequence, path, channel, capacity, 0);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Replays an existing segment and opens it for appends after its last valid record. A record torn by a crash is
+     * zeroed so it is not mistaken for a valid one once newer records are appended.
+     * @param sequence Sequence of the segment
+     * @param path Path of the segment
+     * @param capacity Minimum size in bytes of the segment
+     * @param visitor Visitor of the records of the segment
+     * @return The segment open for appends
+     * @throws IOException If the segment cannot be read
+     */
+    @NonNull
+    static LogSegment open(long sequence, @NonNull Path path, int capacity, @NonNull ConversationRecords.Visitor visitor) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("log segment " + path + " is larger than " + Integer.MAX_VALUE + " bytes");
+            }
+            int end = (int) ConversationRecords.replay(channel, size, visitor);
+            LogSegment segment = new LogSegment(sequence, path, channel, Math.max(capacity, (int) size), end);
+            segment.zeroTail();
+            return segment;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    @NonNull
+    Path getPath() {
+        return path;
+    }
+
+    int position() {
+        return buffer.position();
+    }
+
+    /**
+     * @param payload Payload of the record
+     * @return False if the record does not fit in the segment
+     */
+    boolean append(@NonNull byte[] payload) {
+        if (buffer.remaining() < ConversationRecords.HEADER + payload.length) {
+            return false;
+        }
+        int start = buffer.position();
+        buffer.position(start + 4);
+        buffer.putInt(ConversationRecords.crc(payload));
+        buffer.put(payload);
+        // the length goes last, so a record is never visible before its payload
+        buffer.putInt(start, payload.length);
+        return true;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private void zeroTail() {
+        int position = buffer.position();
+        if (buffer.remaining() >= 4 && buffer.getInt(position) == 0) {
+            return;
+        }
+        for (int i = position; i < buffer.limit(); i++) {
+            buffer.put(i, (byte) 0);
+        }
+    }
+}
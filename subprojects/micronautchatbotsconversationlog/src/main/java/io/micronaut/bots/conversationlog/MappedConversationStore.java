@@ -0,0 +1,429 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.conversationlog;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.micronaut.bots.core.ConversationKey;
+import io.micronaut.bots.core.ConversationState;
+import io.micronaut.bots.core.ConversationStore;
+import io.micronaut.context.annotation.Requires;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ConversationStore} which keeps every conversation in memory and persists it to an append-only log of
+ * memory-mapped segments in a local directory. Every save appends the whole state of the conversation, so replaying
+ * the log is idempotent. Periodically the conversations are written to a snapshot and the segments it covers are
+ * deleted. On startup the latest snapshot and the segments after it are replayed; a record torn by a crash is ignored.
+ * Loaded and saved states are copies, so the stored conversations only change through {@link #save(ConversationState)}.
+ */
+@Singleton
+@Requires(beans = ConversationLogConfiguration.class)
+public class MappedConversationStore implements ConversationStore, AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(MappedConversationStore.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".dat";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Map<ConversationKey, ConversationState> states = new ConcurrentHashMap<>();
+    private final Object appendLock = new Object();
+    private final Object snapshotLock = new Object();
+    @Nullable
+    private final ScheduledExecutorService scheduler;
+
+    private LogSegment segment;
+    private long appendedSinceSnapshot;
+
+    public MappedConversationStore(ConversationLogConfiguration configuration) {
+        this(Paths.get(configuration.getDirectory()), configuration.getSegmentSize(),
+                configuration.getFlushInterval(), configuration.getSnapshotInterval());
+    }
+
+    /**
+     * @param directory Directory of the log, created if it does not exist
+     * @param segmentSize Size in bytes of each log segment
+     * @param flushInterval Interval at which the log is forced to disk, null to leave it to the operating system
+     * @param snapshotInterval Interval at which a snapshot is written, null to never write one automatically
+     */
+    public MappedConversationStore(@NonNull Path directory,
+                                   int segmentSize,
+                                   @Nullable Duration flushInterval,
+                                   @Nullable Duration snapshotInterval) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        long start = System.nanoTime();
+        try {
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not read the conversation log in " + directory, e);
+        }
+        if (LOG.isInfoEnabled()) {
+            LOG.info("Loaded {} conversations from {} in {} ms", states.size(), directory,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        if (flushInterval == null && snapshotInterval == null) {
+            this.scheduler = null;
+            return;
+        }
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "chatbots-conversation-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        if (flushInterval != null) {
+            long nanos = flushInterval.toNanos();
+            executor.scheduleWithFixedDelay(this::flush, nanos, nanos, TimeUnit.NANOSECONDS);
+        }
+        if (snapshotInterval != null) {
+            long nanos = snapshotInterval.toNanos();
+            executor.scheduleWithFixedDelay(this::scheduledSnapshot, nanos, nanos, TimeUnit.NANOSECONDS);
+        }
+        this.scheduler = executor;
+    }
+
+    @NonNull
+    @Override
+    public ConversationState load(@NonNull ConversationKey key) {
+        ConversationState state = states.get(key);
+        return state != null ? new ConversationState(key, state.getAttributes()) : new ConversationState(key);
+    }
+
+    @Override
+    public void save(@NonNull ConversationState state) {
+        ConversationKey key = state.getKey();
+        if (state.isEmpty()) {
+            remove(key);
+            state.markSaved();
+            return;
+        }
+        if (!state.isModified()) {
+            ConversationState stored = states.get(key);
+            if (stored != null && stored.getAttributes().equals(state.getAttributes())) {
+                return;
+            }
+        }
+        ConversationState saved = new ConversationState(key, state.getAttributes());
+        byte[] record = ConversationRecords.put(saved);
+        synchronized (appendLock) {
+            append(record);
+            states.put(key, saved);
+        }
+        state.markSaved();
+    }
+
+    @Override
+    public void remove(@NonNull ConversationKey key) {
+        if (!states.containsKey(key)) {
+            return;
+        }
+        byte[] record = ConversationRecords.remove(key);
+        synchronized (appendLock) {
+            if (states.remove(key) != null) {
+                append(record);
+            }
+        }
+    }
+
+    /**
+     * @return Number of conversations
+     */
+    public int size() {
+        return states.size();
+    }
+
+    /**
+     * Forces the records appended to the log to disk.
+     */
+    public void flush() {
+        LogSegment current;
+        synchronized (appendLock) {
+            current = segment;
+        }
+        current.force();
+    }
+
+    /**
+     * Writes every conversation to a snapshot and deletes the log segments and snapshots it replaces.
+     * Saves continue while the snapshot is written, into a new segment.
+     * @throws UncheckedIOException If the snapshot cannot be written
+     */
+    public void snapshot() {
+        synchronized (snapshotLock) {
+            long covered;
+            long appended;
+            synchronized (appendLock) {
+                if (appendedSinceSnapshot == 0) {
+                    return;
+                }
+                covered = segment.getSequence();
+                appended = appendedSinceSnapshot;
+                rotate(segmentSize);
+                appendedSinceSnapshot = 0;
+            }
+            try {
+                writeSnapshot(covered);
+            } catch (IOException | RuntimeException e) {
+                synchronized (appendLock) {
+                    appendedSinceSnapshot += appended;
+                }
+                if (e instanceof IOException) {
+                    throw new UncheckedIOException("could not write a snapshot of the conversations in " + directory, (IOException) e);
+                }
+                throw (RuntimeException) e;
+            }
+            deleteBefore(covered);
+        }
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        synchronized (appendLock) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn("could not close the conversation log segment {}", segment.getPath(), e);
+                }
+            }
+        }
+    }
+
+    private void append(byte[] record) {
+        if (!segment.append(record)) {
+            rotate(Math.max(segmentSize, ConversationRecords.HEADER + record.length));
+            segment.append(record);
+        }
+        appendedSinceSnapshot++;
+    }
+
+    private void rotate(int capacity) {
+        LogSegment previous = segment;
+        long sequence = previous.getSequence() + 1;
+        try {
+            segment = LogSegment.create(sequence, segmentPath(sequence), capacity);
+            previous.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not create the conversation log segment " + sequence, e);
+        }
+    }
+
+    private void scheduledSnapshot() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            if (LOG.isErrorEnabled()) {
+                LOG.error("could not write a snapshot of the conversations in {}", directory, e);
+            }
+        }
+    }
+
+    private void writeSnapshot(long sequence) throws IOException {
+        Path temporary = directory.resolve(SNAPSHOT_PREFIX + format(sequence) + SNAPSHOT_SUFFIX + TEMPORARY_SUFFIX);
+        int count = 0;
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            for (ConversationState state : states.values()) {
+                if (!state.isEmpty()) {
+                    ConversationRecords.writeFramed(out, ConversationRecords.put(state));
+                    count++;
+                }
+            }
+            ConversationRecords.writeFramed(out, ConversationRecords.end());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, snapshotPath(sequence), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Wrote a snapshot of {} conversations up to segment {}", count, sequence);
+        }
+    }
+
+    private void deleteBefore(long sequence) {
+        try {
+            for (Map.Entry<Long, Path> entry : list(SEGMENT_PREFIX, SEGMENT_SUFFIX).entrySet()) {
+                if (entry.getKey() <= sequence) {
+                    delete(entry.getValue());
+                }
+            }
+            for (Map.Entry<Long, Path> entry : list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).entrySet()) {
+                if (entry.getKey() < sequence) {
+                    delete(entry.getValue());
+                }
+            }
+        } catch (IOException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("could not list the conversation log in {}", directory, e);
+            }
+        }
+    }
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> temporaries = Files.newDirectoryStream(directory, "*" + TEMPORARY_SUFFIX)) {
+            for (Path temporary : temporaries) {
+                delete(temporary);
+            }
+        }
+        ConversationRecords.Visitor visitor = new Replay();
+        long snapshot = -1;
+        for (Map.Entry<Long, Path> entry : list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).descendingMap().entrySet()) {
+            if (readSnapshot(entry.getValue(), visitor)) {
+                snapshot = entry.getKey();
+                break;
+            }
+            states.clear();
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Ignoring incomplete conversation snapshot {}", entry.getValue());
+            }
+        }
+        appendedSinceSnapshot = 0;
+        TreeMap<Long, Path> segments = list(SEGMENT_PREFIX, SEGMENT_SUFFIX);
+        Map.Entry<Long, Path> last = segments.lastEntry();
+        for (Map.Entry<Long, Path> entry : segments.entrySet()) {
+            if (entry.getKey() <= snapshot) {
+                delete(entry.getValue());
+            } else if (!entry.getKey().equals(last.getKey())) {
+                try (FileChannel channel = FileChannel.open(entry.getValue(), StandardOpenOption.READ)) {
+                    ConversationRecords.replay(channel, channel.size(), visitor);
+                }
+            }
+        }
+        if (last != null && last.getKey() > snapshot) {
+            segment = LogSegment.open(last.getKey(), last.getValue(), segmentSize, visitor);
+        } else {
+            long sequence = Math.max(snapshot, last != null ? last.getKey() : -1) + 1;
+            segment = LogSegment.create(sequence, segmentPath(sequence), segmentSize);
+        }
+    }
+
+    private boolean readSnapshot(Path path, ConversationRecords.Visitor visitor) throws IOException {
+        boolean[] complete = new boolean[1];
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ConversationRecords.replay(channel, channel.size(), new ConversationRecords.Visitor() {
+                @Override
+                public void put(@NonNull ConversationKey key, @NonNull Map<String, String> attributes) {
+                    visitor.put(key, attributes);
+                }
+
+                @Override
+                public void remove(@NonNull ConversationKey key) {
+                    visitor.remove(key);
+                }
+
+                @Override
+                public void end() {
+                    complete[0] = true;
+                }
+            });
+        }
+        return complete[0];
+    }
+
+    private TreeMap<Long, Path> list(String prefix, String suffix) throws IOException {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                try {
+                    files.put(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())), path);
+                } catch (NumberFormatException e) {
+                    if (LOG.isWarnEnabled()) {
+                        LOG.warn("Ignoring unexpected file {} in the conversation log", path);
+                    }
+                }
+            }
+        }
+        return files;
+    }
+
+    private void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("could not delete {}", path, e);
+            }
+        }
+    }
+
+    private Path segmentPath(long sequence) {
+        return directory.resolve(SEGMENT_PREFIX + format(sequence) + SEGMENT_SUFFIX);
+    }
+
+    private Path snapshotPath(long sequence) {
+        return directory.resolve(SNAPSHOT_PREFIX + format(sequence) + SNAPSHOT_SUFFIX);
+    }
+
+    private static String format(long sequence) {
+        return String.format("%020d", sequence);
+    }
+
+    /**
+     * Applies the records of the log to the conversations in memory.
+     */
+    private final class Replay implements ConversationRecords.Visitor {
+        @Override
+        public void put(@NonNull ConversationKey key, @NonNull Map<String, String> attributes) {
+            states.put(key, new ConversationState(key, attributes));
+            appendedSinceSnapshot++;
+        }
+
+        @Override
+        public void remove(@NonNull ConversationKey key) {
+            states.remove(key);
+            appendedSinceSnapshot++;
+        }
+
+        @Override
+        public void end() {
+        }
+    }
+}
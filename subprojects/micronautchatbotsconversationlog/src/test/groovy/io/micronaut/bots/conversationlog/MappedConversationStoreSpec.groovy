@@ -0,0 +1,212 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.conversationlog
+
+import io.micronaut.bots.core.ConversationKey
+import io.micronaut.bots.core.ConversationState
+import spock.lang.Specification
+
+import java.nio.MappedByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+
+class MappedConversationStoreSpec extends Specification {
+
+    Path directory = Files.createTempDirectory('conversations')
+
+    void cleanup() {
+        directory.toFile().deleteDir()
+    }
+
+    void "conversations survive a restart"() {
+        given:
+        MappedConversationStore store = open()
+        save(store, new ConversationKey(1L, 2L), 'step', 'email')
+        save(store, new ConversationKey('spaces/a', 'users/b'), 'step', 'name')
+        save(store, new ConversationKey(3L, 4L), 'step', 'age')
+        ConversationState removed = store.load(new ConversationKey(3L, 4L))
+        removed.clear()
+        store.save(removed)
+        store.close()
+
+        when:
+        store = open()
+
+        then:
+        store.size() == 2
+        store.load(new ConversationKey(1, 2)).get('step') == 'email'
+        !store.load(new ConversationKey(1, 2)).modified
+        store.load(new ConversationKey('spaces/a', 'users/b')).get('step') == 'name'
+        store.load(new ConversationKey(3L, 4L)).empty
+
+        cleanup:
+        store.close()
+    }
+
+    void "records which do not fit in a segment continue in a new one"() {
+        given:
+        MappedConversationStore store = open()
+
+        when:
+        100.times { save(store, new ConversationKey(it as Long, 1L), 'step', 'x' * 100) }
+        store.close()
+        store = open()
+
+        then:
+        segments().size() > 1
+        store.size() == 100
+        store.load(new ConversationKey(99L, 1L)).get('step') == 'x' * 100
+
+        cleanup:
+        store.close()
+    }
+
+    void "a record torn by a crash is ignored and overwritten"() {
+        given:
+        MappedConversationStore store = open()
+        save(store, new ConversationKey(1L, 1L), 'step', 'one')
+        save(store, new ConversationKey(2L, 2L), 'step', 'two')
+        store.close()
+        corruptLastRecord(segments().last())
+
+        when:
+        store = open()
+
+        then:
+        store.size() == 1
+        store.load(new ConversationKey(1L, 1L)).get('step') == 'one'
+
+        when:
+        save(store, new ConversationKey(3L, 3L), 'step', 'three')
+        store.close()
+        store = open()
+
+        then:
+        store.size() == 2
+        store.load(new ConversationKey(3L, 3L)).get('step') == 'three'
+
+        cleanup:
+        store.close()
+    }
+
+    void "a snapshot replaces the segments it covers"() {
+        given:
+        MappedConversationStore store = open()
+        10.times { save(store, new ConversationKey(it as Long, 1L), 'step', 'before') }
+
+        when:
+        store.snapshot()
+        save(store, new ConversationKey(1L, 1L), 'step', 'after')
+        store.close()
+
+        then:
+        directory.toFile().list().length == 2
+        Files.exists(directory.resolve('snapshot-00000000000000000000.dat'))
+
+        when:
+        store = open()
+
+        then:
+        store.size() == 10
+        store.load(new ConversationKey(1L, 1L)).get('step') == 'after'
+        store.load(new ConversationKey(2L, 1L)).get('step') == 'before'
+
+        cleanup:
+        store.close()
+    }
+
+    void "changes are only stored and logged when the conversation is saved"() {
+        given:
+        MappedConversationStore store = open()
+        ConversationKey key = new ConversationKey(1L, 2L)
+        ConversationState state = store.load(key)
+        state.put('step', 'email')
+        store.save(state)
+
+        when:
+        state.put('step', 'name')
+        store.load(key).put('step', 'address')
+        store.snapshot()
+        store.close()
+        store = open()
+
+        then:
+        store.load(key).get('step') == 'email'
+
+        when:
+        ConversationState loaded = store.load(key)
+        loaded.put('step', 'address')
+        store.save(loaded)
+
+        then:
+        !loaded.is(store.load(key))
+        store.load(key).get('step') == 'address'
+
+        cleanup:
+        store.close()
+    }
+
+    void "ids which are neither numbers nor strings are rejected"() {
+        given:
+        MappedConversationStore store = open()
+        ConversationState state = store.load(new ConversationKey(UUID.randomUUID(), 1L))
+        state.put('step', 'email')
+
+        when:
+        store.save(state)
+
+        then:
+        thrown(IllegalArgumentException)
+        store.size() == 0
+
+        cleanup:
+        store.close()
+    }
+
+    private MappedConversationStore open() {
+        new MappedConversationStore(directory, 4096, null, null)
+    }
+
+    private static void save(MappedConversationStore store, ConversationKey key, String name, String value) {
+        ConversationState state = store.load(key)
+        state.put(name, value)
+        store.save(state)
+    }
+
+    private List<Path> segments() {
+        directory.toFile().listFiles().findAll { it.name.endsWith('.log') }.sort()*.toPath()
+    }
+
+    private static void corruptLastRecord(Path segment) {
+        FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size())
+            int position = 0
+            int last = 0
+            while (buffer.getInt(position) > 0) {
+                last = position
+                position += ConversationRecords.HEADER + buffer.getInt(position)
+            }
+            buffer.put(last + ConversationRecords.HEADER + 2, (byte) 0x55)
+        } finally {
+            channel.close()
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+/**
+ * Token bucket limits of a bot. A burst or a rate of zero disables the corresponding limit.
+ */
+public interface AdmissionConfiguration {
+
+    /**
+     * @return Maximum number of updates a user can send in a burst
+     */
+    int getUserBurst();
+
+    /**
+     * @return Number of updates per minute a user is allowed once the burst is consumed
+     */
+    int getUserRatePerMinute();
+
+    /**
+     * @return Maximum number of updates a chat can receive in a burst
+     */
+    int getChatBurst();
+
+    /**
+     * @return Number of updates per minute a chat is allowed once the burst is consumed
+     */
+    int getChatRatePerMinute();
+}
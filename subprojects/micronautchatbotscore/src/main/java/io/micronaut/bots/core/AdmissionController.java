@@ -0,0 +1,33 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Decides whether an update is handled before any handler runs, to protect the bot from floods.
+ */
+public interface AdmissionController {
+
+    /**
+     * @param chatBot Chat bot which received the update
+     * @param context Dispatch context of the update
+     * @return false to drop the update
+     */
+    boolean admit(@NonNull ChatBot chatBot, @NonNull DispatchContext context);
+}
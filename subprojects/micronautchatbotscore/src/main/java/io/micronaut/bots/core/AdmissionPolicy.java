@@ -0,0 +1,109 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.Objects;
+
+/**
+ * Immutable copy of the {@link AdmissionConfiguration} of a bot.
+ */
+public final class AdmissionPolicy {
+
+    public static final AdmissionPolicy UNLIMITED = new AdmissionPolicy(0, 0, 0, 0);
+
+    private final int userBurst;
+    private final int userRatePerMinute;
+    private final int chatBurst;
+    private final int chatRatePerMinute;
+
+    public AdmissionPolicy(int userBurst, int userRatePerMinute, int chatBurst, int chatRatePerMinute) {
+        this.userBurst = userBurst;
+        this.userRatePerMinute = userRatePerMinute;
+        this.chatBurst = chatBurst;
+        this.chatRatePerMinute = chatRatePerMinute;
+    }
+
+    @NonNull
+    public static AdmissionPolicy of(@NonNull AdmissionConfiguration configuration) {
+        AdmissionPolicy policy = new AdmissionPolicy(configuration.getUserBurst(),
+                configuration.getUserRatePerMinute(),
+                configuration.getChatBurst(),
+                configuration.getChatRatePerMinute());
+        return policy.isUnlimited() ? UNLIMITED : policy;
+    }
+
+    public int getUserBurst() {
+        return userBurst;
+    }
+
+    public int getUserRatePerMinute() {
+        return userRatePerMinute;
+    }
+
+    public int getChatBurst() {
+        return chatBurst;
+    }
+
+    public int getChatRatePerMinute() {
+        return chatRatePerMinute;
+    }
+
+    public boolean isUserLimited() {
+        return userBurst > 0 && userRatePerMinute > 0;
+    }
+
+    public boolean isChatLimited() {
+        return chatBurst > 0 && chatRatePerMinute > 0;
+    }
+
+    public boolean isUnlimited() {
+        return !isUserLimited() && !isChatLimited();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        AdmissionPolicy that = (AdmissionPolicy) o;
+        return userBurst == that.userBurst &&
+                userRatePerMinute == that.userRatePerMinute &&
+                chatBurst == that.chatBurst &&
+                chatRatePerMinute == that.chatRatePerMinute;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userBurst, userRatePerMinute, chatBurst, chatRatePerMinute);
+    }
+
+    @Override
+    public String toString() {
+        return "AdmissionPolicy{" +
+                "userBurst=" + userBurst +
+                ", userRatePerMinute=" + userRatePerMinute +
+                ", chatBurst=" + chatBurst +
+                ", chatRatePerMinute=" + chatRatePerMinute +
+                '}';
+    }
+}
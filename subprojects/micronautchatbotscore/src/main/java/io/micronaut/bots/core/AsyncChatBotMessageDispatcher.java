@@ -0,0 +1,57 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Non-blocking counterpart of {@link ChatBotMessageDispatcher}.
+ */
+public interface AsyncChatBotMessageDispatcher {
+
+    @NonNull
+    CompletionStage<Optional<ChatBotMessageSend>> dispatchAsync(@NonNull ChatBot chatBot,
+                                                                @NonNull ChatBotMessageReceive messageReceive);
+
+    /**
+     * Dispatches a batch of messages received by the same bot. Messages of the same chat are handled in the order
+     * of the list, messages of different chats may be handled in parallel.
+     * @param chatBot Chat bot which received the messages
+     * @param messages Messages received
+     * @return One result per message, in the order of the list
+     */
+    @NonNull
+    default CompletionStage<List<DispatchResult>> dispatchAll(@NonNull ChatBot chatBot,
+                                                              @NonNull List<? extends ChatBotMessageReceive> messages) {
+        List<CompletableFuture<DispatchResult>> results = new ArrayList<>(messages.size());
+        for (ChatBotMessageReceive message : messages) {
+            try {
+                results.add(DispatchResult.of(dispatchAsync(chatBot, message)));
+            } catch (RuntimeException e) {
+                results.add(CompletableFuture.completedFuture(DispatchResult.failure(e)));
+            }
+        }
+        return DispatchResult.all(results);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * {@link CommandHandler} which does not block the calling thread. Handlers which only implement
+ * {@link CommandHandler} are run by the {@link AsyncChatBotMessageDispatcher} on a separate executor.
+ */
+public interface AsyncCommandHandler extends CommandHandler {
+
+    @NonNull
+    CompletionStage<Optional<ChatBotMessageSend>> handleAsync(@NonNull ChatBot chatBot,
+                                                              @NonNull ChatBotMessageReceive update);
+
+    @NonNull
+    default CompletionStage<Optional<ChatBotMessageSend>> handleAsync(@NonNull ChatBot chatBot,
+                                                                      @NonNull ChatBotMessageReceive update,
+                                                                      @NonNull DispatchContext context) {
+        return handleAsync(chatBot, update);
+    }
+
+    /**
+     * Waits for {@link #handleAsync(ChatBot, ChatBotMessageReceive)}. Only synchronous callers block here; the
+     * dispatcher calls {@link #handleAsync(ChatBot, ChatBotMessageReceive, DispatchContext)} directly.
+     */
+    @Override
+    default <T extends ChatBotMessageSend> Optional<T> handle(@NonNull ChatBot chatBot,
+                                                              @NonNull ChatBotMessageReceive update) {
+        return await(handleAsync(chatBot, update));
+    }
+
+    @Override
+    default <T extends ChatBotMessageSend> Optional<T> handle(@NonNull ChatBot chatBot,
+                                                              @NonNull ChatBotMessageReceive update,
+                                                              @NonNull DispatchContext context) {
+        return await(handleAsync(chatBot, update, context));
+    }
+
+    /**
+     * @param reply Reply of an asynchronous handler
+     * @param <T> Message type
+     * @return The reply, once complete. Unchecked exceptions of the handler are rethrown as they are instead of
+     * wrapped in a {@link CompletionException}.
+     */
+    @SuppressWarnings("unchecked")
+    @NonNull
+    static <T extends ChatBotMessageSend> Optional<T> await(@NonNull CompletionStage<Optional<ChatBotMessageSend>> reply) {
+        Optional<ChatBotMessageSend> send;
+        try {
+            send = reply.toCompletableFuture().join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+        return send.map(message -> (T) message);
+    }
+}
@@ -28,4 +28,11 @@ public interface BotCommandConfiguration extends Named {
 
     @Nullable
     ParseMode getParseMode();
+
+    /**
+     * @return Whether the file is a {@link ReplyTemplate}
+     */
+    default boolean isTemplate() {
+        return false;
+    }
 }
@@ -26,6 +26,7 @@ import edu.umd.cs.findbugs.annotations.Nullable;
 public class BotCommandConfigurationProperties implements BotCommandConfiguration {
     private String path;
     private ParseMode parseMode;
+    private boolean template;
 
     private final String name;
 
@@ -53,6 +54,19 @@ public class BotCommandConfigurationProperties implements BotCommandConfiguratio
         this.parseMode = parseMode;
     }
 
+    @Override
+    public boolean isTemplate() {
+        return template;
+    }
+
+    /**
+     * Whether the file is a reply template with placeholders such as {{user.firstName}}. Default value false.
+     * @param template template flag
+     */
+    public void setTemplate(boolean template) {
+        this.template = template;
+    }
+
     @NonNull
     @Override
     public String getName() {
@@ -0,0 +1,139 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+/**
+ * Case-insensitive literal searcher for a bot mention such as {@code @MyBot}, using Boyer-Moore-Horspool.
+ * Build it once per {@link ChatBot}; instances are immutable and safe to share between threads.
+ * A match followed by a letter, a digit or an underscore is part of a longer username and is ignored.
+ */
+public final class BotMentionMatcher {
+
+    private static final int TABLE_SIZE = 256;
+    private static final int TABLE_MASK = TABLE_SIZE - 1;
+
+    private final String mention;
+    private final char[] pattern;
+    private final int[] shifts;
+
+    /**
+     * @param mention Mention to search, for example {@code @MyBot}
+     */
+    public BotMentionMatcher(@NonNull String mention) {
+        this.mention = mention;
+        this.pattern = new char[mention.length()];
+        for (int i = 0; i < pattern.length; i++) {
+            pattern[i] = fold(mention.charAt(i));
+        }
+        this.shifts = new int[TABLE_SIZE];
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            shifts[i] = pattern.length;
+        }
+        for (int i = 0; i < pattern.length - 1; i++) {
+            shifts[pattern[i] & TABLE_MASK] = pattern.length - 1 - i;
+        }
+    }
+
+    @NonNull
+    public String getMention() {
+        return mention;
+    }
+
+    /**
+     * @param text Text to search
+     * @return Whether the text mentions the bot
+     */
+    public boolean matches(@Nullable CharSequence text) {
+        return text != null && indexOf(text, 0) >= 0;
+    }
+
+    /**
+     * @param text Text to search
+     * @param from Index to start the search from
+     * @return Index of the first mention at or after {@code from} or -1 if there is none
+     */
+    public int indexOf(@NonNull CharSequence text, int from) {
+        int m = pattern.length;
+        if (m == 0) {
+            return -1;
+        }
+        int last = m - 1;
+        int i = Math.max(from, 0);
+        int limit = text.length() - m;
+        while (i <= limit) {
+            char c = fold(text.charAt(i + last));
+            if (c == pattern[last]) {
+                int j = last - 1;
+                while (j >= 0 && fold(text.charAt(i + j)) == pattern[j]) {
+                    j--;
+                }
+                if (j < 0 && !isUsernamePart(text, i + m)) {
+                    return i;
+                }
+            }
+            i += shifts[c & TABLE_MASK];
+        }
+        return -1;
+    }
+
+    /**
+     * @param text Text to strip
+     * @return The text without any mention of the bot. The same instance if the text does not mention the bot.
+     */
+    @Nullable
+    public String strip(@Nullable String text) {
+        if (text == null) {
+            return null;
+        }
+        int index = indexOf(text, 0);
+        if (index < 0) {
+            return text;
+        }
+        StringBuilder sb = new StringBuilder(text.length() - pattern.length);
+        int start = 0;
+        while (index >= 0) {
+            sb.append(text, start, index);
+            start = index + pattern.length;
+            index = indexOf(text, start);
+        }
+        sb.append(text, start, text.length());
+        return sb.toString();
+    }
+
+    private static boolean isUsernamePart(CharSequence text, int index) {
+        if (index >= text.length()) {
+            return false;
+        }
+        char c = text.charAt(index);
+        return c == '_' || Character.isLetterOrDigit(c);
+    }
+
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    @Override
+    public String toString() {
+        return "BotMentionMatcher{" +
+                "mention='" + mention + '\'' +
+                '}';
+    }
+}
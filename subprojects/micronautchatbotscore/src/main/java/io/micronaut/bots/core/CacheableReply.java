@@ -0,0 +1,49 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@link CommandHandler} whose reply only depends on the command, the chat type and the language of the user.
+ * Replies are built once per key and reused, with only the chat swapped in, until they expire.
+ * The annotation is inherited so that subclasses generated for AOP advice are cached as well.
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface CacheableReply {
+
+    /**
+     * @return Seconds a reply is reused before the handler is called again
+     */
+    long ttlSeconds() default 600;
+
+    /**
+     * Handlers which reply the same to any command, such as the fallback for unknown commands, should disable it so
+     * that arbitrary commands sent by users share one entry instead of filling the cache.
+     * @return Whether the command is part of the key of the cached replies
+     */
+    boolean keyedByCommand() default true;
+}
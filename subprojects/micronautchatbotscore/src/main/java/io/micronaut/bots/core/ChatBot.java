@@ -17,7 +17,54 @@
  */
 package io.micronaut.bots.core;
 
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Optional;
+
 public interface ChatBot {
 
     String getAtUsername();
+
+    /**
+     * @return Secret which identifies the bot in the updates it receives, as the Telegram bot token, or null if none
+     */
+    @Nullable
+    default String getToken() {
+        return null;
+    }
+
+    /**
+     * @return Project of the bot in its platform, as the Google Cloud project of a Google Chat bot, or null if none
+     */
+    @Nullable
+    default String getProjectId() {
+        return null;
+    }
+
+    /**
+     * Implementations should build the matcher once and return the same instance.
+     * @return Matcher of the mentions of {@link #getAtUsername()}
+     */
+    @NonNull
+    default BotMentionMatcher getMentionMatcher() {
+        return new BotMentionMatcher(getAtUsername());
+    }
+
+    /**
+     * @return Limits applied to the updates received by the bot
+     */
+    @NonNull
+    default AdmissionPolicy getAdmissionPolicy() {
+        return AdmissionPolicy.UNLIMITED;
+    }
+
+    /**
+     * @return Maximum time a webhook waits for the reply before answering and sending the reply out of band
+     */
+    @NonNull
+    default Optional<Duration> getResponseDeadline() {
+        return Optional.empty();
+    }
 }
@@ -0,0 +1,52 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Keys the state kept per bot by what identifies the bot rather than by the bot instance, so the state of a bot
+ * survives a new instance of it and can be evicted once the bot is unregistered.
+ */
+final class ChatBotKey {
+
+    private ChatBotKey() {
+    }
+
+    /**
+     * @param chatBot Chat bot
+     * @return The token of the bot, else its project, else its username, else the bot itself
+     */
+    @NonNull
+    static Object of(@NonNull ChatBot chatBot) {
+        if (isPresent(chatBot.getToken())) {
+            return chatBot.getToken();
+        }
+        if (isPresent(chatBot.getProjectId())) {
+            return "project:" + chatBot.getProjectId();
+        }
+        if (isPresent(chatBot.getAtUsername())) {
+            return "username:" + chatBot.getAtUsername();
+        }
+        return chatBot;
+    }
+
+    private static boolean isPresent(String value) {
+        return value != null && !value.isEmpty();
+    }
+}
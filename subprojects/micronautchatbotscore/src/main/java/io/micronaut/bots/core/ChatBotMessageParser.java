@@ -30,4 +30,29 @@ public interface ChatBotMessageParser {
     Optional<String> parseTextWithoutBotName(@NonNull ChatBot telegramBot, @NonNull ChatBotMessageReceive messageReceive);
 
     Optional<Serializable> parseUserId(ChatBotMessageReceive messageReceive);
+
+    /**
+     * @param chatBot Chat bot which received the message
+     * @param messageReceive Message received
+     * @return Identifier which stays the same when the message is redelivered, used to drop duplicates
+     */
+    default Optional<Serializable> parseMessageId(@NonNull ChatBot chatBot, @NonNull ChatBotMessageReceive messageReceive) {
+        return Optional.empty();
+    }
+
+    /**
+     * Parses every value needed to dispatch the message. Implementations should override it to walk the message once.
+     * @param chatBot Chat bot which received the message
+     * @param messageReceive Message received
+     * @return The dispatch context of the message
+     */
+    @NonNull
+    default DispatchContext parseContext(@NonNull ChatBot chatBot, @NonNull ChatBotMessageReceive messageReceive) {
+        return DispatchContext.builder(DispatchContext.KIND_MESSAGE)
+                .text(parseText(messageReceive).orElse(null))
+                .textWithoutBotName(parseTextWithoutBotName(chatBot, messageReceive).orElse(null))
+                .chat(parseChat(messageReceive).orElse(null))
+                .userId(parseUserId(messageReceive).orElse(null))
+                .build();
+    }
 }
@@ -0,0 +1,43 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Delivers a {@link ChatBotMessageSend} out of band, through the API of the chat platform, instead of as the
+ * response to the webhook request.
+ */
+public interface ChatBotMessageSender {
+
+    /**
+     * @param bot Bot which sends the message
+     * @return Whether this sender can deliver messages of the bot
+     */
+    boolean supports(@NonNull ChatBot bot);
+
+    /**
+     * @param bot Bot which sends the message
+     * @param message Message to deliver
+     * @return Completes once the message is delivered
+     */
+    @NonNull
+    CompletionStage<?> send(@NonNull ChatBot bot, @NonNull ChatBotMessageSend message);
+}
@@ -0,0 +1,77 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Indexes the bots hosted by the application, so transports resolve the bot of an update in constant time.
+ * Bots can be registered and unregistered at runtime; lookups in progress keep using the previous bots.
+ */
+public interface ChatBotRegistry {
+
+    /**
+     * @param token Token of the bot, see {@link ChatBot#getToken()}
+     * @param type Type of the bot
+     * @param <B> Type of the bot
+     * @return The bot or an empty optional if no bot of the type has the token
+     */
+    @NonNull
+    <B extends ChatBot> Optional<B> findByToken(@NonNull String token, @NonNull Class<B> type);
+
+    /**
+     * @param projectId Project of the bot, see {@link ChatBot#getProjectId()}
+     * @param type Type of the bot
+     * @param <B> Type of the bot
+     * @return The bot or an empty optional if no bot of the type belongs to the project
+     */
+    @NonNull
+    <B extends ChatBot> Optional<B> findByProjectId(@NonNull String projectId, @NonNull Class<B> type);
+
+    /**
+     * @param atUsername Username of the bot, with or without the leading @
+     * @param type Type of the bot
+     * @param <B> Type of the bot
+     * @return The bot or an empty optional if no bot of the type has the username
+     */
+    @NonNull
+    <B extends ChatBot> Optional<B> findByUsername(@NonNull String atUsername, @NonNull Class<B> type);
+
+    /**
+     * @param type Type of the bots
+     * @param <B> Type of the bots
+     * @return The bots of the type, in registration order
+     */
+    @NonNull
+    <B extends ChatBot> Collection<B> getBots(@NonNull Class<B> type);
+
+    /**
+     * @param bot Bot to register
+     * @return false if a bot with the same token, project or username is already registered
+     */
+    boolean register(@NonNull ChatBot bot);
+
+    /**
+     * @param bot Bot to unregister
+     * @return false if the bot was not registered
+     */
+    boolean unregister(@NonNull ChatBot bot);
+}
@@ -0,0 +1,40 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+/**
+ * Runs tasks one at a time per key, typically a chat, while tasks of different keys run in parallel.
+ */
+public interface ChatExecutor {
+
+    /**
+     * @param key Key which orders the task, for example the chat id. Tasks without a key may run in any order.
+     * @param task Task to run
+     * @param <T> Result type
+     * @return Result of the task. Completes exceptionally with a
+     * {@link java.util.concurrent.RejectedExecutionException} if the queue of the key is full.
+     */
+    @NonNull
+    <T> CompletionStage<T> submit(@Nullable Object key, @NonNull Supplier<T> task);
+}
@@ -0,0 +1,45 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+
+import javax.validation.constraints.Min;
+
+@ConfigurationProperties(ChatExecutorConfigurationProperties.PREFIX)
+public class ChatExecutorConfigurationProperties implements ChatExecutorConfiguration {
+    public static final String PREFIX = "chatbots.executor";
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+    @Min(1)
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+    @Override
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Maximum number of tasks waiting in each chat. Default value ({@value #DEFAULT_QUEUE_CAPACITY}).
+     * @param queueCapacity Queue capacity
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import io.micronaut.context.annotation.Executable;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Routes a command to a bean method. Parameters are bound from the update by type: {@link ChatBot},
+ * {@link ChatBotMessageReceive}, {@link DispatchContext}, {@link CommandTokenizer}, {@link ChatBotSpace},
+ * {@link ConversationState} (saved after the method returns if it was modified), or by name:
+ * {@code chatId}, {@code userId}, {@code args}, {@code command}, {@code text}, {@code languageCode}.
+ * Other parameters are bound by a {@link CommandArgumentBinder}.
+ * The method may return a {@link ChatBotMessageSend}, a {@link String} reply, an {@link java.util.Optional} of
+ * either, or nothing.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Executable
+public @interface Command {
+
+    /**
+     * @return Command names without the {@link CommandHandler#COMMAND_PREFIX}
+     */
+    String[] value();
+}
@@ -0,0 +1,54 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.micronaut.core.type.Argument;
+
+import java.util.Optional;
+
+/**
+ * Binds parameters of {@link Command} methods which are specific to a chat platform.
+ * Binders are consulted once per parameter when the method is registered, never per update.
+ */
+public interface CommandArgumentBinder {
+
+    /**
+     * @param argument Parameter of the {@link Command} method
+     * @return The resolver of the parameter or an empty optional if this binder does not support it
+     */
+    @NonNull
+    Optional<Resolver> resolver(@NonNull Argument<?> argument);
+
+    /**
+     * Resolves the value of a parameter from an update.
+     */
+    @FunctionalInterface
+    interface Resolver {
+
+        /**
+         * @param chatBot Chat bot which received the update
+         * @param update Update received
+         * @param context Dispatch context of the update
+         * @return The value of the parameter
+         */
+        @Nullable
+        Object resolve(@NonNull ChatBot chatBot, @NonNull ChatBotMessageReceive update, @NonNull DispatchContext context);
+    }
+}
@@ -20,6 +20,8 @@ package io.micronaut.bots.core;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import io.micronaut.core.order.Ordered;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 public interface CommandHandler extends Ordered {
@@ -28,4 +30,26 @@ public interface CommandHandler extends Ordered {
     <T extends ChatBotMessageSend> Optional<T> handle(@NonNull ChatBot chatBot,
                                                       @NonNull ChatBotMessageReceive update);
 
+    /**
+     * Handles the update reusing the values already parsed by the dispatcher.
+     * @param chatBot Chat bot which received the update
+     * @param update Update received
+     * @param context Dispatch context of the update
+     * @param <T> Message type
+     * @return The message to send in response
+     */
+    default <T extends ChatBotMessageSend> Optional<T> handle(@NonNull ChatBot chatBot,
+                                                              @NonNull ChatBotMessageReceive update,
+                                                              @NonNull DispatchContext context) {
+        return handle(chatBot, update);
+    }
+
+    /**
+     * @return Additional command names, besides the bean name, routed to this handler.
+     */
+    @NonNull
+    default List<String> getAliases() {
+        return Collections.emptyList();
+    }
+
 }
@@ -0,0 +1,53 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+/**
+ * Resolves the {@link CommandHandler} registered for a command name.
+ */
+public interface CommandHandlerRegistry {
+
+    /**
+     * @param command Command name without the {@link CommandHandler#COMMAND_PREFIX}
+     * @return The handler registered for the command or null if none
+     */
+    @Nullable
+    default CommandHandler findCommandHandler(@NonNull CharSequence command) {
+        return findCommandHandler(command, 0, command.length());
+    }
+
+    /**
+     * @param text Text containing the command name
+     * @param start Start index of the command name, inclusive
+     * @param end End index of the command name, exclusive
+     * @return The handler registered for the command or null if none
+     */
+    @Nullable
+    CommandHandler findCommandHandler(@NonNull CharSequence text, int start, int end);
+
+    /**
+     * Routes a command to a handler after the registry is built. Lookups in progress keep using the previous routes.
+     * @param command Command name without the {@link CommandHandler#COMMAND_PREFIX}
+     * @param handler Handler of the command
+     * @return false if the command was already routed
+     */
+    boolean register(@NonNull String command, @NonNull CommandHandler handler);
+}
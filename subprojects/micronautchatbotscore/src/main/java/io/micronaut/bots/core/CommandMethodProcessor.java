@@ -0,0 +1,246 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.micronaut.context.BeanContext;
+import io.micronaut.context.Qualifier;
+import io.micronaut.context.exceptions.ConfigurationException;
+import io.micronaut.context.processor.ExecutableMethodProcessor;
+import io.micronaut.core.type.Argument;
+import io.micronaut.inject.BeanDefinition;
+import io.micronaut.inject.ExecutableMethod;
+import io.micronaut.inject.qualifiers.Qualifiers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Singleton;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Registers every {@link Command} method in the {@link CommandHandlerRegistry}. Parameters are bound once, when the
+ * method is registered, to resolvers which read the value from the update.
+ */
+@Singleton
+public class CommandMethodProcessor implements ExecutableMethodProcessor<Command> {
+    private static final Logger LOG = LoggerFactory.getLogger(CommandMethodProcessor.class);
+
+    private final BeanContext beanContext;
+    private final CommandHandlerRegistry commandHandlerRegistry;
+    private final MessageComposer messageComposer;
+    private final ChatBotMessageParser messageParser;
+    private final Collection<CommandArgumentBinder> argumentBinders;
+    private final ConversationStore conversationStore;
+
+    public CommandMethodProcessor(BeanContext beanContext,
+                                  CommandHandlerRegistry commandHandlerRegistry,
+                                  MessageComposer messageComposer,
+                                  ChatBotMessageParser messageParser,
+                                  Collection<CommandArgumentBinder> argumentBinders,
+                                  ConversationStore conversationStore) {
+        this.beanContext = beanContext;
+        this.commandHandlerRegistry = commandHandlerRegistry;
+        this.messageComposer = messageComposer;
+        this.messageParser = messageParser;
+        this.argumentBinders = argumentBinders;
+        this.conversationStore = conversationStore;
+    }
+
+    @Override
+    public void process(BeanDefinition<?> beanDefinition, ExecutableMethod<?, ?> method) {
+        MethodCommandHandler.ReplyMapper replyMapper = replyMapper(method);
+        Argument<?>[] arguments = method.getArguments();
+        CommandArgumentBinder.Resolver[] resolvers = new CommandArgumentBinder.Resolver[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            resolvers[i] = resolver(method, arguments[i]);
+        }
+        CommandHandler handler = new MethodCommandHandler(describe(method),
+                invoker(beanDefinition, method),
+                resolvers,
+                replyMapper,
+                messageParser,
+                conversationStore);
+        for (String command : method.stringValues(Command.class)) {
+            if (commandHandlerRegistry.register(command, handler)) {
+                if (LOG.isInfoEnabled()) {
+                    LOG.info("command {} routed to {}", command, describe(method));
+                }
+            } else if (LOG.isWarnEnabled()) {
+                LOG.warn("command {} of {} is already routed to another handler", command, describe(method));
+            }
+        }
+    }
+
+    @NonNull
+    private <B> MethodCommandHandler.Invoker invoker(@NonNull BeanDefinition<?> beanDefinition,
+                                                     @NonNull ExecutableMethod<B, ?> method) {
+        Class<B> declaringType = method.getDeclaringType();
+        return new MethodCommandHandler.BeanInvoker<>(() -> declaringType.cast(bean(beanDefinition)), method);
+    }
+
+    /**
+     * @param method Command method
+     * @return Converts the values of the declared return type into replies
+     */
+    @NonNull
+    private MethodCommandHandler.ReplyMapper replyMapper(@NonNull ExecutableMethod<?, ?> method) {
+        Class<?> returnType = method.getReturnType().getType();
+        if (returnType == void.class || returnType == Void.class) {
+            return (result, update, context) -> Optional.empty();
+        }
+        if (returnType == Optional.class) {
+            Class<?> valueType = method.getReturnType().getFirstTypeVariable()
+                    .<Class<?>>map(Argument::getType)
+                    .orElse(Object.class);
+            MethodCommandHandler.ReplyMapper valueMapper = valueMapper(valueType);
+            MethodCommandHandler.ReplyMapper mapper = valueMapper != null ? valueMapper : this::anyValue;
+            return (result, update, context) -> {
+                Optional<?> value = (Optional<?>) result;
+                return value != null && value.isPresent() ? mapper.reply(value.get(), update, context) : Optional.empty();
+            };
+        }
+        MethodCommandHandler.ReplyMapper mapper = valueMapper(returnType);
+        if (mapper == null) {
+            throw new ConfigurationException("@Command method " + describe(method) + " returns unsupported type " + returnType.getName());
+        }
+        return mapper;
+    }
+
+    @Nullable
+    private MethodCommandHandler.ReplyMapper valueMapper(@NonNull Class<?> type) {
+        if (ChatBotMessageSend.class.isAssignableFrom(type)) {
+            return (result, update, context) -> Optional.ofNullable((ChatBotMessageSend) result);
+        }
+        if (CharSequence.class.isAssignableFrom(type)) {
+            return (result, update, context) -> result != null ?
+                    messageComposer.compose(result.toString(), update, context) : Optional.empty();
+        }
+        return null;
+    }
+
+    /**
+     * Replies with the value of an {@link Optional} whose type is not declared.
+     */
+    @NonNull
+    private Optional<ChatBotMessageSend> anyValue(@Nullable Object value,
+                                                  @NonNull ChatBotMessageReceive update,
+                                                  @NonNull DispatchContext context) {
+        if (value instanceof ChatBotMessageSend) {
+            return Optional.of((ChatBotMessageSend) value);
+        }
+        if (value instanceof CharSequence) {
+            return messageComposer.compose(value.toString(), update, context);
+        }
+        return Optional.empty();
+    }
+
+    @NonNull
+    private CommandArgumentBinder.Resolver resolver(@NonNull ExecutableMethod<?, ?> method, @NonNull Argument<?> argument) {
+        Class<?> type = argument.getType();
+        if (ChatBot.class.isAssignableFrom(type)) {
+            return (chatBot, update, context) -> type.isInstance(chatBot) ? chatBot : MethodCommandHandler.NOT_APPLICABLE;
+        }
+        if (ChatBotMessageReceive.class.isAssignableFrom(type)) {
+            return (chatBot, update, context) -> type.isInstance(update) ? update : MethodCommandHandler.NOT_APPLICABLE;
+        }
+        if (ChatBotSpace.class.isAssignableFrom(type)) {
+            return (chatBot, update, context) -> type.isInstance(context.getChat()) ? context.getChat() : MethodCommandHandler.NOT_APPLICABLE;
+        }
+        if (type == DispatchContext.class) {
+            return (chatBot, update, context) -> context;
+        }
+        if (type == CommandTokenizer.class) {
+            return (chatBot, update, context) -> context.getTokens();
+        }
+        if (type == ConversationState.class) {
+            return (chatBot, update, context) -> conversationStore.load(context).orElse(null);
+        }
+        for (CommandArgumentBinder binder : argumentBinders) {
+            Optional<CommandArgumentBinder.Resolver> resolver = binder.resolver(argument);
+            if (resolver.isPresent()) {
+                return resolver.get();
+            }
+        }
+        String name = argument.getName();
+        if ("chatId".equals(name)) {
+            return identifier(method, argument, DispatchContext::getChatId);
+        }
+        if ("userId".equals(name)) {
+            return identifier(method, argument, DispatchContext::getUserId);
+        }
+        if (type == String.class) {
+            switch (name) {
+                case "args":
+                case "arguments":
+                    return (chatBot, update, context) -> context.getArguments();
+                case "command":
+                    return (chatBot, update, context) -> context.getCommand();
+                case "text":
+                    return (chatBot, update, context) -> context.getText();
+                case "languageCode":
+                    return (chatBot, update, context) -> context.getLanguageCode();
+                default:
+                    break;
+            }
+        }
+        throw new ConfigurationException("cannot bind parameter " + name + " of @Command method " + describe(method));
+    }
+
+    @NonNull
+    private static CommandArgumentBinder.Resolver identifier(@NonNull ExecutableMethod<?, ?> method,
+                                                             @NonNull Argument<?> argument,
+                                                             @NonNull Function<DispatchContext, Serializable> getter) {
+        Class<?> type = argument.getType();
+        if (type == String.class) {
+            return (chatBot, update, context) -> {
+                Serializable id = getter.apply(context);
+                return id != null ? id.toString() : null;
+            };
+        }
+        if (type == Long.class || type == long.class) {
+            Object missing = type.isPrimitive() ? MethodCommandHandler.NOT_APPLICABLE : null;
+            return (chatBot, update, context) -> {
+                Serializable id = getter.apply(context);
+                return id instanceof Number ? (Object) ((Number) id).longValue() : missing;
+            };
+        }
+        if (type.isAssignableFrom(Serializable.class)) {
+            return (chatBot, update, context) -> getter.apply(context);
+        }
+        throw new ConfigurationException("parameter " + argument.getName() + " of @Command method " + describe(method) +
+                " must be a String, a Long or a Serializable");
+    }
+
+    @NonNull
+    private <T> T bean(@NonNull BeanDefinition<T> beanDefinition) {
+        Qualifier<T> qualifier = beanDefinition.getAnnotationMetadata()
+                .getAnnotationTypeByStereotype(javax.inject.Qualifier.class)
+                .map(type -> Qualifiers.<T>byAnnotation(beanDefinition.getAnnotationMetadata(), type))
+                .orElse(null);
+        return beanContext.getBean(beanDefinition.getBeanType(), qualifier);
+    }
+
+    @NonNull
+    private static String describe(@NonNull ExecutableMethod<?, ?> method) {
+        return method.getDeclaringType().getName() + "#" + method.getMethodName();
+    }
+}
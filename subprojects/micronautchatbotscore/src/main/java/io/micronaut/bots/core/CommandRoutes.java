@@ -0,0 +1,60 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * Routes of the {@link javax.inject.Named} {@link CommandHandler} classes of a package, generated at compile time
+ * by the {@code micronautchatbotsprocessor} annotation processor and registered as a {@link ServiceLoader} service.
+ * Each command maps to the class name of the {@link io.micronaut.inject.BeanDefinitionReference} Micronaut generates
+ * for the handler.
+ */
+public interface CommandRoutes {
+
+    /**
+     * @return Command names to the bean definition references of the handlers which are not
+     * {@link io.micronaut.context.annotation.Secondary}
+     */
+    @NonNull
+    Map<String, String> getCommands();
+
+    /**
+     * @return Command names to the bean definition references of the {@link io.micronaut.context.annotation.Secondary}
+     * handlers
+     */
+    @NonNull
+    Map<String, String> getSecondaryCommands();
+
+    /**
+     * @return The generated routes found in the class path
+     */
+    @NonNull
+    static List<CommandRoutes> load() {
+        List<CommandRoutes> routes = new ArrayList<>();
+        for (CommandRoutes commandRoutes : ServiceLoader.load(CommandRoutes.class)) {
+            routes.add(commandRoutes);
+        }
+        return routes;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+
+@ConfigurationProperties(CommandRoutingConfigurationProperties.PREFIX)
+public class CommandRoutingConfigurationProperties implements CommandRoutingConfiguration {
+    public static final String PREFIX = "chatbots.routing";
+
+    private static final boolean DEFAULT_SCAN_BEAN_DEFINITIONS = false;
+
+    private boolean scanBeanDefinitions = DEFAULT_SCAN_BEAN_DEFINITIONS;
+
+    @Override
+    public boolean isScanBeanDefinitions() {
+        return scanBeanDefinitions;
+    }
+
+    /**
+     * Whether the named command handlers compiled without the {@code micronautchatbotsprocessor} annotation processor
+     * are routed by scanning the bean definitions. Default value ({@value #DEFAULT_SCAN_BEAN_DEFINITIONS}).
+     * @param scanBeanDefinitions scan flag
+     */
+    public void setScanBeanDefinitions(boolean scanBeanDefinitions) {
+        this.scanBeanDefinitions = scanBeanDefinitions;
+    }
+}
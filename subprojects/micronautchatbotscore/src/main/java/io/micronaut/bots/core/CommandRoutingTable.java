@@ -0,0 +1,154 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable, case-insensitive lookup table of command names to {@link CommandHandler}.
+ * Lookups never allocate and can be performed over a region of a larger {@link CharSequence}.
+ * Instances are safe to share between threads.
+ */
+public final class CommandRoutingTable {
+
+    private static final CommandRoutingTable EMPTY = new CommandRoutingTable(Collections.emptyMap());
+
+    private final Map<String, CommandHandler> routes;
+    private final String[] keys;
+    private final CommandHandler[] handlers;
+    private final int[] hashes;
+    private final int mask;
+    private final int minLength;
+    private final int maxLength;
+
+    /**
+     * @param routes Command names to handlers. If two names only differ in case, the first one wins.
+     */
+    public CommandRoutingTable(@NonNull Map<String, CommandHandler> routes) {
+        int capacity = Integer.highestOneBit(Math.max(2, routes.size()) * 2 - 1) << 1;
+        this.keys = new String[capacity];
+        this.handlers = new CommandHandler[capacity];
+        this.hashes = new int[capacity];
+        this.mask = capacity - 1;
+        Map<String, CommandHandler> accepted = new LinkedHashMap<>();
+        int min = Integer.MAX_VALUE;
+        int max = 0;
+        for (Map.Entry<String, CommandHandler> entry : routes.entrySet()) {
+            String key = entry.getKey();
+            int hash = hash(key, 0, key.length());
+            int slot = hash & mask;
+            boolean duplicate = false;
+            while (keys[slot] != null) {
+                if (hashes[slot] == hash && regionMatches(keys[slot], key, 0, key.length())) {
+                    duplicate = true;
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (duplicate) {
+                continue;
+            }
+            keys[slot] = key;
+            handlers[slot] = entry.getValue();
+            hashes[slot] = hash;
+            accepted.put(key, entry.getValue());
+            min = Math.min(min, key.length());
+            max = Math.max(max, key.length());
+        }
+        this.routes = Collections.unmodifiableMap(accepted);
+        this.minLength = min;
+        this.maxLength = max;
+    }
+
+    @NonNull
+    public static CommandRoutingTable empty() {
+        return EMPTY;
+    }
+
+    @Nullable
+    public CommandHandler find(@NonNull CharSequence command) {
+        return find(command, 0, command.length());
+    }
+
+    /**
+     * @param text Text containing the command
+     * @param start Start index of the command, inclusive
+     * @param end End index of the command, exclusive
+     * @return The handler registered for the command or null if none
+     */
+    @Nullable
+    public CommandHandler find(@NonNull CharSequence text, int start, int end) {
+        int length = end - start;
+        if (length < minLength || length > maxLength) {
+            return null;
+        }
+        int hash = hash(text, start, end);
+        int slot = hash & mask;
+        String key;
+        while ((key = keys[slot]) != null) {
+            if (hashes[slot] == hash && regionMatches(key, text, start, end)) {
+                return handlers[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * @return The routes accepted by this table, in registration order.
+     */
+    @NonNull
+    public Map<String, CommandHandler> getRoutes() {
+        return routes;
+    }
+
+    public int size() {
+        return routes.size();
+    }
+
+    private static int hash(CharSequence text, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + fold(text.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean regionMatches(String key, CharSequence text, int start, int end) {
+        if (key.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            char a = key.charAt(i);
+            char b = text.charAt(start + i);
+            if (a != b && fold(a) != fold(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+/**
+ * Splits a text such as {@code /command@botname arguments} into offsets without copying it.
+ * Leading and trailing whitespace, including tabs, new lines and Unicode space separators, is ignored.
+ * Instances are immutable; texts which are not commands share a single instance.
+ */
+public final class CommandTokenizer {
+
+    private static final CommandTokenizer NONE = new CommandTokenizer(null, -1, -1, -1, -1, -1, -1);
+    private static final char COMMAND_PREFIX = '/';
+    private static final char BOT_NAME_PREFIX = '@';
+
+    @Nullable
+    private final CharSequence text;
+    private final int commandStart;
+    private final int commandEnd;
+    private final int botNameStart;
+    private final int botNameEnd;
+    private final int argumentsStart;
+    private final int argumentsEnd;
+
+    private CommandTokenizer(@Nullable CharSequence text,
+                             int commandStart,
+                             int commandEnd,
+                             int botNameStart,
+                             int botNameEnd,
+                             int argumentsStart,
+                             int argumentsEnd) {
+        this.text = text;
+        this.commandStart = commandStart;
+        this.commandEnd = commandEnd;
+        this.botNameStart = botNameStart;
+        this.botNameEnd = botNameEnd;
+        this.argumentsStart = argumentsStart;
+        this.argumentsEnd = argumentsEnd;
+    }
+
+    /**
+     * @param text Text to tokenize
+     * @return The tokens of the command or a shared instance whose {@link #isCommand()} is false
+     */
+    @NonNull
+    public static CommandTokenizer tokenize(@Nullable CharSequence text) {
+        if (text == null) {
+            return NONE;
+        }
+        int length = text.length();
+        int i = skipWhitespace(text, 0, length);
+        if (i == length || text.charAt(i) != COMMAND_PREFIX) {
+            return NONE;
+        }
+        int commandStart = ++i;
+        while (i < length && !isWhitespace(text.charAt(i)) && text.charAt(i) != BOT_NAME_PREFIX) {
+            i++;
+        }
+        int commandEnd = i;
+        int botNameStart = -1;
+        int botNameEnd = -1;
+        if (i < length && text.charAt(i) == BOT_NAME_PREFIX) {
+            botNameStart = ++i;
+            while (i < length && !isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            botNameEnd = i;
+        }
+        int argumentsStart = skipWhitespace(text, i, length);
+        int argumentsEnd = length;
+        while (argumentsEnd > argumentsStart && isWhitespace(text.charAt(argumentsEnd - 1))) {
+            argumentsEnd--;
+        }
+        if (argumentsStart == argumentsEnd) {
+            argumentsStart = -1;
+            argumentsEnd = -1;
+        }
+        return new CommandTokenizer(text, commandStart, commandEnd, botNameStart, botNameEnd, argumentsStart, argumentsEnd);
+    }
+
+    /**
+     * @param c Character
+     * @return Whether the character is whitespace or a Unicode space separator such as a non-breaking space
+     */
+    public static boolean isWhitespace(char c) {
+        return Character.isWhitespace(c) || Character.isSpaceChar(c);
+    }
+
+    public boolean isCommand() {
+        return text != null;
+    }
+
+    @Nullable
+    public CharSequence getText() {
+        return text;
+    }
+
+    /**
+     * @return Index of the first character of the command, after the {@link CommandHandler#COMMAND_PREFIX}, or -1
+     */
+    public int getCommandStart() {
+        return commandStart;
+    }
+
+    /**
+     * @return Index after the last character of the command or -1
+     */
+    public int getCommandEnd() {
+        return commandEnd;
+    }
+
+    public boolean hasBotName() {
+        return botNameStart >= 0;
+    }
+
+    /**
+     * @return Index of the first character of the bot name, after the {@code @}, or -1
+     */
+    public int getBotNameStart() {
+        return botNameStart;
+    }
+
+    public int getBotNameEnd() {
+        return botNameEnd;
+    }
+
+    public boolean hasArguments() {
+        return argumentsStart >= 0;
+    }
+
+    /**
+     * @return Index of the first non whitespace character following the command or -1
+     */
+    public int getArgumentsStart() {
+        return argumentsStart;
+    }
+
+    /**
+     * @return Index after the last non whitespace character of the text or -1
+     */
+    public int getArgumentsEnd() {
+        return argumentsEnd;
+    }
+
+    /**
+     * @return View of the command or null if the text is not a command
+     */
+    @Nullable
+    public CharSequence command() {
+        return isCommand() ? text.subSequence(commandStart, commandEnd) : null;
+    }
+
+    /**
+     * @return View of the bot name suffix or null if there is none
+     */
+    @Nullable
+    public CharSequence botName() {
+        return hasBotName() ? text.subSequence(botNameStart, botNameEnd) : null;
+    }
+
+    /**
+     * @return View of the arguments or null if there are none
+     */
+    @Nullable
+    public CharSequence arguments() {
+        return hasArguments() ? text.subSequence(argumentsStart, argumentsEnd) : null;
+    }
+
+    private static int skipWhitespace(CharSequence text, int start, int end) {
+        int i = start;
+        while (i < end && isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    @Override
+    public String toString() {
+        return "CommandTokenizer{" +
+                "command=" + command() +
+                ", botName=" + botName() +
+                ", arguments=" + arguments() +
+                '}';
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Identifies a conversation: a user in a chat.
+ */
+public final class ConversationKey {
+
+    @NonNull
+    private final Serializable chatId;
+
+    @NonNull
+    private final Serializable userId;
+
+    public ConversationKey(@NonNull Serializable chatId, @NonNull Serializable userId) {
+        this.chatId = chatId;
+        this.userId = userId;
+    }
+
+    /**
+     * @param context Dispatch context
+     * @return The key of the conversation of the update, or an empty optional if the update has no chat or no user
+     */
+    @NonNull
+    public static Optional<ConversationKey> of(@NonNull DispatchContext context) {
+        Serializable chatId = context.getChatId();
+        if (chatId == null && context.getChat() instanceof Serializable) {
+            chatId = (Serializable) context.getChat();
+        }
+        Serializable userId = context.getUserId();
+        if (chatId == null || userId == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new ConversationKey(chatId, userId));
+    }
+
+    @NonNull
+    public Serializable getChatId() {
+        return chatId;
+    }
+
+    @NonNull
+    public Serializable getUserId() {
+        return userId;
+    }
+
+    /**
+     * @return Whether both ids are integral numbers, as in Telegram
+     */
+    public boolean isNumeric() {
+        return isIntegral(chatId) && isIntegral(userId);
+    }
+
+    private static boolean isIntegral(@Nullable Serializable id) {
+        return id instanceof Long || id instanceof Integer || id instanceof Short || id instanceof Byte;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ConversationKey that = (ConversationKey) o;
+        if (isNumeric() && that.isNumeric()) {
+            return ((Number) chatId).longValue() == ((Number) that.chatId).longValue() &&
+                    ((Number) userId).longValue() == ((Number) that.userId).longValue();
+        }
+        return chatId.equals(that.chatId) && userId.equals(that.userId);
+    }
+
+    @Override
+    public int hashCode() {
+        if (isNumeric()) {
+            return Long.hashCode(((Number) chatId).longValue() * 31 + ((Number) userId).longValue());
+        }
+        return Objects.hash(chatId, userId);
+    }
+
+    @Override
+    public String toString() {
+        return "ConversationKey{" +
+                "chatId=" + chatId +
+                ", userId=" + userId +
+                '}';
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Attributes of a conversation kept between updates, for example the step of a multi-step flow.
+ * Changes are tracked so stores only write conversations which were modified.
+ */
+public final class ConversationState {
+
+    @NonNull
+    private final ConversationKey key;
+
+    private final Map<String, String> attributes;
+
+    private volatile boolean modified;
+
+    public ConversationState(@NonNull ConversationKey key) {
+        this(key, Collections.emptyMap());
+    }
+
+    /**
+     * @param key Conversation key
+     * @param attributes Attributes loaded from a store. The state is not modified.
+     */
+    public ConversationState(@NonNull ConversationKey key, @NonNull Map<String, String> attributes) {
+        this.key = key;
+        this.attributes = new ConcurrentHashMap<>(attributes);
+    }
+
+    @NonNull
+    public ConversationKey getKey() {
+        return key;
+    }
+
+    @Nullable
+    public String get(@NonNull String name) {
+        return attributes.get(name);
+    }
+
+    /**
+     * @param name Attribute name
+     * @param value Attribute value, null removes the attribute
+     */
+    public void put(@NonNull String name, @Nullable String value) {
+        if (value == null) {
+            remove(name);
+            return;
+        }
+        if (!value.equals(attributes.put(name, value))) {
+            modified = true;
+        }
+    }
+
+    public void remove(@NonNull String name) {
+        if (attributes.remove(name) != null) {
+            modified = true;
+        }
+    }
+
+    public void clear() {
+        if (!attributes.isEmpty()) {
+            attributes.clear();
+            modified = true;
+        }
+    }
+
+    /**
+     * @return Read only view of the attributes
+     */
+    @NonNull
+    public Map<String, String> getAttributes() {
+        return Collections.unmodifiableMap(attributes);
+    }
+
+    public boolean isEmpty() {
+        return attributes.isEmpty();
+    }
+
+    /**
+     * @return Whether the attributes changed since the state was loaded or saved
+     */
+    public boolean isModified() {
+        return modified;
+    }
+
+    /**
+     * Called by {@link ConversationStore} implementations once the state is saved.
+     */
+    public void markSaved() {
+        modified = false;
+    }
+
+    @Override
+    public String toString() {
+        return "ConversationState{" +
+                "key=" + key +
+                ", attributes=" + attributes +
+                '}';
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.Optional;
+
+/**
+ * Keeps the {@link ConversationState} of each user in each chat between updates.
+ */
+public interface ConversationStore {
+
+    /**
+     * @param key Conversation key
+     * @return The state of the conversation, empty if none was saved
+     */
+    @NonNull
+    ConversationState load(@NonNull ConversationKey key);
+
+    /**
+     * Saves the state. Saving an empty state removes the conversation.
+     * @param state Conversation state
+     */
+    void save(@NonNull ConversationState state);
+
+    void remove(@NonNull ConversationKey key);
+
+    /**
+     * @param context Dispatch context
+     * @return The state of the conversation of the update, or an empty optional if the update has no chat or no user
+     */
+    @NonNull
+    default Optional<ConversationState> load(@NonNull DispatchContext context) {
+        return ConversationKey.of(context).map(this::load);
+    }
+}
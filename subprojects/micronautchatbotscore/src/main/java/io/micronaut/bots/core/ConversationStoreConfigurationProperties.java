@@ -0,0 +1,65 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.micronaut.context.annotation.ConfigurationProperties;
+
+import javax.validation.constraints.Min;
+import java.time.Duration;
+
+@ConfigurationProperties(ConversationStoreConfigurationProperties.PREFIX)
+public class ConversationStoreConfigurationProperties implements ConversationStoreConfiguration {
+    public static final String PREFIX = "chatbots.conversations";
+
+    private static final int DEFAULT_MAXIMUM_SIZE = 10000;
+    private static final Duration DEFAULT_TIME_TO_IDLE = Duration.ofHours(1);
+
+    @Min(1)
+    private int maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+    @Nullable
+    private Duration timeToIdle = DEFAULT_TIME_TO_IDLE;
+
+    @Override
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Maximum number of conversations kept in memory. Default value ({@value #DEFAULT_MAXIMUM_SIZE}).
+     * @param maximumSize Maximum size
+     */
+    public void setMaximumSize(int maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    @Override
+    @Nullable
+    public Duration getTimeToIdle() {
+        return timeToIdle;
+    }
+
+    /**
+     * Time after which a conversation without updates is dropped. Default value 1 hour.
+     * @param timeToIdle Time to idle
+     */
+    public void setTimeToIdle(@Nullable Duration timeToIdle) {
+        this.timeToIdle = timeToIdle;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Open addressing table of conversation states keyed by a numeric chat id and user id, without boxing the keys.
+ * When full, the least recently used of a small sample of entries is evicted. Not thread safe.
+ */
+final class ConversationTable {
+    private static final int EVICTION_SAMPLE = 16;
+
+    private final long[] chatIds;
+    private final long[] userIds;
+    private final long[] lastAccess;
+    private final ConversationState[] states;
+    private final int mask;
+    private final int capacity;
+    private final long timeToIdleNanos;
+    private int size;
+
+    /**
+     * @param capacity Maximum number of entries
+     * @param timeToIdleNanos Nanoseconds after which an entry without access expires, 0 or less to never expire
+     */
+    ConversationTable(int capacity, long timeToIdleNanos) {
+        this.capacity = Math.max(1, capacity);
+        int length = Integer.highestOneBit(Math.max(2, this.capacity) * 2 - 1) << 1;
+        this.chatIds = new long[length];
+        this.userIds = new long[length];
+        this.lastAccess = new long[length];
+        this.states = new ConversationState[length];
+        this.mask = length - 1;
+        this.timeToIdleNanos = timeToIdleNanos;
+    }
+
+    @Nullable
+    ConversationState get(long chatId, long userId, long now) {
+        int slot = find(chatId, userId);
+        if (slot < 0) {
+            return null;
+        }
+        if (isExpired(slot, now)) {
+            removeAt(slot);
+            return null;
+        }
+        lastAccess[slot] = now;
+        return states[slot];
+    }
+
+    void put(long chatId, long userId, @NonNull ConversationState state, long now) {
+        int slot = find(chatId, userId);
+        if (slot >= 0) {
+            states[slot] = state;
+            lastAccess[slot] = now;
+            return;
+        }
+        if (size >= capacity) {
+            evict(now);
+        }
+        slot = index(chatId, userId);
+        while (states[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        chatIds[slot] = chatId;
+        userIds[slot] = userId;
+        states[slot] = state;
+        lastAccess[slot] = now;
+        size++;
+    }
+
+    boolean remove(long chatId, long userId) {
+        int slot = find(chatId, userId);
+        if (slot < 0) {
+            return false;
+        }
+        removeAt(slot);
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int find(long chatId, long userId) {
+        int slot = index(chatId, userId);
+        while (states[slot] != null) {
+            if (chatIds[slot] == chatId && userIds[slot] == userId) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private boolean isExpired(int slot, long now) {
+        return timeToIdleNanos > 0 && now - lastAccess[slot] > timeToIdleNanos;
+    }
+
+    /**
+     * Evicts an expired entry or the least recently used entry of a sample of occupied slots.
+     */
+    private void evict(long now) {
+        int slot = ThreadLocalRandom.current().nextInt(states.length);
+        int victim = -1;
+        for (int seen = 0, scanned = 0; seen < EVICTION_SAMPLE && scanned < states.length; scanned++) {
+            if (states[slot] != null) {
+                if (isExpired(slot, now)) {
+                    victim = slot;
+                    break;
+                }
+                if (victim < 0 || lastAccess[slot] < lastAccess[victim]) {
+                    victim = slot;
+                }
+                seen++;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (victim >= 0) {
+            removeAt(victim);
+        }
+    }
+
+    /**
+     * Removes the entry and shifts back the entries of the same probe sequence, so lookups need no tombstones.
+     */
+    private void removeAt(int slot) {
+        int hole = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (states[next] == null) {
+                break;
+            }
+            int home = index(chatIds[next], userIds[next]);
+            boolean between = hole <= next ? (hole < home && home <= next) : (hole < home || home <= next);
+            if (between) {
+                continue;
+            }
+            chatIds[hole] = chatIds[next];
+            userIds[hole] = userIds[next];
+            states[hole] = states[next];
+            lastAccess[hole] = lastAccess[next];
+            hole = next;
+        }
+        states[hole] = null;
+        size--;
+    }
+
+    private int index(long chatId, long userId) {
+        long h = chatId * 0x9E3779B97F4A7C15L + userId;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+}
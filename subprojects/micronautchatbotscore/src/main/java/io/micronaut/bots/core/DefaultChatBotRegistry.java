@@ -0,0 +1,201 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * {@link ChatBotRegistry} populated with the {@link ChatBot} beans. Lookups read an immutable snapshot of hash
+ * indexes; registering or unregistering a bot builds a new snapshot. The indexes are kept per bot class, so bots of
+ * different platforms may share a username, while a bot which reuses the token, project or username of a bot of the
+ * same class is rejected. The {@link ChatBotRegistryListener} beans are notified once a bot is unregistered.
+ */
+@Singleton
+public class DefaultChatBotRegistry implements ChatBotRegistry {
+    private static final Logger LOG = LoggerFactory.getLogger(DefaultChatBotRegistry.class);
+    private static final String AT = "@";
+
+    private final Collection<ChatBotRegistryListener> listeners;
+    private volatile Snapshot snapshot;
+
+    public DefaultChatBotRegistry(Collection<ChatBot> chatBots) {
+        this(chatBots, Collections.emptyList());
+    }
+
+    @Inject
+    public DefaultChatBotRegistry(Collection<ChatBot> chatBots, Collection<ChatBotRegistryListener> listeners) {
+        this.listeners = listeners;
+        List<ChatBot> rejected = new ArrayList<>();
+        this.snapshot = new Snapshot(chatBots, rejected);
+        for (ChatBot bot : rejected) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Bot {} has the token, project or username of another bot of the same type and is not registered", bot.getAtUsername());
+            }
+        }
+    }
+
+    @NonNull
+    @Override
+    public <B extends ChatBot> Optional<B> findByToken(@NonNull String token, @NonNull Class<B> type) {
+        return snapshot.byToken.find(token, type);
+    }
+
+    @NonNull
+    @Override
+    public <B extends ChatBot> Optional<B> findByProjectId(@NonNull String projectId, @NonNull Class<B> type) {
+        return snapshot.byProjectId.find(projectId, type);
+    }
+
+    @NonNull
+    @Override
+    public <B extends ChatBot> Optional<B> findByUsername(@NonNull String atUsername, @NonNull Class<B> type) {
+        return snapshot.byUsername.find(username(atUsername), type);
+    }
+
+    @NonNull
+    @Override
+    public <B extends ChatBot> Collection<B> getBots(@NonNull Class<B> type) {
+        List<B> bots = new ArrayList<>();
+        for (ChatBot bot : snapshot.bots) {
+            if (type.isInstance(bot)) {
+                bots.add(type.cast(bot));
+            }
+        }
+        return bots;
+    }
+
+    @Override
+    public synchronized boolean register(@NonNull ChatBot bot) {
+        if (snapshot.conflicts(bot)) {
+            return false;
+        }
+        List<ChatBot> bots = new ArrayList<>(snapshot.bots);
+        bots.add(bot);
+        snapshot = new Snapshot(bots, null);
+        return true;
+    }
+
+    @Override
+    public boolean unregister(@NonNull ChatBot bot) {
+        synchronized (this) {
+            List<ChatBot> bots = new ArrayList<>(snapshot.bots);
+            if (!bots.remove(bot)) {
+                return false;
+            }
+            snapshot = new Snapshot(bots, null);
+        }
+        for (ChatBotRegistryListener listener : listeners) {
+            try {
+                listener.onUnregister(bot);
+            } catch (RuntimeException e) {
+                if (LOG.isErrorEnabled()) {
+                    LOG.error("Listener {} failed for unregistered bot {}", listener, bot.getAtUsername(), e);
+                }
+            }
+        }
+        return true;
+    }
+
+    @Nullable
+    private static String username(@Nullable String atUsername) {
+        if (atUsername == null) {
+            return null;
+        }
+        return atUsername.startsWith(AT) ? atUsername.substring(AT.length()) : atUsername;
+    }
+
+    private static final class Snapshot {
+        private final List<ChatBot> bots;
+        private final Index byToken = new Index();
+        private final Index byProjectId = new Index();
+        private final Index byUsername = new Index();
+
+        /**
+         * @param candidates Bots to index
+         * @param rejected Receives the bots which conflict with a previous one, null if there are none
+         */
+        private Snapshot(Collection<ChatBot> candidates, @Nullable List<ChatBot> rejected) {
+            List<ChatBot> accepted = new ArrayList<>(candidates.size());
+            for (ChatBot bot : candidates) {
+                if (rejected != null && conflicts(bot)) {
+                    rejected.add(bot);
+                    continue;
+                }
+                accepted.add(bot);
+                byToken.put(bot, bot.getToken());
+                byProjectId.put(bot, bot.getProjectId());
+                byUsername.put(bot, username(bot.getAtUsername()));
+            }
+            this.bots = Collections.unmodifiableList(accepted);
+        }
+
+        private boolean conflicts(ChatBot bot) {
+            return byToken.contains(bot, bot.getToken()) ||
+                    byProjectId.contains(bot, bot.getProjectId()) ||
+                    byUsername.contains(bot, username(bot.getAtUsername()));
+        }
+    }
+
+    /**
+     * Bots by the class of the bot and a value.
+     */
+    private static final class Index {
+        private final Map<Class<?>, Map<String, ChatBot>> byType = new LinkedHashMap<>();
+
+        private void put(@NonNull ChatBot bot, @Nullable String value) {
+            if (value != null) {
+                byType.computeIfAbsent(bot.getClass(), type -> new HashMap<>()).put(value, bot);
+            }
+        }
+
+        private boolean contains(@NonNull ChatBot bot, @Nullable String value) {
+            if (value == null) {
+                return false;
+            }
+            Map<String, ChatBot> bots = byType.get(bot.getClass());
+            return bots != null && bots.containsKey(value);
+        }
+
+        @NonNull
+        private <B extends ChatBot> Optional<B> find(@NonNull String value, @NonNull Class<B> type) {
+            for (Map.Entry<Class<?>, Map<String, ChatBot>> entry : byType.entrySet()) {
+                if (type.isAssignableFrom(entry.getKey())) {
+                    ChatBot bot = entry.getValue().get(value);
+                    if (bot != null) {
+                        return Optional.of(type.cast(bot));
+                    }
+                }
+            }
+            return Optional.empty();
+        }
+    }
+}
@@ -24,6 +24,7 @@ import javax.inject.Named;
 import javax.inject.Singleton;
 import java.util.Optional;
 
+@CacheableReply(keyedByCommand = false)
 @Named(DefaultUpdateDispatcher.DEFAULT_COMMAND)
 @Secondary
 @Singleton
@@ -0,0 +1,168 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.BeanContext;
+import io.micronaut.context.annotation.Context;
+import io.micronaut.context.annotation.Secondary;
+import io.micronaut.inject.BeanDefinition;
+import io.micronaut.inject.BeanDefinitionReference;
+import io.micronaut.inject.qualifiers.Qualifiers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Compiles the named {@link CommandHandler} beans, the {@link BotCommandConfiguration} commands and their aliases
+ * into a {@link CommandRoutingTable} when the application context starts.
+ * Named handlers are routed through the {@link CommandRoutes} generated by the {@code micronautchatbotsprocessor}
+ * annotation processor, which load the handler bean definitions directly instead of querying the bean context.
+ * Handlers compiled without the processor are only routed when
+ * {@link CommandRoutingConfiguration#isScanBeanDefinitions()} is enabled. A
+ * {@link io.micronaut.context.annotation.Secondary} handler only gets the commands no other handler took.
+ */
+@Context
+public class DefaultCommandHandlerRegistry implements CommandHandlerRegistry {
+    private static final Logger LOG = LoggerFactory.getLogger(DefaultCommandHandlerRegistry.class);
+
+    protected volatile CommandRoutingTable routingTable;
+
+    public DefaultCommandHandlerRegistry(ApplicationContext applicationContext,
+                                         Collection<BotCommandConfiguration> commandConfigurations,
+                                         CommandRoutingConfiguration routingConfiguration,
+                                         Provider<FileCommandFactory> fileCommandFactory) {
+        Map<String, CommandHandler> routes = new LinkedHashMap<>();
+        List<CommandRoutes> generatedRoutes = CommandRoutes.load();
+        for (CommandRoutes commandRoutes : generatedRoutes) {
+            addRoutes(applicationContext, commandRoutes, commandRoutes.getCommands(), routes);
+        }
+        List<String> secondaryCommands = new ArrayList<>();
+        if (routingConfiguration.isScanBeanDefinitions()) {
+            for (BeanDefinition<CommandHandler> definition : applicationContext.getBeanDefinitions(CommandHandler.class)) {
+                Optional<String> name = definition.getAnnotationMetadata().stringValue(Named.class);
+                if (definition.getAnnotationMetadata().hasAnnotation(Secondary.class)) {
+                    name.ifPresent(secondaryCommands::add);
+                } else {
+                    name.ifPresent(command -> addRoute(applicationContext, command, routes));
+                }
+            }
+        }
+        for (CommandRoutes commandRoutes : generatedRoutes) {
+            addRoutes(applicationContext, commandRoutes, commandRoutes.getSecondaryCommands(), routes);
+        }
+        if (routingConfiguration.isScanBeanDefinitions()) {
+            for (String command : secondaryCommands) {
+                addRoute(applicationContext, command, routes);
+            }
+            addRoute(applicationContext, DefaultUpdateDispatcher.DEFAULT_COMMAND, routes);
+        }
+        for (BotCommandConfiguration configuration : commandConfigurations) {
+            if (!routes.containsKey(configuration.getName())) {
+                FileCommandHandler handler = fileCommandFactory.get().buildMarkdownFileCommandHandler(configuration);
+                if (handler != null) {
+                    routes.put(configuration.getName(), handler);
+                }
+            }
+        }
+        for (CommandHandler handler : new LinkedHashMap<>(routes).values()) {
+            for (String alias : handler.getAliases()) {
+                routes.putIfAbsent(alias, handler);
+            }
+        }
+        this.routingTable = new CommandRoutingTable(routes);
+        if (LOG.isInfoEnabled()) {
+            LOG.info("command routing table compiled with {} commands", routingTable.size());
+        }
+    }
+
+    @Nullable
+    @Override
+    public CommandHandler findCommandHandler(@NonNull CharSequence text, int start, int end) {
+        return routingTable.find(text, start, end);
+    }
+
+    /**
+     * Copies the routing table with the new route, so lookups never lock.
+     */
+    @Override
+    public synchronized boolean register(@NonNull String command, @NonNull CommandHandler handler) {
+        CommandRoutingTable current = routingTable;
+        if (current.find(command) != null) {
+            return false;
+        }
+        Map<String, CommandHandler> routes = new LinkedHashMap<>(current.getRoutes());
+        routes.put(command, handler);
+        routingTable = new CommandRoutingTable(routes);
+        return true;
+    }
+
+    private static void addRoutes(@NonNull BeanContext beanContext,
+                                  @NonNull CommandRoutes commandRoutes,
+                                  @NonNull Map<String, String> commands,
+                                  @NonNull Map<String, CommandHandler> routes) {
+        for (Map.Entry<String, String> command : commands.entrySet()) {
+            if (!routes.containsKey(command.getKey())) {
+                CommandHandler handler = loadHandler(beanContext, commandRoutes.getClass().getClassLoader(), command.getValue());
+                if (handler != null) {
+                    routes.put(command.getKey(), handler);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    private static CommandHandler loadHandler(@NonNull BeanContext beanContext,
+                                              @Nullable ClassLoader classLoader,
+                                              @NonNull String referenceName) {
+        BeanDefinitionReference<CommandHandler> reference;
+        try {
+            reference = (BeanDefinitionReference<CommandHandler>) Class.forName(referenceName, true, classLoader).newInstance();
+        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException | LinkageError e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("bean definition reference {} of a generated command route could not be loaded", referenceName, e);
+            }
+            return null;
+        }
+        if (!reference.isPresent() || !reference.isEnabled(beanContext)) {
+            return null;
+        }
+        return beanContext.getBean(reference.load(beanContext));
+    }
+
+    private static void addRoute(@NonNull ApplicationContext applicationContext,
+                                 @NonNull String command,
+                                 @NonNull Map<String, CommandHandler> routes) {
+        if (routes.containsKey(command)) {
+            return;
+        }
+        Optional<CommandHandler> handler = applicationContext.findBean(CommandHandler.class, Qualifiers.byName(command));
+        handler.ifPresent(commandHandler -> routes.put(command, commandHandler));
+    }
+}
@@ -18,49 +18,281 @@
 package io.micronaut.bots.core;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
-import io.micronaut.context.ApplicationContext;
-import io.micronaut.inject.qualifiers.Qualifiers;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Singleton;
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
 
 @Singleton
-public class DefaultUpdateDispatcher implements ChatBotMessageDispatcher {
+public class DefaultUpdateDispatcher implements ChatBotMessageDispatcher, AsyncChatBotMessageDispatcher {
     private static final Logger LOG = LoggerFactory.getLogger(DefaultUpdateDispatcher.class);
-    public static final String SPACE = " ";
     public static final String DEFAULT_COMMAND = "default";
 
-    protected final ApplicationContext applicationContext;
+    /**
+     * @deprecated Commands are tokenized by {@link CommandTokenizer}, which splits on any whitespace.
+     */
+    @Deprecated
+    public static final String SPACE = " ";
+
+    protected final CommandHandlerRegistry commandHandlerRegistry;
     protected final ChatBotMessageParser messageParser;
     protected final Collection<MatcherCommandHandler> matcherCommandHandlers;
-    protected final Map<String, CommandHandler> commandToHandler = new HashMap<>();
+    protected final MatcherCommandEngine matcherCommandEngine;
+    protected final ChatExecutor chatExecutor;
+    protected final UpdateDeduplicator updateDeduplicator;
+    protected final AdmissionController admissionController;
+    protected final ReplyCache replyCache;
 
-    public DefaultUpdateDispatcher(ApplicationContext applicationContext,
+    public DefaultUpdateDispatcher(CommandHandlerRegistry commandHandlerRegistry,
                                    ChatBotMessageParser messageParser,
-                                   Collection<MatcherCommandHandler> matcherCommandHandlers) {
-        this.applicationContext = applicationContext;
+                                   Collection<MatcherCommandHandler> matcherCommandHandlers,
+                                   ChatExecutor chatExecutor,
+                                   UpdateDeduplicator updateDeduplicator,
+                                   AdmissionController admissionController,
+                                   ReplyCache replyCache) {
+        this.commandHandlerRegistry = commandHandlerRegistry;
+        this.chatExecutor = chatExecutor;
+        this.updateDeduplicator = updateDeduplicator;
+        this.admissionController = admissionController;
+        this.replyCache = replyCache;
         this.messageParser = messageParser;
         this.matcherCommandHandlers = matcherCommandHandlers;
+        this.matcherCommandEngine = MatcherCommandEngine.of(matcherCommandHandlers);
     }
 
     @Override
     public Optional<ChatBotMessageSend> dispatch(@NonNull ChatBot chatBot, @NonNull ChatBotMessageReceive messageReceive) {
-        if (shouldHandleMessage(chatBot, messageReceive)) {
-            Optional<CommandHandler> handlerOptional = parseCommandHandler(chatBot, messageReceive);
-            if (!handlerOptional.isPresent()) {
-                handlerOptional = parseHandlerFromCommand(DEFAULT_COMMAND);
+        if (isDuplicate(chatBot, messageReceive)) {
+            return Optional.empty();
+        }
+        try {
+            DispatchContext context = messageParser.parseContext(chatBot, messageReceive);
+            Optional<CommandHandler> handlerOptional = resolveCommandHandler(chatBot, messageReceive, context);
+            if (handlerOptional.isPresent()) {
+                CommandHandler handler = handlerOptional.get();
+                return replyCache.getOrHandle(chatBot, handler, context, () -> handle(handler, chatBot, messageReceive, context));
             }
+            return Optional.empty();
+        } catch (RuntimeException e) {
+            forget(chatBot, messageReceive);
+            throw e;
+        }
+    }
+
+    @NonNull
+    @Override
+    public CompletionStage<Optional<ChatBotMessageSend>> dispatchAsync(@NonNull ChatBot chatBot,
+                                                                       @NonNull ChatBotMessageReceive messageReceive) {
+        if (isDuplicate(chatBot, messageReceive)) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return forgetOnFailure(chatBot, messageReceive, () -> {
+            DispatchContext context = messageParser.parseContext(chatBot, messageReceive);
+            Optional<CommandHandler> handlerOptional = resolveCommandHandler(chatBot, messageReceive, context);
             if (handlerOptional.isPresent()) {
+                return handleAsync(handlerOptional.get(), chatBot, messageReceive, context);
+            }
+            return CompletableFuture.completedFuture(Optional.empty());
+        });
+    }
+
+    /**
+     * Parses every message once and submits one task per chat to the {@link ChatExecutor}, which runs the handlers
+     * of the chat in the order of the list.
+     */
+    @NonNull
+    @Override
+    public CompletionStage<List<DispatchResult>> dispatchAll(@NonNull ChatBot chatBot,
+                                                             @NonNull List<? extends ChatBotMessageReceive> messages) {
+        List<CompletableFuture<DispatchResult>> results = new ArrayList<>(messages.size());
+        Map<Object, List<PendingDispatch>> chats = new LinkedHashMap<>();
+        for (ChatBotMessageReceive messageReceive : messages) {
+            CompletableFuture<DispatchResult> result = new CompletableFuture<>();
+            results.add(result);
+            try {
+                if (isDuplicate(chatBot, messageReceive)) {
+                    result.complete(DispatchResult.EMPTY);
+                    continue;
+                }
+                CompletionStage<Void> acknowledged = acknowledge(chatBot, messageReceive);
+                DispatchContext context = messageParser.parseContext(chatBot, messageReceive);
+                Optional<CommandHandler> handlerOptional = resolveCommandHandler(chatBot, messageReceive, context);
+                if (!handlerOptional.isPresent()) {
+                    complete(result, acknowledged, CompletableFuture.completedFuture(Optional.empty()));
+                    continue;
+                }
                 CommandHandler handler = handlerOptional.get();
+                if (replyCache.isCacheable(handler)) {
+                    Optional<ChatBotMessageSend> cached = replyCache.find(chatBot, handler, context);
+                    if (cached.isPresent()) {
+                        complete(result, acknowledged, CompletableFuture.completedFuture(cached));
+                        continue;
+                    }
+                }
+                PendingDispatch pending = new PendingDispatch(handler, messageReceive, context, acknowledged, result);
+                Object key = chatKey(context);
+                if (key == null) {
+                    submitChat(chatBot, null, Collections.singletonList(pending));
+                } else {
+                    chats.computeIfAbsent(key, k -> new ArrayList<>()).add(pending);
+                }
+            } catch (RuntimeException e) {
+                result.complete(DispatchResult.failure(e));
+            }
+        }
+        for (Map.Entry<Object, List<PendingDispatch>> chat : chats.entrySet()) {
+            submitChat(chatBot, chat.getKey(), chat.getValue());
+        }
+        List<CompletableFuture<DispatchResult>> settled = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            ChatBotMessageReceive messageReceive = messages.get(i);
+            settled.add(results.get(i).thenApply(result -> {
+                if (result.isFailed()) {
+                    forget(chatBot, messageReceive);
+                }
+                return result;
+            }));
+        }
+        return DispatchResult.all(settled);
+    }
+
+    /**
+     * Hook invoked for every message which is not a duplicate, before its handler is resolved.
+     * @param chatBot Chat bot which received the message
+     * @param messageReceive Message received
+     * @return Completes once the message is acknowledged to the chat platform
+     */
+    @NonNull
+    protected CompletionStage<Void> acknowledge(@NonNull ChatBot chatBot, @NonNull ChatBotMessageReceive messageReceive) {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private void submitChat(@NonNull ChatBot chatBot, @Nullable Object key, @NonNull List<PendingDispatch> pendings) {
+        chatExecutor.submit(key, () -> {
+            for (PendingDispatch pending : pendings) {
+                CompletionStage<Optional<ChatBotMessageSend>> reply;
+                try {
+                    reply = cacheReply(chatBot, pending.handler, pending.context,
+                            invoke(pending.handler, chatBot, pending.messageReceive, pending.context));
+                } catch (RuntimeException e) {
+                    CompletableFuture<Optional<ChatBotMessageSend>> failed = new CompletableFuture<>();
+                    failed.completeExceptionally(e);
+                    reply = failed;
+                }
+                complete(pending.result, pending.acknowledged, reply);
+            }
+            return null;
+        }).whenComplete((ignored, throwable) -> {
+            if (throwable != null) {
+                for (PendingDispatch pending : pendings) {
+                    pending.result.complete(DispatchResult.failure(throwable));
+                }
+            }
+        });
+    }
+
+    private static void complete(@NonNull CompletableFuture<DispatchResult> result,
+                                 @NonNull CompletionStage<Void> acknowledged,
+                                 @NonNull CompletionStage<Optional<ChatBotMessageSend>> reply) {
+        CompletionStage<Object> settled = acknowledged.handle((answered, throwable) -> null);
+        DispatchResult.of(reply)
+                .thenCombine(settled, (dispatched, answered) -> dispatched)
+                .thenAccept(result::complete);
+    }
+
+    /**
+     * @param chatBot Chat bot which received the message
+     * @param messageReceive Message received
+     * @return true if the message was recently dispatched and should be dropped
+     */
+    protected boolean isDuplicate(@NonNull ChatBot chatBot, @NonNull ChatBotMessageReceive messageReceive) {
+        Optional<Serializable> messageId = messageParser.parseMessageId(chatBot, messageReceive);
+        if (messageId.isPresent() && updateDeduplicator.isDuplicate(chatBot, messageId.get())) {
+            if (LOG.isInfoEnabled()) {
+                LOG.info("dropping duplicated message {}", messageId.get());
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Forgets a message whose handling failed, so that a redelivery of it is not dropped as a duplicate.
+     * @param chatBot Chat bot which received the message
+     * @param messageReceive Message received
+     */
+    protected void forget(@NonNull ChatBot chatBot, @NonNull ChatBotMessageReceive messageReceive) {
+        try {
+            messageParser.parseMessageId(chatBot, messageReceive)
+                    .ifPresent(messageId -> updateDeduplicator.forget(chatBot, messageId));
+        } catch (RuntimeException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("could not forget message of failed dispatch", e);
+            }
+        }
+    }
+
+    /**
+     * @param chatBot Chat bot which received the message
+     * @param messageReceive Message received
+     * @param dispatch Dispatches the message
+     * @return The reply of the dispatch, which completes once a failed message is forgotten
+     */
+    @NonNull
+    protected CompletionStage<Optional<ChatBotMessageSend>> forgetOnFailure(@NonNull ChatBot chatBot,
+                                                                            @NonNull ChatBotMessageReceive messageReceive,
+                                                                            @NonNull Supplier<CompletionStage<Optional<ChatBotMessageSend>>> dispatch) {
+        CompletionStage<Optional<ChatBotMessageSend>> reply;
+        try {
+            reply = dispatch.get();
+        } catch (RuntimeException e) {
+            forget(chatBot, messageReceive);
+            throw e;
+        }
+        return reply.whenComplete((send, throwable) -> {
+            if (throwable != null) {
+                forget(chatBot, messageReceive);
+            }
+        });
+    }
+
+    /**
+     * @param chatBot Chat bot which received the message
+     * @param context Dispatch context
+     * @return false if the {@link AdmissionController} rejected the message
+     */
+    protected boolean isAdmitted(@NonNull ChatBot chatBot, @NonNull DispatchContext context) {
+        if (admissionController.admit(chatBot, context)) {
+            return true;
+        }
+        if (LOG.isInfoEnabled()) {
+            LOG.info("message of user {} in chat {} rejected by admission control", context.getUserId(), context.getChatId());
+        }
+        return false;
+    }
+
+    protected Optional<CommandHandler> resolveCommandHandler(@NonNull ChatBot chatBot,
+                                                             @NonNull ChatBotMessageReceive messageReceive,
+                                                             @NonNull DispatchContext context) {
+        if (shouldHandleMessage(chatBot, messageReceive, context) && isAdmitted(chatBot, context)) {
+            Optional<CommandHandler> handlerOptional = findCommandHandler(context);
+            if (handlerOptional.isPresent()) {
                 if (LOG.isInfoEnabled()) {
-                    LOG.info("handling message with : {}", handler.getClass().getSimpleName());
+                    LOG.info("handling message with : {}", handlerOptional.get().getClass().getSimpleName());
                 }
-                return handler.handle(chatBot, messageReceive);
+                return handlerOptional;
             }
         }
 
@@ -71,79 +303,193 @@ public class DefaultUpdateDispatcher implements ChatBotMessageDispatcher {
         return Optional.empty();
     }
 
-    protected Optional<CommandHandler> parseHandlerFromCommand(@NonNull String command) {
-        if (commandToHandler.containsKey(command)) {
-            return Optional.of(commandToHandler.get(command));
+    protected Optional<CommandHandler> findCommandHandler(@NonNull DispatchContext context) {
+        if (isAddressedToAnotherBot(context)) {
+            if (LOG.isInfoEnabled()) {
+                LOG.info("ignoring command {} addressed to bot {}", context.getTokens().command(), context.getTokens().botName());
+            }
+            return Optional.empty();
         }
-        if (applicationContext.containsBean(CommandHandler.class, Qualifiers.byName(command))) {
-            CommandHandler handler = applicationContext.getBean(CommandHandler.class, Qualifiers.byName(command));
-            commandToHandler.put(command, handler);
-            return Optional.of(handler);
+        Optional<CommandHandler> handlerOptional = parseCommandHandler(context);
+        if (!handlerOptional.isPresent()) {
+            handlerOptional = parseHandlerFromCommand(DEFAULT_COMMAND);
         }
-        return Optional.empty();
+        return handlerOptional;
     }
 
-    protected Optional<CommandHandler> parseCommandHandler(@NonNull ChatBot chatBot,
-                                                           @NonNull ChatBotMessageReceive messageReceive) {
-        Optional<String> commandOptional = parseCommandAtUpdate(chatBot, messageReceive);
-        if (commandOptional.isPresent()) {
-            String command = commandOptional.get();
+    /**
+     * Runs the handler without blocking the calling thread. Handlers of the same chat are started in the order
+     * the updates arrived, by the {@link ChatExecutor}.
+     */
+    @NonNull
+    protected CompletionStage<Optional<ChatBotMessageSend>> handleAsync(@NonNull CommandHandler handler,
+                                                                        @NonNull ChatBot chatBot,
+                                                                        @NonNull ChatBotMessageReceive messageReceive,
+                                                                        @NonNull DispatchContext context) {
+        if (replyCache.isCacheable(handler)) {
+            Optional<ChatBotMessageSend> cached = replyCache.find(chatBot, handler, context);
+            if (cached.isPresent()) {
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+        CompletionStage<Optional<ChatBotMessageSend>> reply = chatExecutor.submit(chatKey(context),
+                () -> invoke(handler, chatBot, messageReceive, context))
+                .thenCompose(send -> send);
+        return cacheReply(chatBot, handler, context, reply);
+    }
+
+    /**
+     * Starts the handler on the calling thread.
+     */
+    @NonNull
+    private static CompletionStage<Optional<ChatBotMessageSend>> invoke(@NonNull CommandHandler handler,
+                                                                        @NonNull ChatBot chatBot,
+                                                                        @NonNull ChatBotMessageReceive messageReceive,
+                                                                        @NonNull DispatchContext context) {
+        if (handler instanceof AsyncCommandHandler) {
+            return ((AsyncCommandHandler) handler).handleAsync(chatBot, messageReceive, context);
+        }
+        return CompletableFuture.completedFuture(handle(handler, chatBot, messageReceive, context));
+    }
+
+    @NonNull
+    private CompletionStage<Optional<ChatBotMessageSend>> cacheReply(@NonNull ChatBot chatBot,
+                                                                     @NonNull CommandHandler handler,
+                                                                     @NonNull DispatchContext context,
+                                                                     @NonNull CompletionStage<Optional<ChatBotMessageSend>> reply) {
+        if (!replyCache.isCacheable(handler)) {
+            return reply;
+        }
+        return reply.thenApply(send -> {
+            send.ifPresent(value -> replyCache.put(chatBot, handler, context, value));
+            return send;
+        });
+    }
+
+    /**
+     * @param context Dispatch context
+     * @return Key which orders the handling of updates, the chat id or the chat. Null if the update has no chat.
+     */
+    @Nullable
+    protected Object chatKey(@NonNull DispatchContext context) {
+        if (context.getChatId() != null) {
+            return context.getChatId();
+        }
+        return context.getChat();
+    }
+
+    protected static Optional<ChatBotMessageSend> handle(@NonNull CommandHandler handler,
+                                                         @NonNull ChatBot chatBot,
+                                                         @NonNull ChatBotMessageReceive messageReceive,
+                                                         @NonNull DispatchContext context) {
+        return handler.handle(chatBot, messageReceive, context);
+    }
+
+    /**
+     * The parser strips the mention of the bot itself, so a command which still has a bot name suffix, such as
+     * {@code /start@OtherBot} in a group, is meant for another bot.
+     * @param context Dispatch context
+     * @return Whether the text is a command addressed to another bot
+     */
+    protected boolean isAddressedToAnotherBot(@NonNull DispatchContext context) {
+        CommandTokenizer tokens = context.getTokens();
+        return tokens.isCommand() && tokens.hasBotName();
+    }
+
+    protected Optional<CommandHandler> parseHandlerFromCommand(@NonNull String command) {
+        return Optional.ofNullable(commandHandlerRegistry.findCommandHandler(command));
+    }
+
+    protected Optional<CommandHandler> parseCommandHandler(@NonNull DispatchContext context) {
+        CommandTokenizer tokens = context.getTokens();
+        if (tokens.isCommand()) {
             if (LOG.isInfoEnabled()) {
-                LOG.info("command parsed: {}", command);
+                LOG.info("command parsed: {}", tokens.command());
             }
-            Optional<CommandHandler> commandHandlerOptional = parseHandlerFromCommand(command);
-            if (commandHandlerOptional.isPresent()) {
-                return commandHandlerOptional;
+            CommandHandler commandHandler = commandHandlerRegistry.findCommandHandler(tokens.getText(),
+                    tokens.getCommandStart(),
+                    tokens.getCommandEnd());
+            if (commandHandler != null) {
+                return Optional.of(commandHandler);
             } else {
                 if (LOG.isInfoEnabled()) {
-                    LOG.info("no command handler found for command {}", command);
+                    LOG.info("no command handler found for command {}", tokens.command());
                 }
             }
         }
-        Optional<String> textOptional = messageParser.parseText(messageReceive);
-        if (textOptional.isPresent()) {
-            String text = textOptional.get();
+        String text = context.getText();
+        if (text != null) {
             if (LOG.isInfoEnabled()) {
                 LOG.info("text parsed: {}", text);
             }
-            for (MatcherCommandHandler handler : matcherCommandHandlers) {
-                if (handler.matches(text)) {
-                    return Optional.of(handler);
-                } else {
-                    if (LOG.isInfoEnabled()) {
-                        LOG.info("handler {} does not match text {}", handler.getClass().getSimpleName(), text);
-                    }
-                }
+            MatcherCommandHandler handler = matcherCommandEngine.find(text);
+            if (handler != null) {
+                return Optional.of(handler);
+            }
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("no matcher command handler matches text {}", text);
             }
         }
         return Optional.empty();
     }
 
-    protected boolean shouldHandleMessage(@NonNull ChatBot bot, @NonNull ChatBotMessageReceive update) {
+    protected boolean shouldHandleMessage(@NonNull ChatBot bot,
+                                          @NonNull ChatBotMessageReceive update,
+                                          @NonNull DispatchContext context) {
         return true;
     }
 
+    /**
+     * @deprecated Use {@link #shouldHandleMessage(ChatBot, ChatBotMessageReceive, DispatchContext)} instead.
+     */
+    @Deprecated
+    protected boolean shouldHandleMessage(@NonNull ChatBot bot, @NonNull ChatBotMessageReceive update) {
+        return shouldHandleMessage(bot, update, messageParser.parseContext(bot, update));
+    }
+
+    /**
+     * @deprecated Use {@link #parseCommandHandler(DispatchContext)} instead.
+     */
+    @Deprecated
+    protected Optional<CommandHandler> parseCommandHandler(@NonNull ChatBot chatBot,
+                                                           @NonNull ChatBotMessageReceive messageReceive) {
+        return parseCommandHandler(messageParser.parseContext(chatBot, messageReceive));
+    }
+
+    /**
+     * @deprecated Use {@link DispatchContext#getCommand()} instead.
+     */
+    @Deprecated
     protected Optional<String> parseCommandAtUpdate(@NonNull ChatBot chatBot, @NonNull ChatBotMessageReceive update) {
-        String commandText = messageParser.parseTextWithoutBotName(chatBot, update).orElse(null);
-        if (commandText == null) {
-            return Optional.empty();
-        }
-        return parseCommand(commandText);
+        return Optional.ofNullable(messageParser.parseContext(chatBot, update).getCommand());
     }
 
+    /**
+     * @deprecated Use {@link CommandTokenizer#tokenize(CharSequence)} instead.
+     */
+    @Deprecated
     protected Optional<String> parseCommand(@NonNull String commandText) {
-        if (LOG.isInfoEnabled()) {
-            LOG.info("text parsed: {}", commandText);
-        }
-        if (commandText.contains(SPACE)) {
-            String[] arr = commandText.split(SPACE);
-            if (arr.length >= 1) {
-                commandText = arr[0];
-            }
-        }
-        if (commandText.startsWith(CommandHandler.COMMAND_PREFIX)) {
-            return Optional.of(commandText.substring(1));
+        CommandTokenizer tokens = CommandTokenizer.tokenize(commandText);
+        return tokens.isCommand() ? Optional.of(tokens.command().toString()) : Optional.empty();
+    }
+
+    private static final class PendingDispatch {
+        private final CommandHandler handler;
+        private final ChatBotMessageReceive messageReceive;
+        private final DispatchContext context;
+        private final CompletionStage<Void> acknowledged;
+        private final CompletableFuture<DispatchResult> result;
+
+        private PendingDispatch(CommandHandler handler,
+                                ChatBotMessageReceive messageReceive,
+                                DispatchContext context,
+                                CompletionStage<Void> acknowledged,
+                                CompletableFuture<DispatchResult> result) {
+            this.handler = handler;
+            this.messageReceive = messageReceive;
+            this.context = context;
+            this.acknowledged = acknowledged;
+            this.result = result;
         }
-        return Optional.empty();
     }
 }
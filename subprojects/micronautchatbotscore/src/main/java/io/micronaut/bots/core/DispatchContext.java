@@ -0,0 +1,283 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.io.Serializable;
+
+/**
+ * Immutable view of a {@link ChatBotMessageReceive} parsed once per update by
+ * {@link ChatBotMessageParser#parseContext(ChatBot, ChatBotMessageReceive)} and passed through the dispatcher,
+ * the handlers and the composers.
+ */
+public final class DispatchContext {
+    public static final String KIND_MESSAGE = "message";
+
+    @NonNull
+    private final String kind;
+
+    @Nullable
+    private final String text;
+
+    @NonNull
+    private final CommandTokenizer tokens;
+
+    @Nullable
+    private final ChatBotSpace chat;
+
+    @Nullable
+    private final Serializable chatId;
+
+    @Nullable
+    private final String chatType;
+
+    @Nullable
+    private final String chatTitle;
+
+    @Nullable
+    private final Serializable userId;
+
+    @Nullable
+    private final String userFirstName;
+
+    @Nullable
+    private final String languageCode;
+
+    private DispatchContext(@NonNull Builder builder) {
+        this.kind = builder.kind;
+        this.text = builder.text;
+        this.chat = builder.chat;
+        this.chatId = builder.chatId;
+        this.chatType = builder.chatType;
+        this.chatTitle = builder.chatTitle;
+        this.userId = builder.userId;
+        this.userFirstName = builder.userFirstName;
+        this.languageCode = builder.languageCode;
+        this.tokens = CommandTokenizer.tokenize(builder.textWithoutBotName);
+    }
+
+    /**
+     * @param kind Kind of update, for example the field of the Telegram update which is populated
+     * @return A builder of a context of the given kind
+     */
+    @NonNull
+    public static Builder builder(@NonNull String kind) {
+        return new Builder(kind);
+    }
+
+    @NonNull
+    public String getKind() {
+        return kind;
+    }
+
+    @Nullable
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return Offsets of the command, the bot name suffix and the arguments within the text without the bot name
+     */
+    @NonNull
+    public CommandTokenizer getTokens() {
+        return tokens;
+    }
+
+    /**
+     * @return Command without the {@link CommandHandler#COMMAND_PREFIX} or null if the text is not a command
+     */
+    @Nullable
+    public String getCommand() {
+        CharSequence command = tokens.command();
+        return command != null ? command.toString() : null;
+    }
+
+    /**
+     * @return Text following the command or null if there is none
+     */
+    @Nullable
+    public String getArguments() {
+        CharSequence arguments = tokens.arguments();
+        return arguments != null ? arguments.toString() : null;
+    }
+
+    @Nullable
+    public ChatBotSpace getChat() {
+        return chat;
+    }
+
+    @Nullable
+    public Serializable getChatId() {
+        return chatId;
+    }
+
+    @Nullable
+    public String getChatType() {
+        return chatType;
+    }
+
+    @Nullable
+    public String getChatTitle() {
+        return chatTitle;
+    }
+
+    @Nullable
+    public Serializable getUserId() {
+        return userId;
+    }
+
+    @Nullable
+    public String getUserFirstName() {
+        return userFirstName;
+    }
+
+    @Nullable
+    public String getLanguageCode() {
+        return languageCode;
+    }
+
+    @Override
+    public String toString() {
+        return "DispatchContext{" +
+                "kind='" + kind + '\'' +
+                ", text='" + text + '\'' +
+                ", tokens=" + tokens +
+                ", chatId=" + chatId +
+                ", chatType='" + chatType + '\'' +
+                ", userId=" + userId +
+                ", languageCode='" + languageCode + '\'' +
+                '}';
+    }
+
+    /**
+     * Builds a {@link DispatchContext}. Every value but the kind is optional.
+     */
+    public static final class Builder {
+        private final String kind;
+        private String text;
+        private CharSequence textWithoutBotName;
+        private ChatBotSpace chat;
+        private Serializable chatId;
+        private String chatType;
+        private String chatTitle;
+        private Serializable userId;
+        private String userFirstName;
+        private String languageCode;
+
+        private Builder(@NonNull String kind) {
+            this.kind = kind;
+        }
+
+        /**
+         * @param text Text of the update
+         * @return The builder
+         */
+        @NonNull
+        public Builder text(@Nullable String text) {
+            this.text = text;
+            return this;
+        }
+
+        /**
+         * @param textWithoutBotName Text of the update without the bot name, tokenized into the command and its arguments
+         * @return The builder
+         */
+        @NonNull
+        public Builder textWithoutBotName(@Nullable CharSequence textWithoutBotName) {
+            this.textWithoutBotName = textWithoutBotName;
+            return this;
+        }
+
+        /**
+         * @param chat Chat where the update happened
+         * @return The builder
+         */
+        @NonNull
+        public Builder chat(@Nullable ChatBotSpace chat) {
+            this.chat = chat;
+            return this;
+        }
+
+        /**
+         * @param chatId Chat identifier
+         * @return The builder
+         */
+        @NonNull
+        public Builder chatId(@Nullable Serializable chatId) {
+            this.chatId = chatId;
+            return this;
+        }
+
+        /**
+         * @param chatType Chat type
+         * @return The builder
+         */
+        @NonNull
+        public Builder chatType(@Nullable String chatType) {
+            this.chatType = chatType;
+            return this;
+        }
+
+        /**
+         * @param chatTitle Chat title or display name
+         * @return The builder
+         */
+        @NonNull
+        public Builder chatTitle(@Nullable String chatTitle) {
+            this.chatTitle = chatTitle;
+            return this;
+        }
+
+        /**
+         * @param userId Identifier of the user who sent the update
+         * @return The builder
+         */
+        @NonNull
+        public Builder userId(@Nullable Serializable userId) {
+            this.userId = userId;
+            return this;
+        }
+
+        /**
+         * @param userFirstName First name or display name of the user who sent the update
+         * @return The builder
+         */
+        @NonNull
+        public Builder userFirstName(@Nullable String userFirstName) {
+            this.userFirstName = userFirstName;
+            return this;
+        }
+
+        /**
+         * @param languageCode IETF language tag of the user who sent the update
+         * @return The builder
+         */
+        @NonNull
+        public Builder languageCode(@Nullable String languageCode) {
+            this.languageCode = languageCode;
+            return this;
+        }
+
+        @NonNull
+        public DispatchContext build() {
+            return new DispatchContext(this);
+        }
+    }
+}
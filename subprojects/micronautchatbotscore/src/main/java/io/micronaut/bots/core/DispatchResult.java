@@ -0,0 +1,153 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Outcome of dispatching one message of a batch. A failed message does not affect the others.
+ */
+public final class DispatchResult {
+
+    static final DispatchResult EMPTY = new DispatchResult(Optional.empty(), null);
+
+    @NonNull
+    private final Optional<ChatBotMessageSend> reply;
+
+    @Nullable
+    private final Throwable error;
+
+    private DispatchResult(@NonNull Optional<ChatBotMessageSend> reply, @Nullable Throwable error) {
+        this.reply = reply;
+        this.error = error;
+    }
+
+    @NonNull
+    public static DispatchResult success(@NonNull Optional<ChatBotMessageSend> reply) {
+        return reply.isPresent() ? new DispatchResult(reply, null) : EMPTY;
+    }
+
+    @NonNull
+    public static DispatchResult failure(@NonNull Throwable error) {
+        return new DispatchResult(Optional.empty(), unwrap(error));
+    }
+
+    /**
+     * @return The reply, empty if the message had no reply or failed
+     */
+    @NonNull
+    public Optional<ChatBotMessageSend> getReply() {
+        return reply;
+    }
+
+    /**
+     * @return The error thrown while dispatching the message or null if it succeeded
+     */
+    @Nullable
+    public Throwable getError() {
+        return error;
+    }
+
+    public boolean isFailed() {
+        return error != null;
+    }
+
+    /**
+     * @return Whether the message was not handled because the {@link ChatExecutor} was full. Redelivering it later
+     * may succeed.
+     */
+    public boolean isRejected() {
+        return isRejected(error);
+    }
+
+    /**
+     * @param error Error of a dispatch, possibly wrapped in a {@link CompletionException}
+     * @return Whether the error is a {@link RejectedExecutionException}
+     */
+    public static boolean isRejected(@Nullable Throwable error) {
+        return unwrap(error) instanceof RejectedExecutionException;
+    }
+
+    /**
+     * Waits for a dispatch to complete. Unchecked errors are rethrown as the handler threw them instead of wrapped in
+     * a {@link CompletionException}, so that a full {@link ChatExecutor} surfaces as a
+     * {@link RejectedExecutionException}.
+     * @param reply Reply of a dispatch
+     * @param <T> Type of the reply
+     * @return The reply
+     */
+    public static <T> T join(@NonNull CompletionStage<T> reply) {
+        try {
+            return reply.toCompletableFuture().join();
+        } catch (CompletionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private static Throwable unwrap(@Nullable Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
+    }
+
+    @NonNull
+    static CompletableFuture<DispatchResult> of(@NonNull CompletionStage<Optional<ChatBotMessageSend>> reply) {
+        return reply.handle((send, throwable) -> throwable != null ? failure(throwable) : success(send))
+                .toCompletableFuture();
+    }
+
+    /**
+     * @param results Results which never complete exceptionally
+     * @return The results in the same order, once all of them are complete
+     */
+    @NonNull
+    static CompletionStage<List<DispatchResult>> all(@NonNull List<CompletableFuture<DispatchResult>> results) {
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).thenApply(done -> {
+            List<DispatchResult> list = new ArrayList<>(results.size());
+            for (CompletableFuture<DispatchResult> result : results) {
+                list.add(result.join());
+            }
+            return list;
+        });
+    }
+
+    @Override
+    public String toString() {
+        return "DispatchResult{" +
+                "reply=" + reply +
+                ", error=" + error +
+                '}';
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.micronaut.core.io.ResourceResolver;
+import io.micronaut.core.io.scan.ClassPathResourceLoader;
+import io.micronaut.core.util.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Contents of the files of the {@link BotCommandConfiguration}s, read once at startup.
+ * Paths are read from the classpath unless prefixed with {@value #FILE_PREFIX}. File system paths are watched and
+ * reloaded when they change.
+ */
+@Singleton
+public class FileCommandContentCache implements AutoCloseable {
+    public static final String FILE_PREFIX = "file:";
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileCommandContentCache.class);
+
+    private final ClassPathResourceLoader classPathResourceLoader;
+    private final Map<Path, Set<String>> watchedFiles = new HashMap<>();
+    private final Set<String> templatePaths = new HashSet<>();
+    private volatile Map<String, Optional<String>> contents;
+    private volatile Map<String, ReplyTemplate> templates;
+    private WatchService watchService;
+
+    /**
+     * @param configurations Commands whose files are read at startup
+     * @param resourceResolver Resolver of the application context, whose class path loader reads the files
+     */
+    public FileCommandContentCache(Collection<BotCommandConfiguration> configurations,
+                                   ResourceResolver resourceResolver) {
+        this.classPathResourceLoader = resourceResolver.getLoader(ClassPathResourceLoader.class)
+                .orElseThrow(() -> new IllegalStateException("no class path resource loader"));
+        Map<String, Optional<String>> loaded = new HashMap<>();
+        Map<String, ReplyTemplate> compiled = new HashMap<>();
+        for (BotCommandConfiguration configuration : configurations) {
+            String path = configuration.getPath();
+            if (path != null && configuration.isTemplate()) {
+                templatePaths.add(path);
+            }
+            if (path != null && !loaded.containsKey(path)) {
+                loaded.put(path, read(path));
+                if (path.startsWith(FILE_PREFIX)) {
+                    Path file = filePath(path);
+                    watchedFiles.computeIfAbsent(file, f -> new HashSet<>()).add(path);
+                }
+            }
+        }
+        for (String path : templatePaths) {
+            loaded.get(path).ifPresent(content -> compiled.put(path, ReplyTemplate.compile(content)));
+        }
+        this.contents = Collections.unmodifiableMap(loaded);
+        this.templates = Collections.unmodifiableMap(compiled);
+        if (!watchedFiles.isEmpty()) {
+            watch();
+        }
+    }
+
+    /**
+     * @param path Path of the file
+     * @return The content of the file or an empty optional if the file does not exist or is empty
+     */
+    @NonNull
+    public Optional<String> find(@NonNull String path) {
+        Optional<String> content = contents.get(path);
+        if (content == null) {
+            content = read(path);
+            put(path, content);
+        }
+        return content;
+    }
+
+    /**
+     * @param path Path of a file configured with {@link BotCommandConfiguration#isTemplate()}
+     * @return The template compiled from the file or an empty optional if the file does not exist or is empty
+     */
+    @NonNull
+    public Optional<ReplyTemplate> findTemplate(@NonNull String path) {
+        return Optional.ofNullable(templates.get(path));
+    }
+
+    /**
+     * Reads the file again and replaces its cached content.
+     * @param path Path of the file
+     */
+    public void reload(@NonNull String path) {
+        if (LOG.isInfoEnabled()) {
+            LOG.info("reloading command file {}", path);
+        }
+        put(path, read(path));
+    }
+
+    private synchronized void put(@NonNull String path, @NonNull Optional<String> content) {
+        if (templatePaths.contains(path)) {
+            Map<String, ReplyTemplate> compiled = new HashMap<>(templates);
+            compiled.remove(path);
+            if (content.isPresent()) {
+                try {
+                    compiled.put(path, ReplyTemplate.compile(content.get()));
+                } catch (IllegalArgumentException e) {
+                    LOG.error("invalid template {} {}", path, e.getMessage());
+                    return;
+                }
+            }
+            templates = Collections.unmodifiableMap(compiled);
+        }
+        Map<String, Optional<String>> copy = new HashMap<>(contents);
+        copy.put(path, content);
+        contents = Collections.unmodifiableMap(copy);
+    }
+
+    @NonNull
+    private Optional<String> read(@NonNull String path) {
+        try (InputStream inputStream = open(path)) {
+            if (inputStream == null) {
+                LOG.warn("resource not found {}", path);
+                return Optional.empty();
+            }
+            BufferedReader in = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+            StringBuilder text = new StringBuilder();
+            String inputLine;
+            while ((inputLine = in.readLine()) != null) {
+                text.append(inputLine).append('\n');
+            }
+            return StringUtils.isEmpty(text) ? Optional.empty() : Optional.of(text.toString());
+        } catch (IOException e) {
+            LOG.error("IOException {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private InputStream open(@NonNull String path) throws IOException {
+        if (path.startsWith(FILE_PREFIX)) {
+            Path file = filePath(path);
+            return Files.isReadable(file) ? Files.newInputStream(file) : null;
+        }
+        return classPathResourceLoader.getResourceAsStream(path).orElse(null);
+    }
+
+    @NonNull
+    private static Path filePath(@NonNull String path) {
+        return Paths.get(path.substring(FILE_PREFIX.length())).toAbsolutePath().normalize();
+    }
+
+    private void watch() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            Set<Path> directories = new HashSet<>();
+            for (Path file : watchedFiles.keySet()) {
+                Path directory = file.getParent();
+                if (directory != null && directories.add(directory)) {
+                    directory.register(watchService,
+                            StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY,
+                            StandardWatchEventKinds.ENTRY_DELETE);
+                }
+            }
+        } catch (IOException e) {
+            LOG.error("IOException watching command files {}", e.getMessage());
+            return;
+        }
+        Thread thread = new Thread(this::pollChanges, "chatbots-command-files");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void pollChanges() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Path directory = (Path) key.watchable();
+                List<String> changed = new ArrayList<>();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.context() instanceof Path) {
+                        Set<String> paths = watchedFiles.get(directory.resolve((Path) event.context()));
+                        if (paths != null) {
+                            changed.addAll(paths);
+                        }
+                    }
+                }
+                for (String path : changed) {
+                    reload(path);
+                }
+                if (!key.reset()) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // closed on shutdown
+        }
+    }
+
+    @PreDestroy
+    @Override
+    public void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+}
@@ -25,18 +25,25 @@ public class FileCommandFactory {
 
     private final ChatBotMessageParser messageParser;
     private final MessageComposer messageComposer;
+    private final FileCommandContentCache contentCache;
 
     public FileCommandFactory(ChatBotMessageParser messageParser,
-                              MessageComposer messageComposer) {
+                              MessageComposer messageComposer,
+                              FileCommandContentCache contentCache) {
         this.messageParser = messageParser;
         this.messageComposer = messageComposer;
+        this.contentCache = contentCache;
     }
 
     @EachBean(BotCommandConfiguration.class)
     public FileCommandHandler buildMarkdownFileCommandHandler(BotCommandConfiguration configuration) {
 
         if (configuration.getParseMode() != null && configuration.getPath() != null) {
-            return new FileCommandHandler(configuration.getParseMode(), configuration.getPath(), messageComposer);
+            return new FileCommandHandler(configuration.getParseMode(),
+                    configuration.getPath(),
+                    messageComposer,
+                    contentCache,
+                    configuration.isTemplate());
         }
         return null;
     }
@@ -19,30 +19,48 @@ package io.micronaut.bots.core;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
 import io.micronaut.core.io.ResourceResolver;
-import io.micronaut.core.io.scan.ClassPathResourceLoader;
-import io.micronaut.core.util.StringUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.URL;
+import java.util.Collections;
 import java.util.Optional;
 
 public class FileCommandHandler implements CommandHandler {
-    private static final Logger LOG = LoggerFactory.getLogger(FileCommandHandler.class);
-
     protected final ParseMode parseMode;
     protected final String path;
     protected final MessageComposer messageComposer;
+    protected final FileCommandContentCache contentCache;
+    protected final boolean template;
 
+    /**
+     * @deprecated Use {@link #FileCommandHandler(ParseMode, String, MessageComposer, FileCommandContentCache)}
+     * instead, which shares the files read by the application context.
+     */
+    @Deprecated
     public FileCommandHandler(ParseMode parseMode,
                               String path,
                               MessageComposer messageComposer) {
+        this(parseMode,
+                path,
+                messageComposer,
+                new FileCommandContentCache(Collections.emptyList(), new ResourceResolver()));
+    }
+
+    public FileCommandHandler(ParseMode parseMode,
+                              String path,
+                              MessageComposer messageComposer,
+                              FileCommandContentCache contentCache) {
+        this(parseMode, path, messageComposer, contentCache, false);
+    }
+
+    public FileCommandHandler(ParseMode parseMode,
+                              String path,
+                              MessageComposer messageComposer,
+                              FileCommandContentCache contentCache,
+                              boolean template) {
         this.parseMode = parseMode;
         this.path = path;
         this.messageComposer = messageComposer;
+        this.contentCache = contentCache;
+        this.template = template;
     }
 
     @Override
@@ -56,47 +74,31 @@ public class FileCommandHandler implements CommandHandler {
         return messageComposer.compose(textOpt.get(), parseMode, chatUpdate);
     }
 
+    @Override
+    public <T extends ChatBotMessageSend> Optional<T> handle(@NonNull ChatBot bot,
+                                                             @NonNull ChatBotMessageReceive chatUpdate,
+                                                             @NonNull DispatchContext context) {
+        Optional<String> textOpt = replyUpdate(bot, chatUpdate, context);
+        if (!textOpt.isPresent()) {
+            return Optional.empty();
+        }
+        return messageComposer.compose(textOpt.get(), parseMode, chatUpdate, context);
+    }
+
     protected Optional<String> replyUpdate(@NonNull ChatBot bot,
                                            @NonNull ChatBotMessageReceive chatUpdate) {
+        return contentCache.find(path);
+    }
 
-            ClassPathResourceLoader loader = new ResourceResolver().getLoader(ClassPathResourceLoader.class).get();
-            Optional<URL> resource = loader.getResource(path);
-            if (resource.isPresent()) {
-                URL u = resource.get();
-                BufferedReader in = null;
-                try {
-                    in = new BufferedReader(new InputStreamReader(u.openStream()));
-                } catch (IOException e) {
-                    LOG.error("IOException {}", e.getMessage());
-                    return Optional.empty();
-                }
-
-                String text = "";
-                String inputLine;
-                try {
-                    while ((inputLine = in.readLine()) != null) {
-                        text += inputLine;
-                        text += "\n";
-                    }
-                } catch (IOException e) {
-                    LOG.error("IOException {}", e.getMessage());
-                    return Optional.empty();
-                }
-
-                try {
-                    in.close();
-                } catch (IOException e) {
-                    LOG.error("IOException {}", e.getMessage());
-                    return Optional.empty();
-                }
-                if (StringUtils.isEmpty(text)) {
-                    return Optional.empty();
-                }
-                return Optional.of(text);
-            } else {
-                LOG.warn("resource not found");
+    protected Optional<String> replyUpdate(@NonNull ChatBot bot,
+                                           @NonNull ChatBotMessageReceive chatUpdate,
+                                           @NonNull DispatchContext context) {
+        if (template) {
+            Optional<ReplyTemplate> replyTemplate = contentCache.findTemplate(path);
+            if (replyTemplate.isPresent()) {
+                return Optional.of(replyTemplate.get().render(context, parseMode));
             }
-        return Optional.empty();
+        }
+        return replyUpdate(bot, chatUpdate);
     }
-
 }
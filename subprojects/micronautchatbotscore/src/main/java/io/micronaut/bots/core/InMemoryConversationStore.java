@@ -0,0 +1,188 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.micronaut.context.annotation.Secondary;
+
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link ConversationStore} which keeps the conversations in memory, bounded by size and time to idle.
+ * Conversations with numeric chat and user ids, as in Telegram, are kept in primitive keyed tables.
+ * Loaded and saved states are copies, so changes are only stored by {@link #save(ConversationState)}.
+ */
+@Secondary
+@Singleton
+public class InMemoryConversationStore implements ConversationStore {
+    private static final int STRIPES = 16;
+
+    private final Stripe[] stripes;
+
+    public InMemoryConversationStore(ConversationStoreConfiguration configuration) {
+        this(configuration.getMaximumSize(), configuration.getTimeToIdle());
+    }
+
+    /**
+     * @param maximumSize Maximum number of conversations
+     * @param timeToIdle Time after which a conversation without updates is dropped, null to never drop it
+     */
+    public InMemoryConversationStore(int maximumSize, Duration timeToIdle) {
+        int stripeCapacity = Math.max(1, (maximumSize + STRIPES - 1) / STRIPES);
+        long timeToIdleNanos = timeToIdle != null ? timeToIdle.toNanos() : 0;
+        this.stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(stripeCapacity, timeToIdleNanos);
+        }
+    }
+
+    @NonNull
+    @Override
+    public ConversationState load(@NonNull ConversationKey key) {
+        return load(key, System.nanoTime());
+    }
+
+    @Override
+    public void save(@NonNull ConversationState state) {
+        save(state, System.nanoTime());
+    }
+
+    @Override
+    public void remove(@NonNull ConversationKey key) {
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            stripe.remove(key);
+        }
+    }
+
+    /**
+     * @return Number of conversations, including the expired ones not evicted yet
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    @NonNull
+    ConversationState load(@NonNull ConversationKey key, long now) {
+        Stripe stripe = stripeFor(key);
+        ConversationState state;
+        synchronized (stripe) {
+            state = stripe.get(key, now);
+        }
+        return state != null ? new ConversationState(key, state.getAttributes()) : new ConversationState(key);
+    }
+
+    void save(@NonNull ConversationState state, long now) {
+        Stripe stripe = stripeFor(state.getKey());
+        synchronized (stripe) {
+            if (state.isEmpty()) {
+                stripe.remove(state.getKey());
+            } else {
+                stripe.put(new ConversationState(state.getKey(), state.getAttributes()), now);
+            }
+        }
+        state.markSaved();
+    }
+
+    @NonNull
+    private Stripe stripeFor(@NonNull ConversationKey key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return stripes[hash & (STRIPES - 1)];
+    }
+
+    private static final class Stripe {
+        private final ConversationTable numeric;
+        private final Map<ConversationKey, Entry> others;
+        private final int capacity;
+        private final long timeToIdleNanos;
+
+        private Stripe(int capacity, long timeToIdleNanos) {
+            this.capacity = capacity;
+            this.timeToIdleNanos = timeToIdleNanos;
+            this.numeric = new ConversationTable(capacity, timeToIdleNanos);
+            this.others = new LinkedHashMap<>(16, 0.75f, true);
+        }
+
+        private ConversationState get(ConversationKey key, long now) {
+            if (key.isNumeric()) {
+                return numeric.get(longValue(key.getChatId()), longValue(key.getUserId()), now);
+            }
+            Entry entry = others.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (timeToIdleNanos > 0 && now - entry.lastAccess > timeToIdleNanos) {
+                others.remove(key);
+                return null;
+            }
+            entry.lastAccess = now;
+            return entry.state;
+        }
+
+        private void put(ConversationState state, long now) {
+            ConversationKey key = state.getKey();
+            if (key.isNumeric()) {
+                numeric.put(longValue(key.getChatId()), longValue(key.getUserId()), state, now);
+                return;
+            }
+            others.put(key, new Entry(state, now));
+            Iterator<Entry> eldest = others.values().iterator();
+            while (others.size() > capacity && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+
+        private void remove(ConversationKey key) {
+            if (key.isNumeric()) {
+                numeric.remove(longValue(key.getChatId()), longValue(key.getUserId()));
+            } else {
+                others.remove(key);
+            }
+        }
+
+        private int size() {
+            return numeric.size() + others.size();
+        }
+
+        private static long longValue(Object id) {
+            return ((Number) id).longValue();
+        }
+    }
+
+    private static final class Entry {
+        private final ConversationState state;
+        private long lastAccess;
+
+        private Entry(ConversationState state, long lastAccess) {
+            this.state = state;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
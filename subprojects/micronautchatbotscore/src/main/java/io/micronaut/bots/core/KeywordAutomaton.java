@@ -0,0 +1,151 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick automaton which finds, in a single pass over a text, the lowest value associated to any of the
+ * keywords contained in the text. Matching is case-insensitive. Instances are immutable and thread-safe.
+ */
+public final class KeywordAutomaton {
+
+    public static final int NO_MATCH = -1;
+
+    private static final int ROOT = 0;
+
+    private final char[][] labels;
+    private final int[][] targets;
+    private final int[] fail;
+    private final int[] output;
+
+    /**
+     * @param keywords Keywords to search for
+     * @param values Value of each keyword, with the same size as keywords. Values must not be negative.
+     */
+    public KeywordAutomaton(@NonNull List<String> keywords, @NonNull int[] values) {
+        if (keywords.size() != values.length) {
+            throw new IllegalArgumentException("keywords and values must have the same size");
+        }
+        List<Map<Character, Integer>> children = new ArrayList<>();
+        List<Integer> outputs = new ArrayList<>();
+        children.add(new TreeMap<>());
+        outputs.add(Integer.MAX_VALUE);
+        for (int i = 0; i < values.length; i++) {
+            String keyword = keywords.get(i);
+            if (keyword == null || keyword.isEmpty()) {
+                continue;
+            }
+            int node = ROOT;
+            for (int j = 0; j < keyword.length(); j++) {
+                Character c = fold(keyword.charAt(j));
+                Integer next = children.get(node).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.add(new TreeMap<>());
+                    outputs.add(Integer.MAX_VALUE);
+                    children.get(node).put(c, next);
+                }
+                node = next;
+            }
+            outputs.set(node, Math.min(outputs.get(node), values[i]));
+        }
+
+        int size = children.size();
+        this.labels = new char[size][];
+        this.targets = new int[size][];
+        this.fail = new int[size];
+        this.output = new int[size];
+        for (int node = 0; node < size; node++) {
+            Map<Character, Integer> edges = children.get(node);
+            labels[node] = new char[edges.size()];
+            targets[node] = new int[edges.size()];
+            int k = 0;
+            for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                labels[node][k] = edge.getKey();
+                targets[node][k] = edge.getValue();
+                k++;
+            }
+            output[node] = outputs.get(node);
+        }
+
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int child : targets[ROOT]) {
+            fail[child] = ROOT;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int k = 0; k < labels[node].length; k++) {
+                char c = labels[node][k];
+                int child = targets[node][k];
+                int f = fail[node];
+                int next = transition(f, c);
+                while (next < 0 && f != ROOT) {
+                    f = fail[f];
+                    next = transition(f, c);
+                }
+                fail[child] = next < 0 ? ROOT : next;
+                output[child] = Math.min(output[child], output[fail[child]]);
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * @param text Text to scan
+     * @return The lowest value of the keywords found in the text or {@link #NO_MATCH}
+     */
+    public int find(@NonNull CharSequence text) {
+        int best = Integer.MAX_VALUE;
+        int node = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            char c = fold(text.charAt(i));
+            int next = transition(node, c);
+            while (next < 0 && node != ROOT) {
+                node = fail[node];
+                next = transition(node, c);
+            }
+            node = next < 0 ? ROOT : next;
+            if (output[node] < best) {
+                best = output[node];
+                if (best == 0) {
+                    break;
+                }
+            }
+        }
+        return best == Integer.MAX_VALUE ? NO_MATCH : best;
+    }
+
+    private int transition(int node, char c) {
+        int index = Arrays.binarySearch(labels[node], c);
+        return index < 0 ? -1 : targets[node][index];
+    }
+
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.micronaut.core.order.OrderUtil;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Resolves the highest priority {@link MatcherCommandHandler}, respecting {@link io.micronaut.core.order.Ordered},
+ * which matches a text.
+ *
+ * Keywords declared by {@link PatternMatcherCommandHandler} are merged into a single {@link KeywordAutomaton}.
+ * Regular expressions are merged into a single alternation used as a prefilter, so that texts not matched by any
+ * expression are scanned once. Only handlers with a higher priority than the best keyword match are evaluated
+ * individually. Instances are immutable and thread-safe.
+ */
+public final class MatcherCommandEngine {
+
+    private static final String ALTERNATION = "|";
+
+    private final MatcherCommandHandler[] handlers;
+    private final KeywordAutomaton keywordAutomaton;
+    private final Pattern[][] patterns;
+    private final boolean[] evaluated;
+    private final Pattern prefilter;
+
+    private MatcherCommandEngine(@NonNull List<MatcherCommandHandler> sortedHandlers) {
+        int size = sortedHandlers.size();
+        this.handlers = sortedHandlers.toArray(new MatcherCommandHandler[0]);
+        this.patterns = new Pattern[size][];
+        this.evaluated = new boolean[size];
+        List<String> keywords = new ArrayList<>();
+        List<Integer> values = new ArrayList<>();
+        List<Pattern> allPatterns = new ArrayList<>();
+        boolean onlyPatterns = true;
+        for (int i = 0; i < size; i++) {
+            MatcherCommandHandler handler = handlers[i];
+            if (handler instanceof PatternMatcherCommandHandler) {
+                PatternMatcherCommandHandler patternHandler = (PatternMatcherCommandHandler) handler;
+                for (String keyword : patternHandler.getKeywords()) {
+                    keywords.add(keyword);
+                    values.add(i);
+                }
+                patterns[i] = patternHandler.getPatterns().toArray(new Pattern[0]);
+                allPatterns.addAll(patternHandler.getPatterns());
+                evaluated[i] = patterns[i].length > 0;
+            } else {
+                evaluated[i] = true;
+                onlyPatterns = false;
+            }
+        }
+        int[] keywordValues = new int[values.size()];
+        for (int i = 0; i < keywordValues.length; i++) {
+            keywordValues[i] = values.get(i);
+        }
+        this.keywordAutomaton = new KeywordAutomaton(keywords, keywordValues);
+        this.prefilter = onlyPatterns ? combine(allPatterns) : null;
+    }
+
+    @NonNull
+    public static MatcherCommandEngine of(@NonNull Collection<? extends MatcherCommandHandler> handlers) {
+        List<MatcherCommandHandler> sortedHandlers = new ArrayList<>(handlers);
+        OrderUtil.sort(sortedHandlers);
+        return new MatcherCommandEngine(sortedHandlers);
+    }
+
+    /**
+     * @param text Text to match
+     * @return The highest priority handler matching the text or null if none matches
+     */
+    @Nullable
+    public MatcherCommandHandler find(@NonNull String text) {
+        int best = keywordAutomaton.find(text);
+        int limit = best == KeywordAutomaton.NO_MATCH ? handlers.length : best;
+        if (prefilter == null || prefilter.matcher(text).find()) {
+            for (int i = 0; i < limit; i++) {
+                if (evaluated[i] && matches(i, text)) {
+                    return handlers[i];
+                }
+            }
+        }
+        return best == KeywordAutomaton.NO_MATCH ? null : handlers[best];
+    }
+
+    /**
+     * Evaluates a single handler outside of an engine. Nothing is compiled or cached: each keyword is searched for,
+     * ignoring case, and the patterns of the handler are used as they are. Engines evaluate handlers through the
+     * automaton compiled when they are built instead.
+     * @param handler Handler
+     * @param text Text to match
+     * @return Whether any keyword or pattern of the handler matches the text
+     */
+    static boolean matches(@NonNull PatternMatcherCommandHandler handler, @NonNull String text) {
+        for (Pattern pattern : handler.getPatterns()) {
+            if (pattern.matcher(text).find()) {
+                return true;
+            }
+        }
+        for (String keyword : handler.getKeywords()) {
+            if (keyword != null && !keyword.isEmpty() && containsIgnoreCase(text, keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsIgnoreCase(@NonNull String text, @NonNull String keyword) {
+        for (int i = 0, last = text.length() - keyword.length(); i <= last; i++) {
+            if (text.regionMatches(true, i, keyword, 0, keyword.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return handlers.length == 0;
+    }
+
+    private boolean matches(int index, @NonNull String text) {
+        Pattern[] handlerPatterns = patterns[index];
+        if (handlerPatterns == null) {
+            return handlers[index].matches(text);
+        }
+        for (Pattern pattern : handlerPatterns) {
+            if (pattern.matcher(text).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param patterns Regular expressions
+     * @return A single expression matching whenever any of the expressions matches or null if they cannot be combined,
+     * in which case each expression is evaluated on its own
+     */
+    @Nullable
+    static Pattern combine(@NonNull List<Pattern> patterns) {
+        if (patterns.isEmpty()) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Pattern pattern : patterns) {
+            String flags = inlineFlags(pattern.flags());
+            String regex = pattern.pattern();
+            if (flags == null || regex.matches("(?s).*\\\\([1-9]|k<).*")) {
+                return null;
+            }
+            if (sb.length() > 0) {
+                sb.append(ALTERNATION);
+            }
+            sb.append("(?").append(flags).append(':').append(regex).append(')');
+        }
+        try {
+            return Pattern.compile(sb.toString());
+        } catch (PatternSyntaxException e) {
+            // e.g. the same named group declared by two expressions
+            return null;
+        }
+    }
+
+    @Nullable
+    private static String inlineFlags(int flags) {
+        if ((flags & (Pattern.LITERAL | Pattern.CANON_EQ | Pattern.COMMENTS)) != 0) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        if ((flags & Pattern.CASE_INSENSITIVE) != 0) {
+            sb.append('i');
+        }
+        if ((flags & Pattern.MULTILINE) != 0) {
+            sb.append('m');
+        }
+        if ((flags & Pattern.DOTALL) != 0) {
+            sb.append('s');
+        }
+        if ((flags & Pattern.UNICODE_CASE) != 0) {
+            sb.append('u');
+        }
+        if ((flags & Pattern.UNIX_LINES) != 0) {
+            sb.append('d');
+        }
+        if ((flags & Pattern.UNICODE_CHARACTER_CLASS) != 0) {
+            sb.append('U');
+        }
+        return sb.toString();
+    }
+}
@@ -32,4 +32,38 @@ public interface MessageComposer {
     <T extends ChatBotMessageSend> Optional<T> compose(@NonNull @NotBlank String text,
                                                        @NonNull ParseMode parseMode,
                                                        @NonNull @Valid @NotNull ChatBotMessageReceive messageReceive);
+
+    default <T extends ChatBotMessageSend> Optional<T> compose(@NonNull @NotBlank String text,
+                                                               @NonNull @Valid @NotNull ChatBotMessageReceive messageReceive,
+                                                               @NonNull DispatchContext context) {
+        return compose(text, messageReceive);
+    }
+
+    default <T extends ChatBotMessageSend> Optional<T> compose(@NonNull @NotBlank String text,
+                                                               @NonNull ParseMode parseMode,
+                                                               @NonNull @Valid @NotNull ChatBotMessageReceive messageReceive,
+                                                               @NonNull DispatchContext context) {
+        return compose(text, parseMode, messageReceive);
+    }
+
+    /**
+     * Converts a reply before it is cached to be {@link #retarget(ChatBotMessageSend, DispatchContext) retargeted}
+     * to other updates, for example into a pre-serialized form.
+     * @param reply Reply built by a handler
+     * @return The reply to cache
+     */
+    @NonNull
+    default ChatBotMessageSend prepare(@NonNull ChatBotMessageSend reply) {
+        return reply;
+    }
+
+    /**
+     * Copies a reply built for another update so it can be sent to the chat of this update.
+     * @param reply Reply built for another update of the same kind
+     * @param context Dispatch context of this update
+     * @return The reply addressed to the chat of this update or an empty optional if the reply cannot be reused
+     */
+    default Optional<ChatBotMessageSend> retarget(@NonNull ChatBotMessageSend reply, @NonNull DispatchContext context) {
+        return Optional.empty();
+    }
 }
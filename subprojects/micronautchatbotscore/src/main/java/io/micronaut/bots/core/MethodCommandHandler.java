@@ -0,0 +1,160 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.micronaut.inject.ExecutableMethod;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * {@link CommandHandler} which invokes a {@link Command} method with the parameters bound by its resolvers.
+ * The conversion of the returned value into a reply is chosen once, from the declared return type, when the method is
+ * registered.
+ */
+final class MethodCommandHandler implements CommandHandler {
+
+    /**
+     * Returned by a resolver when the update cannot be handled by the method, for example because the method
+     * expects the bot of another chat platform.
+     */
+    static final Object NOT_APPLICABLE = new Object();
+
+    private final String description;
+    private final Invoker invoker;
+    private final CommandArgumentBinder.Resolver[] resolvers;
+    private final ReplyMapper replyMapper;
+    private final ChatBotMessageParser messageParser;
+    private final ConversationStore conversationStore;
+
+    MethodCommandHandler(@NonNull String description,
+                         @NonNull Invoker invoker,
+                         @NonNull CommandArgumentBinder.Resolver[] resolvers,
+                         @NonNull ReplyMapper replyMapper,
+                         @NonNull ChatBotMessageParser messageParser,
+                         @NonNull ConversationStore conversationStore) {
+        this.description = description;
+        this.invoker = invoker;
+        this.resolvers = resolvers;
+        this.replyMapper = replyMapper;
+        this.messageParser = messageParser;
+        this.conversationStore = conversationStore;
+    }
+
+    @Override
+    public <T extends ChatBotMessageSend> Optional<T> handle(@NonNull ChatBot chatBot,
+                                                             @NonNull ChatBotMessageReceive update) {
+        return handle(chatBot, update, messageParser.parseContext(chatBot, update));
+    }
+
+    @Override
+    public <T extends ChatBotMessageSend> Optional<T> handle(@NonNull ChatBot chatBot,
+                                                             @NonNull ChatBotMessageReceive update,
+                                                             @NonNull DispatchContext context) {
+        Object[] arguments = new Object[resolvers.length];
+        for (int i = 0; i < resolvers.length; i++) {
+            Object value = resolvers[i].resolve(chatBot, update, context);
+            if (value == NOT_APPLICABLE) {
+                return Optional.empty();
+            }
+            arguments[i] = value;
+        }
+        Object result = invoker.invoke(arguments);
+        for (Object argument : arguments) {
+            if (argument instanceof ConversationState && ((ConversationState) argument).isModified()) {
+                conversationStore.save((ConversationState) argument);
+            }
+        }
+        return narrow(replyMapper.reply(result, update, context));
+    }
+
+    /**
+     * {@link CommandHandler#handle(ChatBot, ChatBotMessageReceive, DispatchContext)} lets the caller choose the reply
+     * type, which only exists at compile time.
+     */
+    @SuppressWarnings("unchecked")
+    @NonNull
+    private static <T extends ChatBotMessageSend> Optional<T> narrow(@NonNull Optional<ChatBotMessageSend> reply) {
+        return (Optional<T>) reply;
+    }
+
+    @Override
+    public String toString() {
+        return "MethodCommandHandler{" +
+                "method=" + description +
+                '}';
+    }
+
+    /**
+     * Invokes the method with the bound arguments.
+     */
+    @FunctionalInterface
+    interface Invoker {
+        @Nullable
+        Object invoke(@NonNull Object[] arguments);
+    }
+
+    /**
+     * Converts the value returned by the method into the reply.
+     */
+    @FunctionalInterface
+    interface ReplyMapper {
+        @NonNull
+        Optional<ChatBotMessageSend> reply(@Nullable Object result,
+                                           @NonNull ChatBotMessageReceive update,
+                                           @NonNull DispatchContext context);
+    }
+
+    /**
+     * Invokes a method of a bean looked up on the first invocation.
+     * @param <B> Type declaring the method
+     */
+    static final class BeanInvoker<B> implements Invoker {
+        private final Supplier<B> beanSupplier;
+        private final ExecutableMethod<B, ?> method;
+        private volatile B bean;
+
+        BeanInvoker(@NonNull Supplier<B> beanSupplier, @NonNull ExecutableMethod<B, ?> method) {
+            this.beanSupplier = beanSupplier;
+            this.method = method;
+        }
+
+        @Nullable
+        @Override
+        public Object invoke(@NonNull Object[] arguments) {
+            return method.invoke(bean(), arguments);
+        }
+
+        @NonNull
+        private B bean() {
+            B current = bean;
+            if (current == null) {
+                synchronized (this) {
+                    current = bean;
+                    if (current == null) {
+                        current = beanSupplier.get();
+                        bean = current;
+                    }
+                }
+            }
+            return current;
+        }
+    }
+}
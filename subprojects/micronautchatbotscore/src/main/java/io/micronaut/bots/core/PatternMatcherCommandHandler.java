@@ -0,0 +1,54 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import javax.validation.constraints.NotBlank;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * {@link MatcherCommandHandler} which declares the keywords and regular expressions it matches instead of
+ * implementing {@link #matches(String)}. The dispatcher merges the declarations of every handler into a
+ * {@link MatcherCommandEngine} so that a text is scanned once regardless of the number of handlers.
+ */
+public interface PatternMatcherCommandHandler extends MatcherCommandHandler {
+
+    /**
+     * @return Literals matched, ignoring case, anywhere in the text.
+     */
+    @NonNull
+    default List<String> getKeywords() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * @return Regular expressions searched for in the text.
+     */
+    @NonNull
+    default List<Pattern> getPatterns() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    default boolean matches(@NonNull @NotBlank String text) {
+        return MatcherCommandEngine.matches(this, text);
+    }
+}
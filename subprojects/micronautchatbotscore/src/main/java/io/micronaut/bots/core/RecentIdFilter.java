@@ -0,0 +1,90 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed size, lock-free set of the most recently seen identifiers.
+ * Each identifier owns the slot {@code id & (capacity - 1)}, so a window of {@code capacity} sequential identifiers,
+ * such as Telegram update ids, is remembered exactly. Older identifiers are forgotten as newer ones take their slot.
+ */
+public final class RecentIdFilter {
+
+    private static final int MINIMUM_CAPACITY = 2;
+
+    private final AtomicLongArray slots;
+    private final int mask;
+
+    /**
+     * @param capacity Number of identifiers to remember, rounded up to a power of two
+     */
+    public RecentIdFilter(int capacity) {
+        int size = Integer.highestOneBit(Math.max(MINIMUM_CAPACITY, capacity) - 1) << 1;
+        this.slots = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            // a value which can never own slot i marks it as empty
+            slots.set(i, i + 1);
+        }
+    }
+
+    /**
+     * @param id Identifier
+     * @return true the first time an identifier is seen, false if it is among the recently seen identifiers
+     */
+    public boolean markSeen(long id) {
+        int slot = (int) id & mask;
+        if (slots.get(slot) == id) {
+            return false;
+        }
+        return slots.getAndSet(slot, id) != id;
+    }
+
+    /**
+     * Forgets an identifier, so that {@link #markSeen(long)} reports it as new again.
+     * @param id Identifier
+     * @return true if the identifier was among the recently seen identifiers
+     */
+    public boolean forget(long id) {
+        int slot = (int) id & mask;
+        return slots.compareAndSet(slot, id, slot + 1);
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @param id Textual identifier
+     * @return A well distributed 64 bit fingerprint of the identifier to pass to {@link #markSeen(long)}
+     */
+    public static long fingerprint(CharSequence id) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            h ^= id.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
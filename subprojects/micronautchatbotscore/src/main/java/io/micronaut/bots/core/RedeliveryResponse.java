@@ -0,0 +1,61 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiFunction;
+
+/**
+ * Answers a webhook whose update was rejected by a full {@link ChatExecutor} with a 503 and a {@code Retry-After}
+ * header, so that the platform redelivers the update later instead of it being lost.
+ */
+public final class RedeliveryResponse {
+    public static final int SERVICE_UNAVAILABLE = 503;
+    public static final String RETRY_AFTER = "Retry-After";
+    public static final String RETRY_AFTER_SECONDS = "1";
+
+    private static final Logger LOG = LoggerFactory.getLogger(RedeliveryResponse.class);
+    private static final Map<String, String> HEADERS = Collections.singletonMap(RETRY_AFTER, RETRY_AFTER_SECONDS);
+
+    private RedeliveryResponse() {
+    }
+
+    /**
+     * @param error Error of the dispatch, possibly wrapped in a {@link CompletionException}
+     * @param response Creates the response of the webhook from the status and the headers
+     * @param <R> Type of the response
+     * @return The response asking for the update to be redelivered
+     * @throws CompletionException Wrapping the error when it is not a rejection
+     */
+    public static <R> R ifRejected(@NonNull Throwable error,
+                                   @NonNull BiFunction<Integer, Map<String, String>, R> response) {
+        if (!DispatchResult.isRejected(error)) {
+            throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+        }
+        if (LOG.isWarnEnabled()) {
+            LOG.warn("chat executor is full, asking for the update to be redelivered");
+        }
+        return response.apply(SERVICE_UNAVAILABLE, HEADERS);
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import javax.inject.Singleton;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Size bounded cache with expiration of the replies of handlers annotated with {@link CacheableReply}, keyed by
+ * bot, handler, command unless {@link CacheableReply#keyedByCommand()} is disabled, chat type and language. Cached replies are retargeted to the chat of each update with
+ * {@link MessageComposer#retarget(ChatBotMessageSend, DispatchContext)}. When the cache is full, expired replies
+ * are evicted and new replies are not cached until there is room.
+ */
+@Singleton
+public class ReplyCache {
+
+    private static final ClassValue<CacheableReply> CACHEABLE = new ClassValue<CacheableReply>() {
+        @Override
+        protected CacheableReply computeValue(Class<?> type) {
+            return type.getAnnotation(CacheableReply.class);
+        }
+    };
+
+    private final ReplyCacheConfiguration configuration;
+    private final MessageComposer messageComposer;
+    private final Map<ReplyKey, CachedReply> replies = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ReplyCache(ReplyCacheConfiguration configuration, MessageComposer messageComposer) {
+        this.configuration = configuration;
+        this.messageComposer = messageComposer;
+    }
+
+    /**
+     * @param handler Command handler
+     * @return Whether the replies of the handler are cached
+     */
+    public boolean isCacheable(@NonNull CommandHandler handler) {
+        return configuration.isEnabled() && CACHEABLE.get(handler.getClass()) != null;
+    }
+
+    /**
+     * @param chatBot Bot which received the update
+     * @param handler Command handler annotated with {@link CacheableReply}
+     * @param context Dispatch context of the update
+     * @return The cached reply retargeted to the chat of the update or an empty optional if there is none
+     */
+    @NonNull
+    public Optional<ChatBotMessageSend> find(@NonNull ChatBot chatBot,
+                                             @NonNull CommandHandler handler,
+                                             @NonNull DispatchContext context) {
+        CachedReply cached = replies.get(keyOf(chatBot, handler, context));
+        if (cached != null && cached.expiresAtNanos - System.nanoTime() > 0) {
+            Optional<ChatBotMessageSend> reply = messageComposer.retarget(cached.reply, context);
+            if (reply.isPresent()) {
+                hits.increment();
+                return reply;
+            }
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * @param chatBot Bot which received the update
+     * @param handler Command handler annotated with {@link CacheableReply}
+     * @param context Dispatch context of the update
+     * @param reply Reply built by the handler, cached as returned by {@link MessageComposer#prepare(ChatBotMessageSend)}
+     */
+    public void put(@NonNull ChatBot chatBot,
+                    @NonNull CommandHandler handler,
+                    @NonNull DispatchContext context,
+                    @NonNull ChatBotMessageSend reply) {
+        CacheableReply cacheable = CACHEABLE.get(handler.getClass());
+        if (cacheable == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (replies.size() >= configuration.getMaximumSize()) {
+            evictExpired(now);
+            if (replies.size() >= configuration.getMaximumSize()) {
+                return;
+            }
+        }
+        replies.put(new ReplyKey(chatBot, handler, context, cacheable.keyedByCommand()),
+                new CachedReply(messageComposer.prepare(reply), now + TimeUnit.SECONDS.toNanos(cacheable.ttlSeconds())));
+    }
+
+    /**
+     * @param chatBot Bot which received the update
+     * @param handler Command handler
+     * @param context Dispatch context of the update
+     * @param supplier Calls the handler
+     * @return The cached reply or the reply of the handler, which is cached if the handler is cacheable
+     */
+    @NonNull
+    public Optional<ChatBotMessageSend> getOrHandle(@NonNull ChatBot chatBot,
+                                                    @NonNull CommandHandler handler,
+                                                    @NonNull DispatchContext context,
+                                                    @NonNull Supplier<Optional<ChatBotMessageSend>> supplier) {
+        if (!isCacheable(handler)) {
+            return supplier.get();
+        }
+        Optional<ChatBotMessageSend> cached = find(chatBot, handler, context);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        Optional<ChatBotMessageSend> reply = supplier.get();
+        reply.ifPresent(send -> put(chatBot, handler, context, send));
+        return reply;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return Ratio of lookups answered from the cache, between 0 and 1
+     */
+    public double getHitRatio() {
+        long hitCount = getHits();
+        long total = hitCount + getMisses();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public int size() {
+        return replies.size();
+    }
+
+    @NonNull
+    private static ReplyKey keyOf(@NonNull ChatBot chatBot,
+                                  @NonNull CommandHandler handler,
+                                  @NonNull DispatchContext context) {
+        CacheableReply cacheable = CACHEABLE.get(handler.getClass());
+        return new ReplyKey(chatBot, handler, context, cacheable == null || cacheable.keyedByCommand());
+    }
+
+    private void evictExpired(long now) {
+        Iterator<CachedReply> iterator = replies.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().expiresAtNanos - now <= 0) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static final class CachedReply {
+        private final ChatBotMessageSend reply;
+        private final long expiresAtNanos;
+
+        private CachedReply(ChatBotMessageSend reply, long expiresAtNanos) {
+            this.reply = reply;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    private static final class ReplyKey {
+        private final Object bot;
+        private final CommandHandler handler;
+        @Nullable
+        private final String command;
+        @Nullable
+        private final String chatType;
+        @Nullable
+        private final String languageCode;
+        private final int hash;
+
+        private ReplyKey(ChatBot chatBot, CommandHandler handler, DispatchContext context, boolean keyedByCommand) {
+            this.bot = ChatBotKey.of(chatBot);
+            this.handler = handler;
+            this.command = keyedByCommand ? context.getCommand() : null;
+            this.chatType = context.getChatType();
+            this.languageCode = context.getLanguageCode();
+            this.hash = Objects.hash(bot, System.identityHashCode(handler), command, chatType, languageCode);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ReplyKey)) {
+                return false;
+            }
+            ReplyKey that = (ReplyKey) o;
+            return bot.equals(that.bot) &&
+                    handler == that.handler &&
+                    Objects.equals(command, that.command) &&
+                    Objects.equals(chatType, that.chatType) &&
+                    Objects.equals(languageCode, that.languageCode);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+
+import javax.validation.constraints.Min;
+
+@ConfigurationProperties(ReplyCacheConfigurationProperties.PREFIX)
+public class ReplyCacheConfigurationProperties implements ReplyCacheConfiguration {
+    public static final String PREFIX = "chatbots.reply-cache";
+
+    private static final boolean DEFAULT_ENABLED = true;
+    private static final int DEFAULT_MAXIMUM_SIZE = 1000;
+
+    private boolean enabled = DEFAULT_ENABLED;
+
+    @Min(1)
+    private int maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether replies of handlers annotated with {@link CacheableReply} are reused. Default value ({@value #DEFAULT_ENABLED}).
+     * @param enabled enabled flag
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Maximum number of replies cached. Default value ({@value #DEFAULT_MAXIMUM_SIZE}).
+     * @param maximumSize Maximum size
+     */
+    public void setMaximumSize(int maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+}
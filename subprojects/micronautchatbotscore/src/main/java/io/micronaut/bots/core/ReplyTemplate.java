@@ -0,0 +1,239 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reply compiled once from a text with placeholders such as {@code Hello {{user.firstName}}}.
+ * Supported placeholders are {@code user.firstName}, {@code user.id}, {@code chat.title}, {@code chat.id},
+ * {@code command} and {@code args}. Values are escaped for the {@link ParseMode} of the reply.
+ * Instances are immutable and safe to share between threads.
+ */
+public final class ReplyTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+    private static final int MAX_BUFFER_CAPACITY = 16 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(StringBuilder::new);
+
+    private final String source;
+    private final String[] literals;
+    private final Placeholder[] placeholders;
+    private final int literalLength;
+
+    private ReplyTemplate(String source, String[] literals, Placeholder[] placeholders) {
+        this.source = source;
+        this.literals = literals;
+        this.placeholders = placeholders;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * @param source Template text
+     * @return The compiled template
+     * @throws IllegalArgumentException if a placeholder is unknown or not closed
+     */
+    @NonNull
+    public static ReplyTemplate compile(@NonNull String source) {
+        List<String> literals = new ArrayList<>();
+        List<Placeholder> placeholders = new ArrayList<>();
+        int start = 0;
+        int open;
+        while ((open = source.indexOf(OPEN, start)) >= 0) {
+            int close = source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException("Placeholder not closed at index " + open + " of template " + source);
+            }
+            literals.add(source.substring(start, open));
+            placeholders.add(Placeholder.of(source.substring(open + OPEN.length(), close).trim()));
+            start = close + CLOSE.length();
+        }
+        literals.add(source.substring(start));
+        return new ReplyTemplate(source,
+                literals.toArray(new String[0]),
+                placeholders.toArray(new Placeholder[0]));
+    }
+
+    @NonNull
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @param context Dispatch context which supplies the values
+     * @param parseMode Parse mode of the reply or null to append values as they are
+     * @return The rendered reply
+     */
+    @NonNull
+    public String render(@NonNull DispatchContext context, @Nullable ParseMode parseMode) {
+        if (placeholders.length == 0) {
+            return literals[0];
+        }
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        render(context, parseMode, buffer);
+        String reply = buffer.toString();
+        if (buffer.capacity() > MAX_BUFFER_CAPACITY) {
+            BUFFER.remove();
+        }
+        return reply;
+    }
+
+    /**
+     * @param context Dispatch context which supplies the values
+     * @param parseMode Parse mode of the reply or null to append values as they are
+     * @param buffer Buffer the reply is appended to
+     */
+    public void render(@NonNull DispatchContext context, @Nullable ParseMode parseMode, @NonNull StringBuilder buffer) {
+        buffer.ensureCapacity(buffer.length() + literalLength + placeholders.length * 16);
+        for (int i = 0; i < placeholders.length; i++) {
+            buffer.append(literals[i]);
+            placeholders[i].append(context, parseMode, buffer);
+        }
+        buffer.append(literals[placeholders.length]);
+    }
+
+    /**
+     * @param buffer Buffer the text is appended to
+     * @param text Text to append
+     * @param start Start index, inclusive
+     * @param end End index, exclusive
+     * @param parseMode Parse mode which decides the escaping or null for none
+     */
+    public static void appendEscaped(@NonNull StringBuilder buffer,
+                                     @NonNull CharSequence text,
+                                     int start,
+                                     int end,
+                                     @Nullable ParseMode parseMode) {
+        if (parseMode == null) {
+            buffer.append(text, start, end);
+            return;
+        }
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (parseMode == ParseMode.HTML) {
+                switch (c) {
+                    case '<':
+                        buffer.append("&lt;");
+                        break;
+                    case '>':
+                        buffer.append("&gt;");
+                        break;
+                    case '&':
+                        buffer.append("&amp;");
+                        break;
+                    case '"':
+                        buffer.append("&quot;");
+                        break;
+                    default:
+                        buffer.append(c);
+                }
+            } else {
+                if (c == '_' || c == '*' || c == '`' || c == '[') {
+                    buffer.append('\\');
+                }
+                buffer.append(c);
+            }
+        }
+    }
+
+    private static void appendValue(@Nullable Object value, @Nullable ParseMode parseMode, @NonNull StringBuilder buffer) {
+        if (value != null) {
+            String text = value.toString();
+            appendEscaped(buffer, text, 0, text.length(), parseMode);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ReplyTemplate{" +
+                "source='" + source + '\'' +
+                '}';
+    }
+
+    private enum Placeholder {
+        USER_FIRST_NAME("user.firstName") {
+            @Override
+            void append(DispatchContext context, ParseMode parseMode, StringBuilder buffer) {
+                appendValue(context.getUserFirstName(), parseMode, buffer);
+            }
+        },
+        USER_ID("user.id") {
+            @Override
+            void append(DispatchContext context, ParseMode parseMode, StringBuilder buffer) {
+                appendValue(context.getUserId(), parseMode, buffer);
+            }
+        },
+        CHAT_TITLE("chat.title") {
+            @Override
+            void append(DispatchContext context, ParseMode parseMode, StringBuilder buffer) {
+                appendValue(context.getChatTitle(), parseMode, buffer);
+            }
+        },
+        CHAT_ID("chat.id") {
+            @Override
+            void append(DispatchContext context, ParseMode parseMode, StringBuilder buffer) {
+                appendValue(context.getChatId(), parseMode, buffer);
+            }
+        },
+        COMMAND("command") {
+            @Override
+            void append(DispatchContext context, ParseMode parseMode, StringBuilder buffer) {
+                CommandTokenizer tokens = context.getTokens();
+                if (tokens.isCommand()) {
+                    appendEscaped(buffer, tokens.getText(), tokens.getCommandStart(), tokens.getCommandEnd(), parseMode);
+                }
+            }
+        },
+        ARGS("args") {
+            @Override
+            void append(DispatchContext context, ParseMode parseMode, StringBuilder buffer) {
+                CommandTokenizer tokens = context.getTokens();
+                if (tokens.hasArguments()) {
+                    appendEscaped(buffer, tokens.getText(), tokens.getArgumentsStart(), tokens.getArgumentsEnd(), parseMode);
+                }
+            }
+        };
+
+        private final String name;
+
+        Placeholder(String name) {
+            this.name = name;
+        }
+
+        abstract void append(DispatchContext context, ParseMode parseMode, StringBuilder buffer);
+
+        static Placeholder of(String name) {
+            for (Placeholder placeholder : values()) {
+                if (placeholder.name.equals(name)) {
+                    return placeholder;
+                }
+            }
+            throw new IllegalArgumentException("Unknown placeholder {{" + name + "}}");
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounds the time a webhook waits for the reply of a bot to {@link ChatBot#getResponseDeadline()}.
+ * When the deadline passes the webhook gets an empty reply, and the reply is delivered with a
+ * {@link ChatBotMessageSender} once the handler finishes.
+ */
+@Singleton
+public class ResponseDeadlines implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(ResponseDeadlines.class);
+
+    private final Collection<ChatBotMessageSender> senders;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final LongAdder spilled = new LongAdder();
+
+    public ResponseDeadlines(Collection<ChatBotMessageSender> senders) {
+        this.senders = senders;
+        this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "chatbots-deadlines");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * @param bot Bot which replies
+     * @param reply Reply of the dispatcher
+     * @return The reply, or an empty reply if the deadline of the bot passes first
+     */
+    @NonNull
+    public CompletionStage<Optional<ChatBotMessageSend>> withDeadline(@NonNull ChatBot bot,
+                                                                      @NonNull CompletionStage<Optional<ChatBotMessageSend>> reply) {
+        Optional<Duration> deadline = bot.getResponseDeadline();
+        if (!deadline.isPresent() || reply.toCompletableFuture().isDone()) {
+            return reply;
+        }
+        CompletableFuture<Optional<ChatBotMessageSend>> result = new CompletableFuture<>();
+        ScheduledFuture<?> timeout = scheduler.schedule(() -> result.complete(Optional.empty()),
+                deadline.get().toNanos(), TimeUnit.NANOSECONDS);
+        reply.whenComplete((message, throwable) -> {
+            timeout.cancel(false);
+            boolean inTime = throwable != null ? result.completeExceptionally(throwable) : result.complete(message);
+            if (!inTime && throwable == null && message.isPresent()) {
+                spill(bot, message.get());
+            } else if (!inTime && throwable != null && LOG.isWarnEnabled()) {
+                LOG.warn("handler failed after the response deadline of bot {}", bot.getAtUsername(), throwable);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @return Number of replies delivered with a {@link ChatBotMessageSender} because they missed the deadline
+     */
+    public long getSpilled() {
+        return spilled.sum();
+    }
+
+    private void spill(ChatBot bot, ChatBotMessageSend message) {
+        for (ChatBotMessageSender sender : senders) {
+            if (sender.supports(bot)) {
+                spilled.increment();
+                if (LOG.isInfoEnabled()) {
+                    LOG.info("Response deadline of bot {} passed. Sending {}", bot.getAtUsername(), message.toString());
+                }
+                sender.send(bot, message).whenComplete((sent, throwable) -> {
+                    if (throwable != null && LOG.isWarnEnabled()) {
+                        LOG.warn("could not send reply of bot {} {}", bot.getAtUsername(), throwable.getMessage());
+                    }
+                });
+                return;
+            }
+        }
+        if (LOG.isWarnEnabled()) {
+            LOG.warn("Response deadline of bot {} passed and no sender supports it. Dropping {}",
+                    bot.getAtUsername(), message.toString());
+        }
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
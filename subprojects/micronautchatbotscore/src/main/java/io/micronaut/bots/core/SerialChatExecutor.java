@@ -0,0 +1,162 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.micronaut.scheduling.TaskExecutors;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * {@link ChatExecutor} which keeps a bounded queue per key and runs the tasks of each key one after another on the
+ * {@link TaskExecutors#IO} executor. Handlers may block, a blocked chat only delays the chat itself.
+ */
+@Singleton
+public class SerialChatExecutor implements ChatExecutor {
+
+    private final Executor executor;
+    private final int queueCapacity;
+    private final Map<Object, SerialQueue> queues = new ConcurrentHashMap<>();
+
+    @Inject
+    public SerialChatExecutor(ChatExecutorConfiguration configuration,
+                              @Named(TaskExecutors.IO) ExecutorService executor) {
+        this(executor, configuration.getQueueCapacity());
+    }
+
+    /**
+     * @param executor Executor which runs the tasks
+     * @param queueCapacity Maximum number of tasks waiting in each key
+     */
+    public SerialChatExecutor(@NonNull Executor executor, int queueCapacity) {
+        this.executor = executor;
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+    @NonNull
+    @Override
+    public <T> CompletionStage<T> submit(@Nullable Object key, @NonNull Supplier<T> task) {
+        SerialTask<T> serialTask = new SerialTask<>(task);
+        try {
+            if (key == null) {
+                executor.execute(serialTask);
+            } else {
+                enqueue(key, serialTask);
+            }
+        } catch (RejectedExecutionException e) {
+            serialTask.fail(e);
+        }
+        return serialTask.result;
+    }
+
+    /**
+     * @return Number of keys with tasks running or waiting
+     */
+    public int getActiveKeys() {
+        return queues.size();
+    }
+
+    private void enqueue(@NonNull Object key, @NonNull SerialTask<?> task) {
+        boolean[] start = new boolean[1];
+        queues.compute(key, (k, queue) -> {
+            if (queue == null) {
+                queue = new SerialQueue();
+            }
+            if (queue.tasks.size() >= queueCapacity) {
+                throw new RejectedExecutionException("too many tasks waiting for key " + k);
+            }
+            queue.tasks.add(task);
+            start[0] = !queue.running;
+            queue.running = true;
+            return queue;
+        });
+        if (start[0]) {
+            try {
+                executor.execute(() -> drain(key));
+            } catch (RejectedExecutionException e) {
+                // tasks queued behind this one since it was added would never start either
+                SerialQueue queue = queues.remove(key);
+                if (queue != null) {
+                    for (SerialTask<?> queued : queue.tasks) {
+                        queued.fail(e);
+                    }
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void drain(@NonNull Object key) {
+        for (SerialTask<?> task = poll(key); task != null; task = poll(key)) {
+            task.run();
+        }
+    }
+
+    /**
+     * @return The next task of the key, or null after removing the queue of the key once it is empty
+     */
+    @Nullable
+    private SerialTask<?> poll(@NonNull Object key) {
+        SerialTask<?>[] next = new SerialTask<?>[1];
+        queues.computeIfPresent(key, (k, queue) -> {
+            next[0] = queue.tasks.poll();
+            return next[0] != null ? queue : null;
+        });
+        return next[0];
+    }
+
+    private static final class SerialQueue {
+        private final Queue<SerialTask<?>> tasks = new ArrayDeque<>();
+        private boolean running;
+    }
+
+    private static final class SerialTask<T> implements Runnable {
+        private final Supplier<T> task;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private SerialTask(Supplier<T> task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            try {
+                result.complete(task.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        private void fail(Throwable e) {
+            result.completeExceptionally(e);
+        }
+    }
+}
@@ -32,6 +32,24 @@ public abstract class TextCommandHandler implements CommandHandler {
     @NonNull
     protected abstract Optional<String> replyUpdate(@NonNull ChatBot bot, @NonNull ChatBotMessageReceive update);
 
+    @NonNull
+    protected Optional<String> replyUpdate(@NonNull ChatBot bot,
+                                           @NonNull ChatBotMessageReceive update,
+                                           @NonNull DispatchContext context) {
+        return replyUpdate(bot, update);
+    }
+
+    /**
+     * Renders a template compiled once, for example in a static field, to personalize the reply.
+     * @param template Reply template
+     * @param context Dispatch context which supplies the values of the placeholders
+     * @return The rendered reply
+     */
+    @NonNull
+    protected Optional<String> render(@NonNull ReplyTemplate template, @NonNull DispatchContext context) {
+        return Optional.of(template.render(context, null));
+    }
+
     @Override
     public <T extends ChatBotMessageSend> Optional<T> handle(@NonNull ChatBot bot,
                                                              @NonNull ChatBotMessageReceive chatUpdate) {
@@ -41,4 +59,15 @@ public abstract class TextCommandHandler implements CommandHandler {
         }
         return (Optional) messageComposer.compose(textOpt.get(), chatUpdate);
     }
+
+    @Override
+    public <T extends ChatBotMessageSend> Optional<T> handle(@NonNull ChatBot bot,
+                                                             @NonNull ChatBotMessageReceive chatUpdate,
+                                                             @NonNull DispatchContext context) {
+        Optional<String> textOpt = replyUpdate(bot, chatUpdate, context);
+        if (!textOpt.isPresent()) {
+            return Optional.empty();
+        }
+        return (Optional) messageComposer.compose(textOpt.get(), chatUpdate, context);
+    }
 }
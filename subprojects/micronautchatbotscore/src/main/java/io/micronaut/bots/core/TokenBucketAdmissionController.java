@@ -0,0 +1,98 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import javax.inject.Singleton;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link AdmissionController} which applies the per user and per chat token buckets of
+ * {@link ChatBot#getAdmissionPolicy()}. The buckets of a bot are keyed by its token and rebuilt whenever its policy
+ * changes, and evicted when the bot is unregistered. An update takes a token from both buckets or from none.
+ */
+@Singleton
+public class TokenBucketAdmissionController implements AdmissionController, ChatBotRegistryListener {
+
+    private final Map<Object, BotBuckets> buckets = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+
+    @Override
+    public boolean admit(@NonNull ChatBot chatBot, @NonNull DispatchContext context) {
+        AdmissionPolicy policy = chatBot.getAdmissionPolicy();
+        if (policy.isUnlimited()) {
+            return true;
+        }
+        BotBuckets botBuckets = bucketsFor(chatBot, policy);
+        long now = System.nanoTime();
+        Object userId = botBuckets.users != null ? context.getUserId() : null;
+        Object chatId = botBuckets.chats != null ? context.getChatId() : null;
+        if (userId != null && !botBuckets.users.tryAcquire(userId, now)) {
+            rejected.increment();
+            return false;
+        }
+        if (chatId != null && !botBuckets.chats.tryAcquire(chatId, now)) {
+            if (userId != null) {
+                botBuckets.users.release(userId);
+            }
+            rejected.increment();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void onUnregister(@NonNull ChatBot chatBot) {
+        buckets.remove(ChatBotKey.of(chatBot));
+    }
+
+    /**
+     * @return Number of updates rejected
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @NonNull
+    private BotBuckets bucketsFor(@NonNull ChatBot chatBot, @NonNull AdmissionPolicy policy) {
+        Object key = ChatBotKey.of(chatBot);
+        BotBuckets botBuckets = buckets.get(key);
+        if (botBuckets == null || !botBuckets.policy.equals(policy)) {
+            botBuckets = buckets.compute(key, (k, current) ->
+                    current != null && current.policy.equals(policy) ? current : new BotBuckets(policy));
+        }
+        return botBuckets;
+    }
+
+    private static final class BotBuckets {
+        private final AdmissionPolicy policy;
+        private final TokenBuckets users;
+        private final TokenBuckets chats;
+
+        private BotBuckets(AdmissionPolicy policy) {
+            this.policy = policy;
+            this.users = policy.isUserLimited() ?
+                    new TokenBuckets(policy.getUserBurst(), policy.getUserRatePerMinute()) : null;
+            this.chats = policy.isChatLimited() ?
+                    new TokenBuckets(policy.getChatBurst(), policy.getChatRatePerMinute()) : null;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token buckets keyed by user or chat, held in a fixed number of lock-striped hash maps.
+ * A bucket idle long enough to be full again behaves exactly like a missing one, so such buckets are evicted
+ * whenever a stripe is swept.
+ */
+public final class TokenBuckets {
+
+    private static final int STRIPES = 16;
+    private static final int SWEEP_INTERVAL = 1024;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final double burst;
+    private final double tokensPerNano;
+    private final long nanosToFill;
+
+    /**
+     * @param burst Capacity of each bucket
+     * @param ratePerMinute Tokens added to each bucket per minute
+     */
+    public TokenBuckets(int burst, int ratePerMinute) {
+        this.burst = burst;
+        this.tokensPerNano = ratePerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.nanosToFill = (long) Math.ceil(burst / tokensPerNano);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * @param key User or chat
+     * @param nowNanos Current {@link System#nanoTime()}
+     * @return true if a token was taken from the bucket of the key
+     */
+    public boolean tryAcquire(@NonNull Object key, long nowNanos) {
+        int hash = key.hashCode();
+        Stripe stripe = stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+        synchronized (stripe) {
+            if (++stripe.operations % SWEEP_INTERVAL == 0) {
+                stripe.sweep(nowNanos, nanosToFill);
+            }
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(burst, nowNanos);
+                stripe.buckets.put(key, bucket);
+            } else {
+                bucket.tokens = Math.min(burst, bucket.tokens + (nowNanos - bucket.updatedNanos) * tokensPerNano);
+                bucket.updatedNanos = nowNanos;
+            }
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Gives back a token taken with {@link #tryAcquire(Object, long)} by an operation which did not go ahead.
+     * @param key User or chat
+     */
+    public void release(@NonNull Object key) {
+        int hash = key.hashCode();
+        Stripe stripe = stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+        synchronized (stripe) {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket != null) {
+                bucket.tokens = Math.min(burst, bucket.tokens + 1);
+            }
+        }
+    }
+
+    /**
+     * @return Number of buckets currently held
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.buckets.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Evicts every bucket which has been idle long enough to be full.
+     * @param nowNanos Current {@link System#nanoTime()}
+     */
+    public void evictIdle(long nowNanos) {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.sweep(nowNanos, nanosToFill);
+            }
+        }
+    }
+
+    private static final class Stripe {
+        private final Map<Object, Bucket> buckets = new HashMap<>();
+        private long operations;
+
+        private void sweep(long nowNanos, long nanosToFill) {
+            Iterator<Bucket> iterator = buckets.values().iterator();
+            while (iterator.hasNext()) {
+                if (nowNanos - iterator.next().updatedNanos >= nanosToFill) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long updatedNanos;
+
+        private Bucket(double tokens, long updatedNanos) {
+            this.tokens = tokens;
+            this.updatedNanos = updatedNanos;
+        }
+    }
+}
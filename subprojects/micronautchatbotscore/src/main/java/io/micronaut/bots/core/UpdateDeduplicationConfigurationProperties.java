@@ -0,0 +1,61 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+
+import javax.validation.constraints.Min;
+
+@ConfigurationProperties(UpdateDeduplicationConfigurationProperties.PREFIX)
+public class UpdateDeduplicationConfigurationProperties implements UpdateDeduplicationConfiguration {
+    public static final String PREFIX = "chatbots.deduplication";
+
+    private static final boolean DEFAULT_ENABLED = true;
+    private static final int DEFAULT_CAPACITY = 4096;
+
+    private boolean enabled = DEFAULT_ENABLED;
+
+    @Min(2)
+    private int capacity = DEFAULT_CAPACITY;
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether redelivered messages are dropped. Default value ({@value #DEFAULT_ENABLED}).
+     * @param enabled enabled flag
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Number of recent message ids remembered per bot, rounded up to a power of two. Default value ({@value #DEFAULT_CAPACITY}).
+     * @param capacity Capacity
+     */
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import javax.inject.Singleton;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Detects messages redelivered to a bot, for example Telegram updates resent after a slow or failed webhook response.
+ * Keeps a {@link RecentIdFilter} per bot, evicted when the bot is unregistered.
+ */
+@Singleton
+public class UpdateDeduplicator implements ChatBotRegistryListener {
+
+    private final UpdateDeduplicationConfiguration configuration;
+    private final Map<Object, RecentIdFilter> filters = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public UpdateDeduplicator(UpdateDeduplicationConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * @param chatBot Chat bot which received the message
+     * @param messageId Message id parsed with {@link ChatBotMessageParser#parseMessageId(ChatBot, ChatBotMessageReceive)}
+     * @return true if the message was recently seen by the bot
+     */
+    public boolean isDuplicate(@NonNull ChatBot chatBot, @Nullable Serializable messageId) {
+        if (messageId == null || !configuration.isEnabled()) {
+            return false;
+        }
+        if (filterFor(chatBot).markSeen(idOf(messageId))) {
+            misses.increment();
+            return false;
+        }
+        hits.increment();
+        return true;
+    }
+
+    /**
+     * Forgets a message whose handling failed, so that a redelivery of it is dispatched again instead of dropped.
+     * @param chatBot Chat bot which received the message
+     * @param messageId Message id passed to {@link #isDuplicate(ChatBot, Serializable)}
+     */
+    public void forget(@NonNull ChatBot chatBot, @Nullable Serializable messageId) {
+        if (messageId == null) {
+            return;
+        }
+        RecentIdFilter filter = filters.get(ChatBotKey.of(chatBot));
+        if (filter != null) {
+            filter.forget(idOf(messageId));
+        }
+    }
+
+    @Override
+    public void onUnregister(@NonNull ChatBot chatBot) {
+        filters.remove(ChatBotKey.of(chatBot));
+    }
+
+    /**
+     * @return Number of duplicated messages detected
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return Number of messages seen for the first time
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private static long idOf(@NonNull Serializable messageId) {
+        return messageId instanceof Number ? ((Number) messageId).longValue() : RecentIdFilter.fingerprint(messageId.toString());
+    }
+
+    @NonNull
+    private RecentIdFilter filterFor(@NonNull ChatBot chatBot) {
+        Object key = ChatBotKey.of(chatBot);
+        RecentIdFilter filter = filters.get(key);
+        if (filter == null) {
+            filter = filters.computeIfAbsent(key, k -> new RecentIdFilter(configuration.getCapacity()));
+        }
+        return filter;
+    }
+}
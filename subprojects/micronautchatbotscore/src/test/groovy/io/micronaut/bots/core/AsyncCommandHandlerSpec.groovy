@@ -0,0 +1,63 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core
+
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionStage
+
+class AsyncCommandHandlerSpec extends Specification {
+
+    void "synchronous callers receive the reply of the asynchronous handler"() {
+        given:
+        ChatBotMessageSend reply = Stub(ChatBotMessageSend)
+        AsyncCommandHandler handler = handler(CompletableFuture.completedFuture(Optional.of(reply)))
+
+        expect:
+        handler.handle(Stub(ChatBot), Stub(ChatBotMessageReceive)).get().is(reply)
+    }
+
+    void "synchronous callers receive the exception thrown by the asynchronous handler"() {
+        given:
+        CompletableFuture<Optional<ChatBotMessageSend>> failed = new CompletableFuture<>()
+        failed.completeExceptionally(new IllegalStateException('boom'))
+        AsyncCommandHandler handler = handler(failed)
+
+        when:
+        handler.handle(Stub(ChatBot), Stub(ChatBotMessageReceive))
+
+        then:
+        IllegalStateException e = thrown()
+        e.message == 'boom'
+    }
+
+    private static AsyncCommandHandler handler(CompletionStage<Optional<ChatBotMessageSend>> reply) {
+        new AsyncCommandHandler() {
+            @Override
+            CompletionStage<Optional<ChatBotMessageSend>> handleAsync(ChatBot chatBot, ChatBotMessageReceive update) {
+                reply
+            }
+
+            @Override
+            int getOrder() {
+                0
+            }
+        }
+    }
+}
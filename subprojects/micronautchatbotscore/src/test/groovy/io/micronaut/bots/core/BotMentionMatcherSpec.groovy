@@ -0,0 +1,59 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class BotMentionMatcherSpec extends Specification {
+
+    @Unroll
+    void "mentions are stripped from #text ignoring case"(String text, String expected) {
+        given:
+        BotMentionMatcher matcher = new BotMentionMatcher('@Bot_Name')
+
+        expect:
+        matcher.strip(text) == expected
+
+        where:
+        text                             || expected
+        '/start@bot_name hi'             || '/start hi'
+        'hello @BOT_NAME and @bot_name!' || 'hello  and !'
+        '@Bot_Name'                      || ''
+        'nothing'                        || 'nothing'
+        null                             || null
+    }
+
+    void "usernames which start with the mention are not matched"() {
+        given:
+        BotMentionMatcher matcher = new BotMentionMatcher('@Bot_Name')
+
+        expect:
+        !matcher.matches('@bot_namex hello')
+        matcher.indexOf('@bot_namex @bot_name', 0) == 11
+    }
+
+    void "texts without mentions are not copied"() {
+        given:
+        BotMentionMatcher matcher = new BotMentionMatcher('@Bot_Name')
+        String text = 'hello world'
+
+        expect:
+        matcher.strip(text).is(text)
+    }
+}
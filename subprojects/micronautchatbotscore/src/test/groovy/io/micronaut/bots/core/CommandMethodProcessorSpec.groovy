@@ -0,0 +1,173 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core
+
+import io.micronaut.context.ApplicationContext
+import io.micronaut.context.exceptions.ConfigurationException
+import io.micronaut.core.annotation.AnnotationMetadata
+import io.micronaut.core.type.Argument
+import io.micronaut.core.type.ReturnType
+import io.micronaut.inject.BeanDefinition
+import io.micronaut.inject.ExecutableMethod
+import spock.lang.Specification
+
+import javax.inject.Provider
+
+class CommandMethodProcessorSpec extends Specification {
+
+    Commands commands = new Commands()
+
+    ApplicationContext applicationContext = Stub(ApplicationContext) {
+        getBean(_ as BeanDefinition) >> Stub(CommandHandler)
+        getBean(Commands, _) >> commands
+    }
+
+    DefaultCommandHandlerRegistry registry = new DefaultCommandHandlerRegistry(applicationContext,
+            [],
+            new CommandRoutingConfigurationProperties(),
+            Stub(Provider))
+
+    ChatBotMessageSend reply = Stub(ChatBotMessageSend)
+
+    MessageComposer messageComposer = Stub(MessageComposer) {
+        compose(_ as String, _ as ChatBotMessageReceive, _ as DispatchContext) >> Optional.of(reply)
+    }
+
+    CommandMethodProcessor processor = new CommandMethodProcessor(applicationContext,
+            registry,
+            messageComposer,
+            Stub(ChatBotMessageParser),
+            [],
+            new InMemoryConversationStore(100, null))
+
+    void "command methods are routed and their parameters are bound from the update"() {
+        when:
+        processor.process(beanDefinition(), method(String, ['start', 'begin'], Argument.of(Long, 'chatId'), Argument.of(String, 'args')))
+        CommandHandler handler = registry.findCommandHandler('begin')
+        Optional<ChatBotMessageSend> sent = handler.handle(Stub(ChatBot), Stub(ChatBotMessageReceive), context('/start hello'))
+
+        then:
+        registry.findCommandHandler('start').is(handler)
+        sent.get() == reply
+        commands.calls == [[42L, 'hello']]
+    }
+
+    void "methods expecting another bot type do not handle the update"() {
+        when:
+        processor.process(beanDefinition(), method(String, ['start'], Argument.of(OtherBot, 'bot')))
+        Optional<ChatBotMessageSend> sent = registry.findCommandHandler('start')
+                .handle(Stub(ChatBot), Stub(ChatBotMessageReceive), context('/start'))
+
+        then:
+        !sent.present
+        commands.calls.empty
+    }
+
+    void "unsupported parameters fail when the method is registered"() {
+        when:
+        processor.process(beanDefinition(), method(String, ['start'], Argument.of(Integer, 'count')))
+
+        then:
+        thrown(ConfigurationException)
+    }
+
+    void "optional replies are converted according to their declared value type"() {
+        when:
+        processor.process(beanDefinition(), replyingMethod('text', Optional, String, Optional.of('hi')))
+        processor.process(beanDefinition(), replyingMethod('message', Optional, ChatBotMessageSend, Optional.of(reply)))
+        processor.process(beanDefinition(), replyingMethod('nothing', Optional, String, Optional.empty()))
+        processor.process(beanDefinition(), replyingMethod('silent', Void.TYPE, null, null))
+
+        then:
+        handle('text').get() == reply
+        handle('message').get() == reply
+        !handle('nothing').present
+        !handle('silent').present
+    }
+
+    void "unsupported return types fail when the method is registered"() {
+        when:
+        processor.process(beanDefinition(), replyingMethod('count', Integer, null, 1))
+
+        then:
+        thrown(ConfigurationException)
+    }
+
+    private Optional<ChatBotMessageSend> handle(String command) {
+        registry.findCommandHandler(command).handle(Stub(ChatBot), Stub(ChatBotMessageReceive), context("/$command"))
+    }
+
+    private ExecutableMethod replyingMethod(String name, Class returnType, Class valueType, Object result) {
+        Stub(ExecutableMethod) {
+            getReturnType() >> Stub(ReturnType) {
+                getType() >> returnType
+                getFirstTypeVariable() >> (valueType != null ? Optional.of(Argument.of(valueType)) : Optional.empty())
+            }
+            getArguments() >> ([] as Argument[])
+            getDeclaringType() >> Commands
+            getMethodName() >> name
+            stringValues(Command) >> ([name] as String[])
+            invoke(*_) >> result
+        }
+    }
+
+    private BeanDefinition beanDefinition() {
+        Stub(BeanDefinition) {
+            getBeanType() >> Commands
+            getAnnotationMetadata() >> Stub(AnnotationMetadata) {
+                getAnnotationTypeByStereotype(_) >> Optional.empty()
+            }
+        }
+    }
+
+    private ExecutableMethod method(Class returnType, List<String> names, Argument... arguments) {
+        Stub(ExecutableMethod) {
+            getReturnType() >> Stub(ReturnType) { getType() >> returnType }
+            getArguments() >> arguments
+            getDeclaringType() >> Commands
+            getMethodName() >> 'start'
+            stringValues(Command) >> (names as String[])
+            invoke(*_) >> { List invocation ->
+                List values = invocation.size() == 2 && invocation[1] instanceof Object[] ? invocation[1] as List : invocation.drop(1)
+                ((Commands) invocation[0]).start(values as Object[])
+            }
+        }
+    }
+
+    private static DispatchContext context(String text) {
+        DispatchContext.builder(DispatchContext.KIND_MESSAGE)
+                .text(text)
+                .textWithoutBotName(text)
+                .chatId(42L)
+                .chatType('private')
+                .userId(7L)
+                .build()
+    }
+
+    static class Commands {
+        List<List<Object>> calls = []
+
+        String start(Object[] values) {
+            calls << (values as List)
+            'started'
+        }
+    }
+
+    interface OtherBot extends ChatBot {
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core
+
+import spock.lang.Specification
+
+class CommandRoutingTableSpec extends Specification {
+
+    void "commands are resolved ignoring case"() {
+        given:
+        CommandHandler help = Stub(CommandHandler)
+        CommandHandler start = Stub(CommandHandler)
+        CommandRoutingTable table = new CommandRoutingTable([help: help, start: start])
+
+        expect:
+        table.find('help').is(help)
+        table.find('HELP').is(help)
+        table.find('Start').is(start)
+        table.size() == 2
+    }
+
+    void "unknown commands are not resolved"() {
+        given:
+        CommandRoutingTable table = new CommandRoutingTable([help: Stub(CommandHandler)])
+
+        expect:
+        table.find('foo') == null
+        table.find('helpme') == null
+        table.find('') == null
+        CommandRoutingTable.empty().find('help') == null
+    }
+
+    void "commands can be resolved within a region of a text"() {
+        given:
+        CommandHandler help = Stub(CommandHandler)
+        CommandRoutingTable table = new CommandRoutingTable([help: help])
+
+        expect:
+        table.find('/help me', 1, 5).is(help)
+        table.find('/help me', 1, 4) == null
+    }
+
+    void "first command wins when two commands only differ in case"() {
+        given:
+        CommandHandler first = Stub(CommandHandler)
+        CommandHandler second = Stub(CommandHandler)
+        Map<String, CommandHandler> routes = new LinkedHashMap<>()
+        routes.put('help', first)
+        routes.put('Help', second)
+        CommandRoutingTable table = new CommandRoutingTable(routes)
+
+        expect:
+        table.find('HELP').is(first)
+        table.routes.keySet() == ['help'] as Set
+    }
+}
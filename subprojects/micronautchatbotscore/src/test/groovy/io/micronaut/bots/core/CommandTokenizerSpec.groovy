@@ -0,0 +1,95 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class CommandTokenizerSpec extends Specification {
+
+    @Unroll
+    void "#text is tokenized into command #command, bot name #botName and arguments #arguments"(String text,
+                                                                                                   String command,
+                                                                                                   String botName,
+                                                                                                   String arguments) {
+        when:
+        CommandTokenizer tokens = CommandTokenizer.tokenize(text)
+
+        then:
+        tokens.command()?.toString() == command
+        tokens.botName()?.toString() == botName
+        tokens.arguments()?.toString() == arguments
+
+        where:
+        text                             || command | botName | arguments
+        '/start'                         || 'start' | null    | null
+        '  /help\tme please \n'          || 'help'  | null    | 'me please'
+        '/start@MyBot foo bar'           || 'start' | 'MyBot' | 'foo bar'
+        '\n/echo\nsecond line'           || 'echo'  | null    | 'second line'
+        '/echo\u00A0non breaking\u2003'  || 'echo'  | null    | 'non breaking'
+    }
+
+    void "commands are views over the original text"() {
+        given:
+        String text = '/start@MyBot foo'
+
+        when:
+        CommandTokenizer tokens = CommandTokenizer.tokenize(text)
+
+        then:
+        tokens.text.is(text)
+        tokens.commandStart == 1
+        tokens.commandEnd == 6
+        tokens.botNameStart == 7
+        tokens.botNameEnd == 12
+        tokens.argumentsStart == 13
+        tokens.argumentsEnd == 16
+    }
+
+    @Unroll
+    void "#text is not a command"(String text) {
+        expect:
+        !CommandTokenizer.tokenize(text).isCommand()
+        CommandTokenizer.tokenize(text).command() == null
+
+        where:
+        text << [null, '', '   ', 'hello', 'hello /start']
+    }
+
+    @Unroll
+    void "once the mention of the bot is stripped, #text keeps a bot name: #addressedToAnotherBot"(String text,
+                                                                                                 boolean addressedToAnotherBot) {
+        given:
+        BotMentionMatcher matcher = new BotMentionMatcher('@ThisBot')
+
+        when:
+        CommandTokenizer tokens = CommandTokenizer.tokenize(matcher.strip(text))
+
+        then:
+        tokens.command().toString() == 'cmd'
+        tokens.hasBotName() == addressedToAnotherBot
+
+        where:
+        text                || addressedToAnotherBot
+        '/cmd'              || false
+        '/cmd@ThisBot'      || false
+        '/cmd@thisbot arg'  || false
+        '/cmd@OtherBot'     || true
+        '/cmd@ThisBotter'   || true
+    }
+}
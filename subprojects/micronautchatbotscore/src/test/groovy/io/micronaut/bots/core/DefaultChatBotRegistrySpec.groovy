@@ -0,0 +1,158 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core
+
+import spock.lang.Specification
+
+class DefaultChatBotRegistrySpec extends Specification {
+
+    void "bots are found by token, project and username"() {
+        given:
+        ChatBot telegram = bot('@telegram_bot', '123:abc', null)
+        ChatBot google = bot('google-bot', null, 'project-a')
+        DefaultChatBotRegistry registry = new DefaultChatBotRegistry([telegram, google])
+
+        expect:
+        registry.findByToken('123:abc', ChatBot).get().is(telegram)
+        registry.findByProjectId('project-a', ChatBot).get().is(google)
+        registry.findByUsername('telegram_bot', ChatBot).get().is(telegram)
+        registry.findByUsername('@google-bot', ChatBot).get().is(google)
+        !registry.findByToken('456:def', ChatBot).present
+        !registry.findByProjectId('123:abc', ChatBot).present
+        registry.getBots(ChatBot) == [telegram, google]
+    }
+
+    void "lookups are filtered by the type of the bot"() {
+        given:
+        ChatBot telegram = bot('@telegram_bot', '123:abc', null)
+        DefaultChatBotRegistry registry = new DefaultChatBotRegistry([telegram])
+
+        expect:
+        !registry.findByToken('123:abc', OtherBot).present
+        registry.getBots(OtherBot).empty
+    }
+
+    void "bots are registered and unregistered at runtime"() {
+        given:
+        ChatBot first = bot('@first', '1:a', null)
+        ChatBot second = bot('@second', '2:b', null)
+        DefaultChatBotRegistry registry = new DefaultChatBotRegistry([first])
+
+        when:
+        boolean registered = registry.register(second)
+
+        then:
+        registered
+        registry.findByToken('2:b', ChatBot).get().is(second)
+
+        when:
+        boolean unregistered = registry.unregister(first)
+
+        then:
+        unregistered
+        !registry.findByToken('1:a', ChatBot).present
+        !registry.findByUsername('first', ChatBot).present
+        registry.getBots(ChatBot) == [second]
+        !registry.unregister(first)
+    }
+
+    void "bots which conflict with a registered bot are rejected"() {
+        given:
+        ChatBot first = bot('@first', '1:a', null)
+        DefaultChatBotRegistry registry = new DefaultChatBotRegistry([first, bot('@other', '1:a', null)])
+
+        expect:
+        registry.getBots(ChatBot) == [first]
+        !registry.register(bot('@first', '3:c', null))
+        registry.register(bot('@third', '3:c', null))
+    }
+
+    void "bots of different types may share a username, token or project"() {
+        given:
+        TelegramTypeBot telegram = Stub(TelegramTypeBot) {
+            getAtUsername() >> '@support'
+            getToken() >> '1:a'
+        }
+        GoogleChatTypeBot google = Stub(GoogleChatTypeBot) {
+            getAtUsername() >> 'support'
+            getToken() >> '1:a'
+            getProjectId() >> 'project-a'
+        }
+        DefaultChatBotRegistry registry = new DefaultChatBotRegistry([telegram, google])
+
+        expect:
+        registry.getBots(ChatBot) == [telegram, google]
+        registry.findByUsername('support', TelegramTypeBot).get().is(telegram)
+        registry.findByUsername('@support', GoogleChatTypeBot).get().is(google)
+        registry.findByToken('1:a', GoogleChatTypeBot).get().is(google)
+        !registry.findByProjectId('project-a', TelegramTypeBot).present
+        !registry.register(Stub(GoogleChatTypeBot) { getAtUsername() >> '@support' })
+        registry.register(Stub(TelegramTypeBot) { getProjectId() >> 'project-a' })
+    }
+
+    void "the state kept per bot is evicted when the bot is unregistered"() {
+        given:
+        ChatBot first = Stub(ChatBot) {
+            getToken() >> '1:a'
+            getAdmissionPolicy() >> new AdmissionPolicy(1, 1, 0, 0)
+        }
+        UpdateDeduplicator deduplicator = new UpdateDeduplicator(new UpdateDeduplicationConfigurationProperties())
+        TokenBucketAdmissionController admissionController = new TokenBucketAdmissionController()
+        ChatBotRegistryListener failing = Stub(ChatBotRegistryListener) {
+            onUnregister(_) >> { throw new IllegalStateException('listener failed') }
+        }
+        DefaultChatBotRegistry registry = new DefaultChatBotRegistry([first], [failing, deduplicator, admissionController])
+        DispatchContext context = DispatchContext.builder(DispatchContext.KIND_MESSAGE)
+                .text('/start')
+                .textWithoutBotName('/start')
+                .chatId(1L)
+                .userId(1L)
+                .build()
+        deduplicator.isDuplicate(first, 10L)
+        admissionController.admit(first, context)
+
+        expect:
+        deduplicator.isDuplicate(first, 10L)
+        !admissionController.admit(first, context)
+
+        when:
+        boolean unregistered = registry.unregister(first)
+
+        then:
+        unregistered
+        !deduplicator.isDuplicate(first, 10L)
+        admissionController.admit(first, context)
+    }
+
+    private ChatBot bot(String atUsername, String token, String projectId) {
+        Stub(ChatBot) {
+            getAtUsername() >> atUsername
+            getToken() >> token
+            getProjectId() >> projectId
+        }
+    }
+
+    static abstract class OtherBot implements ChatBot {
+    }
+
+    static interface TelegramTypeBot extends ChatBot {
+    }
+
+    static interface GoogleChatTypeBot extends ChatBot {
+    }
+}
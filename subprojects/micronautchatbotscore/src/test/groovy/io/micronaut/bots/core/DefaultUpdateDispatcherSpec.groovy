@@ -0,0 +1,200 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core
+
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class DefaultUpdateDispatcherSpec extends Specification {
+
+    @AutoCleanup('shutdown')
+    ExecutorService executorService = Executors.newCachedThreadPool()
+
+    SerialChatExecutor chatExecutor = new SerialChatExecutor(executorService, 10)
+
+    CommandHandler cmd = handler('cmd')
+    CommandHandler defaultHandler = handler('default')
+    int failures = 0
+    CommandHandler flaky = new CommandHandler() {
+        @Override
+        <T extends ChatBotMessageSend> Optional<T> handle(ChatBot chatBot, ChatBotMessageReceive update) {
+            if (failures > 0) {
+                failures--
+                throw new IllegalStateException('handler failed')
+            }
+            Optional.of((T) new Reply(handler: 'flaky'))
+        }
+
+        @Override
+        int getOrder() {
+            0
+        }
+    }
+
+    CommandHandlerRegistry registry = Stub(CommandHandlerRegistry) {
+        findCommandHandler(_ as CharSequence) >> { CharSequence command -> command.toString() == 'default' ? defaultHandler : null }
+        findCommandHandler(_ as CharSequence, _ as Integer, _ as Integer) >> { CharSequence text, int start, int end ->
+            [cmd: cmd, flaky: flaky][text.subSequence(start, end).toString()]
+        }
+    }
+
+    ChatBotMessageParser parser = Stub(ChatBotMessageParser) {
+        parseMessageId(_ as ChatBot, _ as ChatBotMessageReceive) >> { ChatBot bot, Received received -> Optional.ofNullable(received.id) }
+        parseContext(_ as ChatBot, _ as ChatBotMessageReceive) >> { ChatBot bot, Received received ->
+            DispatchContext.builder(DispatchContext.KIND_MESSAGE)
+                    .text(received.text)
+                    .textWithoutBotName(bot.mentionMatcher.strip(received.text))
+                    .chatId(1L)
+                    .chatType('group')
+                    .userId(1L)
+                    .build()
+        }
+    }
+
+    DefaultUpdateDispatcher dispatcher = new DefaultUpdateDispatcher(registry,
+            parser,
+            [],
+            chatExecutor,
+            new UpdateDeduplicator(new UpdateDeduplicationConfigurationProperties()),
+            Stub(AdmissionController) { admit(_, _) >> true },
+            new ReplyCache(new ReplyCacheConfigurationProperties(), Stub(MessageComposer)))
+
+    ChatBot bot = Stub(ChatBot) {
+        getMentionMatcher() >> new BotMentionMatcher('@ThisBot')
+    }
+
+    @Unroll
+    void "#text is handled by #expected"(String text, String expected) {
+        when:
+        Optional<ChatBotMessageSend> reply = dispatcher.dispatch(bot, new Received(text: text))
+
+        then:
+        reply.map { ((Reply) it).handler }.orElse(null) == expected
+
+        where:
+        text                 || expected
+        '/cmd'               || 'cmd'
+        '/cmd@ThisBot'       || 'cmd'
+        '/cmd@ThisBot args'  || 'cmd'
+        '/other'             || 'default'
+        '/cmd@OtherBot'      || null
+        '/other@OtherBot'    || null
+    }
+
+    void "the deprecated parsing methods delegate to the dispatch context"() {
+        given:
+        Received received = new Received(text: '/cmd@ThisBot args')
+
+        expect:
+        dispatcher.parseCommand('/cmd args') == Optional.of('cmd')
+        dispatcher.parseCommand('hello') == Optional.empty()
+        dispatcher.parseCommandAtUpdate(bot, received) == Optional.of('cmd')
+        dispatcher.parseCommandHandler(bot, received) == Optional.of(cmd)
+        dispatcher.shouldHandleMessage(bot, received)
+        DefaultUpdateDispatcher.SPACE == ' '
+    }
+
+    void "a message whose handler failed is handled when redelivered"() {
+        given:
+        failures = 1
+        Received received = new Received(id: 7L, text: '/flaky')
+
+        when:
+        dispatcher.dispatch(bot, received)
+
+        then:
+        thrown(IllegalStateException)
+
+        when:
+        Optional<ChatBotMessageSend> reply = dispatcher.dispatch(bot, received)
+
+        then:
+        ((Reply) reply.get()).handler == 'flaky'
+
+        when: 'the handled message is redelivered'
+        reply = dispatcher.dispatch(bot, received)
+
+        then:
+        !reply.present
+    }
+
+    void "a message whose asynchronous dispatch failed is handled when redelivered"() {
+        given:
+        failures = 1
+        Received received = new Received(id: 8L, text: '/flaky')
+
+        when:
+        dispatcher.dispatchAsync(bot, received).toCompletableFuture().get(5, TimeUnit.SECONDS)
+
+        then:
+        ExecutionException e = thrown()
+        e.cause instanceof IllegalStateException
+
+        when:
+        Optional<ChatBotMessageSend> reply = dispatcher.dispatchAsync(bot, received).toCompletableFuture().get(5, TimeUnit.SECONDS)
+
+        then:
+        ((Reply) reply.get()).handler == 'flaky'
+        !dispatcher.dispatchAsync(bot, received).toCompletableFuture().get(5, TimeUnit.SECONDS).present
+    }
+
+    void "a failed message of a batch is handled when redelivered"() {
+        given:
+        failures = 1
+        List<Received> batch = [new Received(id: 9L, text: '/flaky'), new Received(id: 10L, text: '/cmd')]
+
+        when:
+        List<DispatchResult> first = dispatcher.dispatchAll(bot, batch).toCompletableFuture().get(5, TimeUnit.SECONDS)
+        List<DispatchResult> second = dispatcher.dispatchAll(bot, batch).toCompletableFuture().get(5, TimeUnit.SECONDS)
+
+        then:
+        first*.failed == [true, false]
+        second*.failed == [false, false]
+        ((Reply) second[0].reply.get()).handler == 'flaky'
+        !second[1].reply.present
+    }
+
+    private static CommandHandler handler(String name) {
+        new CommandHandler() {
+            @Override
+            <T extends ChatBotMessageSend> Optional<T> handle(ChatBot chatBot, ChatBotMessageReceive update) {
+                Optional.of((T) new Reply(handler: name))
+            }
+
+            @Override
+            int getOrder() {
+                0
+            }
+        }
+    }
+
+    static class Received implements ChatBotMessageReceive {
+        Long id
+        String text
+    }
+
+    static class Reply implements ChatBotMessageSend {
+        String handler
+    }
+}
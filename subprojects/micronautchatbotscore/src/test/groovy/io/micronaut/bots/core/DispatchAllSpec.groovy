@@ -0,0 +1,123 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core
+
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class DispatchAllSpec extends Specification {
+
+    @AutoCleanup('shutdown')
+    ExecutorService executorService = Executors.newCachedThreadPool()
+
+    SerialChatExecutor chatExecutor = new SerialChatExecutor(executorService, 100)
+
+    Map<Serializable, List<String>> handled = new ConcurrentHashMap<>()
+
+    CommandHandler handler = new CommandHandler() {
+        @Override
+        <T extends ChatBotMessageSend> Optional<T> handle(ChatBot chatBot, ChatBotMessageReceive update) {
+            throw new UnsupportedOperationException()
+        }
+
+        @Override
+        <T extends ChatBotMessageSend> Optional<T> handle(ChatBot chatBot, ChatBotMessageReceive update, DispatchContext context) {
+            if (context.text == 'boom') {
+                throw new IllegalStateException('boom')
+            }
+            handled.computeIfAbsent(context.chatId, { new CopyOnWriteArrayList<>() }).add(context.text)
+            Optional.of(new TextReply(text: context.text))
+        }
+
+        @Override
+        int getOrder() {
+            0
+        }
+    }
+
+    CommandHandlerRegistry registry = Stub(CommandHandlerRegistry) {
+        findCommandHandler(_ as CharSequence) >> handler
+        findCommandHandler(_ as CharSequence, _ as Integer, _ as Integer) >> null
+    }
+
+    ChatBotMessageParser parser = Stub(ChatBotMessageParser) {
+        parseMessageId(_, _) >> Optional.empty()
+        parseContext(_ as ChatBot, _ as ChatBotMessageReceive) >> { ChatBot bot, Received received ->
+            DispatchContext.builder(DispatchContext.KIND_MESSAGE)
+                    .text(received.text)
+                    .textWithoutBotName(received.text)
+                    .chatId(received.chatId)
+                    .chatType('private')
+                    .userId(1L)
+                    .build()
+        }
+    }
+
+    DefaultUpdateDispatcher dispatcher = new DefaultUpdateDispatcher(registry,
+            parser,
+            [],
+            chatExecutor,
+            new UpdateDeduplicator(new UpdateDeduplicationConfigurationProperties()),
+            Stub(AdmissionController) { admit(_, _) >> true },
+            new ReplyCache(new ReplyCacheConfigurationProperties(), Stub(MessageComposer)))
+
+    void "results are returned in input order and messages of a chat are handled in order"() {
+        given:
+        List<Received> messages = (0..<50).collect { new Received(chatId: (long) (it % 5), text: "m$it") }
+
+        when:
+        List<DispatchResult> results = dispatcher.dispatchAll(Stub(ChatBot), messages).toCompletableFuture().get(5, TimeUnit.SECONDS)
+
+        then:
+        results*.reply*.get()*.text == messages*.text
+        (0L..<5L).every { long chatId ->
+            handled[chatId] == messages.findAll { it.chatId == chatId }*.text
+        }
+    }
+
+    void "a failing message does not affect the rest of the batch"() {
+        given:
+        List<Received> messages = [new Received(chatId: 1L, text: 'a'),
+                                   new Received(chatId: 1L, text: 'boom'),
+                                   new Received(chatId: 1L, text: 'b')]
+
+        when:
+        List<DispatchResult> results = dispatcher.dispatchAll(Stub(ChatBot), messages).toCompletableFuture().get(5, TimeUnit.SECONDS)
+
+        then:
+        !results[0].failed
+        results[1].failed
+        results[1].error instanceof IllegalStateException
+        results[2].reply.get().text == 'b'
+    }
+
+    static class Received implements ChatBotMessageReceive {
+        Serializable chatId
+        String text
+    }
+
+    static class TextReply implements ChatBotMessageSend {
+        String text
+    }
+}
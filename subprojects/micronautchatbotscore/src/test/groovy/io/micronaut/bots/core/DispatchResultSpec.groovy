@@ -0,0 +1,73 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core
+
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.RejectedExecutionException
+
+class DispatchResultSpec extends Specification {
+
+    void "join returns the reply of a completed dispatch"() {
+        expect:
+        DispatchResult.join(CompletableFuture.completedFuture(Optional.empty())) == Optional.empty()
+    }
+
+    void "join rethrows unchecked errors without wrapping them"() {
+        given:
+        CompletableFuture<Optional<ChatBotMessageSend>> reply = new CompletableFuture<>()
+        reply.completeExceptionally(error)
+
+        when:
+        DispatchResult.join(reply)
+
+        then:
+        Throwable thrown = thrown(Throwable)
+        thrown.is(error)
+
+        where:
+        error << [new RejectedExecutionException('full'), new IllegalStateException('boom'), new AssertionError('error')]
+    }
+
+    void "join keeps checked errors wrapped"() {
+        given:
+        CompletableFuture<Optional<ChatBotMessageSend>> reply = new CompletableFuture<>()
+        IOException error = new IOException('io')
+        reply.completeExceptionally(error)
+
+        when:
+        DispatchResult.join(reply)
+
+        then:
+        CompletionException e = thrown()
+        e.cause.is(error)
+        !DispatchResult.isRejected(e)
+    }
+
+    void "a rejection is recognised whether it is wrapped or not"() {
+        given:
+        RejectedExecutionException rejected = new RejectedExecutionException('full')
+
+        expect:
+        DispatchResult.isRejected(rejected)
+        DispatchResult.isRejected(new CompletionException(rejected))
+        DispatchResult.failure(new CompletionException(rejected)).rejected
+    }
+}
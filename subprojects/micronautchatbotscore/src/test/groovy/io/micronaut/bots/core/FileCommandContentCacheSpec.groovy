@@ -0,0 +1,97 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core
+
+import io.micronaut.core.io.ResourceResolver
+import io.micronaut.core.io.scan.ClassPathResourceLoader
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class FileCommandContentCacheSpec extends Specification {
+
+    @AutoCleanup
+    FileCommandContentCache cache
+
+    void "classpath files are read once at startup"() {
+        given:
+        cache = new FileCommandContentCache([configuration('commands/help.md')], new ResourceResolver())
+
+        when:
+        Optional<String> first = cache.find('commands/help.md')
+
+        then:
+        first.get() == 'Available commands:\n/help\n'
+        cache.find('commands/help.md').is(first)
+    }
+
+    void "classpath files are read with the class loader of the resource resolver"() {
+        given:
+        Path directory = Files.createTempDirectory('commands')
+        Files.createDirectories(directory.resolve('commands'))
+        Files.write(directory.resolve('commands/custom.md'), 'custom'.bytes)
+        URLClassLoader classLoader = new URLClassLoader([directory.toUri().toURL()] as URL[], (ClassLoader) null)
+        ResourceResolver resolver = new ResourceResolver(ClassPathResourceLoader.defaultLoader(classLoader))
+        cache = new FileCommandContentCache([configuration('commands/custom.md')], resolver)
+
+        expect:
+        cache.find('commands/custom.md').get() == 'custom\n'
+        !cache.find('commands/help.md').present
+
+        cleanup:
+        classLoader?.close()
+        directory?.toFile()?.deleteDir()
+    }
+
+    void "missing files have no content"() {
+        given:
+        cache = new FileCommandContentCache([configuration('commands/missing.md')], new ResourceResolver())
+
+        expect:
+        !cache.find('commands/missing.md').present
+    }
+
+    void "file system files are reloaded"() {
+        given:
+        Path file = Files.createTempFile('about', '.md')
+        Files.write(file, 'version 1'.bytes)
+        String path = FileCommandContentCache.FILE_PREFIX + file.toString()
+        cache = new FileCommandContentCache([configuration(path)], new ResourceResolver())
+
+        expect:
+        cache.find(path).get() == 'version 1\n'
+
+        when:
+        Files.write(file, 'version 2'.bytes)
+        cache.reload(path)
+
+        then:
+        cache.find(path).get() == 'version 2\n'
+
+        cleanup:
+        Files.deleteIfExists(file)
+    }
+
+    private BotCommandConfiguration configuration(String path) {
+        Stub(BotCommandConfiguration) {
+            getPath() >> path
+        }
+    }
+}
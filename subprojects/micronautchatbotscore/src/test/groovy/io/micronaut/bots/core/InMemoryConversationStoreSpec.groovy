@@ -0,0 +1,126 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core
+
+import spock.lang.Specification
+
+import java.time.Duration
+
+class InMemoryConversationStoreSpec extends Specification {
+
+    void "saved conversations are loaded by chat and user"() {
+        given:
+        InMemoryConversationStore store = new InMemoryConversationStore(100, null)
+        ConversationState state = store.load(new ConversationKey(1L, 2L))
+
+        when:
+        state.put('step', 'email')
+
+        then:
+        state.modified
+
+        when:
+        store.save(state)
+
+        then:
+        !state.modified
+        store.load(new ConversationKey(1, 2)).get('step') == 'email'
+        store.load(new ConversationKey(1L, 3L)).empty
+        store.load(new ConversationKey('spaces/a', 'users/b')).empty
+    }
+
+    void "saving an empty conversation removes it"() {
+        given:
+        InMemoryConversationStore store = new InMemoryConversationStore(100, null)
+        ConversationState state = store.load(new ConversationKey('spaces/a', 'users/b'))
+        state.put('step', 'name')
+        store.save(state)
+
+        when:
+        state.clear()
+        store.save(state)
+
+        then:
+        store.size() == 0
+    }
+
+    void "changes are only stored when the conversation is saved"() {
+        given:
+        InMemoryConversationStore store = new InMemoryConversationStore(100, null)
+        ConversationKey key = new ConversationKey(1L, 2L)
+        ConversationState state = store.load(key)
+        state.put('step', 'email')
+        store.save(state)
+
+        when:
+        state.put('step', 'name')
+        ConversationState loaded = store.load(key)
+        loaded.put('step', 'address')
+
+        then:
+        !loaded.is(store.load(key))
+        store.load(key).get('step') == 'email'
+
+        when:
+        store.save(loaded)
+
+        then:
+        store.load(key).get('step') == 'address'
+    }
+
+    void "conversations are evicted by size and by time to idle"() {
+        given:
+        InMemoryConversationStore store = new InMemoryConversationStore(160, Duration.ofNanos(1000))
+
+        when:
+        (0L..<1000L).each { long chatId ->
+            ConversationState state = new ConversationState(new ConversationKey(chatId, 1L))
+            state.put('step', 'start')
+            store.save(state, chatId)
+        }
+
+        then:
+        store.size() <= 160
+        store.load(new ConversationKey(999L, 1L), 1000L).get('step') == 'start'
+        store.load(new ConversationKey(999L, 1L), 3000L).empty
+    }
+
+    void "numeric tables keep every entry reachable after removals"() {
+        given:
+        ConversationTable table = new ConversationTable(512, 0)
+        Map<Long, ConversationState> states = [:]
+        Random random = new Random(7)
+
+        when:
+        20000.times { int i ->
+            long chatId = random.nextInt(300)
+            if (random.nextBoolean()) {
+                ConversationState state = new ConversationState(new ConversationKey(chatId, 1L))
+                table.put(chatId, 1L, state, i)
+                states[chatId] = state
+            } else {
+                table.remove(chatId, 1L)
+                states.remove(chatId)
+            }
+        }
+
+        then:
+        table.size() == states.size()
+        states.every { chatId, state -> table.get(chatId, 1L, 0L).is(state) }
+    }
+}
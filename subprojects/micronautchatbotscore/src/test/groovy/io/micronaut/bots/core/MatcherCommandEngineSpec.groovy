@@ -0,0 +1,121 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core
+
+import spock.lang.Specification
+
+import java.util.regex.Pattern
+
+class MatcherCommandEngineSpec extends Specification {
+
+    void "the highest priority handler matching the text is returned"() {
+        given:
+        PatternMatcherCommandHandler weather = handler(5, ['weather'], [])
+        PatternMatcherCommandHandler number = handler(1, [], [Pattern.compile('\\d{3}')])
+        PatternMatcherCommandHandler greeting = handler(10, ['hello'], [])
+        MatcherCommandEngine engine = MatcherCommandEngine.of([greeting, weather, number])
+
+        expect:
+        engine.find('Hello, how is the WEATHER?').is(weather)
+        engine.find('hello 123 weather').is(number)
+        engine.find('HELLO').is(greeting)
+        engine.find('good bye') == null
+    }
+
+    void "handlers implementing matches are evaluated in order"() {
+        given:
+        MatcherCommandHandler legacy = Stub(MatcherCommandHandler) {
+            getOrder() >> 0
+            matches(_ as String) >> { String text -> text.startsWith('!') }
+        }
+        PatternMatcherCommandHandler greeting = handler(10, ['hello'], [])
+        MatcherCommandEngine engine = MatcherCommandEngine.of([greeting, legacy])
+
+        expect:
+        engine.find('!hello').is(legacy)
+        engine.find('hello').is(greeting)
+    }
+
+    void "keywords are matched by the automaton ignoring case"() {
+        given:
+        KeywordAutomaton automaton = new KeywordAutomaton(['he', 'she', 'his', 'hers'], [3, 1, 2, 0] as int[])
+
+        expect:
+        automaton.find('USHERS') == 0
+        automaton.find('ahis') == 2
+        automaton.find('ashe') == 1
+        automaton.find('xyz') == KeywordAutomaton.NO_MATCH
+    }
+
+    void "patterns using back references are not combined"() {
+        expect:
+        MatcherCommandEngine.combine([Pattern.compile('(a)\\1')]) == null
+        MatcherCommandEngine.combine([Pattern.compile('a'), Pattern.compile('b', Pattern.CASE_INSENSITIVE)]).pattern() == '(?:a)|(?i:b)'
+    }
+
+    void "patterns declaring the same named group are evaluated on their own"() {
+        given:
+        List<Pattern> patterns = [Pattern.compile('(?<n>\\d+) apples'), Pattern.compile('(?<n>\\d+) pears')]
+        PatternMatcherCommandHandler pears = handler(1, [], [patterns[1]])
+        PatternMatcherCommandHandler apples = handler(0, [], [patterns[0]])
+
+        expect:
+        MatcherCommandEngine.combine(patterns) == null
+
+        when:
+        MatcherCommandEngine engine = MatcherCommandEngine.of([apples, pears])
+
+        then:
+        engine.find('3 pears').is(pears)
+        engine.find('3 apples').is(apples)
+        engine.find('apples') == null
+    }
+
+    void "a handler matches its keywords and patterns on its own"() {
+        given:
+        PatternMatcherCommandHandler handler = new PatternMatcherCommandHandler() {
+            @Override
+            List<String> getKeywords() {
+                ['weather']
+            }
+
+            @Override
+            List<Pattern> getPatterns() {
+                [Pattern.compile('\\d{3}')]
+            }
+
+            @Override
+            def <T extends ChatBotMessageSend> Optional<T> handle(ChatBot bot, ChatBotMessageReceive update) {
+                Optional.empty()
+            }
+        }
+
+        expect:
+        handler.matches('How is the WEATHER?')
+        handler.matches('room 101')
+        !handler.matches('hello')
+    }
+
+    private PatternMatcherCommandHandler handler(int order, List<String> keywords, List<Pattern> patterns) {
+        Stub(PatternMatcherCommandHandler) {
+            getOrder() >> order
+            getKeywords() >> keywords
+            getPatterns() >> patterns
+        }
+    }
+}
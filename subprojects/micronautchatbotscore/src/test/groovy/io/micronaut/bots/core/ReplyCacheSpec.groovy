@@ -0,0 +1,153 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core
+
+import spock.lang.Specification
+
+class ReplyCacheSpec extends Specification {
+
+    ReplyCacheConfigurationProperties configuration = new ReplyCacheConfigurationProperties()
+    MessageComposer messageComposer = Stub(MessageComposer) {
+        retarget(_ as ChatBotMessageSend, _ as DispatchContext) >> { ChatBotMessageSend reply, DispatchContext context -> Optional.of(reply) }
+    }
+    ReplyCache cache = new ReplyCache(configuration, messageComposer)
+    ChatBot bot = bot('token')
+
+    void "replies of cacheable handlers are built once per command, chat type and language"() {
+        given:
+        CommandHandler handler = new CachedHandler()
+        int calls = 0
+        ChatBotMessageSend reply = Stub(ChatBotMessageSend)
+
+        when:
+        3.times {
+            cache.getOrHandle(bot, handler, context('/help', 'private', 'en'), { -> calls++; Optional.of(reply) })
+        }
+        cache.getOrHandle(bot, handler, context('/help', 'private', 'es'), { -> calls++; Optional.of(reply) })
+
+        then:
+        calls == 2
+        cache.hits == 2
+        cache.misses == 2
+        cache.hitRatio == 0.5d
+    }
+
+    void "replies of other handlers are not cached"() {
+        given:
+        CommandHandler handler = Stub(CommandHandler)
+        int calls = 0
+
+        when:
+        2.times {
+            cache.getOrHandle(bot, handler, context('/help', 'private', 'en'), { -> calls++; Optional.of(Stub(ChatBotMessageSend)) })
+        }
+
+        then:
+        calls == 2
+        cache.size() == 0
+    }
+
+    void "the cache does not grow beyond its maximum size"() {
+        given:
+        configuration.maximumSize = 2
+        CommandHandler handler = new CachedHandler()
+
+        when:
+        ['/a', '/b', '/c'].each { String command ->
+            cache.getOrHandle(bot, handler, context(command, 'private', 'en'), { -> Optional.of(Stub(ChatBotMessageSend)) })
+        }
+
+        then:
+        cache.size() == 2
+    }
+
+    void "replies of the default handler share one entry whatever the unknown command"() {
+        given:
+        CommandHandler handler = new DefaultCommandHandler(Stub(MessageComposer))
+        int calls = 0
+
+        when:
+        (1..100).each { int i ->
+            cache.getOrHandle(bot, handler, context("/junk$i", 'private', 'en'), { -> calls++; Optional.of(Stub(ChatBotMessageSend)) })
+        }
+
+        then:
+        calls == 1
+        cache.size() == 1
+    }
+
+    void "bots do not share the replies of a handler"() {
+        given:
+        CommandHandler handler = new CachedHandler()
+        ChatBotMessageSend first = Stub(ChatBotMessageSend)
+        ChatBotMessageSend second = Stub(ChatBotMessageSend)
+
+        when:
+        Optional<ChatBotMessageSend> firstReply = cache.getOrHandle(bot('first'), handler, context('/help', 'private', 'en'), { -> Optional.of(first) })
+        Optional<ChatBotMessageSend> secondReply = cache.getOrHandle(bot('second'), handler, context('/help', 'private', 'en'), { -> Optional.of(second) })
+
+        then:
+        firstReply.get().is(first)
+        secondReply.get().is(second)
+        cache.find(bot('first'), handler, context('/help', 'private', 'en')).get().is(first)
+        cache.size() == 2
+    }
+
+    void "subclasses of cacheable handlers, such as AOP proxies, are cached"() {
+        given:
+        CommandHandler handler = new ProxiedHandler()
+        int calls = 0
+
+        when:
+        2.times {
+            cache.getOrHandle(bot, handler, context('/help', 'private', 'en'), { -> calls++; Optional.of(Stub(ChatBotMessageSend)) })
+        }
+
+        then:
+        cache.isCacheable(handler)
+        calls == 1
+    }
+
+    private ChatBot bot(String token) {
+        Stub(ChatBot) {
+            getToken() >> token
+        }
+    }
+
+    private static DispatchContext context(String text, String chatType, String languageCode) {
+        DispatchContext.builder(DispatchContext.KIND_MESSAGE)
+                .text(text)
+                .textWithoutBotName(text)
+                .chatId(1L)
+                .chatType(chatType)
+                .userId(2L)
+                .languageCode(languageCode)
+                .build()
+    }
+
+    @CacheableReply
+    static class CachedHandler implements CommandHandler {
+        @Override
+        <T extends ChatBotMessageSend> Optional<T> handle(ChatBot chatBot, ChatBotMessageReceive update) {
+            Optional.empty()
+        }
+    }
+
+    static class ProxiedHandler extends CachedHandler {
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class ReplyTemplateSpec extends Specification {
+
+    DispatchContext context = DispatchContext.builder(DispatchContext.KIND_MESSAGE)
+            .text('/echo <b>hi</b> & bye')
+            .textWithoutBotName('/echo <b>hi</b> & bye')
+            .chatId(42L)
+            .chatType('group')
+            .chatTitle('Friends_of *Groovy*')
+            .userId(7L)
+            .userFirstName('Sergio')
+            .build()
+
+    void "placeholders are replaced with the values of the update"() {
+        given:
+        ReplyTemplate template = ReplyTemplate.compile('Hi {{user.firstName}} ({{ user.id }}), welcome to {{chat.title}} #{{chat.id}}. /{{command}}')
+
+        expect:
+        template.render(context, null) == 'Hi Sergio (7), welcome to Friends_of *Groovy* #42. /echo'
+    }
+
+    @Unroll
+    void "values are escaped for #parseMode"(ParseMode parseMode, String expected) {
+        expect:
+        ReplyTemplate.compile('{{args}} in {{chat.title}}').render(context, parseMode) == expected
+
+        where:
+        parseMode          || expected
+        ParseMode.HTML     || '&lt;b&gt;hi&lt;/b&gt; &amp; bye in Friends_of *Groovy*'
+        ParseMode.MARKDOWN || '<b>hi</b> & bye in Friends\\_of \\*Groovy\\*'
+    }
+
+    void "templates without placeholders render their text"() {
+        expect:
+        ReplyTemplate.compile('Hello').render(context, ParseMode.HTML) == 'Hello'
+    }
+
+    void "missing values render as empty text"() {
+        given:
+        DispatchContext empty = DispatchContext.builder(DispatchContext.KIND_MESSAGE).text('hello').textWithoutBotName('hello').build()
+
+        expect:
+        ReplyTemplate.compile('Hi {{user.firstName}}{{args}}!').render(empty, null) == 'Hi !'
+    }
+
+    @Unroll
+    void "#source does not compile"(String source) {
+        when:
+        ReplyTemplate.compile(source)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        where:
+        source << ['Hi {{user.lastName}}', 'Hi {{user.firstName']
+    }
+}
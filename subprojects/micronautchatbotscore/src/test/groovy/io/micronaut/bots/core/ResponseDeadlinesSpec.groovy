@@ -0,0 +1,99 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core
+
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class ResponseDeadlinesSpec extends Specification {
+
+    void "replies within the deadline are returned to the webhook"() {
+        given:
+        ChatBotMessageSender sender = Mock(ChatBotMessageSender)
+        ResponseDeadlines deadlines = new ResponseDeadlines([sender])
+        ChatBot bot = Stub(ChatBot) {
+            getResponseDeadline() >> Optional.of(Duration.ofSeconds(10))
+        }
+        ChatBotMessageSend reply = Stub(ChatBotMessageSend)
+        CompletableFuture<Optional<ChatBotMessageSend>> handled = new CompletableFuture<>()
+
+        when:
+        CompletableFuture<Optional<ChatBotMessageSend>> result = deadlines.withDeadline(bot, handled).toCompletableFuture()
+        handled.complete(Optional.of(reply))
+
+        then:
+        result.get(1, TimeUnit.SECONDS).get() == reply
+        deadlines.spilled == 0
+        0 * sender.send(_, _)
+
+        cleanup:
+        deadlines.close()
+    }
+
+    void "replies after the deadline are sent out of band"() {
+        given:
+        CountDownLatch sent = new CountDownLatch(1)
+        ChatBotMessageSender sender = Stub(ChatBotMessageSender) {
+            supports(_) >> true
+            send(_, _) >> {
+                sent.countDown()
+                CompletableFuture.completedFuture(true)
+            }
+        }
+        ResponseDeadlines deadlines = new ResponseDeadlines([sender])
+        ChatBot bot = Stub(ChatBot) {
+            getResponseDeadline() >> Optional.of(Duration.ofMillis(10))
+        }
+        CompletableFuture<Optional<ChatBotMessageSend>> handled = new CompletableFuture<>()
+
+        when:
+        CompletableFuture<Optional<ChatBotMessageSend>> result = deadlines.withDeadline(bot, handled).toCompletableFuture()
+
+        then:
+        !result.get(1, TimeUnit.SECONDS).isPresent()
+
+        when:
+        handled.complete(Optional.of(Stub(ChatBotMessageSend)))
+
+        then:
+        sent.await(1, TimeUnit.SECONDS)
+        deadlines.spilled == 1
+
+        cleanup:
+        deadlines.close()
+    }
+
+    void "bots without a deadline wait for the handler"() {
+        given:
+        ResponseDeadlines deadlines = new ResponseDeadlines([])
+        ChatBot bot = Stub(ChatBot) {
+            getResponseDeadline() >> Optional.empty()
+        }
+        CompletableFuture<Optional<ChatBotMessageSend>> handled = new CompletableFuture<>()
+
+        expect:
+        deadlines.withDeadline(bot, handled).is(handled)
+
+        cleanup:
+        deadlines.close()
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core
+
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executor
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+
+class SerialChatExecutorSpec extends Specification {
+
+    @AutoCleanup('shutdown')
+    ExecutorService executorService = Executors.newCachedThreadPool()
+
+    SerialChatExecutor executor = new SerialChatExecutor(executorService, 100)
+
+    void "tasks of the same chat run in submission order"() {
+        given:
+        List<Integer> handled = Collections.synchronizedList([])
+
+        when:
+        List<CompletableFuture<Integer>> futures = (1..50).collect { Integer i ->
+            executor.submit(123L, { -> handled << i; i }).toCompletableFuture()
+        }
+        CompletableFuture.allOf(futures as CompletableFuture[]).get(5, TimeUnit.SECONDS)
+
+        then:
+        handled == (1..50).toList()
+    }
+
+    void "tasks of the same chat never run concurrently"() {
+        given:
+        int running = 0
+        int overlaps = 0
+
+        when:
+        List<CompletableFuture<Object>> futures = (1..200).collect { Integer i ->
+            executor.submit(i % 2, { ->
+                synchronized (this) {
+                    if (++running > 2) {
+                        overlaps++
+                    }
+                }
+                Thread.sleep(1)
+                synchronized (this) {
+                    running--
+                }
+                null
+            }).toCompletableFuture()
+        }
+        CompletableFuture.allOf(futures as CompletableFuture[]).get(10, TimeUnit.SECONDS)
+
+        then:
+        overlaps == 0
+    }
+
+    void "blocked chats do not block other chats"() {
+        given:
+        CountDownLatch latch = new CountDownLatch(1)
+
+        when:
+        List<CompletableFuture<Object>> blocked = (1..Runtime.runtime.availableProcessors() * 2).collect { Integer chat ->
+            executor.submit(chat, { -> latch.await() }).toCompletableFuture()
+        }
+        String fast = executor.submit(-1, { -> 'fast' }).toCompletableFuture().get(5, TimeUnit.SECONDS)
+
+        then:
+        fast == 'fast'
+        blocked.every { !it.done }
+
+        cleanup:
+        latch.countDown()
+    }
+
+    void "tasks are rejected when the queue of the chat is full"() {
+        given:
+        SerialChatExecutor small = new SerialChatExecutor(executorService, 1)
+        CountDownLatch started = new CountDownLatch(1)
+        CountDownLatch latch = new CountDownLatch(1)
+        small.submit('chat', { -> started.countDown(); latch.await() })
+        started.await(5, TimeUnit.SECONDS)
+        small.submit('chat', { -> 'queued' })
+
+        when:
+        small.submit('chat', { -> 'rejected' }).toCompletableFuture().get(5, TimeUnit.SECONDS)
+
+        then:
+        ExecutionException e = thrown()
+        e.cause instanceof RejectedExecutionException
+        DispatchResult.isRejected(e.cause)
+
+        and: 'other chats are still accepted'
+        small.submit('other', { -> 'accepted' }).toCompletableFuture().get(5, TimeUnit.SECONDS) == 'accepted'
+
+        cleanup:
+        latch.countDown()
+    }
+
+    void "tasks queued while the executor rejects the chat are failed instead of left waiting"() {
+        given:
+        CompletableFuture<String> queued = null
+        SerialChatExecutor rejecting = null
+        Executor executor = { Runnable drain ->
+            queued = rejecting.submit('chat', { -> 'queued' }).toCompletableFuture()
+            throw new RejectedExecutionException('executor is shut down')
+        } as Executor
+        rejecting = new SerialChatExecutor(executor, 10)
+
+        when:
+        CompletableFuture<String> first = rejecting.submit('chat', { -> 'first' }).toCompletableFuture()
+
+        then:
+        first.isCompletedExceptionally()
+        queued.isCompletedExceptionally()
+        DispatchResult.isRejected(queued.handle { value, error -> error }.join())
+        rejecting.activeKeys == 0
+    }
+}
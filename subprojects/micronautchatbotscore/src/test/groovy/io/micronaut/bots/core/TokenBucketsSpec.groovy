@@ -0,0 +1,134 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core
+
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class TokenBucketsSpec extends Specification {
+
+    void "a key can spend its burst and then has to wait for the refill"() {
+        given:
+        TokenBuckets buckets = new TokenBuckets(2, 60)
+        long now = 0
+
+        expect:
+        buckets.tryAcquire('user', now)
+        buckets.tryAcquire('user', now)
+        !buckets.tryAcquire('user', now)
+        buckets.tryAcquire('other', now)
+        !buckets.tryAcquire('user', now + TimeUnit.MILLISECONDS.toNanos(500))
+        buckets.tryAcquire('user', now + TimeUnit.SECONDS.toNanos(1))
+    }
+
+    void "buckets idle long enough to be full are evicted"() {
+        given:
+        TokenBuckets buckets = new TokenBuckets(2, 60)
+        buckets.tryAcquire('user', 0)
+        buckets.tryAcquire('chat', TimeUnit.SECONDS.toNanos(1))
+
+        when:
+        buckets.evictIdle(TimeUnit.SECONDS.toNanos(2))
+
+        then:
+        buckets.size() == 1
+
+        when:
+        buckets.evictIdle(TimeUnit.SECONDS.toNanos(3))
+
+        then:
+        buckets.size() == 0
+    }
+
+    void "updates beyond the user burst are rejected"() {
+        given:
+        ChatBot bot = Stub(ChatBot) {
+            getAdmissionPolicy() >> new AdmissionPolicy(1, 1, 0, 0)
+        }
+        TokenBucketAdmissionController controller = new TokenBucketAdmissionController()
+        DispatchContext context = context(1L, 2L)
+
+        expect:
+        controller.admit(bot, context)
+        !controller.admit(bot, context)
+        controller.rejected == 1
+    }
+
+    void "an update rejected by the chat bucket does not spend the token of the user"() {
+        given:
+        ChatBot bot = Stub(ChatBot) {
+            getAdmissionPolicy() >> new AdmissionPolicy(2, 1, 1, 1)
+        }
+        TokenBucketAdmissionController controller = new TokenBucketAdmissionController()
+
+        expect:
+        controller.admit(bot, context(10L, 1L))
+        !controller.admit(bot, context(10L, 1L))
+        controller.admit(bot, context(20L, 1L))
+        !controller.admit(bot, context(30L, 1L))
+        controller.rejected == 2
+    }
+
+    void "buckets are kept per token and follow the current policy of the bot"() {
+        given:
+        AdmissionPolicy policy = new AdmissionPolicy(1, 1, 0, 0)
+        ChatBot bot = Stub(ChatBot) {
+            getToken() >> '123:ABC'
+            getAdmissionPolicy() >> { policy }
+        }
+        ChatBot sameToken = Stub(ChatBot) {
+            getToken() >> '123:ABC'
+            getAdmissionPolicy() >> { policy }
+        }
+        TokenBucketAdmissionController controller = new TokenBucketAdmissionController()
+
+        expect:
+        controller.admit(bot, context(10L, 1L))
+        !controller.admit(sameToken, context(10L, 1L))
+
+        when:
+        policy = new AdmissionPolicy(2, 1, 0, 0)
+
+        then:
+        controller.admit(bot, context(10L, 1L))
+        controller.admit(sameToken, context(10L, 1L))
+        !controller.admit(bot, context(10L, 1L))
+    }
+
+    void "bots without limits admit every update"() {
+        given:
+        ChatBot bot = Stub(ChatBot) {
+            getAdmissionPolicy() >> AdmissionPolicy.UNLIMITED
+        }
+        TokenBucketAdmissionController controller = new TokenBucketAdmissionController()
+        DispatchContext context = context(1L, 2L)
+
+        expect:
+        (1..100).every { controller.admit(bot, context) }
+    }
+
+    private static DispatchContext context(Long chatId, Long userId) {
+        DispatchContext.builder(DispatchContext.KIND_MESSAGE)
+                .text('/start')
+                .textWithoutBotName('/start')
+                .chatId(chatId)
+                .userId(userId)
+                .build()
+    }
+}
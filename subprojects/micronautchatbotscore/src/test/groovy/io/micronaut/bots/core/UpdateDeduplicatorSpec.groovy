@@ -0,0 +1,134 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.core
+
+import spock.lang.Specification
+
+class UpdateDeduplicatorSpec extends Specification {
+
+    void "recent ids are reported as seen"() {
+        given:
+        RecentIdFilter filter = new RecentIdFilter(8)
+
+        expect:
+        filter.markSeen(1)
+        filter.markSeen(2)
+        !filter.markSeen(1)
+        !filter.markSeen(2)
+    }
+
+    void "a window of sequential ids as large as the capacity is remembered"() {
+        given:
+        RecentIdFilter filter = new RecentIdFilter(1000)
+
+        expect:
+        filter.capacity == 1024
+        (5000L..<6024L).every { filter.markSeen(it) }
+        (5000L..<6024L).every { !filter.markSeen(it) }
+        filter.markSeen(6024L)
+        filter.markSeen(5000L)
+    }
+
+    void "slots are empty until an id is seen"() {
+        given:
+        RecentIdFilter filter = new RecentIdFilter(4)
+
+        expect:
+        (0L..<8L).every { filter.markSeen(it) }
+    }
+
+    void "forgotten ids are seen as new again"() {
+        given:
+        RecentIdFilter filter = new RecentIdFilter(8)
+        filter.markSeen(3)
+
+        expect:
+        filter.forget(3)
+        !filter.forget(3)
+        !filter.forget(11)
+        filter.markSeen(3)
+        !filter.markSeen(3)
+    }
+
+    void "a failed message is forgotten by its bot only"() {
+        given:
+        UpdateDeduplicator deduplicator = new UpdateDeduplicator(new UpdateDeduplicationConfigurationProperties())
+        ChatBot first = Stub(ChatBot)
+        ChatBot second = Stub(ChatBot)
+        deduplicator.isDuplicate(first, 'spaces/AAA/messages/BBB')
+        deduplicator.isDuplicate(second, 'spaces/AAA/messages/BBB')
+
+        when:
+        deduplicator.forget(first, 'spaces/AAA/messages/BBB')
+
+        then:
+        !deduplicator.isDuplicate(first, 'spaces/AAA/messages/BBB')
+        deduplicator.isDuplicate(second, 'spaces/AAA/messages/BBB')
+    }
+
+    void "messages are remembered per token, so a new instance of a bot sees its duplicates"() {
+        given:
+        UpdateDeduplicator deduplicator = new UpdateDeduplicator(new UpdateDeduplicationConfigurationProperties())
+        ChatBot bot = Stub(ChatBot) {
+            getToken() >> '123:ABC'
+        }
+        ChatBot sameToken = Stub(ChatBot) {
+            getToken() >> '123:ABC'
+        }
+        deduplicator.isDuplicate(bot, 10)
+
+        expect:
+        deduplicator.isDuplicate(sameToken, 10)
+
+        when:
+        deduplicator.onUnregister(sameToken)
+
+        then:
+        !deduplicator.isDuplicate(bot, 10)
+    }
+
+    void "duplicates are counted per bot"() {
+        given:
+        UpdateDeduplicationConfigurationProperties configuration = new UpdateDeduplicationConfigurationProperties()
+        UpdateDeduplicator deduplicator = new UpdateDeduplicator(configuration)
+        ChatBot first = Stub(ChatBot)
+        ChatBot second = Stub(ChatBot)
+
+        expect:
+        !deduplicator.isDuplicate(first, 10)
+        !deduplicator.isDuplicate(second, 10)
+        deduplicator.isDuplicate(first, 10)
+        !deduplicator.isDuplicate(first, 'spaces/AAA/messages/BBB')
+        deduplicator.isDuplicate(first, 'spaces/AAA/messages/BBB')
+        !deduplicator.isDuplicate(first, null)
+        deduplicator.hits == 2
+        deduplicator.misses == 3
+    }
+
+    void "nothing is deduplicated when disabled"() {
+        given:
+        UpdateDeduplicationConfigurationProperties configuration = new UpdateDeduplicationConfigurationProperties()
+        configuration.enabled = false
+        UpdateDeduplicator deduplicator = new UpdateDeduplicator(configuration)
+        ChatBot bot = Stub(ChatBot)
+
+        expect:
+        !deduplicator.isDuplicate(bot, 10)
+        !deduplicator.isDuplicate(bot, 10)
+    }
+}
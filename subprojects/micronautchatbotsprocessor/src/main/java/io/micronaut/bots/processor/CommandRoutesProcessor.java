@@ -0,0 +1,334 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a {@code CommandRoutes} class per package mapping the command names of the {@code javax.inject.Named}
+ * {@code CommandHandler} classes of the package to the bean definition references Micronaut generates for them, and
+ * lists them in
+ * {@code META-INF/services/io.micronaut.bots.core.CommandRoutes}. The class name ends with a hash of the routes, so
+ * jars which contribute handlers to the same package do not shadow each other's routes.
+ */
+@SupportedAnnotationTypes(CommandRoutesProcessor.NAMED)
+public class CommandRoutesProcessor extends AbstractProcessor {
+
+    static final String NAMED = "javax.inject.Named";
+    static final String COMMAND_HANDLER = "io.micronaut.bots.core.CommandHandler";
+    static final String COMMAND_ROUTES = "io.micronaut.bots.core.CommandRoutes";
+    static final String SECONDARY = "io.micronaut.context.annotation.Secondary";
+    static final String CLASS_NAME = "$CommandRoutes";
+    static final String REFERENCE_SUFFIX = "DefinitionClass";
+
+    private final Set<String> generated = new LinkedHashSet<>();
+    private Elements elements;
+    private Types types;
+    private Filer filer;
+    private Messager messager;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+        this.filer = processingEnv.getFiler();
+        this.messager = processingEnv.getMessager();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeServiceFile();
+            return false;
+        }
+        TypeElement named = elements.getTypeElement(NAMED);
+        TypeElement commandHandler = elements.getTypeElement(COMMAND_HANDLER);
+        if (named == null || commandHandler == null) {
+            return false;
+        }
+        TypeMirror commandHandlerType = types.erasure(commandHandler.asType());
+        Map<String, List<Route>> packages = new LinkedHashMap<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(named)) {
+            if (element.getKind() != ElementKind.CLASS ||
+                    element.getModifiers().contains(Modifier.ABSTRACT) ||
+                    !types.isAssignable(types.erasure(element.asType()), commandHandlerType)) {
+                continue;
+            }
+            TypeElement handler = (TypeElement) element;
+            if (!isAccessibleFromPackage(handler)) {
+                messager.printMessage(Diagnostic.Kind.WARNING,
+                        "command handler is not accessible from its package and is not routed at compile time", handler);
+                continue;
+            }
+            String command = namedValue(handler);
+            if (command == null || command.isEmpty()) {
+                continue;
+            }
+            String packageName = elements.getPackageOf(handler).getQualifiedName().toString();
+            packages.computeIfAbsent(packageName, name -> new ArrayList<>())
+                    .add(new Route(command, handler.getQualifiedName().toString(),
+                            referenceName(packageName, elements.getBinaryName(handler).toString()),
+                            isSecondary(handler), handler));
+        }
+        for (Map.Entry<String, List<Route>> entry : packages.entrySet()) {
+            writeRoutes(entry.getKey(), entry.getValue());
+        }
+        return false;
+    }
+
+    private static boolean isAccessibleFromPackage(TypeElement handler) {
+        for (Element element = handler; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            TypeElement type = (TypeElement) element;
+            if (type.getModifiers().contains(Modifier.PRIVATE) ||
+                    (type.getNestingKind().isNested() && !type.getModifiers().contains(Modifier.STATIC))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Micronaut names the bean definition reference of {@code p.Outer$Inner} {@code p.$Outer$InnerDefinitionClass}.
+     * @param packageName Package of the handler
+     * @param binaryName Binary name of the handler
+     * @return Class name of the bean definition reference of the handler
+     */
+    static String referenceName(String packageName, String binaryName) {
+        if (packageName.isEmpty()) {
+            return "$" + binaryName + REFERENCE_SUFFIX;
+        }
+        return packageName + ".$" + binaryName.substring(packageName.length() + 1) + REFERENCE_SUFFIX;
+    }
+
+    private String namedValue(TypeElement handler) {
+        for (AnnotationMirror annotation : handler.getAnnotationMirrors()) {
+            if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(NAMED)) {
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : annotation.getElementValues().entrySet()) {
+                    if (value.getKey().getSimpleName().contentEquals("value")) {
+                        Object command = value.getValue().getValue();
+                        return command instanceof String ? (String) command : null;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean isSecondary(TypeElement handler) {
+        for (AnnotationMirror annotation : handler.getAnnotationMirrors()) {
+            if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(SECONDARY)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeRoutes(String packageName, List<Route> routes) {
+        String baseName = CLASS_NAME + "$" + fingerprint(routes);
+        String simpleName = baseName;
+        String className = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        for (int i = 2; generated.contains(className); i++) {
+            simpleName = baseName + "$" + i;
+            className = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        }
+        Element[] originatingElements = new Element[routes.size()];
+        for (int i = 0; i < routes.size(); i++) {
+            originatingElements[i] = routes.get(i).element;
+        }
+        try {
+            JavaFileObject source = filer.createSourceFile(className, originatingElements);
+            try (Writer writer = source.openWriter()) {
+                writer.write(render(packageName, simpleName, routes));
+            }
+            generated.add(className);
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "could not generate " + className + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Another jar may generate routes for the same package, so the class name is derived from the handlers it routes.
+     * @param routes Routes of a package
+     * @return Hexadecimal hash of the commands and handler classes
+     */
+    static String fingerprint(List<Route> routes) {
+        List<String> entries = new ArrayList<>(routes.size());
+        for (Route route : routes) {
+            entries.add(route.command + '=' + route.className);
+        }
+        Collections.sort(entries);
+        long hash = 0xcbf29ce484222325L;
+        for (String entry : entries) {
+            for (int i = 0; i < entry.length(); i++) {
+                hash ^= entry.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            hash ^= '\n';
+            hash *= 0x100000001b3L;
+        }
+        return Long.toHexString(hash);
+    }
+
+    static String render(String packageName, String simpleName, List<Route> routes) {
+        StringBuilder sb = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            sb.append("package ").append(packageName).append(";\n\n");
+        }
+        sb.append("import io.micronaut.bots.core.CommandRoutes;\n\n")
+                .append("import java.util.Collections;\n")
+                .append("import java.util.LinkedHashMap;\n")
+                .append("import java.util.Map;\n\n")
+                .append("/**\n * Generated by ").append(CommandRoutesProcessor.class.getName()).append(".\n */\n")
+                .append("public final class ").append(simpleName).append(" implements CommandRoutes {\n\n")
+                .append("    private static final Map<String, String> COMMANDS;\n")
+                .append("    private static final Map<String, String> SECONDARY_COMMANDS;\n\n")
+                .append("    static {\n")
+                .append("        Map<String, String> commands = new LinkedHashMap<>();\n")
+                .append("        Map<String, String> secondaryCommands = new LinkedHashMap<>();\n");
+        for (Route route : routes) {
+            sb.append("        ").append(route.secondary ? "secondaryCommands" : "commands")
+                    .append(".put(\"").append(escape(route.command)).append("\", \"")
+                    .append(escape(route.referenceName)).append("\");\n");
+        }
+        sb.append("        COMMANDS = Collections.unmodifiableMap(commands);\n")
+                .append("        SECONDARY_COMMANDS = Collections.unmodifiableMap(secondaryCommands);\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public Map<String, String> getCommands() {\n")
+                .append("        return COMMANDS;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public Map<String, String> getSecondaryCommands() {\n")
+                .append("        return SECONDARY_COMMANDS;\n")
+                .append("    }\n")
+                .append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Unicode escapes are translated before the source is tokenized, so an escaped line feed would still end the string
+     * literal. Control characters are written as escape sequences or octal escapes instead.
+     * @param value Command name
+     * @return The content of a Java string literal
+     */
+    static String escape(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                case '\\':
+                    sb.append('\\').append(c);
+                    break;
+                case '\b':
+                    sb.append("\\b");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\f':
+                    sb.append("\\f");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                default:
+                    if (c < 0x20 || c == 0x7f) {
+                        sb.append(String.format("\\%03o", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.toString();
+    }
+
+    private void writeServiceFile() {
+        if (generated.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "",
+                    "META-INF/services/" + COMMAND_ROUTES);
+            try (Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (String className : generated) {
+                    writer.write(className);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "could not write the " + COMMAND_ROUTES + " service file: " + e.getMessage());
+        }
+    }
+
+    static final class Route {
+        private final String command;
+        private final String className;
+        private final String referenceName;
+        private final boolean secondary;
+        private final Element element;
+
+        Route(String command, String className, String referenceName, boolean secondary, Element element) {
+            this.command = command;
+            this.className = className;
+            this.referenceName = referenceName;
+            this.secondary = secondary;
+            this.element = element;
+        }
+    }
+}
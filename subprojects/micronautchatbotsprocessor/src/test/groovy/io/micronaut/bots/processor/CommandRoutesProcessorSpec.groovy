@@ -0,0 +1,197 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.processor
+
+import io.micronaut.bots.core.CommandRoutes
+import spock.lang.Specification
+
+import javax.tools.JavaCompiler
+import javax.tools.ToolProvider
+import java.nio.file.Files
+import java.nio.file.Path
+
+class CommandRoutesProcessorSpec extends Specification {
+
+    Path sources = Files.createTempDirectory('sources')
+    Path output = Files.createTempDirectory('output')
+
+    void cleanup() {
+        [sources, output].each { it.toFile().deleteDir() }
+    }
+
+    void "routes to the bean definition references are generated for named command handlers"() {
+        given:
+        Path source = sources.resolve('Handlers.java')
+        source.toFile().text = '''
+package com.example;
+
+import io.micronaut.bots.core.ChatBot;
+import io.micronaut.bots.core.ChatBotMessageReceive;
+import io.micronaut.bots.core.ChatBotMessageSend;
+import io.micronaut.bots.core.CommandHandler;
+import io.micronaut.context.annotation.Secondary;
+
+import javax.inject.Named;
+import java.util.Optional;
+
+@Named("help")
+class HelpHandler implements CommandHandler {
+    public <T extends ChatBotMessageSend> Optional<T> handle(ChatBot chatBot, ChatBotMessageReceive update) {
+        return Optional.empty();
+    }
+
+    public int getOrder() {
+        return 0;
+    }
+}
+
+@Named("start")
+@Secondary
+class StartHandler extends HelpHandler {
+}
+
+@Named("other")
+class Other {
+}
+
+class Outer {
+    @Named("nested")
+    static class NestedHandler extends HelpHandler {
+    }
+}
+'''
+
+        when:
+        int status = process(source, output)
+        List<File> generated = generatedRoutes(output)
+        String routes = generated.first().text
+
+        then:
+        status == 0
+        generated.size() == 1
+        routes.contains('commands.put("help", "com.example.$HelpHandlerDefinitionClass");')
+        routes.contains('secondaryCommands.put("start", "com.example.$StartHandlerDefinitionClass");')
+        routes.contains('commands.put("nested", "com.example.$Outer$NestedHandlerDefinitionClass");')
+        !routes.contains('Other')
+        output.resolve('META-INF/services/io.micronaut.bots.core.CommandRoutes').toFile().text.trim() ==
+                'com.example.' + generated.first().name - '.java'
+    }
+
+    void "compilation units routing handlers of the same package generate different classes"() {
+        given:
+        Path first = sources.resolve('First.java')
+        first.toFile().text = handler('FirstHandler', 'first')
+        Path second = sources.resolve('Second.java')
+        second.toFile().text = handler('SecondHandler', 'second')
+        Path firstOutput = Files.createDirectory(output.resolve('first'))
+        Path secondOutput = Files.createDirectory(output.resolve('second'))
+
+        when:
+        process(first, firstOutput)
+        process(second, secondOutput)
+        String firstName = generatedRoutes(firstOutput).first().name
+        String secondName = generatedRoutes(secondOutput).first().name
+
+        then:
+        firstName != secondName
+        firstName.startsWith('$CommandRoutes$')
+        secondName.startsWith('$CommandRoutes$')
+
+        when: 'the same handlers are compiled again'
+        Path againOutput = Files.createDirectory(output.resolve('again'))
+        process(first, againOutput)
+
+        then:
+        generatedRoutes(againOutput).first().name == firstName
+    }
+
+    void "command names with control characters generate compilable routes"() {
+        given:
+        Path source = sources.resolve('Control.java')
+        source.toFile().text = handler('ControlHandler', 'a\\nb\\u0001\\"c\\\\')
+
+        when:
+        int status = compile(source, output)
+        String routes = generatedRoutes(output).first().text
+
+        then:
+        status == 0
+        routes.contains('commands.put("a\\nb\\001\\"c\\\\", ')
+        !routes.contains('\\u')
+
+        when:
+        String className = 'com.example.' + generatedRoutes(output).first().name - '.java'
+        CommandRoutes commandRoutes = new URLClassLoader([output.toUri().toURL()] as URL[], getClass().classLoader)
+                .loadClass(className).newInstance() as CommandRoutes
+
+        then:
+        commandRoutes.commands.keySet() == ['a\nb\u0001"c\\'] as Set
+    }
+
+    private static int process(Path source, Path output) {
+        JavaCompiler compiler = ToolProvider.systemJavaCompiler
+        compiler.run(null, null, null,
+                '-proc:only',
+                '-processor', CommandRoutesProcessor.name,
+                '-classpath', System.getProperty('java.class.path'),
+                '-s', output.toString(),
+                '-d', output.toString(),
+                source.toString())
+    }
+
+    private static int compile(Path source, Path output) {
+        JavaCompiler compiler = ToolProvider.systemJavaCompiler
+        compiler.run(null, null, null,
+                '-processor', CommandRoutesProcessor.name,
+                '-classpath', System.getProperty('java.class.path'),
+                '-s', output.toString(),
+                '-d', output.toString(),
+                source.toString())
+    }
+
+    private static List<File> generatedRoutes(Path output) {
+        output.resolve('com/example').toFile().listFiles().findAll { File file ->
+            file.name.startsWith('$CommandRoutes') && file.name.endsWith('.java')
+        } as List<File>
+    }
+
+    private static String handler(String className, String command) {
+        """
+package com.example;
+
+import io.micronaut.bots.core.ChatBot;
+import io.micronaut.bots.core.ChatBotMessageReceive;
+import io.micronaut.bots.core.ChatBotMessageSend;
+import io.micronaut.bots.core.CommandHandler;
+
+import javax.inject.Named;
+import java.util.Optional;
+
+@Named("${command}")
+class ${className} implements CommandHandler {
+    public <T extends ChatBotMessageSend> Optional<T> handle(ChatBot chatBot, ChatBotMessageReceive update) {
+        return Optional.empty();
+    }
+
+    public int getOrder() {
+        return 0;
+    }
+}
+"""
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.broadcast;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.micronaut.bots.telegram.dispatcher.SendTemplate;
+import io.micronaut.bots.telegram.httpclient.TelegramBot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A message being sent to every recipient of a {@link RecipientSource}. Recipients are streamed from the source, at
+ * most a fixed number of messages are in flight and they are started at a fixed rate below the global rate of the
+ * bot, so the rate limiter queues only a few of them and replies to users are not held behind the broadcast.
+ * <p>
+ * A recipient is done once its message is sent or fails after the retries of the bot. Progress is saved to a
+ * checkpoint, so a broadcast started again with the same id skips the recipients already done. Messages in flight
+ * when the process stops are not done yet, and are sent again.
+ */
+public class Broadcast {
+    private static final Logger LOG = LoggerFactory.getLogger(Broadcast.class);
+    private static final int REBASE_THRESHOLD = 1 << 16;
+    private static final long RESEND_DELAY_MILLIS = 1000;
+
+    private final String id;
+    private final TelegramBot bot;
+    private final SendTemplate template;
+    private final RecipientSource source;
+    private final long total;
+    private final Path checkpointPath;
+    private final Semaphore permits;
+    private final long sendIntervalNanos;
+    private final ScheduledExecutorService timer;
+    private final long resumedProcessed;
+    private final long startNanos = System.nanoTime();
+    private final CompletableFuture<BroadcastProgress> completion = new CompletableFuture<>();
+    private final Object checkpointLock = new Object();
+    private volatile boolean stopped;
+    private boolean closed;
+    private long nextSendNanos = System.nanoTime();
+
+    private long watermark;
+    private long base;
+    private BitSet done = new BitSet();
+    private long sent;
+    private long failed;
+    private int inFlight;
+    private boolean reading;
+    private boolean exhausted;
+    private boolean finished;
+    @Nullable
+    private Throwable error;
+
+    Broadcast(@NonNull String id,
+              @NonNull TelegramBot bot,
+              @NonNull SendTemplate template,
+              @NonNull RecipientSource source,
+              long total,
+              @NonNull Path checkpointPath,
+              @NonNull BroadcastCheckpoint checkpoint,
+              int maxInFlight,
+              int messagesPerSecond,
+              @NonNull ScheduledExecutorService timer) {
+        this.id = id;
+        this.bot = bot;
+        this.template = template;
+        this.source = source;
+        this.total = total;
+        this.checkpointPath = checkpointPath;
+        this.permits = new Semaphore(maxInFlight);
+        this.sendIntervalNanos = TimeUnit.SECONDS.toNanos(1) / messagesPerSecond;
+        this.timer = timer;
+        this.watermark = checkpoint.watermark;
+        this.base = checkpoint.watermark;
+        this.sent = checkpoint.sent;
+        this.failed = checkpoint.failed;
+        for (long index : checkpoint.done) {
+            done.set((int) (index - base));
+        }
+        this.resumedProcessed = sent + failed;
+        this.reading = !checkpoint.complete;
+        this.exhausted = checkpoint.complete;
+        this.finished = checkpoint.complete;
+        if (checkpoint.complete) {
+            completion.complete(getProgress());
+        }
+    }
+
+    @NonNull
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return The progress of the broadcast
+     */
+    @NonNull
+    public synchronized BroadcastProgress getProgress() {
+        long processed = sent + failed;
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        double rate = seconds > 0 ? (processed - resumedProcessed) / seconds : 0;
+        Duration eta = total >= 0 && rate > 0 ? Duration.ofMillis((long) (Math.max(0, total - processed) / rate * 1000)) : null;
+        return new BroadcastProgress(id, total, sent, failed, inFlight, rate, eta, finished && exhausted);
+    }
+
+    /**
+     * @return Completes with the final progress once every recipient is done or the broadcast is stopped, or
+     * exceptionally if the recipients cannot be read
+     */
+    @NonNull
+    public CompletionStage<BroadcastProgress> getCompletion() {
+        return completion;
+    }
+
+    /**
+     * Stops reading recipients. The broadcast completes once the messages in flight are done; starting it again
+     * resumes where it stopped.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    boolean isFinished() {
+        return completion.isDone();
+    }
+
+    void run() {
+        Throwable failure = null;
+        boolean readAll = false;
+        try (RecipientCursor cursor = source.open(startPosition())) {
+            long index = startPosition();
+            Serializable chatId;
+            while (!stopped && (chatId = cursor.next()) != null) {
+                if (!isDone(index)) {
+                    pace();
+                    permits.acquire();
+                    if (stopped) {
+                        permits.release();
+                        break;
+                    }
+                    synchronized (this) {
+                        inFlight++;
+                    }
+                    send(index, chatId);
+                }
+                index++;
+            }
+            readAll = !stopped;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopped = true;
+        } catch (IOException | RuntimeException e) {
+            if (LOG.isErrorEnabled()) {
+                LOG.error("could not read the recipients of broadcast {}", id, e);
+            }
+            failure = e;
+        }
+        synchronized (this) {
+            reading = false;
+            exhausted = readAll;
+            error = failure;
+        }
+        finishIfDone();
+    }
+
+    /**
+     * Saves the progress and logs it.
+     */
+    void checkpoint() {
+        save();
+        if (LOG.isInfoEnabled()) {
+            LOG.info("{}", getProgress());
+        }
+    }
+
+    /**
+     * Stops the broadcast and saves its progress. Later progress is not saved, so messages whose sending is
+     * interrupted are sent again when the broadcast resumes.
+     */
+    void close() {
+        stopped = true;
+        synchronized (checkpointLock) {
+            save();
+            closed = true;
+        }
+    }
+
+    /**
+     * Waits for the next send slot. Only the reading thread calls it.
+     */
+    private void pace() throws InterruptedException {
+        long wait = nextSendNanos - System.nanoTime();
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+        nextSendNanos = Math.max(nextSendNanos, System.nanoTime()) + sendIntervalNanos;
+    }
+
+    private synchronized long startPosition() {
+        return watermark;
+    }
+
+    private synchronized boolean isDone(long index) {
+        return index < watermark || done.get((int) (index - base));
+    }
+
+    private void send(long index, Serializable chatId) {
+        try {
+            bot.sendMessage(template.toSendMessage(chatId)).subscribe(messageSent -> completed(index, true), e -> {
+                if (!(e instanceof RejectedExecutionException)) {
+                    completed(index, false);
+                } else if (stopped) {
+                    abandon();
+                } else {
+                    resend(index, chatId);
+                }
+            });
+        } catch (RuntimeException e) {
+            completed(index, false);
+        }
+    }
+
+    /**
+     * The queue of the bot is full with other messages; try again later instead of losing the recipient.
+     */
+    private void resend(long index, Serializable chatId) {
+        try {
+            timer.schedule(() -> send(index, chatId), RESEND_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            abandon();
+        }
+    }
+
+    private void completed(long index, boolean success) {
+        synchronized (this) {
+            if (success) {
+                sent++;
+            } else {
+                failed++;
+            }
+            mark(index);
+            inFlight--;
+        }
+        permits.release();
+        finishIfDone();
+    }
+
+    private void abandon() {
+        synchronized (this) {
+            inFlight--;
+        }
+        permits.release();
+        finishIfDone();
+    }
+
+    private void mark(long index) {
+        int offset = (int) (index - base);
+        done.set(offset);
+        if (index == watermark) {
+            watermark = base + done.nextClearBit(offset);
+            int consumed = (int) (watermark - base);
+            if (consumed >= REBASE_THRESHOLD) {
+                done = done.get(consumed, Math.max(consumed, done.length()));
+                base = watermark;
+            }
+        }
+    }
+
+    private void finishIfDone() {
+        Throwable failure;
+        synchronized (this) {
+            if (finished || reading || inFlight > 0) {
+                return;
+            }
+            finished = true;
+            failure = error;
+        }
+        save();
+        if (failure != null) {
+            completion.completeExceptionally(failure);
+        } else {
+            completion.complete(getProgress());
+        }
+    }
+
+    /**
+     * Checkpoints are taken and written under the same lock, so an older one never replaces a newer one.
+     */
+    private void save() {
+        synchronized (checkpointLock) {
+            if (closed) {
+                return;
+            }
+            BroadcastCheckpoint checkpoint;
+            synchronized (this) {
+                int from = (int) (watermark - base);
+                long[] pending = new long[done.get(from, Math.max(from, done.length())).cardinality()];
+                int i = 0;
+                for (int bit = done.nextSetBit(from); bit >= 0; bit = done.nextSetBit(bit + 1)) {
+                    pending[i++] = base + bit;
+                }
+                checkpoint = new BroadcastCheckpoint(watermark, sent, failed, finished && exhausted, pending);
+            }
+            try {
+                checkpoint.write(checkpointPath);
+            } catch (IOException e) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn("could not save the progress of broadcast {} to {}", id, checkpointPath, e);
+                }
+            }
+        }
+    }
+}
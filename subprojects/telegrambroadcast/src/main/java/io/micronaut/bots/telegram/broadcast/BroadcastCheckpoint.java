@@ -0,0 +1,106 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.broadcast;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Progress of a broadcast saved to disk: every recipient before {@code watermark} is done, and so are the recipients
+ * listed in {@code done} after it. Files are written to a temporary file and moved into place, so a crash leaves the
+ * previous checkpoint intact.
+ */
+final class BroadcastCheckpoint {
+    static final BroadcastCheckpoint EMPTY = new BroadcastCheckpoint(0, 0, 0, false, new long[0]);
+
+    private static final int MAGIC = 0x42524443;
+    private static final int VERSION = 1;
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    final long watermark;
+    final long sent;
+    final long failed;
+    final boolean complete;
+    final long[] done;
+
+    BroadcastCheckpoint(long watermark, long sent, long failed, boolean complete, long[] done) {
+        this.watermark = watermark;
+        this.sent = sent;
+        this.failed = failed;
+        this.complete = complete;
+        this.done = done;
+    }
+
+    /**
+     * @param path Checkpoint file
+     * @return The checkpoint or null if the file does not exist
+     * @throws IOException If the file cannot be read or is not a checkpoint
+     */
+    @Nullable
+    static BroadcastCheckpoint read(@NonNull Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("not a broadcast checkpoint " + path);
+            }
+            long watermark = in.readLong();
+            long sent = in.readLong();
+            long failed = in.readLong();
+            boolean complete = in.readBoolean();
+            long[] done = new long[in.readInt()];
+            for (int i = 0; i < done.length; i++) {
+                done[i] = in.readLong();
+            }
+            return new BroadcastCheckpoint(watermark, sent, failed, complete, done);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    void write(@NonNull Path path) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + TEMPORARY_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(watermark);
+            out.writeLong(sent);
+            out.writeLong(failed);
+            out.writeBoolean(complete);
+            out.writeInt(done.length);
+            for (long index : done) {
+                out.writeLong(index);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.broadcast;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.time.Duration;
+
+public interface BroadcastConfiguration {
+
+    /**
+     * @return Directory where the progress of the broadcasts is saved
+     */
+    @NonNull
+    String getDirectory();
+
+    /**
+     * @return Maximum number of messages of a broadcast being sent at the same time. It must be lower than the
+     * number of messages the rate limiter queues per bot.
+     */
+    int getMaxInFlight();
+
+    /**
+     * @return Maximum number of messages per second a broadcast sends. It must be lower than the global rate of the
+     * rate limiter, so that the replies of the bot are not delayed by the broadcast.
+     */
+    int getMessagesPerSecond();
+
+    /**
+     * @return Interval at which the progress of a broadcast is saved and logged
+     */
+    @NonNull
+    Duration getCheckpointInterval();
+}
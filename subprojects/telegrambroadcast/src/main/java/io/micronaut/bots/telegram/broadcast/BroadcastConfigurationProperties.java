@@ -0,0 +1,106 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.broadcast;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.context.annotation.Requires;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+@Requires(property = BroadcastConfigurationProperties.PREFIX + ".directory")
+@ConfigurationProperties(BroadcastConfigurationProperties.PREFIX)
+public class BroadcastConfigurationProperties implements BroadcastConfiguration {
+    public static final String PREFIX = "telegram.broadcast";
+
+    private static final int DEFAULT_MAX_IN_FLIGHT = 20;
+    private static final int DEFAULT_MESSAGES_PER_SECOND = 20;
+    private static final Duration DEFAULT_CHECKPOINT_INTERVAL = Duration.ofSeconds(5);
+
+    @NonNull
+    @NotBlank
+    private String directory;
+
+    @Min(1)
+    private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+
+    @Min(1)
+    private int messagesPerSecond = DEFAULT_MESSAGES_PER_SECOND;
+
+    @NonNull
+    @NotNull
+    private Duration checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+
+    @Override
+    @NonNull
+    public String getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Directory where the progress of the broadcasts is saved.
+     * @param directory Directory
+     */
+    public void setDirectory(@NonNull String directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Maximum number of messages of a broadcast being sent at the same time. Default value ({@value #DEFAULT_MAX_IN_FLIGHT}).
+     * @param maxInFlight Maximum messages in flight
+     */
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    @Override
+    public int getMessagesPerSecond() {
+        return messagesPerSecond;
+    }
+
+    /**
+     * Maximum number of messages per second a broadcast sends, below the global rate of the rate limiter so that
+     * replies keep their share of it. Default value ({@value #DEFAULT_MESSAGES_PER_SECOND}).
+     * @param messagesPerSecond Messages per second
+     */
+    public void setMessagesPerSecond(int messagesPerSecond) {
+        this.messagesPerSecond = messagesPerSecond;
+    }
+
+    @Override
+    @NonNull
+    public Duration getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    /**
+     * Interval at which the progress of a broadcast is saved and logged. Default value 5 seconds.
+     * @param checkpointInterval Checkpoint interval
+     */
+    public void setCheckpointInterval(@NonNull Duration checkpointInterval) {
+        this.checkpointInterval = checkpointInterval;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.broadcast;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Snapshot of the progress of a {@link Broadcast}.
+ */
+public class BroadcastProgress {
+    private final String id;
+    private final long total;
+    private final long sent;
+    private final long failed;
+    private final int inFlight;
+    private final double messagesPerSecond;
+    @Nullable
+    private final Duration eta;
+    private final boolean complete;
+
+    public BroadcastProgress(@NonNull String id,
+                             long total,
+                             long sent,
+                             long failed,
+                             int inFlight,
+                             double messagesPerSecond,
+                             @Nullable Duration eta,
+                             boolean complete) {
+        this.id = id;
+        this.total = total;
+        this.sent = sent;
+        this.failed = failed;
+        this.inFlight = inFlight;
+        this.messagesPerSecond = messagesPerSecond;
+        this.eta = eta;
+        this.complete = complete;
+    }
+
+    @NonNull
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return Number of recipients, or -1 if the source does not know it
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * @return Number of recipients the message was sent to, including previous runs of the broadcast
+     */
+    public long getSent() {
+        return sent;
+    }
+
+    /**
+     * @return Number of recipients the message could not be sent to, including previous runs of the broadcast
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return Number of messages being sent
+     */
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @return Messages sent or failed per second since the broadcast started or resumed
+     */
+    public double getMessagesPerSecond() {
+        return messagesPerSecond;
+    }
+
+    /**
+     * @return Estimated time until every recipient is done, empty if the total or the throughput is unknown
+     */
+    @NonNull
+    public Optional<Duration> getEta() {
+        return Optional.ofNullable(eta);
+    }
+
+    /**
+     * @return Whether every recipient is done
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    public String toString() {
+        return "BroadcastProgress{" +
+                "id='" + id + '\'' +
+                ", total=" + total +
+                ", sent=" + sent +
+                ", failed=" + failed +
+                ", inFlight=" + inFlight +
+                ", messagesPerSecond=" + String.format("%.1f", messagesPerSecond) +
+                ", eta=" + eta +
+                ", complete=" + complete +
+                '}';
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.broadcast;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * {@link RecipientSource} reading a text file with one chat id per line. Blank lines are ignored.
+ */
+public class FileRecipientSource implements RecipientSource {
+
+    private final Path file;
+    private volatile long size = -1;
+
+    public FileRecipientSource(@NonNull Path file) {
+        this.file = file;
+    }
+
+    @Override
+    @NonNull
+    public RecipientCursor open(long position) throws IOException {
+        LineCursor cursor = new LineCursor(Files.newBufferedReader(file, StandardCharsets.UTF_8));
+        try {
+            for (long i = 0; i < position && cursor.next() != null; i++) {
+                // skip recipients already sent
+            }
+        } catch (IOException e) {
+            cursor.close();
+            throw e;
+        }
+        return cursor;
+    }
+
+    @Override
+    public long size() throws IOException {
+        if (size < 0) {
+            long count = 0;
+            try (LineCursor cursor = new LineCursor(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+                while (cursor.next() != null) {
+                    count++;
+                }
+            }
+            size = count;
+        }
+        return size;
+    }
+
+    private static final class LineCursor implements RecipientCursor {
+        private final BufferedReader reader;
+
+        private LineCursor(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        @Nullable
+        public Serializable next() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty()) {
+                    return chatId(line);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+
+        private static Serializable chatId(String line) {
+            try {
+                return Long.parseLong(line);
+            } catch (NumberFormatException e) {
+                return line;
+            }
+        }
+    }
+}
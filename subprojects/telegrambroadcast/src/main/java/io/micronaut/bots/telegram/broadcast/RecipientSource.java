@@ -0,0 +1,44 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.broadcast;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.io.IOException;
+
+/**
+ * Recipients of a broadcast, read in the same order every time they are opened.
+ */
+public interface RecipientSource {
+
+    /**
+     * @param position Index of the first recipient to read
+     * @return A cursor over the recipients from the given position
+     * @throws IOException If the recipients cannot be read
+     */
+    @NonNull
+    RecipientCursor open(long position) throws IOException;
+
+    /**
+     * @return Number of recipients, or -1 if unknown
+     * @throws IOException If the recipients cannot be counted
+     */
+    default long size() throws IOException {
+        return -1;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.broadcast;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.micronaut.bots.telegram.dispatcher.SendTemplate;
+import io.micronaut.bots.telegram.httpclient.TelegramBot;
+import io.micronaut.context.annotation.Requires;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Starts and resumes {@link Broadcast}s. Each broadcast reads its recipients on its own thread; messages are sent
+ * through the bot, and therefore through its rate limiter and retries. Progress is saved to
+ * {@code <directory>/<id>.checkpoint}.
+ */
+@Singleton
+@Requires(beans = BroadcastConfiguration.class)
+public class TelegramBroadcaster implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(TelegramBroadcaster.class);
+    private static final Pattern ID = Pattern.compile("[A-Za-z0-9._-]+");
+    private static final String CHECKPOINT_SUFFIX = ".checkpoint";
+
+    private final BroadcastConfiguration configuration;
+    private final Path directory;
+    private final Map<String, Broadcast> running = new ConcurrentHashMap<>();
+    private final ExecutorService readers;
+    private final ScheduledThreadPoolExecutor timer;
+
+    public TelegramBroadcaster(BroadcastConfiguration configuration) {
+        this.configuration = configuration;
+        this.directory = Paths.get(configuration.getDirectory());
+        this.readers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "chatbots-telegram-broadcast");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "chatbots-telegram-broadcast-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Starts a broadcast, or resumes it if a broadcast with the same id was started before.
+     * @param id Id of the broadcast, letters, digits, dots, dashes and underscores
+     * @param bot Bot which sends the message
+     * @param template Message to send
+     * @param source Recipients. It must return them in the same order every time, for the broadcast to resume.
+     * @return The broadcast, already complete if a previous run finished it
+     * @throws IOException If the checkpoint of the broadcast cannot be read or the recipients counted
+     * @throws IllegalStateException If a broadcast with the same id is running
+     */
+    @NonNull
+    public synchronized Broadcast start(@NonNull String id,
+                                        @NonNull TelegramBot bot,
+                                        @NonNull SendTemplate template,
+                                        @NonNull RecipientSource source) throws IOException {
+        if (!ID.matcher(id).matches()) {
+            throw new IllegalArgumentException("invalid broadcast id " + id);
+        }
+        if (running.containsKey(id)) {
+            throw new IllegalStateException("broadcast " + id + " is already running");
+        }
+        Files.createDirectories(directory);
+        Path checkpointPath = directory.resolve(id + CHECKPOINT_SUFFIX);
+        BroadcastCheckpoint checkpoint = BroadcastCheckpoint.read(checkpointPath);
+        Broadcast broadcast = new Broadcast(id, bot, template, source, source.size(), checkpointPath,
+                checkpoint != null ? checkpoint : BroadcastCheckpoint.EMPTY, configuration.getMaxInFlight(),
+                configuration.getMessagesPerSecond(), timer);
+        if (broadcast.isFinished()) {
+            return broadcast;
+        }
+        if (LOG.isInfoEnabled()) {
+            LOG.info(checkpoint != null ? "resuming broadcast {}" : "starting broadcast {}", id);
+        }
+        running.put(id, broadcast);
+        long interval = configuration.getCheckpointInterval().toNanos();
+        ScheduledFuture<?> checkpoints = timer.scheduleWithFixedDelay(broadcast::checkpoint, interval, interval, TimeUnit.NANOSECONDS);
+        broadcast.getCompletion().whenComplete((progress, e) -> {
+            checkpoints.cancel(false);
+            running.remove(id, broadcast);
+            if (progress != null && LOG.isInfoEnabled()) {
+                LOG.info("{}", progress);
+            }
+        });
+        readers.execute(broadcast::run);
+        return broadcast;
+    }
+
+    /**
+     * @param id Id of the broadcast
+     * @return The broadcast if it is running
+     */
+    @NonNull
+    public Optional<Broadcast> find(@NonNull String id) {
+        return Optional.ofNullable(running.get(id));
+    }
+
+    /**
+     * @return The broadcasts which are running
+     */
+    @NonNull
+    public Collection<Broadcast> getRunning() {
+        return new ArrayList<>(running.values());
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        for (Broadcast broadcast : running.values()) {
+            broadcast.close();
+        }
+        readers.shutdownNow();
+        timer.shutdownNow();
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.broadcast
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import io.micronaut.bots.telegram.core.SendMessage
+import io.micronaut.bots.telegram.dispatcher.SendTemplate
+import io.micronaut.bots.telegram.httpclient.ErrorReceived
+import io.micronaut.bots.telegram.httpclient.MessageSent
+import io.micronaut.bots.telegram.httpclient.TelegramApi
+import io.micronaut.bots.telegram.httpclient.TelegramBot
+import io.micronaut.http.HttpResponse
+import io.micronaut.http.HttpStatus
+import io.micronaut.http.client.exceptions.HttpClientResponseException
+import io.reactivex.Single
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.TimeUnit
+
+class TelegramBroadcasterSpec extends Specification {
+
+    Path directory = Files.createTempDirectory('broadcasts')
+
+    Path recipients = Files.write(directory.resolve('recipients.txt'), ['1', '2', '', '3', '4', '5'])
+
+    BroadcastConfigurationProperties configuration = new BroadcastConfigurationProperties(
+            directory: directory.resolve('checkpoints').toString(),
+            maxInFlight: 2,
+            messagesPerSecond: 1000,
+            checkpointInterval: Duration.ofMinutes(1))
+
+    List<Object> sent = new CopyOnWriteArrayList<>()
+
+    Closure<Single<MessageSent>> respond = { Object chatId -> Single.just(new MessageSent()) }
+
+    TelegramApi api = Stub(TelegramApi) {
+        sendMessage(_ as String, _ as SendMessage) >> { String token, SendMessage sendMessage ->
+            sent << sendMessage.chatId
+            respond.call(sendMessage.chatId)
+        }
+    }
+
+    TelegramBot bot = new TelegramBot('123:ABC', '@ThisBot', api)
+
+    SendTemplate template = SendTemplate.of(new SendMessage(text: 'news'), new ObjectMapper()).get()
+
+    TelegramBroadcaster broadcaster
+
+    void cleanup() {
+        broadcaster?.close()
+        directory.toFile().deleteDir()
+    }
+
+    void "a message is sent to every recipient"() {
+        when:
+        BroadcastProgress progress = broadcast('news')
+
+        then:
+        sent as Set == [1L, 2L, 3L, 4L, 5L] as Set
+        progress.total == 5
+        progress.sent == 5
+        progress.failed == 0
+        progress.complete
+    }
+
+    void "a broadcast started again resumes after the recipients already done"() {
+        given:
+        Files.createDirectories(directory.resolve('checkpoints'))
+        new BroadcastCheckpoint(2, 3, 0, false, [3L] as long[]).write(directory.resolve('checkpoints/news.checkpoint'))
+
+        when:
+        BroadcastProgress progress = broadcast('news')
+
+        then:
+        sent as Set == [3L, 5L] as Set
+        progress.sent == 5
+        progress.complete
+
+        when: 'the broadcast is started once it is complete'
+        broadcaster.close()
+        broadcaster = null
+        Broadcast again = start('news')
+
+        then:
+        again.completion.toCompletableFuture().done
+        again.progress.complete
+        sent.size() == 2
+    }
+
+    void "blocked and deactivated users are counted as failed and not sent again"() {
+        given:
+        respond = { Object chatId ->
+            switch (chatId) {
+                case 2L: return Single.<MessageSent> error(forbidden('Forbidden: bot was blocked by the user'))
+                case 4L: return Single.<MessageSent> error(forbidden('Forbidden: user is deactivated'))
+                default: return Single.just(new MessageSent())
+            }
+        }
+
+        when:
+        BroadcastProgress progress = broadcast('news')
+
+        then:
+        progress.sent == 3
+        progress.failed == 2
+        progress.complete
+
+        when:
+        sent.clear()
+        broadcaster.close()
+        broadcaster = null
+        progress = broadcast('news')
+
+        then:
+        sent.empty
+        progress.sent == 3
+        progress.failed == 2
+    }
+
+    void "at most the configured number of messages are in flight"() {
+        given:
+        respond = { Object chatId -> Single.<MessageSent> never() }
+
+        when:
+        Broadcast broadcast = start('news')
+
+        then:
+        new PollingConditions(timeout: 5).eventually {
+            assert sent.size() == 2
+        }
+
+        when:
+        Thread.sleep(100)
+
+        then:
+        sent.size() == 2
+        broadcast.progress.inFlight == 2
+    }
+
+    void "messages are sent at the configured rate"() {
+        given:
+        configuration.maxInFlight = 10
+        configuration.messagesPerSecond = 10
+        long start = System.nanoTime()
+
+        when:
+        broadcast('news')
+
+        then:
+        sent.size() == 5
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 350
+    }
+
+    private Broadcast start(String id) {
+        if (broadcaster == null) {
+            broadcaster = new TelegramBroadcaster(configuration)
+        }
+        broadcaster.start(id, bot, template, new FileRecipientSource(recipients))
+    }
+
+    private BroadcastProgress broadcast(String id) {
+        start(id).completion.toCompletableFuture().get(5, TimeUnit.SECONDS)
+    }
+
+    private static HttpClientResponseException forbidden(String description) {
+        ErrorReceived error = new ErrorReceived(ok: false, errorCode: 403, description: description)
+        new HttpClientResponseException(description, HttpResponse.status(HttpStatus.FORBIDDEN).body(error))
+    }
+}
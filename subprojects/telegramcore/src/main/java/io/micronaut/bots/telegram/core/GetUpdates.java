@@ -0,0 +1,104 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.core;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.micronaut.core.annotation.Introspected;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.List;
+
+@Introspected
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class GetUpdates {
+
+    /**
+     * Identifier of the first update to be returned. Must be greater by one than the highest among the identifiers of previously received updates. By default, updates starting with the earliest unconfirmed update are returned. An update is considered confirmed as soon as getUpdates is called with an offset higher than its update_id.
+     */
+    @Nullable
+    private Integer offset;
+
+    /**
+     * Limits the number of updates to be retrieved. Values between 1—100 are accepted. Defaults to 100.
+     */
+    @Nullable
+    private Integer limit;
+
+    /**
+     * Timeout in seconds for long polling. Defaults to 0, i.e. usual short polling. Should be positive, short polling should be used for testing purposes only.
+     */
+    @Nullable
+    private Integer timeout;
+
+    /**
+     * List the types of updates you want your bot to receive. For example, specify [“message”, “edited_channel_post”, “callback_query”] to only receive updates of these types. Specify an empty list to receive all updates regardless of type (default). If not specified, the previous setting will be used.
+     */
+    @Nullable
+    @JsonProperty("allowed_updates")
+    private List<String> allowedUpdates;
+
+    public GetUpdates() {
+    }
+
+    @Nullable
+    public Integer getOffset() {
+        return offset;
+    }
+
+    public void setOffset(@Nullable Integer offset) {
+        this.offset = offset;
+    }
+
+    @Nullable
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public void setLimit(@Nullable Integer limit) {
+        this.limit = limit;
+    }
+
+    @Nullable
+    public Integer getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(@Nullable Integer timeout) {
+        this.timeout = timeout;
+    }
+
+    @Nullable
+    public List<String> getAllowedUpdates() {
+        return allowedUpdates;
+    }
+
+    public void setAllowedUpdates(@Nullable List<String> allowedUpdates) {
+        this.allowedUpdates = allowedUpdates;
+    }
+
+    @Override
+    public String toString() {
+        return "GetUpdates{" +
+                "offset=" + offset +
+                ", limit=" + limit +
+                ", timeout=" + timeout +
+                ", allowedUpdates=" + allowedUpdates +
+                '}';
+    }
+}
@@ -306,7 +306,7 @@ public class Message {
      */
     @JsonProperty("migrate_to_chat_id")
     @Nullable
-    private Integer migrateToChatId;
+    private Long migrateToChatId;
 
 
     /**
@@ -314,7 +314,7 @@ public class Message {
      */
     @Nullable
     @JsonProperty("migrate_from_chat_id")
-    private Integer migrateFromChatId;
+    private Long migrateFromChatId;
 
     /**
      * Specified message was pinned. Note that the Message object in this field will not contain further reply_to_message fields even if it is itself a reply.
@@ -711,20 +711,20 @@ public class Message {
     }
 
     @Nullable
-    public Integer getMigrateToChatId() {
+    public Long getMigrateToChatId() {
         return migrateToChatId;
     }
 
-    public void setMigrateToChatId(@Nullable Integer migrateToChatId) {
+    public void setMigrateToChatId(@Nullable Long migrateToChatId) {
         this.migrateToChatId = migrateToChatId;
     }
 
     @Nullable
-    public Integer getMigrateFromChatId() {
+    public Long getMigrateFromChatId() {
         return migrateFromChatId;
     }
 
-    public void setMigrateFromChatId(@Nullable Integer migrateFromChatId) {
+    public void setMigrateFromChatId(@Nullable Long migrateFromChatId) {
         this.migrateFromChatId = migrateFromChatId;
     }
 
@@ -35,7 +35,7 @@ public class ResponseParameters {
      */
     @Nullable
     @JsonProperty("migrate_to_chat_id")
-    private Integer migrateToChatId;
+    private Long migrateToChatId;
 
     /**
      * In case of exceeding flood control, the number of seconds left to wait before the request can be repeated
@@ -48,11 +48,11 @@ public class ResponseParameters {
     }
 
     @Nullable
-    public Integer getMigrateToChatId() {
+    public Long getMigrateToChatId() {
         return migrateToChatId;
     }
 
-    public void setMigrateToChatId(@Nullable Integer migrateToChatId) {
+    public void setMigrateToChatId(@Nullable Long migrateToChatId) {
         this.migrateToChatId = migrateToChatId;
     }
 
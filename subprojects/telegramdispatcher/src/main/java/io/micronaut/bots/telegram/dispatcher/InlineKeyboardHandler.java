@@ -24,6 +24,7 @@ import io.micronaut.bots.core.ChatBot;
 import io.micronaut.bots.core.ChatBotMessageReceive;
 import io.micronaut.bots.core.ChatBotMessageSend;
 import io.micronaut.bots.core.CommandHandler;
+import io.micronaut.bots.core.DispatchContext;
 import io.micronaut.bots.core.MessageComposer;
 import io.micronaut.bots.telegram.core.InlineKeyboardMarkup;
 import io.micronaut.bots.telegram.core.SendMessage;
@@ -49,15 +50,31 @@ public abstract class InlineKeyboardHandler implements CommandHandler {
     @Override
     public <T extends ChatBotMessageSend> Optional<T> handle(@NonNull ChatBot bot,
                                                              @NonNull ChatBotMessageReceive chatUpdate) {
+        if (!(chatUpdate instanceof Update) || !(bot instanceof TelegramBot)) {
+            return Optional.empty();
+        }
+        TelegramBot telegramBot = (TelegramBot) bot;
+        Update update = (Update) chatUpdate;
+        String text = messageText(telegramBot, update);
+        return withInlineKeyboard(telegramBot, update, messageComposer.compose(text, chatUpdate));
+    }
 
-
+    @Override
+    public <T extends ChatBotMessageSend> Optional<T> handle(@NonNull ChatBot bot,
+                                                             @NonNull ChatBotMessageReceive chatUpdate,
+                                                             @NonNull DispatchContext context) {
         if (!(chatUpdate instanceof Update) || !(bot instanceof TelegramBot)) {
             return Optional.empty();
         }
         TelegramBot telegramBot = (TelegramBot) bot;
         Update update = (Update) chatUpdate;
         String text = messageText(telegramBot, update);
-        Optional<ChatBotMessageSend> chatBotResponseOptional = messageComposer.compose(text, chatUpdate);
+        return withInlineKeyboard(telegramBot, update, messageComposer.compose(text, chatUpdate, context));
+    }
+
+    private <T extends ChatBotMessageSend> Optional<T> withInlineKeyboard(@NonNull TelegramBot telegramBot,
+                                                                          @NonNull Update update,
+                                                                          @NonNull Optional<ChatBotMessageSend> chatBotResponseOptional) {
         if (chatBotResponseOptional.isPresent()) {
             ChatBotMessageSend chatBotResponse = chatBotResponseOptional.get();
             if (chatBotResponse instanceof SendMessage) {
@@ -0,0 +1,47 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.dispatcher;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.micronaut.bots.telegram.core.SendMessage;
+
+import java.io.Serializable;
+
+/**
+ * {@link SendMessage} rendered from a {@link SendTemplate}. Webhook responses write {@link #toJson()} instead of
+ * serializing it; everything else can use it as a regular {@link SendMessage}.
+ */
+public class PreSerializedSendMessage extends SendMessage {
+
+    private final transient SendTemplate template;
+    private final Serializable targetChatId;
+
+    public PreSerializedSendMessage(@NonNull SendTemplate template, @NonNull Serializable chatId) {
+        this.template = template;
+        this.targetChatId = chatId;
+        SendTemplate.copy(template.toSendMessage(chatId), chatId, this);
+    }
+
+    /**
+     * @return The JSON of the message
+     */
+    @NonNull
+    public byte[] toJson() {
+        return template.render(targetChatId);
+    }
+}
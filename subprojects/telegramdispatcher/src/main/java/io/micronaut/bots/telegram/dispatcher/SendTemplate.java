@@ -0,0 +1,179 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.dispatcher;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.micronaut.bots.core.ChatBotMessageSend;
+import io.micronaut.bots.telegram.core.SendMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * A {@link SendMessage} serialized once, with a hole where the {@code chat_id} value goes.
+ * Rendering it for a chat copies the bytes before and after the hole around the chat id, without an ObjectMapper.
+ */
+public final class SendTemplate implements ChatBotMessageSend {
+    private static final Logger LOG = LoggerFactory.getLogger(SendTemplate.class);
+    private static final String CHAT_ID_PLACEHOLDER = "__chat_id_placeholder__";
+    private static final byte[] CHAT_ID_KEY = "\"chat_id\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CHAT_ID_FIELD = ("\"chat_id\":\"" + CHAT_ID_PLACEHOLDER + '"').getBytes(StandardCharsets.UTF_8);
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private final SendMessage prototype;
+    private final byte[] prefix;
+    private final byte[] suffix;
+
+    private SendTemplate(SendMessage prototype, byte[] prefix, byte[] suffix) {
+        this.prototype = prototype;
+        this.prefix = prefix;
+        this.suffix = suffix;
+    }
+
+    /**
+     * @param sendMessage Message to serialize. It is copied, so later changes to it are ignored.
+     * @param objectMapper Object mapper used to serialize the message once
+     * @return The template or an empty optional if the message cannot be serialized
+     */
+    @NonNull
+    public static Optional<SendTemplate> of(@NonNull SendMessage sendMessage, @NonNull ObjectMapper objectMapper) {
+        SendMessage prototype = copy(sendMessage, CHAT_ID_PLACEHOLDER);
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(prototype);
+        } catch (JsonProcessingException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("could not serialize send message template {}", e.getMessage());
+            }
+            return Optional.empty();
+        }
+        // search for the field rather than the placeholder alone, which the text of the message may contain
+        int index = indexOf(json, CHAT_ID_FIELD);
+        if (index < 0) {
+            return Optional.empty();
+        }
+        int valueStart = index + CHAT_ID_KEY.length;
+        return Optional.of(new SendTemplate(prototype,
+                Arrays.copyOfRange(json, 0, valueStart),
+                Arrays.copyOfRange(json, index + CHAT_ID_FIELD.length, json.length)));
+    }
+
+    /**
+     * @param chatId Chat id, a number or a channel username
+     * @return The JSON of the message addressed to the chat
+     */
+    @NonNull
+    public byte[] render(@NonNull Serializable chatId) {
+        byte[] value = chatIdJson(chatId);
+        byte[] json = new byte[prefix.length + value.length + suffix.length];
+        System.arraycopy(prefix, 0, json, 0, prefix.length);
+        System.arraycopy(value, 0, json, prefix.length, value.length);
+        System.arraycopy(suffix, 0, json, prefix.length + value.length, suffix.length);
+        return json;
+    }
+
+    /**
+     * @param chatId Chat id
+     * @return A copy of the message addressed to the chat
+     */
+    @NonNull
+    public SendMessage toSendMessage(@NonNull Serializable chatId) {
+        return copy(prototype, chatId);
+    }
+
+    @NonNull
+    static SendMessage copy(@NonNull SendMessage source, @NonNull Object chatId) {
+        SendMessage sendMessage = new SendMessage();
+        copy(source, chatId, sendMessage);
+        return sendMessage;
+    }
+
+    static void copy(@NonNull SendMessage source, @NonNull Object chatId, @NonNull SendMessage target) {
+        target.setChatId(chatId);
+        target.setText(source.getText());
+        target.setParseMode(source.getParseMode());
+        target.setDisableWebPagePreview(source.getDisableWebPagePreview());
+        target.setDisableNotification(source.getDisableNotification());
+        target.setReplyToMessageId(source.getReplyToMessageId());
+        target.setReplyMarkup(source.getReplyMarkup());
+    }
+
+    /**
+     * @param chatId Chat id
+     * @return The chat id as {@link ObjectMapper} writes it with its default escaping
+     */
+    static byte[] chatIdJson(Serializable chatId) {
+        if (chatId instanceof Number) {
+            return chatId.toString().getBytes(StandardCharsets.US_ASCII);
+        }
+        String value = chatId.toString();
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c == '\b') {
+                sb.append("\\b");
+            } else if (c == '\t') {
+                sb.append("\\t");
+            } else if (c == '\n') {
+                sb.append("\\n");
+            } else if (c == '\f') {
+                sb.append("\\f");
+            } else if (c == '\r') {
+                sb.append("\\r");
+            } else if (c < 0x20 || Character.isSurrogate(c)) {
+                // the UTF-8 generator of the object mapper escapes supplementary characters as surrogate pairs
+                sb.append("\\u")
+                        .append(HEX_DIGITS[(c >> 12) & 0xF])
+                        .append(HEX_DIGITS[(c >> 8) & 0xF])
+                        .append(HEX_DIGITS[(c >> 4) & 0xF])
+                        .append(HEX_DIGITS[c & 0xF]);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int indexOf(byte[] source, byte[] target) {
+        outer:
+        for (int i = 0; i <= source.length - target.length; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (source[i + j] != target[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return "SendTemplate{" +
+                "prototype=" + prototype +
+                '}';
+    }
+}
@@ -22,8 +22,12 @@ import io.micronaut.bots.core.ChatBot;
 import io.micronaut.bots.core.ChatBotMessageReceive;
 import io.micronaut.bots.core.ChatBotMessageParser;
 import io.micronaut.bots.core.ChatBotSpace;
+import io.micronaut.bots.core.DispatchContext;
+import io.micronaut.bots.telegram.core.CallbackQuery;
 import io.micronaut.bots.telegram.core.Chat;
+import io.micronaut.bots.telegram.core.Message;
 import io.micronaut.bots.telegram.core.Update;
+import io.micronaut.bots.telegram.core.User;
 
 import javax.inject.Singleton;
 import java.io.Serializable;
@@ -31,6 +35,11 @@ import java.util.Optional;
 
 @Singleton
 public class TelegramChatBotMessageParser implements ChatBotMessageParser {
+    public static final String KIND_EDITED_MESSAGE = "edited_message";
+    public static final String KIND_CALLBACK_QUERY = "callback_query";
+    public static final String KIND_CHANNEL_POST = "channel_post";
+    public static final String KIND_EDITED_CHANNEL_POST = "edited_channel_post";
+    public static final String KIND_UPDATE = "update";
 
     @Override
     public Optional<ChatBotSpace> parseChat(@NonNull ChatBotMessageReceive chatBotMessageReceive) {
@@ -102,7 +111,7 @@ public class TelegramChatBotMessageParser implements ChatBotMessageParser {
             Optional<String> textOptional = parseText(update);
             if (textOptional.isPresent()) {
                 String text = textOptional.get();
-                return Optional.of(text.replaceAll(chatBot.getAtUsername(), "").trim());
+                return Optional.of(chatBot.getMentionMatcher().strip(text).trim());
             }
         }
         return Optional.empty();
@@ -129,4 +138,65 @@ public class TelegramChatBotMessageParser implements ChatBotMessageParser {
         }
         return Optional.empty();
     }
+
+    @Override
+    public Optional<Serializable> parseMessageId(@NonNull ChatBot chatBot,
+                                                 @NonNull ChatBotMessageReceive chatBotMessageReceive) {
+        if (chatBotMessageReceive instanceof Update) {
+            return Optional.ofNullable(((Update) chatBotMessageReceive).getUpdateId());
+        }
+        return Optional.empty();
+    }
+
+    @NonNull
+    @Override
+    public DispatchContext parseContext(@NonNull ChatBot chatBot,
+                                        @NonNull ChatBotMessageReceive chatBotMessageReceive) {
+        String kind = KIND_UPDATE;
+        String text = null;
+        Message message = null;
+        User from = null;
+        if (chatBotMessageReceive instanceof Update) {
+            Update update = (Update) chatBotMessageReceive;
+            CallbackQuery callbackQuery = update.getCallbackQuery();
+            if (callbackQuery != null) {
+                kind = KIND_CALLBACK_QUERY;
+                text = callbackQuery.getData();
+                message = callbackQuery.getMessage();
+                from = callbackQuery.getFrom();
+            } else if (update.getEditedMessage() != null) {
+                kind = KIND_EDITED_MESSAGE;
+                message = update.getEditedMessage();
+                text = message.getText();
+                from = message.getFrom();
+            } else if (update.getMessage() != null) {
+                kind = DispatchContext.KIND_MESSAGE;
+                message = update.getMessage();
+                text = message.getText();
+                from = message.getFrom();
+            } else if (update.getChannelPost() != null) {
+                kind = KIND_CHANNEL_POST;
+                message = update.getChannelPost();
+                text = message.getText();
+                from = message.getFrom();
+            } else if (update.getEditedChannelPost() != null) {
+                kind = KIND_EDITED_CHANNEL_POST;
+                message = update.getEditedChannelPost();
+                text = message.getText();
+                from = message.getFrom();
+            }
+        }
+        Chat chat = message != null ? message.getChat() : null;
+        return DispatchContext.builder(kind)
+                .text(text)
+                .textWithoutBotName(chatBot.getMentionMatcher().strip(text))
+                .chat(chat)
+                .chatId(chat != null ? chat.getId() : null)
+                .chatType(chat != null ? chat.getType() : null)
+                .chatTitle(chat != null ? chat.getTitle() : null)
+                .userId(from != null ? from.getId() : null)
+                .userFirstName(from != null ? from.getFirstName() : null)
+                .languageCode(from != null ? from.getLanguageCode() : null)
+                .build();
+    }
 }
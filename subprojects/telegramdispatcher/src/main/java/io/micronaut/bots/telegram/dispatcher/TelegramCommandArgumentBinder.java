@@ -0,0 +1,69 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.dispatcher;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.micronaut.bots.core.CommandArgumentBinder;
+import io.micronaut.bots.telegram.core.Message;
+import io.micronaut.bots.telegram.core.Update;
+import io.micronaut.bots.telegram.core.User;
+import io.micronaut.core.type.Argument;
+
+import javax.inject.Singleton;
+import java.util.Optional;
+
+/**
+ * Binds {@link User} and {@link Message} parameters of {@link io.micronaut.bots.core.Command} methods from the
+ * Telegram {@link Update}.
+ */
+@Singleton
+public class TelegramCommandArgumentBinder implements CommandArgumentBinder {
+
+    @NonNull
+    @Override
+    public Optional<Resolver> resolver(@NonNull Argument<?> argument) {
+        if (argument.getType() == User.class) {
+            return Optional.of((chatBot, update, context) -> update instanceof Update ? from((Update) update) : null);
+        }
+        if (argument.getType() == Message.class) {
+            return Optional.of((chatBot, update, context) -> update instanceof Update ? message((Update) update) : null);
+        }
+        return Optional.empty();
+    }
+
+    @Nullable
+    private static User from(@NonNull Update update) {
+        if (update.getCallbackQuery() != null) {
+            return update.getCallbackQuery().getFrom();
+        }
+        Message message = message(update);
+        return message != null ? message.getFrom() : null;
+    }
+
+    @Nullable
+    private static Message message(@NonNull Update update) {
+        if (update.getCallbackQuery() != null) {
+            return update.getCallbackQuery().getMessage();
+        }
+        if (update.getEditedMessage() != null) {
+            return update.getEditedMessage();
+        }
+        return update.getMessage();
+    }
+}
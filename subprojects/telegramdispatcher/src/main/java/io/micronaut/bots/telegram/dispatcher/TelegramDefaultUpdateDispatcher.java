@@ -18,93 +18,153 @@
 package io.micronaut.bots.telegram.dispatcher;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
+import io.micronaut.bots.core.AdmissionController;
 import io.micronaut.bots.core.ChatBot;
 import io.micronaut.bots.core.ChatBotMessageReceive;
 import io.micronaut.bots.core.ChatBotMessageParser;
 import io.micronaut.bots.core.ChatBotMessageSend;
+import io.micronaut.bots.core.ChatExecutor;
 import io.micronaut.bots.core.CommandHandler;
+import io.micronaut.bots.core.CommandHandlerRegistry;
 import io.micronaut.bots.core.DefaultUpdateDispatcher;
+import io.micronaut.bots.core.DispatchContext;
+import io.micronaut.bots.core.DispatchResult;
 import io.micronaut.bots.core.MatcherCommandHandler;
+import io.micronaut.bots.core.ReplyCache;
+import io.micronaut.bots.core.UpdateDeduplicator;
 import io.micronaut.bots.telegram.core.AnswerCallbackQuery;
 import io.micronaut.bots.telegram.core.ChatType;
 import io.micronaut.bots.telegram.core.Update;
 import io.micronaut.bots.telegram.httpclient.TelegramBot;
-import io.micronaut.context.ApplicationContext;
 import io.micronaut.context.annotation.Replaces;
-import io.micronaut.http.HttpResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Singleton;
 import java.util.Collection;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 @Replaces(DefaultUpdateDispatcher.class)
 @Singleton
 public class TelegramDefaultUpdateDispatcher extends DefaultUpdateDispatcher {
     private static final Logger LOG = LoggerFactory.getLogger(TelegramDefaultUpdateDispatcher.class);
 
-    public TelegramDefaultUpdateDispatcher(ApplicationContext applicationContext,
+    public TelegramDefaultUpdateDispatcher(CommandHandlerRegistry commandHandlerRegistry,
                                            ChatBotMessageParser updateParser,
-                                           Collection<MatcherCommandHandler> matcherCommandHandlers) {
-        super(applicationContext, updateParser, matcherCommandHandlers);
+                                           Collection<MatcherCommandHandler> matcherCommandHandlers,
+                                           ChatExecutor chatExecutor,
+                                           UpdateDeduplicator updateDeduplicator,
+                                           AdmissionController admissionController,
+                                           ReplyCache replyCache) {
+        super(commandHandlerRegistry,
+                updateParser,
+                matcherCommandHandlers,
+                chatExecutor,
+                updateDeduplicator,
+                admissionController,
+                replyCache);
     }
 
+    /**
+     * Dispatches the update as {@link #dispatchAsync(ChatBot, ChatBotMessageReceive)} does and waits for the reply.
+     */
     @Override
     public Optional<ChatBotMessageSend> dispatch(@NonNull ChatBot chatBot, @NonNull ChatBotMessageReceive chatBotMessageReceive) {
+        return DispatchResult.join(dispatchAsync(chatBot, chatBotMessageReceive));
+    }
+
+    @NonNull
+    @Override
+    public CompletionStage<Optional<ChatBotMessageSend>> dispatchAsync(@NonNull ChatBot chatBot,
+                                                                       @NonNull ChatBotMessageReceive chatBotMessageReceive) {
         if (!(chatBotMessageReceive instanceof Update) || !(chatBot instanceof TelegramBot)) {
-            return Optional.empty();
+            return CompletableFuture.completedFuture(Optional.empty());
         }
         TelegramBot telegramBot = (TelegramBot) chatBot;
         Update update = (Update) chatBotMessageReceive;
-        handleCallbackQuery(telegramBot, update);
-        if (super.shouldHandleMessage(chatBot, chatBotMessageReceive)) {
-            Optional<CommandHandler> handler = parseCommandHandler(chatBot, chatBotMessageReceive);
+        if (isDuplicate(chatBot, chatBotMessageReceive)) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return forgetOnFailure(chatBot, chatBotMessageReceive, () -> {
+            CompletionStage<Void> callbackQueryAnswered = handleCallbackQueryAsync(telegramBot, update);
+            DispatchContext context = messageParser.parseContext(chatBot, chatBotMessageReceive);
+            Optional<CommandHandler> handler = isAdmitted(chatBot, context) ? findCommandHandler(context) : Optional.empty();
             if (!handler.isPresent()) {
-                handler = parseHandlerFromCommand(DEFAULT_COMMAND);
-            }
-            if (handler.isPresent()) {
-                return handler.get().handle(chatBot, chatBotMessageReceive);
+                return callbackQueryAnswered.thenApply(answered -> Optional.empty());
             }
+            return callbackQueryAnswered.thenCombine(handleAsync(handler.get(), chatBot, chatBotMessageReceive, context),
+                    (answered, send) -> send);
+        });
+    }
+
+    @NonNull
+    @Override
+    protected CompletionStage<Void> acknowledge(@NonNull ChatBot chatBot, @NonNull ChatBotMessageReceive messageReceive) {
+        if (!(messageReceive instanceof Update) || !(chatBot instanceof TelegramBot)) {
+            return super.acknowledge(chatBot, messageReceive);
         }
+        return handleCallbackQueryAsync((TelegramBot) chatBot, (Update) messageReceive);
+    }
 
-        return Optional.empty();
+    /**
+     * Resolves the handler as {@link #dispatchAsync(ChatBot, ChatBotMessageReceive)} does, for batches.
+     */
+    @Override
+    protected Optional<CommandHandler> resolveCommandHandler(@NonNull ChatBot chatBot,
+                                                             @NonNull ChatBotMessageReceive messageReceive,
+                                                             @NonNull DispatchContext context) {
+        if (!(messageReceive instanceof Update) || !(chatBot instanceof TelegramBot) || !isAdmitted(chatBot, context)) {
+            return Optional.empty();
+        }
+        return findCommandHandler(context);
     }
 
     @Override
-    protected boolean shouldHandleMessage(@NonNull ChatBot bot, @NonNull ChatBotMessageReceive update) {
-        String text = messageParser.parseText(update).orElse(null);
+    protected boolean shouldHandleMessage(@NonNull ChatBot bot,
+                                          @NonNull ChatBotMessageReceive update,
+                                          @NonNull DispatchContext context) {
+        String text = context.getText();
         if (LOG.isInfoEnabled()) {
             LOG.info("text parsed: {}", text);
         }
 
-        String type = null;
-        if (messageParser instanceof TelegramChatBotMessageParser) {
-            type = ((TelegramChatBotMessageParser) messageParser).parseChatType(update).orElse(null);
-        }
+        String type = context.getChatType();
         if (LOG.isInfoEnabled()) {
             LOG.info("type parsed: {}", type);
         }
         boolean isPrivateMessage = (type != null && type.equals(ChatType.PRIVATE.toString()));
-        boolean isMessageTargetToTheBot = text != null && text.contains(bot.getAtUsername());
+        boolean isMessageTargetToTheBot = bot.getMentionMatcher().matches(text);
         return (text != null && (isPrivateMessage || isMessageTargetToTheBot));
     }
 
-    protected void handleCallbackQuery(@NonNull TelegramBot telegramBot, @NonNull Update update) {
-        if (update.getCallbackQuery() != null) {
-            AnswerCallbackQuery answerCallbackQuery = new AnswerCallbackQuery();
-            answerCallbackQuery.setCallbackQueryId(update.getCallbackQuery().getInlineMessageId() != null ?
-                    update.getCallbackQuery().getInlineMessageId() : update.getCallbackQuery().getId());
-            try {
-                HttpResponse rsp = telegramBot.answerCallbackQuery(answerCallbackQuery).blockingGet();
-                if (LOG.isInfoEnabled()) {
-                    LOG.info("answercallback query response with http status {}", rsp.getStatus());
-                }
-            } catch (Exception e) {
-                if (LOG.isErrorEnabled()) {
-                    LOG.error("exception sending answer to callback query {}", e.getMessage());
-                }
-            }
+    @NonNull
+    protected CompletionStage<Void> handleCallbackQueryAsync(@NonNull TelegramBot telegramBot, @NonNull Update update) {
+        CompletableFuture<Void> answered = new CompletableFuture<>();
+        if (update.getCallbackQuery() == null) {
+            answered.complete(null);
+            return answered;
         }
+        telegramBot.answerCallbackQuery(answerCallbackQuery(update)).subscribe(rsp -> {
+            if (LOG.isInfoEnabled()) {
+                LOG.info("answercallback query response with http status {}", rsp.getStatus());
+            }
+            answered.complete(null);
+        }, e -> {
+            if (LOG.isErrorEnabled()) {
+                LOG.error("exception sending answer to callback query {}", e.getMessage());
+            }
+            answered.complete(null);
+        });
+        return answered;
+    }
+
+    @NonNull
+    protected AnswerCallbackQuery answerCallbackQuery(@NonNull Update update) {
+        AnswerCallbackQuery answerCallbackQuery = new AnswerCallbackQuery();
+        answerCallbackQuery.setCallbackQueryId(update.getCallbackQuery().getInlineMessageId() != null ?
+                update.getCallbackQuery().getInlineMessageId() : update.getCallbackQuery().getId());
+        return answerCallbackQuery;
     }
 }
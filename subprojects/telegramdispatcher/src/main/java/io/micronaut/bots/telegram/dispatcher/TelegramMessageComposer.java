@@ -17,10 +17,12 @@
  */
 package io.micronaut.bots.telegram.dispatcher;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import io.micronaut.bots.core.ChatBotMessageReceive;
 import io.micronaut.bots.core.ChatBotMessageParser;
 import io.micronaut.bots.core.ChatBotMessageSend;
+import io.micronaut.bots.core.DispatchContext;
 import io.micronaut.bots.core.MessageComposer;
 import io.micronaut.bots.core.ParseMode;
 import io.micronaut.bots.telegram.core.SendMessage;
@@ -29,15 +31,19 @@ import javax.inject.Singleton;
 import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import java.io.Serializable;
 import java.util.Optional;
 
 @Singleton
 public class TelegramMessageComposer implements MessageComposer {
 
     protected final ChatBotMessageParser parser;
+    protected final ObjectMapper objectMapper;
 
-    public TelegramMessageComposer(ChatBotMessageParser parser) {
+    public TelegramMessageComposer(ChatBotMessageParser parser,
+                                   ObjectMapper objectMapper) {
         this.parser = parser;
+        this.objectMapper = objectMapper;
     }
 
     @Override
@@ -70,4 +76,65 @@ public class TelegramMessageComposer implements MessageComposer {
             return chatBotResponse;
         });
     }
+
+    @Override
+    public <T extends ChatBotMessageSend> Optional<T> compose(@NonNull @NotBlank String text,
+                                                              @NonNull @Valid @NotNull ChatBotMessageReceive update,
+                                                              @NonNull DispatchContext context) {
+        Serializable chatId = context.getChatId();
+        if (chatId == null) {
+            return Optional.empty();
+        }
+        SendMessage sendMessage = new SendMessage();
+        sendMessage.setChatId(chatId);
+        sendMessage.setText(text);
+        return (Optional) Optional.of(sendMessage);
+    }
+
+    /**
+     * Serializes a {@link SendMessage} which does not reply to a specific message into a {@link SendTemplate}.
+     */
+    @Override
+    @NonNull
+    public ChatBotMessageSend prepare(@NonNull ChatBotMessageSend reply) {
+        if (!(reply instanceof SendMessage) || ((SendMessage) reply).getReplyToMessageId() != null) {
+            return reply;
+        }
+        return SendTemplate.of((SendMessage) reply, objectMapper)
+                .map(ChatBotMessageSend.class::cast)
+                .orElse(reply);
+    }
+
+    /**
+     * Copies a {@link SendMessage} which does not reply to a specific message, with the chat id of the update.
+     */
+    @Override
+    public Optional<ChatBotMessageSend> retarget(@NonNull ChatBotMessageSend reply, @NonNull DispatchContext context) {
+        Serializable chatId = context.getChatId();
+        if (chatId == null) {
+            return Optional.empty();
+        }
+        if (reply instanceof SendTemplate) {
+            return Optional.of(new PreSerializedSendMessage((SendTemplate) reply, chatId));
+        }
+        if (!(reply instanceof SendMessage) || ((SendMessage) reply).getReplyToMessageId() != null) {
+            return Optional.empty();
+        }
+        return Optional.of(SendTemplate.copy((SendMessage) reply, chatId));
+    }
+
+    @Override
+    public <T extends ChatBotMessageSend> Optional<T> compose(@NonNull @NotBlank String text,
+                                                              @NonNull ParseMode parseMode,
+                                                              @NonNull @Valid @NotNull ChatBotMessageReceive update,
+                                                              @NonNull DispatchContext context) {
+        return (Optional) compose(text, update, context).map(chatBotResponse -> {
+            if (chatBotResponse instanceof SendMessage) {
+                SendMessage sendMessage = (SendMessage) chatBotResponse;
+                sendMessage.setParseMode(parseMode.toString());
+                return sendMessage;
+            }
+            return chatBotResponse;
+        });
+    }
 }
@@ -0,0 +1,84 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.dispatcher;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.micronaut.bots.core.ChatBot;
+import io.micronaut.bots.core.ChatBotMessageSend;
+import io.micronaut.bots.core.ChatBotMessageSender;
+import io.micronaut.bots.telegram.core.SendAudio;
+import io.micronaut.bots.telegram.core.SendContact;
+import io.micronaut.bots.telegram.core.SendDocument;
+import io.micronaut.bots.telegram.core.SendMessage;
+import io.micronaut.bots.telegram.core.SendPhoto;
+import io.micronaut.bots.telegram.core.SendPoll;
+import io.micronaut.bots.telegram.core.SendVenue;
+import io.micronaut.bots.telegram.core.SendVideo;
+import io.micronaut.bots.telegram.core.SendVoice;
+import io.micronaut.bots.telegram.httpclient.MessageSent;
+import io.micronaut.bots.telegram.httpclient.TelegramBot;
+import io.reactivex.Single;
+
+import javax.inject.Singleton;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Sends replies of a {@link TelegramBot} with the Telegram Bot API.
+ */
+@Singleton
+public class TelegramMessageSender implements ChatBotMessageSender {
+
+    @Override
+    public boolean supports(@NonNull ChatBot bot) {
+        return bot instanceof TelegramBot;
+    }
+
+    @NonNull
+    @Override
+    public CompletionStage<MessageSent> send(@NonNull ChatBot bot, @NonNull ChatBotMessageSend message) {
+        TelegramBot telegramBot = (TelegramBot) bot;
+        Single<MessageSent> sent;
+        if (message instanceof SendMessage) {
+            sent = telegramBot.sendMessage((SendMessage) message);
+        } else if (message instanceof SendPhoto) {
+            sent = telegramBot.sendPhoto((SendPhoto) message);
+        } else if (message instanceof SendAudio) {
+            sent = telegramBot.sendAudio((SendAudio) message);
+        } else if (message instanceof SendDocument) {
+            sent = telegramBot.sendDocument((SendDocument) message);
+        } else if (message instanceof SendVideo) {
+            sent = telegramBot.sendVideo((SendVideo) message);
+        } else if (message instanceof SendVoice) {
+            sent = telegramBot.sendVoice((SendVoice) message);
+        } else if (message instanceof SendVenue) {
+            sent = telegramBot.sendVenue((SendVenue) message);
+        } else if (message instanceof SendContact) {
+            sent = telegramBot.sendContact((SendContact) message);
+        } else if (message instanceof SendPoll) {
+            sent = telegramBot.sendPoll((SendPoll) message);
+        } else {
+            CompletableFuture<MessageSent> unsupported = new CompletableFuture<>();
+            unsupported.completeExceptionally(new IllegalArgumentException("unsupported message " + message));
+            return unsupported;
+        }
+        CompletableFuture<MessageSent> result = new CompletableFuture<>();
+        sent.subscribe(result::complete, result::completeExceptionally);
+        return result;
+    }
+}
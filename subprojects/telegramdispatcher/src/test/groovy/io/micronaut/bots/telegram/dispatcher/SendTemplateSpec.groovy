@@ -0,0 +1,93 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.dispatcher
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import io.micronaut.bots.telegram.core.SendMessage
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.charset.StandardCharsets
+
+class SendTemplateSpec extends Specification {
+
+    @Shared
+    ObjectMapper objectMapper = new ObjectMapper()
+
+    @Unroll
+    void "rendering for chat #chatId writes the same JSON as the object mapper"(Serializable chatId) {
+        given:
+        SendTemplate template = SendTemplate.of(sendMessage('Hello "world"\n'), objectMapper).get()
+
+        expect:
+        json(template.render(chatId)) == json(objectMapper.writeValueAsBytes(template.toSendMessage(chatId)))
+
+        where:
+        chatId << [
+                42,
+                123456789L,
+                -1001234567890L,
+                '@channel',
+                'quote " and backslash \\',
+                'control \b\t\n\f\r \u0000 \u0001 \u001f characters',
+                'unicode ñ 💬',
+        ]
+    }
+
+    @Unroll
+    void "the chat id of #chatId is escaped as the object mapper escapes it"(Serializable chatId) {
+        expect:
+        json(SendTemplate.chatIdJson(chatId)) == json(objectMapper.writeValueAsBytes(chatId))
+
+        where:
+        chatId << [-100L, '@channel', 'a"b\\c', '\u0000\u0007\b\t\n\u000b\f\r\u001f\u007f', 'ñ 💬']
+    }
+
+    @Unroll
+    void "a message whose text is #text keeps its text"(String text) {
+        given:
+        SendTemplate template = SendTemplate.of(sendMessage(text), objectMapper).get()
+
+        when:
+        Map<String, Object> rendered = objectMapper.readValue(template.render(7L), Map)
+
+        then:
+        rendered.chat_id == 7
+        rendered.text == text
+
+        where:
+        text << [
+                '__chat_id_placeholder__',
+                '"__chat_id_placeholder__"',
+                '"chat_id":"__chat_id_placeholder__"',
+        ]
+    }
+
+    private static SendMessage sendMessage(String text) {
+        SendMessage sendMessage = new SendMessage()
+        sendMessage.chatId = 1L
+        sendMessage.text = text
+        sendMessage.parseMode = 'Markdown'
+        sendMessage
+    }
+
+    private static String json(byte[] bytes) {
+        new String(bytes, StandardCharsets.UTF_8)
+    }
+}
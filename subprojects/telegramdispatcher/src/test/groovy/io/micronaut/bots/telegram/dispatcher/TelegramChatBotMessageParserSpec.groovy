@@ -0,0 +1,137 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.dispatcher
+
+import io.micronaut.bots.core.DispatchContext
+import io.micronaut.bots.telegram.core.CallbackQuery
+import io.micronaut.bots.telegram.core.Chat
+import io.micronaut.bots.telegram.core.Message
+import io.micronaut.bots.telegram.core.Update
+import io.micronaut.bots.telegram.core.User
+import io.micronaut.bots.telegram.httpclient.TelegramBot
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class TelegramChatBotMessageParserSpec extends Specification {
+
+    @Shared
+    TelegramBot bot = new TelegramBot('token', '@MyBot', null)
+
+    @Shared
+    TelegramChatBotMessageParser parser = new TelegramChatBotMessageParser()
+
+    @Unroll
+    void "the context of a #kind is parsed"(String kind, Update update) {
+        when:
+        DispatchContext context = parser.parseContext(bot, update)
+
+        then:
+        context.kind == kind
+        context.chatId == -100
+        context.chatType == 'group'
+        context.command == 'weather'
+        context.arguments == 'Madrid'
+        !context.tokens.hasBotName()
+
+        where:
+        kind                                                  | update
+        DispatchContext.KIND_MESSAGE                          | update { it.message = message('/weather@MyBot Madrid', user()) }
+        TelegramChatBotMessageParser.KIND_EDITED_MESSAGE      | update { it.editedMessage = message('/weather@MyBot Madrid', user()) }
+        TelegramChatBotMessageParser.KIND_CALLBACK_QUERY      | update { it.callbackQuery = callbackQuery('/weather@MyBot Madrid') }
+        TelegramChatBotMessageParser.KIND_CHANNEL_POST        | update { it.channelPost = message('/weather@MyBot Madrid', null) }
+        TelegramChatBotMessageParser.KIND_EDITED_CHANNEL_POST | update { it.editedChannelPost = message('/weather@MyBot Madrid', null) }
+    }
+
+    @Unroll
+    void "the user of a #kind is parsed"(String kind, Update update, Integer userId, String languageCode) {
+        when:
+        DispatchContext context = parser.parseContext(bot, update)
+
+        then:
+        context.userId == userId
+        context.userFirstName == (userId != null ? 'Sergio' : null)
+        context.languageCode == languageCode
+
+        where:
+        kind                                             | update                                                              || userId | languageCode
+        DispatchContext.KIND_MESSAGE                     | update { it.message = message('hello', user()) }                    || 7      | 'es'
+        TelegramChatBotMessageParser.KIND_EDITED_MESSAGE | update { it.editedMessage = message('hello', user()) }              || 7      | 'es'
+        TelegramChatBotMessageParser.KIND_CALLBACK_QUERY | update { it.callbackQuery = callbackQuery('hello') }                || 7      | 'es'
+        TelegramChatBotMessageParser.KIND_CHANNEL_POST   | update { it.channelPost = message('hello', null) }                  || null   | null
+    }
+
+    void "a text which is not a command has no command nor arguments"() {
+        when:
+        DispatchContext context = parser.parseContext(bot, update { it.message = message('hello @MyBot', user()) })
+
+        then:
+        context.text == 'hello @MyBot'
+        !context.tokens.command
+        context.command == null
+        context.arguments == null
+    }
+
+    void "an update without a message has no chat nor text"() {
+        when:
+        DispatchContext context = parser.parseContext(bot, update { it.updateId = 3 })
+
+        then:
+        context.kind == TelegramChatBotMessageParser.KIND_UPDATE
+        context.text == null
+        context.chatId == null
+        context.userId == null
+        context.command == null
+    }
+
+    private static Update update(Closure configure) {
+        Update update = new Update()
+        update.updateId = 1
+        configure(update)
+        update
+    }
+
+    private static Message message(String text, User from) {
+        Chat chat = new Chat()
+        chat.id = -100
+        chat.type = 'group'
+        Message message = new Message()
+        message.messageId = 10
+        message.chat = chat
+        message.from = from
+        message.text = text
+        message
+    }
+
+    private static CallbackQuery callbackQuery(String data) {
+        CallbackQuery callbackQuery = new CallbackQuery()
+        callbackQuery.id = 'query'
+        callbackQuery.from = user()
+        callbackQuery.message = message('menu', null)
+        callbackQuery.data = data
+        callbackQuery
+    }
+
+    private static User user() {
+        User user = new User()
+        user.id = 7
+        user.firstName = 'Sergio'
+        user.languageCode = 'es'
+        user
+    }
+}
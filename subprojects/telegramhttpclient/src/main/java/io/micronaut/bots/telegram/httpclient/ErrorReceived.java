@@ -0,0 +1,91 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.httpclient;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.micronaut.bots.telegram.core.ResponseParameters;
+import io.micronaut.core.annotation.Introspected;
+
+/**
+ * Body of the responses to unsuccessful requests.
+ */
+@Introspected
+public class ErrorReceived {
+    @Nullable
+    private Boolean ok;
+
+    @Nullable
+    @JsonProperty("error_code")
+    private Integer errorCode;
+
+    @Nullable
+    private String description;
+
+    @Nullable
+    private ResponseParameters parameters;
+
+    public ErrorReceived() {
+    }
+
+    @Nullable
+    public Boolean getOk() {
+        return ok;
+    }
+
+    public void setOk(@Nullable Boolean ok) {
+        this.ok = ok;
+    }
+
+    @Nullable
+    public Integer getErrorCode() {
+        return errorCode;
+    }
+
+    public void setErrorCode(@Nullable Integer errorCode) {
+        this.errorCode = errorCode;
+    }
+
+    @Nullable
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(@Nullable String description) {
+        this.description = description;
+    }
+
+    @Nullable
+    public ResponseParameters getParameters() {
+        return parameters;
+    }
+
+    public void setParameters(@Nullable ResponseParameters parameters) {
+        this.parameters = parameters;
+    }
+
+    @Override
+    public String toString() {
+        return "ErrorReceived{" +
+                "ok=" + ok +
+                ", errorCode=" + errorCode +
+                ", description='" + description + '\'' +
+                ", parameters=" + (parameters != null ? parameters.toString() : "") +
+                '}';
+    }
+}
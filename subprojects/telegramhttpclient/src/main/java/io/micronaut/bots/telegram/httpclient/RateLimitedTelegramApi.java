@@ -0,0 +1,122 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.httpclient;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.micronaut.bots.telegram.core.AnswerCallbackQuery;
+import io.micronaut.bots.telegram.core.ForwardMessage;
+import io.micronaut.bots.telegram.core.GetUpdates;
+import io.micronaut.bots.telegram.core.GetUserProfilePhotos;
+import io.micronaut.bots.telegram.core.SendAudio;
+import io.micronaut.bots.telegram.core.SendContact;
+import io.micronaut.bots.telegram.core.SendDocument;
+import io.micronaut.bots.telegram.core.SendMessage;
+import io.micronaut.bots.telegram.core.SendPhoto;
+import io.micronaut.bots.telegram.core.SendPoll;
+import io.micronaut.bots.telegram.core.SendVenue;
+import io.micronaut.bots.telegram.core.SendVideo;
+import io.micronaut.bots.telegram.core.SendVoice;
+import io.micronaut.bots.telegram.core.User;
+import io.micronaut.bots.telegram.core.UserProfilePhotos;
+import io.micronaut.http.HttpResponse;
+import io.reactivex.Single;
+
+/**
+ * {@link TelegramApi} which sends messages through a {@link TelegramRateLimiter}. Methods which do not send a message
+ * go straight to the delegate.
+ */
+public class RateLimitedTelegramApi implements TelegramApi {
+
+    private final TelegramApi delegate;
+    private final TelegramRateLimiter rateLimiter;
+
+    public RateLimitedTelegramApi(@NonNull TelegramApi delegate, @NonNull TelegramRateLimiter rateLimiter) {
+        this.delegate = delegate;
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public Single<User> getMe(@NonNull String token) {
+        return delegate.getMe(token);
+    }
+
+    @Override
+    public Single<UpdatesReceived> getUpdates(@NonNull String token, @NonNull GetUpdates getUpdates) {
+        return delegate.getUpdates(token, getUpdates);
+    }
+
+    @Override
+    public Single<MessageSent> forwardMessage(@NonNull String token, @NonNull ForwardMessage forwardMessage) {
+        return rateLimiter.schedule(token, forwardMessage.getChatId(), () -> delegate.forwardMessage(token, forwardMessage));
+    }
+
+    @Override
+    public Single<MessageSent> sendMessage(@NonNull String token, @NonNull SendMessage sendMessage) {
+        return rateLimiter.schedule(token, sendMessage.getChatId(), () -> delegate.sendMessage(token, sendMessage));
+    }
+
+    @Override
+    public Single<MessageSent> sendPhoto(@NonNull String token, @NonNull SendPhoto sendPhoto) {
+        return rateLimiter.schedule(token, sendPhoto.getChatId(), () -> delegate.sendPhoto(token, sendPhoto));
+    }
+
+    @Override
+    public Single<MessageSent> sendAudio(@NonNull String token, @NonNull SendAudio sendAudio) {
+        return rateLimiter.schedule(token, sendAudio.getChatId(), () -> delegate.sendAudio(token, sendAudio));
+    }
+
+    @Override
+    public Single<MessageSent> sendDocument(@NonNull String token, @NonNull SendDocument sendDocument) {
+        return rateLimiter.schedule(token, sendDocument.getChatId(), () -> delegate.sendDocument(token, sendDocument));
+    }
+
+    @Override
+    public Single<MessageSent> sendVideo(@NonNull String token, @NonNull SendVideo sendVideo) {
+        return rateLimiter.schedule(token, sendVideo.getChatId(), () -> delegate.sendVideo(token, sendVideo));
+    }
+
+    @Override
+    public Single<MessageSent> sendVoice(@NonNull String token, @NonNull SendVoice sendVoice) {
+        return rateLimiter.schedule(token, sendVoice.getChatId(), () -> delegate.sendVoice(token, sendVoice));
+    }
+
+    @Override
+    public Single<MessageSent> sendVenue(@NonNull String token, @NonNull SendVenue sendVenue) {
+        return rateLimiter.schedule(token, sendVenue.getChatId(), () -> delegate.sendVenue(token, sendVenue));
+    }
+
+    @Override
+    public Single<MessageSent> sendContact(@NonNull String token, @NonNull SendContact sendContact) {
+        return rateLimiter.schedule(token, sendContact.getChatId(), () -> delegate.sendContact(token, sendContact));
+    }
+
+    @Override
+    public Single<MessageSent> sendPoll(@NonNull String token, @NonNull SendPoll sendPoll) {
+        return rateLimiter.schedule(token, sendPoll.getChatId(), () -> delegate.sendPoll(token, sendPoll));
+    }
+
+    @Override
+    public Single<UserProfilePhotos> getUserProfilePhotos(@NonNull String token, @NonNull GetUserProfilePhotos getUserProfilePhotos) {
+        return delegate.getUserProfilePhotos(token, getUserProfilePhotos);
+    }
+
+    @Override
+    public Single<HttpResponse> answerCallbackQuery(@NonNull String token, @NonNull AnswerCallbackQuery answerCallbackQuery) {
+        return delegate.answerCallbackQuery(token, answerCallbackQuery);
+    }
+}
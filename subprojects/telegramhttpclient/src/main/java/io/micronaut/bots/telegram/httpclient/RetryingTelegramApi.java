@@ -0,0 +1,184 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.httpclient;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.micronaut.bots.telegram.core.AnswerCallbackQuery;
+import io.micronaut.bots.telegram.core.ForwardMessage;
+import io.micronaut.bots.telegram.core.GetUpdates;
+import io.micronaut.bots.telegram.core.GetUserProfilePhotos;
+import io.micronaut.bots.telegram.core.Send;
+import io.micronaut.bots.telegram.core.SendAudio;
+import io.micronaut.bots.telegram.core.SendContact;
+import io.micronaut.bots.telegram.core.SendDocument;
+import io.micronaut.bots.telegram.core.SendMessage;
+import io.micronaut.bots.telegram.core.SendPhoto;
+import io.micronaut.bots.telegram.core.SendPoll;
+import io.micronaut.bots.telegram.core.SendVenue;
+import io.micronaut.bots.telegram.core.SendVideo;
+import io.micronaut.bots.telegram.core.SendVoice;
+import io.micronaut.bots.telegram.core.User;
+import io.micronaut.bots.telegram.core.UserProfilePhotos;
+import io.micronaut.core.beans.BeanIntrospection;
+import io.micronaut.core.beans.BeanIntrospector;
+import io.micronaut.core.beans.BeanProperty;
+import io.micronaut.http.HttpResponse;
+import io.reactivex.Single;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * {@link TelegramApi} which retries requests through a {@link TelegramRetrier}. When a group migrates to a supergroup
+ * a copy of the message is sent to the supergroup; the message of the caller is left untouched. Polls for updates are
+ * not retried; the poller backs off on its own.
+ */
+public class RetryingTelegramApi implements TelegramApi {
+
+    private final TelegramApi delegate;
+    private final TelegramRetrier retrier;
+
+    public RetryingTelegramApi(@NonNull TelegramApi delegate, @NonNull TelegramRetrier retrier) {
+        this.delegate = delegate;
+        this.retrier = retrier;
+    }
+
+    @Override
+    public Single<User> getMe(@NonNull String token) {
+        return retrier.execute(null, chatId -> delegate.getMe(token));
+    }
+
+    @Override
+    public Single<UpdatesReceived> getUpdates(@NonNull String token, @NonNull GetUpdates getUpdates) {
+        return delegate.getUpdates(token, getUpdates);
+    }
+
+    @Override
+    public Single<MessageSent> forwardMessage(@NonNull String token, @NonNull ForwardMessage forwardMessage) {
+        String original = forwardMessage.getChatId();
+        return retrier.execute(original, chatId -> {
+            if (original.equals(String.valueOf(chatId))) {
+                return delegate.forwardMessage(token, forwardMessage);
+            }
+            ForwardMessage migrated = copy(forwardMessage);
+            migrated.setChatId(String.valueOf(chatId));
+            return delegate.forwardMessage(token, migrated);
+        });
+    }
+
+    @Override
+    public Single<MessageSent> sendMessage(@NonNull String token, @NonNull SendMessage sendMessage) {
+        return send(sendMessage, send -> delegate.sendMessage(token, send));
+    }
+
+    @Override
+    public Single<MessageSent> sendPhoto(@NonNull String token, @NonNull SendPhoto sendPhoto) {
+        return send(sendPhoto, send -> delegate.sendPhoto(token, send));
+    }
+
+    @Override
+    public Single<MessageSent> sendAudio(@NonNull String token, @NonNull SendAudio sendAudio) {
+        return send(sendAudio, send -> delegate.sendAudio(token, send));
+    }
+
+    @Override
+    public Single<MessageSent> sendDocument(@NonNull String token, @NonNull SendDocument sendDocument) {
+        return send(sendDocument, send -> delegate.sendDocument(token, send));
+    }
+
+    @Override
+    public Single<MessageSent> sendVideo(@NonNull String token, @NonNull SendVideo sendVideo) {
+        return send(sendVideo, send -> delegate.sendVideo(token, send));
+    }
+
+    @Override
+    public Single<MessageSent> sendVoice(@NonNull String token, @NonNull SendVoice sendVoice) {
+        return send(sendVoice, send -> delegate.sendVoice(token, send));
+    }
+
+    @Override
+    public Single<MessageSent> sendVenue(@NonNull String token, @NonNull SendVenue sendVenue) {
+        return send(sendVenue, send -> delegate.sendVenue(token, send));
+    }
+
+    @Override
+    public Single<MessageSent> sendContact(@NonNull String token, @NonNull SendContact sendContact) {
+        return send(sendContact, send -> delegate.sendContact(token, send));
+    }
+
+    @Override
+    public Single<MessageSent> sendPoll(@NonNull String token, @NonNull SendPoll sendPoll) {
+        return send(sendPoll, send -> delegate.sendPoll(token, send));
+    }
+
+    @Override
+    public Single<UserProfilePhotos> getUserProfilePhotos(@NonNull String token, @NonNull GetUserProfilePhotos getUserProfilePhotos) {
+        return retrier.execute(null, chatId -> delegate.getUserProfilePhotos(token, getUserProfilePhotos));
+    }
+
+    @Override
+    public Single<HttpResponse> answerCallbackQuery(@NonNull String token, @NonNull AnswerCallbackQuery answerCallbackQuery) {
+        return retrier.execute(null, chatId -> delegate.answerCallbackQuery(token, answerCallbackQuery));
+    }
+
+    private <S extends Send> Single<MessageSent> send(S send, Function<S, Single<MessageSent>> request) {
+        Object original = send.getChatId();
+        return retrier.execute(original, chatId -> {
+            if (original.equals(chatId)) {
+                return request.apply(send);
+            }
+            S migrated = copy(send);
+            migrated.setChatId(chatId);
+            return request.apply(migrated);
+        });
+    }
+
+    /**
+     * @param request Request
+     * @param <T> Request type
+     * @return A copy of the properties of the request, made with the introspection of its class or of the closest
+     * superclass which has one. A {@code PreSerializedSendMessage} is copied to a plain {@link SendMessage}.
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    static <T> T copy(@NonNull T request) {
+        for (Class<?> type = request.getClass(); type != null; type = type.getSuperclass()) {
+            Optional<?> copy = copy(type, request);
+            if (copy.isPresent()) {
+                return (T) copy.get();
+            }
+        }
+        throw new IllegalArgumentException("no bean introspection to copy " + request.getClass().getName());
+    }
+
+    @NonNull
+    private static <B> Optional<B> copy(@NonNull Class<B> type, @NonNull Object request) {
+        Optional<BeanIntrospection<B>> introspection = BeanIntrospector.SHARED.findIntrospection(type);
+        if (!introspection.isPresent()) {
+            return Optional.empty();
+        }
+        B source = type.cast(request);
+        B copy = introspection.get().instantiate();
+        for (BeanProperty<B, Object> property : introspection.get().getBeanProperties()) {
+            if (!property.isReadOnly()) {
+                property.set(copy, property.get(source));
+            }
+        }
+        return Optional.of(copy);
+    }
+}
@@ -20,6 +20,7 @@ package io.micronaut.bots.telegram.httpclient;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import io.micronaut.bots.telegram.core.AnswerCallbackQuery;
 import io.micronaut.bots.telegram.core.ForwardMessage;
+import io.micronaut.bots.telegram.core.GetUpdates;
 import io.micronaut.bots.telegram.core.GetUserProfilePhotos;
 import io.micronaut.bots.telegram.core.SendAudio;
 import io.micronaut.bots.telegram.core.SendContact;
@@ -45,6 +46,15 @@ public interface TelegramApi {
 
     Single<User> getMe(@PathVariable @NonNull @NotBlank String token);
 
+    /**
+     * Use this method to receive incoming updates using long polling. It does not work while a webhook is set.
+     * @param token Telegram Bot Token
+     * @param getUpdates Offset, limit, timeout and allowed updates
+     * @return The updates
+     */
+    Single<UpdatesReceived> getUpdates(@PathVariable @NonNull @NotBlank String token,
+                                       @Body @NonNull @NotNull @Valid GetUpdates getUpdates);
+
     Single<MessageSent> forwardMessage(@PathVariable @NonNull @NotBlank String token,
                                        @Body @NonNull @NotNull @Valid ForwardMessage forwardMessage);
 
@@ -17,9 +17,12 @@
  */
 package io.micronaut.bots.telegram.httpclient;
 
+import io.micronaut.bots.core.AdmissionPolicy;
+import io.micronaut.bots.core.BotMentionMatcher;
 import io.micronaut.bots.core.ChatBot;
 import io.micronaut.bots.telegram.core.AnswerCallbackQuery;
 import io.micronaut.bots.telegram.core.ForwardMessage;
+import io.micronaut.bots.telegram.core.GetUpdates;
 import io.micronaut.bots.telegram.core.GetUserProfilePhotos;
 import io.micronaut.bots.telegram.core.SendAudio;
 import io.micronaut.bots.telegram.core.SendContact;
@@ -35,10 +38,13 @@ import io.micronaut.bots.telegram.core.UserProfilePhotos;
 import io.micronaut.http.HttpResponse;
 import io.reactivex.Single;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import java.time.Duration;
+import java.util.Optional;
 
 public class TelegramBot implements ChatBot {
 
@@ -50,11 +56,25 @@ public class TelegramBot implements ChatBot {
     @NonNull
     private String atUsername;
 
+    @NonNull
+    private BotMentionMatcher mentionMatcher;
+
+    @NonNull
+    private AdmissionPolicy admissionPolicy = AdmissionPolicy.UNLIMITED;
+
+    @Nullable
+    private Duration responseDeadline;
+
     private TelegramApi telegramApi;
 
     public TelegramBot(String token, String atUsername, TelegramApi telegramApi) {
+        this(token, atUsername, new BotMentionMatcher(atUsername), telegramApi);
+    }
+
+    public TelegramBot(String token, String atUsername, BotMentionMatcher mentionMatcher, TelegramApi telegramApi) {
         this.token = token;
         this.atUsername = atUsername;
+        this.mentionMatcher = mentionMatcher;
         this.telegramApi = telegramApi;
     }
 
@@ -62,6 +82,10 @@ public class TelegramBot implements ChatBot {
         return this.telegramApi.getMe(token);
     }
 
+    public Single<UpdatesReceived> getUpdates(@NonNull @NotNull @Valid GetUpdates getUpdates) {
+        return this.telegramApi.getUpdates(token, getUpdates);
+    }
+
     public Single<MessageSent> sendMessage(@NonNull @NotNull @Valid SendMessage sendMessage) {
         return this.telegramApi.sendMessage(token, sendMessage);
     }
@@ -114,6 +138,7 @@ public class TelegramBot implements ChatBot {
         return this.telegramApi.getUserProfilePhotos(token, getUserProfilePhotos);
     }
 
+    @Override
     @NonNull
     public String getToken() {
         return this.token;
@@ -124,4 +149,30 @@ public class TelegramBot implements ChatBot {
     public String getAtUsername() {
         return atUsername;
     }
+
+    @Override
+    @NonNull
+    public BotMentionMatcher getMentionMatcher() {
+        return mentionMatcher;
+    }
+
+    @Override
+    @NonNull
+    public AdmissionPolicy getAdmissionPolicy() {
+        return admissionPolicy;
+    }
+
+    public void setAdmissionPolicy(@NonNull AdmissionPolicy admissionPolicy) {
+        this.admissionPolicy = admissionPolicy;
+    }
+
+    @Override
+    @NonNull
+    public Optional<Duration> getResponseDeadline() {
+        return Optional.ofNullable(responseDeadline);
+    }
+
+    public void setResponseDeadline(@Nullable Duration responseDeadline) {
+        this.responseDeadline = responseDeadline;
+    }
 }
@@ -18,15 +18,27 @@
 package io.micronaut.bots.telegram.httpclient;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.micronaut.bots.core.AdmissionConfiguration;
 import io.micronaut.core.naming.Named;
 import io.micronaut.core.util.Toggleable;
 
+import java.time.Duration;
 
-public interface TelegramBotConfiguration extends Named, Toggleable {
+
+public interface TelegramBotConfiguration extends Named, Toggleable, AdmissionConfiguration {
 
     @NonNull
     String getToken();
 
     @NonNull
     String getAtUsername();
+
+    /**
+     * @return Maximum time a webhook waits for the reply of the bot, or null to wait until the handler finishes
+     */
+    @Nullable
+    default Duration getResponseDeadline() {
+        return null;
+    }
 }
@@ -18,10 +18,13 @@
 package io.micronaut.bots.telegram.httpclient;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import io.micronaut.context.annotation.EachProperty;
 import io.micronaut.context.annotation.Parameter;
 
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.PositiveOrZero;
+import java.time.Duration;
 
 @EachProperty("telegram.bots")
 public class TelegramBotConfigurationProperties implements TelegramBotConfiguration {
@@ -42,6 +45,21 @@ public class TelegramBotConfigurationProperties implements TelegramBotConfigurat
     @NonNull
     private String atUsername;
 
+    @PositiveOrZero
+    private int userBurst;
+
+    @PositiveOrZero
+    private int userRatePerMinute;
+
+    @PositiveOrZero
+    private int chatBurst;
+
+    @PositiveOrZero
+    private int chatRatePerMinute;
+
+    @Nullable
+    private Duration responseDeadline;
+
     public TelegramBotConfigurationProperties(@Parameter String name) {
         this.name = name;
     }
@@ -80,4 +98,70 @@ public class TelegramBotConfigurationProperties implements TelegramBotConfigurat
     public void setAtUsername(String atUsername) {
         this.atUsername = atUsername;
     }
+
+    @Override
+    public int getUserBurst() {
+        return userBurst;
+    }
+
+    /**
+     * Maximum number of updates a user can send in a burst. Default value 0, no limit.
+     * @param userBurst User burst
+     */
+    public void setUserBurst(int userBurst) {
+        this.userBurst = userBurst;
+    }
+
+    @Override
+    public int getUserRatePerMinute() {
+        return userRatePerMinute;
+    }
+
+    /**
+     * Number of updates per minute a user is allowed once the burst is consumed. Default value 0, no limit.
+     * @param userRatePerMinute User rate per minute
+     */
+    public void setUserRatePerMinute(int userRatePerMinute) {
+        this.userRatePerMinute = userRatePerMinute;
+    }
+
+    @Override
+    public int getChatBurst() {
+        return chatBurst;
+    }
+
+    /**
+     * Maximum number of updates a chat can receive in a burst. Default value 0, no limit.
+     * @param chatBurst Chat burst
+     */
+    public void setChatBurst(int chatBurst) {
+        this.chatBurst = chatBurst;
+    }
+
+    @Override
+    public int getChatRatePerMinute() {
+        return chatRatePerMinute;
+    }
+
+    /**
+     * Number of updates per minute a chat is allowed once the burst is consumed. Default value 0, no limit.
+     * @param chatRatePerMinute Chat rate per minute
+     */
+    public void setChatRatePerMinute(int chatRatePerMinute) {
+        this.chatRatePerMinute = chatRatePerMinute;
+    }
+
+    @Override
+    @Nullable
+    public Duration getResponseDeadline() {
+        return responseDeadline;
+    }
+
+    /**
+     * Maximum time a webhook waits for the reply before answering and sending the reply out of band. Default value null, no deadline.
+     * @param responseDeadline Response deadline
+     */
+    public void setResponseDeadline(@Nullable Duration responseDeadline) {
+        this.responseDeadline = responseDeadline;
+    }
 }
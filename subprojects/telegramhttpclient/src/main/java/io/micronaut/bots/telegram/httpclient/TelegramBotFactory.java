@@ -17,6 +17,9 @@
  */
 package io.micronaut.bots.telegram.httpclient;
 
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.micronaut.bots.core.AdmissionPolicy;
+import io.micronaut.bots.core.BotMentionMatcher;
 import io.micronaut.context.annotation.EachBean;
 import io.micronaut.context.annotation.Factory;
 
@@ -25,7 +28,23 @@ public class TelegramBotFactory {
 
     @EachBean(TelegramBotConfiguration.class)
     public TelegramBot buildTelegramBot(TelegramBotConfiguration configuration,
-                                        TelegramApi telegramApi) {
-        return new TelegramBot(configuration.getToken(), configuration.getAtUsername(), telegramApi);
+                                        TelegramApi telegramApi,
+                                        @Nullable TelegramRetrier retrier,
+                                        @Nullable TelegramRateLimiter rateLimiter) {
+        TelegramApi api = telegramApi;
+        if (rateLimiter != null) {
+            api = new RateLimitedTelegramApi(api, rateLimiter);
+        }
+        if (retrier != null) {
+            // every attempt goes through the rate limiter and is sent to the chat the group migrated to
+            api = new RetryingTelegramApi(api, retrier);
+        }
+        TelegramBot bot = new TelegramBot(configuration.getToken(),
+                configuration.getAtUsername(),
+                new BotMentionMatcher(configuration.getAtUsername()),
+                api);
+        bot.setAdmissionPolicy(AdmissionPolicy.of(configuration));
+        bot.setResponseDeadline(configuration.getResponseDeadline());
+        return bot;
     }
 }
\ No newline at end of file
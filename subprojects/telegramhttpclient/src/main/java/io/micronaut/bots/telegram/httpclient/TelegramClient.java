@@ -19,6 +19,7 @@ package io.micronaut.bots.telegram.httpclient;
 
 import io.micronaut.bots.telegram.core.AnswerCallbackQuery;
 import io.micronaut.bots.telegram.core.ForwardMessage;
+import io.micronaut.bots.telegram.core.GetUpdates;
 import io.micronaut.bots.telegram.core.GetUserProfilePhotos;
 import io.micronaut.bots.telegram.core.SendAudio;
 import io.micronaut.bots.telegram.core.SendContact;
@@ -51,6 +52,11 @@ public interface TelegramClient extends TelegramApi {
     @Post("/bot{token}/getMe")
     Single<User> getMe(@PathVariable @NonNull @NotBlank String token);
 
+    @Override
+    @Post("/bot{token}/getUpdates")
+    Single<UpdatesReceived> getUpdates(@PathVariable @NonNull @NotBlank String token,
+                                       @Body @NonNull @NotNull @Valid GetUpdates getUpdates);
+
     @Override
     @Post("/bot{token}/sendMessage")
     Single<MessageSent> sendMessage(@PathVariable @NonNull @NotBlank String token,
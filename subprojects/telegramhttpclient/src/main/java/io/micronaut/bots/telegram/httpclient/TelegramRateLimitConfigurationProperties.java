@@ -0,0 +1,98 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.httpclient;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.context.annotation.Requires;
+
+import javax.validation.constraints.Min;
+
+@Requires(property = TelegramRateLimitConfigurationProperties.PREFIX + ".enabled", notEquals = "false")
+@ConfigurationProperties(TelegramRateLimitConfigurationProperties.PREFIX)
+public class TelegramRateLimitConfigurationProperties implements TelegramRateLimitConfiguration {
+    public static final String PREFIX = "telegram.rate-limit";
+
+    private static final int DEFAULT_MESSAGES_PER_SECOND = 30;
+    private static final int DEFAULT_CHAT_MESSAGES_PER_SECOND = 1;
+    private static final int DEFAULT_GROUP_MESSAGES_PER_MINUTE = 20;
+    private static final int DEFAULT_MAX_QUEUED_MESSAGES = 100000;
+
+    @Min(1)
+    private int messagesPerSecond = DEFAULT_MESSAGES_PER_SECOND;
+
+    @Min(1)
+    private int chatMessagesPerSecond = DEFAULT_CHAT_MESSAGES_PER_SECOND;
+
+    @Min(1)
+    private int groupMessagesPerMinute = DEFAULT_GROUP_MESSAGES_PER_MINUTE;
+
+    @Min(1)
+    private int maxQueuedMessages = DEFAULT_MAX_QUEUED_MESSAGES;
+
+    @Override
+    public int getMessagesPerSecond() {
+        return messagesPerSecond;
+    }
+
+    /**
+     * Maximum messages per second a bot sends across all chats. Default value ({@value #DEFAULT_MESSAGES_PER_SECOND}).
+     * @param messagesPerSecond Messages per second
+     */
+    public void setMessagesPerSecond(int messagesPerSecond) {
+        this.messagesPerSecond = messagesPerSecond;
+    }
+
+    @Override
+    public int getChatMessagesPerSecond() {
+        return chatMessagesPerSecond;
+    }
+
+    /**
+     * Maximum messages per second a bot sends to the same chat. Default value ({@value #DEFAULT_CHAT_MESSAGES_PER_SECOND}).
+     * @param chatMessagesPerSecond Messages per second and chat
+     */
+    public void setChatMessagesPerSecond(int chatMessagesPerSecond) {
+        this.chatMessagesPerSecond = chatMessagesPerSecond;
+    }
+
+    @Override
+    public int getGroupMessagesPerMinute() {
+        return groupMessagesPerMinute;
+    }
+
+    /**
+     * Maximum messages per minute a bot sends to the same group or channel. Default value ({@value #DEFAULT_GROUP_MESSAGES_PER_MINUTE}).
+     * @param groupMessagesPerMinute Messages per minute and group
+     */
+    public void setGroupMessagesPerMinute(int groupMessagesPerMinute) {
+        this.groupMessagesPerMinute = groupMessagesPerMinute;
+    }
+
+    @Override
+    public int getMaxQueuedMessages() {
+        return maxQueuedMessages;
+    }
+
+    /**
+     * Maximum messages of a bot waiting to be sent. Default value ({@value #DEFAULT_MAX_QUEUED_MESSAGES}).
+     * @param maxQueuedMessages Maximum queued messages
+     */
+    public void setMaxQueuedMessages(int maxQueuedMessages) {
+        this.maxQueuedMessages = maxQueuedMessages;
+    }
+}
@@ -0,0 +1,429 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.httpclient;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.micronaut.bots.telegram.core.ChatType;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.reactivex.Single;
+import io.reactivex.SingleEmitter;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Schedules the messages each bot sends within the limits of Telegram: a global limit per bot, a limit per chat and a
+ * lower limit per group or channel, enforced with hierarchical token buckets. Messages wait in one queue per chat and
+ * chats take turns, so a busy chat does not delay the others. Nothing blocks while messages wait; a single timer thread
+ * starts them when their buckets allow it. A message hitting flood control pauses its chat, or the bot if it does not
+ * target a chat, for the {@code retry_after} of the response.
+ * <p>
+ * The type of a chat is inferred from its id: private chats have positive ids, groups and channels negative ids or a
+ * channel username.
+ */
+@Singleton
+@Requires(beans = TelegramRateLimitConfiguration.class)
+public class TelegramRateLimiter implements AutoCloseable {
+    private static final int SWEEP_INTERVAL = 1024;
+    private static final String AT = "@";
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final TelegramRateLimitConfiguration configuration;
+    private final Map<String, BotQueue> bots = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor timer;
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder delayed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public TelegramRateLimiter(TelegramRateLimitConfiguration configuration) {
+        this.configuration = configuration;
+        this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "chatbots-telegram-rate-limit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * @param token Token of the bot which sends the message
+     * @param chatId Chat the message is sent to
+     * @param request Supplier of the request which sends the message, subscribed once the limits allow it
+     * @param <T> Response type
+     * @return The response, once the message is sent. Fails with a {@link RejectedExecutionException} if the queue of
+     * the bot is full.
+     */
+    @NonNull
+    public <T> Single<T> schedule(@NonNull String token, @Nullable Object chatId, @NonNull Supplier<Single<T>> request) {
+        return Single.create(emitter -> {
+            BotQueue bot = bots.computeIfAbsent(token, key -> new BotQueue());
+            Object chat = chatKey(chatId);
+            Supplier<Single<T>> paused = () -> request.get().doOnError(e -> pauseOnFloodWait(bot, chat, e));
+            long now = System.nanoTime();
+            List<Pending<?>> ready = bot.enqueue(chat, new Pending<>(paused, emitter, now), now);
+            if (ready == null) {
+                rejected.increment();
+                emitter.onError(new RejectedExecutionException("too many messages of the bot waiting to be sent"));
+                return;
+            }
+            start(ready);
+        });
+    }
+
+    /**
+     * @return Number of messages sent
+     */
+    public long getSent() {
+        return sent.sum();
+    }
+
+    /**
+     * @return Number of messages which waited for a token
+     */
+    public long getDelayed() {
+        return delayed.sum();
+    }
+
+    /**
+     * @return Number of messages which failed because the queue of their bot was full
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return Number of messages waiting to be sent
+     */
+    public int getQueued() {
+        int queued = 0;
+        for (BotQueue bot : bots.values()) {
+            synchronized (bot) {
+                queued += bot.queued;
+            }
+        }
+        return queued;
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * @param chatId Chat id as a number, a numeric string or a channel username
+     * @return The type of the chat as far as the limits are concerned
+     */
+    @NonNull
+    static ChatType chatType(@Nullable Object chatId) {
+        if (chatId instanceof Long) {
+            return ((Long) chatId) < 0 ? ChatType.GROUP : ChatType.PRIVATE;
+        }
+        return chatId instanceof String && ((String) chatId).startsWith(AT) ? ChatType.CHANNEL : ChatType.PRIVATE;
+    }
+
+    /**
+     * @param chatId Chat id as a number, a numeric string or a channel username
+     * @return The chat id as a {@link Long} if it is numeric, else the chat id
+     */
+    @Nullable
+    static Object chatKey(@Nullable Object chatId) {
+        if (chatId instanceof Number) {
+            return ((Number) chatId).longValue();
+        }
+        if (chatId instanceof String) {
+            try {
+                return Long.parseLong((String) chatId);
+            } catch (NumberFormatException e) {
+                return chatId;
+            }
+        }
+        return chatId;
+    }
+
+    private void pauseOnFloodWait(BotQueue bot, @Nullable Object chat, Throwable e) {
+        if (!(e instanceof HttpClientResponseException) ||
+                ((HttpClientResponseException) e).getStatus().getCode() != TOO_MANY_REQUESTS) {
+            return;
+        }
+        ErrorReceived error = TelegramRetrier.errorReceived((HttpClientResponseException) e);
+        Integer retryAfter = error != null && error.getParameters() != null ? error.getParameters().getRetryAfter() : null;
+        if (retryAfter != null && retryAfter > 0) {
+            long now = System.nanoTime();
+            start(bot.pause(chat, now + TimeUnit.SECONDS.toNanos(retryAfter), now));
+        }
+    }
+
+    private void start(List<Pending<?>> ready) {
+        for (Pending<?> pending : ready) {
+            sent.increment();
+            pending.start();
+        }
+    }
+
+    private void wakeUp(BotQueue bot, long delayNanos) {
+        try {
+            timer.schedule(() -> start(bot.drain(System.nanoTime())), delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // shutting down
+        }
+    }
+
+    /**
+     * Queues of the chats of a bot. Chats with messages whose buckets allow them take turns in {@code ready}; chats
+     * waiting for their buckets are ordered by the time they become ready.
+     */
+    private final class BotQueue {
+        private final Bucket global = new Bucket(configuration.getMessagesPerSecond(), TimeUnit.SECONDS);
+        private final Map<Object, ChatQueue> chats = new HashMap<>();
+        private final ArrayDeque<ChatQueue> ready = new ArrayDeque<>();
+        private final PriorityQueue<ChatQueue> waiting = new PriorityQueue<>((a, b) -> Long.compare(a.readyNanos - b.readyNanos, 0));
+        private int queued;
+        private long wakeUpNanos = Long.MAX_VALUE;
+        private long operations;
+
+        /**
+         * @return The messages to start, or null if the queue is full
+         */
+        @Nullable
+        private synchronized List<Pending<?>> enqueue(Object key, Pending<?> pending, long now) {
+            if (queued >= configuration.getMaxQueuedMessages()) {
+                return null;
+            }
+            if (++operations % SWEEP_INTERVAL == 0) {
+                sweep(now);
+            }
+            ChatQueue chat = chats.get(key);
+            if (chat == null) {
+                chat = new ChatQueue(chatType(key));
+                chats.put(key, chat);
+            }
+            chat.messages.add(pending);
+            queued++;
+            if (!chat.scheduled) {
+                chat.scheduled = true;
+                ready.add(chat);
+            }
+            return drain(now);
+        }
+
+        private synchronized List<Pending<?>> drain(long now) {
+            List<Pending<?>> started = new ArrayList<>();
+            if (wakeUpNanos <= now) {
+                wakeUpNanos = Long.MAX_VALUE;
+            }
+            while (true) {
+                while (!waiting.isEmpty() && waiting.peek().readyNanos <= now) {
+                    ready.add(waiting.poll());
+                }
+                if (ready.isEmpty()) {
+                    if (!waiting.isEmpty()) {
+                        scheduleWakeUp(waiting.peek().readyNanos, now);
+                    }
+                    return started;
+                }
+                long globalWait = global.nanosUntilAvailable(now);
+                if (globalWait > 0) {
+                    scheduleWakeUp(now + globalWait, now);
+                    return started;
+                }
+                ChatQueue chat = ready.poll();
+                long chatWait = chat.nanosUntilAvailable(now);
+                if (chatWait > 0) {
+                    chat.readyNanos = now + chatWait;
+                    waiting.add(chat);
+                    continue;
+                }
+                Pending<?> pending = chat.messages.poll();
+                queued--;
+                if (pending.emitter.isDisposed()) {
+                    requeue(chat);
+                    continue;
+                }
+                global.take();
+                chat.take();
+                if (pending.enqueuedNanos != now) {
+                    delayed.increment();
+                }
+                started.add(pending);
+                requeue(chat);
+            }
+        }
+
+        /**
+         * @param key Chat to pause, or null to pause every chat of the bot
+         * @param untilNanos Time the messages may be sent again
+         * @return The messages to start
+         */
+        private synchronized List<Pending<?>> pause(@Nullable Object key, long untilNanos, long now) {
+            if (key == null) {
+                global.pause(untilNanos);
+            } else {
+                ChatQueue chat = chats.get(key);
+                if (chat == null) {
+                    chat = new ChatQueue(chatType(key));
+                    chats.put(key, chat);
+                }
+                chat.chat.pause(untilNanos);
+            }
+            return drain(now);
+        }
+
+        private void requeue(ChatQueue chat) {
+            if (chat.messages.isEmpty()) {
+                chat.scheduled = false;
+            } else {
+                ready.add(chat);
+            }
+        }
+
+        private void scheduleWakeUp(long at, long now) {
+            if (at < wakeUpNanos) {
+                wakeUpNanos = at;
+                wakeUp(this, at - now);
+            }
+        }
+
+        private void sweep(long now) {
+            Iterator<ChatQueue> iterator = chats.values().iterator();
+            while (iterator.hasNext()) {
+                ChatQueue chat = iterator.next();
+                if (!chat.scheduled && chat.isFull(now)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private final class ChatQueue {
+        private final ArrayDeque<Pending<?>> messages = new ArrayDeque<>();
+        private final Bucket chat = new Bucket(configuration.getChatMessagesPerSecond(), TimeUnit.SECONDS);
+        @Nullable
+        private final Bucket group;
+        private boolean scheduled;
+        private long readyNanos;
+
+        private ChatQueue(ChatType type) {
+            this.group = type == ChatType.PRIVATE ? null : new Bucket(configuration.getGroupMessagesPerMinute(), TimeUnit.MINUTES);
+        }
+
+        private long nanosUntilAvailable(long now) {
+            long wait = chat.nanosUntilAvailable(now);
+            return group != null ? Math.max(wait, group.nanosUntilAvailable(now)) : wait;
+        }
+
+        private void take() {
+            chat.take();
+            if (group != null) {
+                group.take();
+            }
+        }
+
+        private boolean isFull(long now) {
+            return chat.isFull(now) && (group == null || group.isFull(now));
+        }
+    }
+
+    /**
+     * Token bucket whose capacity is the number of tokens added per period. A paused bucket gives no tokens until the
+     * pause ends.
+     */
+    private static final class Bucket {
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long updatedNanos;
+        private boolean started;
+        private boolean paused;
+        private long pausedUntilNanos;
+
+        private Bucket(int tokensPerPeriod, TimeUnit period) {
+            this.capacity = tokensPerPeriod;
+            this.tokensPerNano = tokensPerPeriod / (double) period.toNanos(1);
+            this.tokens = capacity;
+        }
+
+        private long nanosUntilAvailable(long now) {
+            refill(now);
+            long wait = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano);
+            return paused ? Math.max(wait, pausedUntilNanos - now) : wait;
+        }
+
+        private void pause(long untilNanos) {
+            if (!paused || untilNanos - pausedUntilNanos > 0) {
+                pausedUntilNanos = untilNanos;
+            }
+            paused = true;
+        }
+
+        private void take() {
+            tokens -= 1;
+        }
+
+        private boolean isFull(long now) {
+            refill(now);
+            return !paused && tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            if (paused && now - pausedUntilNanos >= 0) {
+                paused = false;
+            }
+            if (started) {
+                tokens = Math.min(capacity, tokens + (now - updatedNanos) * tokensPerNano);
+            }
+            started = true;
+            updatedNanos = now;
+        }
+    }
+
+    private static final class Pending<T> {
+        private final Supplier<Single<T>> request;
+        private final SingleEmitter<T> emitter;
+        private final long enqueuedNanos;
+
+        private Pending(Supplier<Single<T>> request, SingleEmitter<T> emitter, long enqueuedNanos) {
+            this.request = request;
+            this.emitter = emitter;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+
+        private void start() {
+            try {
+                emitter.setDisposable(request.get().subscribe(emitter::onSuccess, emitter::onError));
+            } catch (RuntimeException e) {
+                emitter.onError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.httpclient;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.micronaut.bots.telegram.core.ResponseParameters;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.reactivex.Single;
+import io.reactivex.SingleEmitter;
+import io.reactivex.disposables.Disposable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Retries the requests Telegram rejects temporarily. A request hitting flood control is retried once the
+ * {@code retry_after} of the response has passed; a request to a group which became a supergroup is retried at once
+ * with the id of the supergroup, which is also used for later requests to the group; a request failing with a server
+ * error is retried with exponential backoff and jitter. Retries wait on a timer, never on a thread, and stop once the
+ * attempts or the retry time of the request run out.
+ */
+@Singleton
+@Requires(beans = TelegramRetryConfiguration.class)
+public class TelegramRetrier implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(TelegramRetrier.class);
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int SERVER_ERROR = 500;
+
+    private final TelegramRetryConfiguration configuration;
+    private final Map<Object, Long> migrations = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor timer;
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder floodWaits = new LongAdder();
+    private final LongAdder migrated = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+
+    public TelegramRetrier(TelegramRetryConfiguration configuration) {
+        this.configuration = configuration;
+        this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "chatbots-telegram-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * @param chatId Chat the request is sent to, or null if the request does not target a chat
+     * @param request Function which returns the request for the given chat id. It is called for every attempt.
+     * @param <T> Response type
+     * @return The response of the first successful attempt, or the error of the last attempt
+     */
+    @NonNull
+    public <T> Single<T> execute(@Nullable Object chatId, @NonNull Function<Object, Single<T>> request) {
+        return Single.create(emitter -> new Attempt<>(chatId, request, emitter).run());
+    }
+
+    /**
+     * @param chatId Chat id
+     * @return The id of the supergroup the chat migrated to, or the chat id if it has not migrated
+     */
+    @Nullable
+    public Object migratedChatId(@Nullable Object chatId) {
+        Long to = chatId != null ? migrations.get(TelegramRateLimiter.chatKey(chatId)) : null;
+        return to != null ? to : chatId;
+    }
+
+    /**
+     * @return Number of requests which succeeded, possibly after retries
+     */
+    public long getSucceeded() {
+        return succeeded.sum();
+    }
+
+    /**
+     * @return Number of requests which failed with an error which is not retried
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * @return Number of requests which failed because their attempts or retry time ran out
+     */
+    public long getExhausted() {
+        return exhausted.sum();
+    }
+
+    /**
+     * @return Number of retries
+     */
+    public long getRetried() {
+        return retried.sum();
+    }
+
+    /**
+     * @return Number of responses asking to retry after a flood wait
+     */
+    public long getFloodWaits() {
+        return floodWaits.sum();
+    }
+
+    /**
+     * @return Number of responses telling a group migrated to a supergroup
+     */
+    public long getMigrated() {
+        return migrated.sum();
+    }
+
+    /**
+     * @return Number of responses with a server error
+     */
+    public long getServerErrors() {
+        return serverErrors.sum();
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * @param e Error response of Telegram
+     * @return The body of the response, or null if it is not a Telegram error
+     */
+    @Nullable
+    static ErrorReceived errorReceived(@NonNull HttpClientResponseException e) {
+        try {
+            return e.getResponse().getBody(ErrorReceived.class).orElse(null);
+        } catch (RuntimeException ignored) {
+            return null;
+        }
+    }
+
+    private final class Attempt<T> implements Runnable {
+        private final Function<Object, Single<T>> request;
+        private final SingleEmitter<T> emitter;
+        private final long startNanos = System.nanoTime();
+        @Nullable
+        private Object chatId;
+        private int attempts;
+        private int consecutiveServerErrors;
+        @Nullable
+        private volatile Disposable subscription;
+        @Nullable
+        private volatile Future<?> retry;
+
+        private Attempt(@Nullable Object chatId, Function<Object, Single<T>> request, SingleEmitter<T> emitter) {
+            this.chatId = chatId;
+            this.request = request;
+            this.emitter = emitter;
+            emitter.setCancellable(() -> {
+                Disposable current = subscription;
+                if (current != null) {
+                    current.dispose();
+                }
+                Future<?> scheduled = retry;
+                if (scheduled != null) {
+                    scheduled.cancel(false);
+                }
+            });
+        }
+
+        @Override
+        public void run() {
+            if (emitter.isDisposed()) {
+                return;
+            }
+            attempts++;
+            chatId = migratedChatId(chatId);
+            try {
+                subscription = request.apply(chatId).subscribe(this::onSuccess, this::onError);
+            } catch (RuntimeException e) {
+                failed.increment();
+                emitter.onError(e);
+            }
+        }
+
+        private void onSuccess(T response) {
+            succeeded.increment();
+            emitter.onSuccess(response);
+        }
+
+        private void onError(Throwable e) {
+            if (emitter.isDisposed()) {
+                return;
+            }
+            if (!(e instanceof HttpClientResponseException)) {
+                failed.increment();
+                emitter.onError(e);
+                return;
+            }
+            int status = ((HttpClientResponseException) e).getStatus().getCode();
+            ErrorReceived error = errorReceived((HttpClientResponseException) e);
+            ResponseParameters parameters = error != null ? error.getParameters() : null;
+            if (chatId != null && parameters != null && parameters.getMigrateToChatId() != null) {
+                migrated.increment();
+                migrations.put(TelegramRateLimiter.chatKey(chatId), parameters.getMigrateToChatId());
+                retry(e, 0);
+            } else if (status == TOO_MANY_REQUESTS) {
+                floodWaits.increment();
+                Integer retryAfter = parameters != null ? parameters.getRetryAfter() : null;
+                retry(e, retryAfter != null ? TimeUnit.SECONDS.toNanos(retryAfter) : backoffNanos());
+            } else if (status >= SERVER_ERROR) {
+                serverErrors.increment();
+                retry(e, backoffNanos());
+            } else {
+                failed.increment();
+                emitter.onError(e);
+            }
+        }
+
+        private void retry(Throwable e, long delayNanos) {
+            long elapsed = System.nanoTime() - startNanos;
+            if (attempts >= configuration.getMaxAttempts() || elapsed + delayNanos > configuration.getMaxRetryTime().toNanos()) {
+                exhausted.increment();
+                emitter.onError(e);
+                return;
+            }
+            retried.increment();
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("retrying Telegram request in {} ms after {}", TimeUnit.NANOSECONDS.toMillis(delayNanos), e.getMessage());
+            }
+            if (delayNanos <= 0) {
+                run();
+                return;
+            }
+            try {
+                retry = timer.schedule(this, delayNanos, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException shuttingDown) {
+                exhausted.increment();
+                emitter.onError(e);
+            }
+        }
+
+        /**
+         * @return Half of the exponential backoff plus a random part of the other half
+         */
+        private long backoffNanos() {
+            double backoff = configuration.getBackoff().toNanos() * Math.pow(2, consecutiveServerErrors++);
+            long ceiling = (long) Math.min(backoff, configuration.getMaxBackoff().toNanos());
+            long half = ceiling / 2;
+            return half + ThreadLocalRandom.current().nextLong(ceiling - half + 1);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.httpclient;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.time.Duration;
+
+public interface TelegramRetryConfiguration {
+
+    /**
+     * @return Maximum number of attempts of a request, including the first one
+     */
+    int getMaxAttempts();
+
+    /**
+     * @return Maximum time between the first attempt of a request and its last retry. A retry which would start
+     * later fails the request instead.
+     */
+    @NonNull
+    Duration getMaxRetryTime();
+
+    /**
+     * @return Delay before the first retry after a server error. It doubles with each consecutive server error and
+     * a random part of it is used as jitter.
+     */
+    @NonNull
+    Duration getBackoff();
+
+    /**
+     * @return Maximum delay before retrying after a server error
+     */
+    @NonNull
+    Duration getMaxBackoff();
+}
@@ -0,0 +1,107 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.httpclient;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.context.annotation.Requires;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+@Requires(property = TelegramRetryConfigurationProperties.PREFIX + ".enabled", notEquals = "false")
+@ConfigurationProperties(TelegramRetryConfigurationProperties.PREFIX)
+public class TelegramRetryConfigurationProperties implements TelegramRetryConfiguration {
+    public static final String PREFIX = "telegram.retry";
+
+    private static final int DEFAULT_MAX_ATTEMPTS = 5;
+    private static final Duration DEFAULT_MAX_RETRY_TIME = Duration.ofMinutes(1);
+    private static final Duration DEFAULT_BACKOFF = Duration.ofMillis(500);
+    private static final Duration DEFAULT_MAX_BACKOFF = Duration.ofSeconds(10);
+
+    @Min(1)
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+    @NonNull
+    @NotNull
+    private Duration maxRetryTime = DEFAULT_MAX_RETRY_TIME;
+
+    @NonNull
+    @NotNull
+    private Duration backoff = DEFAULT_BACKOFF;
+
+    @NonNull
+    @NotNull
+    private Duration maxBackoff = DEFAULT_MAX_BACKOFF;
+
+    @Override
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Maximum number of attempts of a request, including the first one. Default value ({@value #DEFAULT_MAX_ATTEMPTS}).
+     * @param maxAttempts Maximum attempts
+     */
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    @NonNull
+    public Duration getMaxRetryTime() {
+        return maxRetryTime;
+    }
+
+    /**
+     * Maximum time between the first attempt of a request and its last retry. Default value 1 minute.
+     * @param maxRetryTime Retry budget of a request
+     */
+    public void setMaxRetryTime(@NonNull Duration maxRetryTime) {
+        this.maxRetryTime = maxRetryTime;
+    }
+
+    @Override
+    @NonNull
+    public Duration getBackoff() {
+        return backoff;
+    }
+
+    /**
+     * Delay before the first retry after a server error. Default value 500 milliseconds.
+     * @param backoff Initial backoff
+     */
+    public void setBackoff(@NonNull Duration backoff) {
+        this.backoff = backoff;
+    }
+
+    @Override
+    @NonNull
+    public Duration getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    /**
+     * Maximum delay before retrying after a server error. Default value 10 seconds.
+     * @param maxBackoff Maximum backoff
+     */
+    public void setMaxBackoff(@NonNull Duration maxBackoff) {
+        this.maxBackoff = maxBackoff;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.httpclient;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.micronaut.bots.telegram.core.Update;
+import io.micronaut.core.annotation.Introspected;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+@Introspected
+public class UpdatesReceived {
+    @NonNull
+    @NotNull
+    private Boolean ok;
+
+    @Nullable
+    private List<Update> result;
+
+    public UpdatesReceived() {
+    }
+
+    @NonNull
+    public Boolean getOk() {
+        return ok;
+    }
+
+    public void setOk(@NonNull Boolean ok) {
+        this.ok = ok;
+    }
+
+    @Nullable
+    public List<Update> getResult() {
+        return result;
+    }
+
+    public void setResult(@Nullable List<Update> result) {
+        this.result = result;
+    }
+
+    @Override
+    public String toString() {
+        return "UpdatesReceived{" +
+                "ok=" + ok +
+                ", result=" + (result != null ? result.size() + " updates" : "") +
+                '}';
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.httpclient
+
+import io.micronaut.bots.telegram.core.ResponseParameters
+import io.micronaut.http.HttpResponse
+import io.micronaut.http.HttpStatus
+import io.micronaut.http.client.exceptions.HttpClientResponseException
+import io.reactivex.Single
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.function.Supplier
+
+class TelegramRateLimiterSpec extends Specification {
+
+    TelegramRateLimitConfigurationProperties configuration = new TelegramRateLimitConfigurationProperties(
+            messagesPerSecond: 30,
+            chatMessagesPerSecond: 10,
+            groupMessagesPerMinute: 20)
+
+    @AutoCleanup
+    TelegramRateLimiter rateLimiter = new TelegramRateLimiter(configuration)
+
+    List<Object> started = new CopyOnWriteArrayList<>()
+
+    PollingConditions conditions = new PollingConditions(timeout: 5)
+
+    void "messages beyond the global limit of a bot wait"() {
+        given:
+        configuration.messagesPerSecond = 3
+
+        when:
+        (1L..5L).each { send(it) }
+        send(1L, '456:DEF')
+
+        then:
+        started == [1L, 2L, 3L, 1L]
+        rateLimiter.queued == 2
+
+        and:
+        conditions.eventually {
+            assert started.size() == 6
+        }
+        rateLimiter.delayed == 2
+        rateLimiter.sent == 6
+    }
+
+    void "messages beyond the limit of a chat wait while other chats are sent"() {
+        given:
+        configuration.chatMessagesPerSecond = 1
+
+        when:
+        send(1L)
+        send(1L)
+        send(2L)
+
+        then:
+        started == [1L, 2L]
+        rateLimiter.queued == 1
+
+        and:
+        conditions.eventually {
+            assert started == [1L, 2L, 1L]
+        }
+    }
+
+    void "groups and channels have a lower limit than private chats"() {
+        given:
+        configuration.groupMessagesPerMinute = 2
+
+        when:
+        3.times {
+            send(-100L)
+            send('@channel')
+            send('7')
+        }
+
+        then:
+        started.count { it == -100L } == 2
+        started.count { it == '@channel' } == 2
+        started.count { it == '7' } == 3
+        rateLimiter.queued == 2
+    }
+
+    void "messages beyond the queue capacity of a bot are rejected"() {
+        given:
+        configuration.chatMessagesPerSecond = 1
+        configuration.maxQueuedMessages = 1
+        List<Throwable> errors = []
+
+        when:
+        3.times {
+            rateLimiter.schedule('123:ABC', 1L, { Single.just(1L) } as Supplier).subscribe({ }, { errors << it })
+        }
+
+        then:
+        rateLimiter.rejected == 1
+        errors*.class == [java.util.concurrent.RejectedExecutionException]
+    }
+
+    void "a flood wait pauses the chat of the message"() {
+        when:
+        rateLimiter.schedule('123:ABC', 1L, { Single.error(tooManyRequests(1)) } as Supplier).subscribe({ }, { })
+        send(1L)
+        send(2L)
+
+        then:
+        started == [2L]
+
+        and:
+        conditions.eventually {
+            assert started == [2L, 1L]
+        }
+    }
+
+    void "a flood wait of a request without a chat pauses the bot"() {
+        when:
+        rateLimiter.schedule('123:ABC', null, { Single.error(tooManyRequests(1)) } as Supplier).subscribe({ }, { })
+        send(1L)
+        send(2L, '456:DEF')
+
+        then:
+        started == [2L]
+
+        and:
+        conditions.eventually {
+            assert started == [2L, 1L]
+        }
+    }
+
+    void "the type of a chat is inferred from its id"() {
+        expect:
+        TelegramRateLimiter.chatType(chatId).name() == type
+
+        where:
+        chatId       || type
+        42L          || 'PRIVATE'
+        -1001234L    || 'GROUP'
+        '@channel'   || 'CHANNEL'
+        '42'         || 'PRIVATE'
+    }
+
+    private void send(Object chatId, String token = '123:ABC') {
+        rateLimiter.schedule(token, chatId, {
+            started << chatId
+            Single.just(chatId)
+        } as Supplier).subscribe()
+    }
+
+    static HttpClientResponseException tooManyRequests(int retryAfter) {
+        ErrorReceived error = new ErrorReceived(ok: false,
+                errorCode: 429,
+                description: "Too Many Requests: retry after $retryAfter",
+                parameters: new ResponseParameters(retryAfter: retryAfter))
+        new HttpClientResponseException('Too Many Requests', HttpResponse.status(HttpStatus.TOO_MANY_REQUESTS).body(error))
+    }
+}
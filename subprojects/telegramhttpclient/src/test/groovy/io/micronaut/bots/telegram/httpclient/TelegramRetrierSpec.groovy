@@ -0,0 +1,194 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.httpclient
+
+import io.micronaut.bots.telegram.core.ForwardMessage
+import io.micronaut.bots.telegram.core.ResponseParameters
+import io.micronaut.bots.telegram.core.SendMessage
+import io.micronaut.http.HttpResponse
+import io.micronaut.http.HttpStatus
+import io.micronaut.http.client.exceptions.HttpClientResponseException
+import io.reactivex.Single
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.function.Function
+
+class TelegramRetrierSpec extends Specification {
+
+    TelegramRetryConfigurationProperties configuration = new TelegramRetryConfigurationProperties(
+            maxAttempts: 3,
+            maxRetryTime: Duration.ofSeconds(10),
+            backoff: Duration.ofMillis(10),
+            maxBackoff: Duration.ofMillis(50))
+
+    @AutoCleanup
+    TelegramRetrier retrier = new TelegramRetrier(configuration)
+
+    List<Object> attempts = new CopyOnWriteArrayList<>()
+
+    void "a request hitting flood control is retried after the retry_after of the response"() {
+        given:
+        Function<Object, Single<String>> request = respond([error(HttpStatus.TOO_MANY_REQUESTS, new ResponseParameters(retryAfter: 1))])
+        long start = System.nanoTime()
+
+        when:
+        String response = retrier.execute(1L, request).blockingGet()
+
+        then:
+        response == 'ok'
+        attempts == [1L, 1L]
+        Duration.ofNanos(System.nanoTime() - start) >= Duration.ofMillis(900)
+        retrier.floodWaits == 1
+        retrier.retried == 1
+        retrier.succeeded == 1
+    }
+
+    void "a request to a group which migrated is retried at once with the id of the supergroup"() {
+        given:
+        Function<Object, Single<String>> request = respond([error(HttpStatus.BAD_REQUEST, new ResponseParameters(migrateToChatId: -1001234L))])
+
+        when:
+        String response = retrier.execute(-1234L, request).blockingGet()
+
+        then:
+        response == 'ok'
+        attempts == [-1234L, -1001234L]
+        retrier.migrated == 1
+        retrier.migratedChatId(-1234L) == -1001234L
+        retrier.migratedChatId('-1234') == -1001234L
+        retrier.migratedChatId(-5678L) == -5678L
+    }
+
+    void "a request failing with a server error is retried with backoff"() {
+        given:
+        Function<Object, Single<String>> request = respond([error(HttpStatus.INTERNAL_SERVER_ERROR, null),
+                                                            error(HttpStatus.BAD_GATEWAY, null)])
+
+        when:
+        String response = retrier.execute(1L, request).blockingGet()
+
+        then:
+        response == 'ok'
+        attempts.size() == 3
+        retrier.serverErrors == 2
+        retrier.retried == 2
+    }
+
+    void "a request gives up once its attempts run out"() {
+        given:
+        Function<Object, Single<String>> request = respond((1..5).collect { error(HttpStatus.SERVICE_UNAVAILABLE, null) })
+
+        when:
+        retrier.execute(1L, request).blockingGet()
+
+        then:
+        HttpClientResponseException e = thrown()
+        e.status == HttpStatus.SERVICE_UNAVAILABLE
+        attempts.size() == 3
+        retrier.exhausted == 1
+        retrier.succeeded == 0
+    }
+
+    void "a request gives up when the flood wait exceeds its retry time"() {
+        given:
+        configuration.maxRetryTime = Duration.ofSeconds(5)
+        Function<Object, Single<String>> request = respond([error(HttpStatus.TOO_MANY_REQUESTS, new ResponseParameters(retryAfter: 30))])
+
+        when:
+        retrier.execute(1L, request).blockingGet()
+
+        then:
+        thrown(HttpClientResponseException)
+        attempts.size() == 1
+        retrier.exhausted == 1
+    }
+
+    void "client errors are not retried"() {
+        given:
+        Function<Object, Single<String>> request = respond([error(HttpStatus.FORBIDDEN, null)])
+
+        when:
+        retrier.execute(1L, request).blockingGet()
+
+        then:
+        thrown(HttpClientResponseException)
+        attempts.size() == 1
+        retrier.failed == 1
+        retrier.retried == 0
+    }
+
+    void "a message to a migrated group is sent as a copy, leaving the message of the caller untouched"() {
+        given:
+        List<SendMessage> sent = new CopyOnWriteArrayList<>()
+        List<ForwardMessage> forwarded = new CopyOnWriteArrayList<>()
+        TelegramApi api = Stub(TelegramApi) {
+            sendMessage(_ as String, _ as SendMessage) >> { String token, SendMessage sendMessage ->
+                sent << sendMessage
+                sent.size() == 1 ? Single.error(error(HttpStatus.BAD_REQUEST, new ResponseParameters(migrateToChatId: -1001234L))) : Single.just(new MessageSent())
+            }
+            forwardMessage(_ as String, _ as ForwardMessage) >> { String token, ForwardMessage forwardMessage ->
+                forwarded << forwardMessage
+                Single.just(new MessageSent())
+            }
+        }
+        RetryingTelegramApi retrying = new RetryingTelegramApi(api, retrier)
+        SendMessage message = new SendMessage(chatId: -1234L, text: 'hello', parseMode: 'HTML', disableNotification: true)
+        ForwardMessage forward = new ForwardMessage(chatId: '-1234', fromChatId: '42', messageId: 7)
+
+        when:
+        retrying.sendMessage('123:ABC', message).blockingGet()
+        retrying.forwardMessage('123:ABC', forward).blockingGet()
+
+        then:
+        sent.size() == 2
+        sent[0].is(message)
+        !sent[1].is(message)
+        sent[1].chatId == -1001234L
+        sent[1].text == 'hello'
+        sent[1].parseMode == 'HTML'
+        sent[1].disableNotification
+        message.chatId == -1234L
+
+        and: 'later requests to the group go to the supergroup'
+        forwarded.size() == 1
+        !forwarded[0].is(forward)
+        forwarded[0].chatId == '-1001234'
+        forwarded[0].fromChatId == '42'
+        forwarded[0].messageId == 7
+        forward.chatId == '-1234'
+    }
+
+    /**
+     * @param errors Errors of the first attempts, the attempts after them succeed
+     */
+    private Function<Object, Single<String>> respond(List<HttpClientResponseException> errors) {
+        Iterator<HttpClientResponseException> remaining = errors.iterator()
+        return { Object chatId ->
+            attempts << chatId
+            remaining.hasNext() ? Single.<String> error(remaining.next()) : Single.just('ok')
+        } as Function<Object, Single<String>>
+    }
+
+    private static HttpClientResponseException error(HttpStatus status, ResponseParameters parameters) {
+        ErrorReceived error = new ErrorReceived(ok: false, errorCode: status.code, description: status.reason, parameters: parameters)
+        new HttpClientResponseException(status.reason, HttpResponse.status(status).body(error))
+    }
+}
@@ -18,12 +18,19 @@
 package io.micronaut.chatbots.googlechat.httpserver;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import io.micronaut.bots.core.ChatBotMessageDispatcher;
+import io.micronaut.bots.core.AsyncChatBotMessageDispatcher;
 import io.micronaut.bots.core.ChatBotMessageSend;
+import io.micronaut.bots.core.ChatBotRegistry;
+import io.micronaut.bots.core.RedeliveryResponse;
+import io.micronaut.bots.core.ResponseDeadlines;
 import io.micronaut.bots.telegram.core.Send;
 import io.micronaut.bots.telegram.core.Update;
+import io.micronaut.bots.telegram.dispatcher.PreSerializedSendMessage;
 import io.micronaut.bots.telegram.httpclient.TelegramBot;
 import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.MutableHttpResponse;
 import io.micronaut.http.annotation.Post;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,47 +38,56 @@ import io.micronaut.http.annotation.PathVariable;
 import io.micronaut.http.annotation.Body;
 import io.micronaut.http.annotation.Controller;
 
-import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 @Controller
 public class WebhookController {
     private static final Logger LOG = LoggerFactory.getLogger(WebhookController.class);
 
-    private final Map<String, TelegramBot> configuration;
-    private final ChatBotMessageDispatcher messageDispatcher;
+    private final ChatBotRegistry chatBotRegistry;
+    private final AsyncChatBotMessageDispatcher messageDispatcher;
     private final ObjectMapper objectMapper;
+    private final ResponseDeadlines responseDeadlines;
 
-    public WebhookController(Collection<TelegramBot> telegramBots,
-                             ChatBotMessageDispatcher messageDispatcher,
-                             ObjectMapper objectMapper) {
+    public WebhookController(ChatBotRegistry chatBotRegistry,
+                             AsyncChatBotMessageDispatcher messageDispatcher,
+                             ObjectMapper objectMapper,
+                             ResponseDeadlines responseDeadlines) {
         this.messageDispatcher = messageDispatcher;
         this.objectMapper = objectMapper;
-        this.configuration = new HashMap<>();
-
-        for (TelegramBot bot : telegramBots) {
-            this.configuration.put(bot.getToken(), bot);
-        }
+        this.responseDeadlines = responseDeadlines;
+        this.chatBotRegistry = chatBotRegistry;
     }
 
     @Post("/{token}")
-    public HttpResponse update(@PathVariable String token,
-                               @Body Update update) {
-        if (!configuration.containsKey(token)) {
+    public CompletionStage<HttpResponse> update(@PathVariable String token,
+                                                @Body Update update) {
+        TelegramBot telegramBot = chatBotRegistry.findByToken(token, TelegramBot.class).orElse(null);
+        if (telegramBot == null) {
             if (LOG.isInfoEnabled()) {
                 LOG.info("Configuration does not contain supplied token. rejected update {}", update.toString());
             }
-            return HttpResponse.unauthorized();
+            return CompletableFuture.completedFuture(HttpResponse.unauthorized());
         }
+        return responseDeadlines.withDeadline(telegramBot, messageDispatcher.dispatchAsync(telegramBot, update))
+                .handle((message, throwable) -> throwable == null ?
+                        createResponse(message) :
+                        RedeliveryResponse.ifRejected(throwable, WebhookController::serviceUnavailable));
+    }
 
-        Optional<ChatBotMessageSend> message = messageDispatcher.dispatch(configuration.get(token), update);
+    private HttpResponse createResponse(Optional<ChatBotMessageSend> message) {
         if (message.isPresent()) {
             ChatBotMessageSend chatBotResponse = message.get();
             if (LOG.isInfoEnabled()) {
                 LOG.info("Returning {}", chatBotResponse.toString());
             }
+            if (chatBotResponse instanceof PreSerializedSendMessage) {
+                return HttpResponse.ok(((PreSerializedSendMessage) chatBotResponse).toJson())
+                        .contentType(MediaType.APPLICATION_JSON_TYPE);
+            }
             if (chatBotResponse instanceof Send) {
                 Send send = ((Send) chatBotResponse);
                 return HttpResponse.ok(send);
@@ -82,4 +98,10 @@ public class WebhookController {
         }
         return HttpResponse.ok();
     }
-}
\ No newline at end of file
+
+    private static HttpResponse serviceUnavailable(int status, Map<String, String> headers) {
+        MutableHttpResponse<?> response = HttpResponse.status(HttpStatus.valueOf(status));
+        headers.forEach(response::header);
+        return response;
+    }
+}
@@ -22,10 +22,15 @@ import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-import io.micronaut.bots.core.ChatBotMessageDispatcher;
+import io.micronaut.bots.core.AsyncChatBotMessageDispatcher;
 import io.micronaut.bots.core.ChatBotMessageSend;
+import io.micronaut.bots.core.ChatBotRegistry;
+import io.micronaut.bots.core.DispatchResult;
+import io.micronaut.bots.core.RedeliveryResponse;
+import io.micronaut.bots.core.ResponseDeadlines;
 import io.micronaut.bots.telegram.core.Send;
 import io.micronaut.bots.telegram.core.Update;
+import io.micronaut.bots.telegram.dispatcher.PreSerializedSendMessage;
 import io.micronaut.bots.telegram.httpclient.TelegramBot;
 import io.micronaut.context.ApplicationContextBuilder;
 import io.micronaut.core.annotation.Introspected;
@@ -37,10 +42,11 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
 import java.io.IOException;
-import java.util.Collection;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @Introspected
 public class TelegramWebhookHandler extends MicronautRequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
@@ -58,10 +64,13 @@ public class TelegramWebhookHandler extends MicronautRequestHandler<APIGatewayPr
     private ObjectMapper objectMapper;
 
     @Inject
-    private ChatBotMessageDispatcher messageDispatcher;
+    private AsyncChatBotMessageDispatcher messageDispatcher;
 
     @Inject
-    Collection<TelegramBot> telegramBots;
+    private ResponseDeadlines responseDeadlines;
+
+    @Inject
+    ChatBotRegistry chatBotRegistry;
 
     public TelegramWebhookHandler() {
     }
@@ -101,7 +110,10 @@ public class TelegramWebhookHandler extends MicronautRequestHandler<APIGatewayPr
         final String path = input.getPath();
         APIGatewayProxyResponseEvent apiGatewayProxyResponseEvent = new APIGatewayProxyResponseEvent();
 
-        if (telegramBots.stream().noneMatch(bot -> (PATH_START + bot.getToken()).equals(path))) {
+        Optional<TelegramBot> telegramBotOptional = path != null && path.startsWith(PATH_START) ?
+                chatBotRegistry.findByToken(path.substring(PATH_START.length()), TelegramBot.class) :
+                Optional.empty();
+        if (!telegramBotOptional.isPresent()) {
             LOG.warn("not telegram bot found for token");
             apiGatewayProxyResponseEvent.setStatusCode(HttpStatus.UNAUTHORIZED.getCode());
             return apiGatewayProxyResponseEvent;
@@ -109,19 +121,20 @@ public class TelegramWebhookHandler extends MicronautRequestHandler<APIGatewayPr
         Map<String, String> headers = new HashMap<>();
 
         try {
-            Optional<TelegramBot> telegramBotOptional = telegramBots.stream().filter(bot -> (PATH_START + bot.getToken()).equals(path)).findFirst();
             if (telegramBotOptional.isPresent()) {
                 TelegramBot telegramBot = telegramBotOptional.get();
 
                 if (input.getBody() != null && !input.getBody().trim().isEmpty()) {
                     Update update = objectMapper.readValue(input.getBody(), Update.class);
-                    Optional<ChatBotMessageSend> message = messageDispatcher.dispatch(telegramBot, update);
+                    Optional<ChatBotMessageSend> message = DispatchResult.join(responseDeadlines.withDeadline(telegramBot, messageDispatcher.dispatchAsync(telegramBot, update)));
                     if (message.isPresent()) {
                         ChatBotMessageSend chatBotResponse = message.get();
                         if (chatBotResponse instanceof Send) {
                             Send send = ((Send) chatBotResponse);
                             try {
-                                String json  = objectMapper.writeValueAsString(send);
+                                String json = send instanceof PreSerializedSendMessage ?
+                                        new String(((PreSerializedSendMessage) send).toJson(), StandardCharsets.UTF_8) :
+                                        objectMapper.writeValueAsString(send);
                                 LOG.info("response json is:" + json);
                                 headers.put(CONTENT_TYPE, APPLICATION_JSON);
                                 apiGatewayProxyResponseEvent.setBody(json);
@@ -157,6 +170,12 @@ public class TelegramWebhookHandler extends MicronautRequestHandler<APIGatewayPr
             LOG.error("error binding body " + input.getBody() + " to " + Update.class.getSimpleName());
             apiGatewayProxyResponseEvent.setStatusCode(400);
             return apiGatewayProxyResponseEvent;
+        } catch (RejectedExecutionException e) {
+            return RedeliveryResponse.ifRejected(e, (status, retryHeaders) -> {
+                apiGatewayProxyResponseEvent.setHeaders(retryHeaders);
+                apiGatewayProxyResponseEvent.setStatusCode(status);
+                return apiGatewayProxyResponseEvent;
+            });
         }
     }
 
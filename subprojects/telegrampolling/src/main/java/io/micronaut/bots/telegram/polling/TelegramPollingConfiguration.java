@@ -0,0 +1,67 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.polling;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.List;
+
+public interface TelegramPollingConfiguration {
+
+    /**
+     * @return Time Telegram holds a poll open while there are no updates
+     */
+    @NonNull
+    Duration getTimeout();
+
+    /**
+     * @return Maximum number of updates received per poll, between 1 and 100
+     */
+    int getLimit();
+
+    /**
+     * @return Types of updates the bots receive, or null to keep the types previously set for each bot
+     */
+    @Nullable
+    List<String> getAllowedUpdates();
+
+    /**
+     * @return Maximum number of updates being dispatched across all the bots. Polls wait while it is reached.
+     */
+    int getMaxPendingUpdates();
+
+    /**
+     * @return Number of threads shared by the polls of all the bots
+     */
+    int getThreads();
+
+    /**
+     * @return Delay before polling again after a failed poll or while dispatch queues are full. It doubles with
+     * each consecutive failure.
+     */
+    @NonNull
+    Duration getRetryDelay();
+
+    /**
+     * @return Maximum delay before polling again after consecutive failures
+     */
+    @NonNull
+    Duration getMaxRetryDelay();
+}
@@ -0,0 +1,163 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.polling;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.context.annotation.Requires;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+import java.util.List;
+
+@Requires(property = TelegramPollingConfigurationProperties.PREFIX + ".enabled", value = "true")
+@ConfigurationProperties(TelegramPollingConfigurationProperties.PREFIX)
+public class TelegramPollingConfigurationProperties implements TelegramPollingConfiguration {
+    public static final String PREFIX = "telegram.polling";
+
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(8);
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int DEFAULT_MAX_PENDING_UPDATES = 1000;
+    private static final int DEFAULT_THREADS = 2;
+    private static final Duration DEFAULT_RETRY_DELAY = Duration.ofSeconds(1);
+    private static final Duration DEFAULT_MAX_RETRY_DELAY = Duration.ofMinutes(1);
+
+    @NonNull
+    @NotNull
+    private Duration timeout = DEFAULT_TIMEOUT;
+
+    @Min(1)
+    @Max(100)
+    private int limit = DEFAULT_LIMIT;
+
+    @Nullable
+    private List<String> allowedUpdates;
+
+    @Min(1)
+    private int maxPendingUpdates = DEFAULT_MAX_PENDING_UPDATES;
+
+    @Min(1)
+    private int threads = DEFAULT_THREADS;
+
+    @NonNull
+    @NotNull
+    private Duration retryDelay = DEFAULT_RETRY_DELAY;
+
+    @NonNull
+    @NotNull
+    private Duration maxRetryDelay = DEFAULT_MAX_RETRY_DELAY;
+
+    @Override
+    @NonNull
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Time Telegram holds a poll open while there are no updates. It must be shorter than the read timeout of the
+     * HTTP client. Default value 8 seconds.
+     * @param timeout Long polling timeout
+     */
+    public void setTimeout(@NonNull Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Maximum number of updates received per poll. Default value ({@value #DEFAULT_LIMIT}).
+     * @param limit Limit
+     */
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    @Override
+    @Nullable
+    public List<String> getAllowedUpdates() {
+        return allowedUpdates;
+    }
+
+    /**
+     * Types of updates the bots receive, for example message and callback_query. An empty list receives every type.
+     * @param allowedUpdates Allowed updates
+     */
+    public void setAllowedUpdates(@Nullable List<String> allowedUpdates) {
+        this.allowedUpdates = allowedUpdates;
+    }
+
+    @Override
+    public int getMaxPendingUpdates() {
+        return maxPendingUpdates;
+    }
+
+    /**
+     * Maximum number of updates being dispatched across all the bots. Default value ({@value #DEFAULT_MAX_PENDING_UPDATES}).
+     * @param maxPendingUpdates Maximum pending updates
+     */
+    public void setMaxPendingUpdates(int maxPendingUpdates) {
+        this.maxPendingUpdates = maxPendingUpdates;
+    }
+
+    @Override
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Number of threads shared by the polls of all the bots. Default value ({@value #DEFAULT_THREADS}).
+     * @param threads Threads
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    @Override
+    @NonNull
+    public Duration getRetryDelay() {
+        return retryDelay;
+    }
+
+    /**
+     * Delay before polling again after a failed poll or while dispatch queues are full. Default value 1 second.
+     * @param retryDelay Retry delay
+     */
+    public void setRetryDelay(@NonNull Duration retryDelay) {
+        this.retryDelay = retryDelay;
+    }
+
+    @Override
+    @NonNull
+    public Duration getMaxRetryDelay() {
+        return maxRetryDelay;
+    }
+
+    /**
+     * Maximum delay before polling again after consecutive failures. Default value 1 minute.
+     * @param maxRetryDelay Maximum retry delay
+     */
+    public void setMaxRetryDelay(@NonNull Duration maxRetryDelay) {
+        this.maxRetryDelay = maxRetryDelay;
+    }
+}
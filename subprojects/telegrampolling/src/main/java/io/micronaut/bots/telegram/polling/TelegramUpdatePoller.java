@@ -0,0 +1,359 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.polling;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.micronaut.bots.core.AsyncChatBotMessageDispatcher;
+import io.micronaut.bots.core.ChatBotMessageSend;
+import io.micronaut.bots.core.ChatBotRegistry;
+import io.micronaut.bots.core.DispatchResult;
+import io.micronaut.bots.telegram.core.GetUpdates;
+import io.micronaut.bots.telegram.core.Update;
+import io.micronaut.bots.telegram.dispatcher.TelegramMessageSender;
+import io.micronaut.bots.telegram.httpclient.TelegramBot;
+import io.micronaut.bots.telegram.httpclient.UpdatesReceived;
+import io.micronaut.context.annotation.Context;
+import io.micronaut.context.annotation.Requires;
+import io.reactivex.disposables.Disposable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Receives the updates of every {@link TelegramBot} with long polling instead of a webhook. Each bot keeps one
+ * non-blocking poll open; the polls of all the bots share a small scheduler. The updates of a poll are dispatched with
+ * {@link AsyncChatBotMessageDispatcher#dispatchAll} and the replies are sent with {@link TelegramMessageSender}.
+ * The offset which confirms the updates to Telegram only advances once they are dispatched, so updates received
+ * before a crash are received again on restart, and it stops at the first update rejected by a full chat queue.
+ * The updates handled after a rejected one are skipped when they are received again.
+ * While {@link TelegramPollingConfiguration#getMaxPendingUpdates()} updates are being dispatched, polls wait.
+ */
+@Context
+@Requires(beans = TelegramPollingConfiguration.class)
+public class TelegramUpdatePoller implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(TelegramUpdatePoller.class);
+    private static final int MAX_BACKOFF_SHIFT = 20;
+
+    private final ChatBotRegistry chatBotRegistry;
+    private final AsyncChatBotMessageDispatcher messageDispatcher;
+    private final TelegramMessageSender messageSender;
+    private final TelegramPollingConfiguration configuration;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final Map<String, BotPoll> polls = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingUpdates = new AtomicInteger();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public TelegramUpdatePoller(ChatBotRegistry chatBotRegistry,
+                                AsyncChatBotMessageDispatcher messageDispatcher,
+                                TelegramMessageSender messageSender,
+                                TelegramPollingConfiguration configuration) {
+        this.chatBotRegistry = chatBotRegistry;
+        this.messageDispatcher = messageDispatcher;
+        this.messageSender = messageSender;
+        this.configuration = configuration;
+        this.scheduler = new ScheduledThreadPoolExecutor(configuration.getThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "chatbots-telegram-polling");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Starts polling for every registered {@link TelegramBot}.
+     */
+    @PostConstruct
+    public void start() {
+        for (TelegramBot bot : chatBotRegistry.getBots(TelegramBot.class)) {
+            start(bot);
+        }
+    }
+
+    /**
+     * Starts polling for a bot, for example one registered at runtime. Does nothing if the bot is already polled.
+     * @param bot Bot to poll
+     */
+    public void start(@NonNull TelegramBot bot) {
+        BotPoll poll = new BotPoll(bot);
+        if (polls.putIfAbsent(bot.getToken(), poll) == null) {
+            if (LOG.isInfoEnabled()) {
+                LOG.info("Polling updates of bot {}", bot.getAtUsername());
+            }
+            scheduler.execute(poll::poll);
+        }
+    }
+
+    /**
+     * Stops polling for a bot. Updates being dispatched are still confirmed by the next poll of the bot, if it restarts.
+     * @param bot Bot to stop polling
+     */
+    public void stop(@NonNull TelegramBot bot) {
+        BotPoll poll = polls.remove(bot.getToken());
+        if (poll != null) {
+            poll.stop();
+        }
+    }
+
+    /**
+     * @return Number of updates being dispatched
+     */
+    public int getPendingUpdates() {
+        return pendingUpdates.get();
+    }
+
+    /**
+     * @return Number of updates received
+     */
+    public long getReceived() {
+        return received.sum();
+    }
+
+    /**
+     * @return Number of updates rejected because the dispatch queue of their chat was full
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        for (BotPoll poll : polls.values()) {
+            poll.stop();
+        }
+        polls.clear();
+        scheduler.shutdownNow();
+    }
+
+    private static boolean isRejection(@Nullable Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof RejectedExecutionException;
+    }
+
+    /**
+     * Poll of a bot. Polls, dispatches and confirms one batch at a time, so its state is never accessed concurrently.
+     */
+    private final class BotPoll {
+        private final TelegramBot bot;
+        private volatile boolean running = true;
+        private volatile Disposable request;
+        private final Set<Integer> handled = new HashSet<>();
+        private Integer offset;
+        private int failures;
+        private int rejections;
+
+        private BotPoll(TelegramBot bot) {
+            this.bot = bot;
+        }
+
+        private void poll() {
+            if (!running) {
+                return;
+            }
+            int available = configuration.getMaxPendingUpdates() - pendingUpdates.get();
+            if (available <= 0) {
+                schedule(configuration.getRetryDelay().toNanos());
+                return;
+            }
+            GetUpdates getUpdates = new GetUpdates();
+            getUpdates.setOffset(offset);
+            getUpdates.setLimit(Math.min(configuration.getLimit(), available));
+            getUpdates.setTimeout((int) configuration.getTimeout().getSeconds());
+            getUpdates.setAllowedUpdates(configuration.getAllowedUpdates());
+            try {
+                request = bot.getUpdates(getUpdates).subscribe(this::received, this::failed);
+            } catch (RuntimeException e) {
+                failed(e);
+            }
+        }
+
+        private void received(UpdatesReceived updatesReceived) {
+            failures = 0;
+            List<Update> updates = updatesReceived.getResult();
+            if (updates == null || updates.isEmpty()) {
+                execute(this::poll);
+                return;
+            }
+            received.add(updates.size());
+            List<Update> pending = new ArrayList<>(updates.size());
+            for (Update update : updates) {
+                if (!handled.contains(update.getUpdateId())) {
+                    pending.add(update);
+                }
+            }
+            if (pending.isEmpty()) {
+                execute(() -> confirm(updates, pending, Collections.emptyList(), null));
+                return;
+            }
+            int count = pending.size();
+            pendingUpdates.addAndGet(count);
+            CompletionStage<List<DispatchResult>> dispatched;
+            try {
+                dispatched = messageDispatcher.dispatchAll(bot, pending);
+            } catch (RuntimeException e) {
+                CompletableFuture<List<DispatchResult>> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                dispatched = failed;
+            }
+            dispatched.whenComplete((results, throwable) -> {
+                pendingUpdates.addAndGet(-count);
+                execute(() -> confirm(updates, pending, results, throwable));
+            });
+        }
+
+        /**
+         * Sends the replies and advances the offset past the received updates. If the dispatch queue of a chat was
+         * full, the offset stops at the first rejected update and the bot polls again from it after a backoff. The
+         * updates handled after the rejected one are remembered until the offset passes them, so only the rejected
+         * updates are dispatched again, whether or not the dispatcher drops duplicates.
+         * @param updates Updates received
+         * @param dispatched Updates of the poll which were not handled before
+         * @param results Results of the dispatched updates
+         * @param throwable Error if the updates could not be dispatched
+         */
+        private void confirm(List<Update> updates,
+                             List<Update> dispatched,
+                             @Nullable List<DispatchResult> results,
+                             @Nullable Throwable throwable) {
+            int firstRejected = -1;
+            if (throwable != null) {
+                if (isRejection(throwable)) {
+                    rejected.add(dispatched.size());
+                    firstRejected = 0;
+                } else if (LOG.isErrorEnabled()) {
+                    LOG.error("could not dispatch {} updates of bot {}", dispatched.size(), bot.getAtUsername(), throwable);
+                }
+            } else if (results != null) {
+                for (int i = 0; i < results.size(); i++) {
+                    DispatchResult result = results.get(i);
+                    if (!result.isFailed()) {
+                        result.getReply().ifPresent(this::send);
+                    } else if (isRejection(result.getError())) {
+                        rejected.increment();
+                        if (firstRejected < 0) {
+                            firstRejected = i;
+                        }
+                    } else if (LOG.isWarnEnabled()) {
+                        LOG.warn("could not dispatch update {} of bot {}", dispatched.get(i).getUpdateId(), bot.getAtUsername(), result.getError());
+                    }
+                }
+            }
+            if (firstRejected >= 0) {
+                for (int i = firstRejected + 1; results != null && i < results.size(); i++) {
+                    if (!isRejection(results.get(i).getError())) {
+                        handled.add(dispatched.get(i).getUpdateId());
+                    }
+                }
+                offset = dispatched.get(firstRejected).getUpdateId();
+                handled.removeIf(updateId -> updateId < offset);
+                rejections++;
+                long delay = backoff(rejections);
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn("dispatch queue full. Polling updates of bot {} again from {} in {} ms", bot.getAtUsername(),
+                            offset, TimeUnit.NANOSECONDS.toMillis(delay));
+                }
+                schedule(delay);
+                return;
+            }
+            rejections = 0;
+            int last = offset != null ? offset - 1 : Integer.MIN_VALUE;
+            for (Update update : updates) {
+                last = Math.max(last, update.getUpdateId());
+            }
+            offset = last + 1;
+            handled.removeIf(updateId -> updateId < offset);
+            poll();
+        }
+
+        private void send(ChatBotMessageSend reply) {
+            messageSender.send(bot, reply).whenComplete((sent, throwable) -> {
+                if (throwable != null && LOG.isWarnEnabled()) {
+                    LOG.warn("could not send reply of bot {} {}", bot.getAtUsername(), throwable.getMessage());
+                }
+            });
+        }
+
+        private void failed(Throwable throwable) {
+            failures++;
+            long delay = backoff(failures);
+            if (running && LOG.isWarnEnabled()) {
+                LOG.warn("could not poll updates of bot {}. Retrying in {} ms. {}", bot.getAtUsername(),
+                        TimeUnit.NANOSECONDS.toMillis(delay), throwable.getMessage());
+            }
+            schedule(delay);
+        }
+
+        /**
+         * @param attempts Consecutive failed attempts, at least one
+         * @return Delay in nanoseconds, doubled for every attempt up to the maximum retry delay
+         */
+        private long backoff(int attempts) {
+            return Math.min(configuration.getMaxRetryDelay().toNanos(),
+                    configuration.getRetryDelay().toNanos() << Math.min(attempts - 1, MAX_BACKOFF_SHIFT));
+        }
+
+        private void schedule(long delayNanos) {
+            if (!running) {
+                return;
+            }
+            try {
+                scheduler.schedule(this::poll, delayNanos, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                running = false;
+            }
+        }
+
+        private void execute(Runnable task) {
+            if (!running) {
+                return;
+            }
+            try {
+                scheduler.execute(task);
+            } catch (RejectedExecutionException e) {
+                running = false;
+            }
+        }
+
+        private void stop() {
+            running = false;
+            Disposable current = request;
+            if (current != null) {
+                current.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Copyright 2020 Sergio del Amo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.bots.telegram.polling
+
+import io.micronaut.bots.core.AdmissionController
+import io.micronaut.bots.core.AsyncChatBotMessageDispatcher
+import io.micronaut.bots.core.ChatBot
+import io.micronaut.bots.core.ChatBotMessageParser
+import io.micronaut.bots.core.ChatBotMessageReceive
+import io.micronaut.bots.core.ChatBotMessageSend
+import io.micronaut.bots.core.ChatBotRegistry
+import io.micronaut.bots.core.ChatExecutor
+import io.micronaut.bots.core.CommandHandler
+import io.micronaut.bots.core.CommandHandlerRegistry
+import io.micronaut.bots.core.DefaultUpdateDispatcher
+import io.micronaut.bots.core.DispatchContext
+import io.micronaut.bots.core.DispatchResult
+import io.micronaut.bots.core.MessageComposer
+import io.micronaut.bots.core.ReplyCache
+import io.micronaut.bots.core.ReplyCacheConfigurationProperties
+import io.micronaut.bots.core.UpdateDeduplicationConfigurationProperties
+import io.micronaut.bots.core.UpdateDeduplicator
+import io.micronaut.bots.telegram.core.GetUpdates
+import io.micronaut.bots.telegram.core.SendMessage
+import io.micronaut.bots.telegram.core.Update
+import io.micronaut.bots.telegram.dispatcher.TelegramMessageSender
+import io.micronaut.bots.telegram.httpclient.MessageSent
+import io.micronaut.bots.telegram.httpclient.TelegramApi
+import io.micronaut.bots.telegram.httpclient.TelegramBot
+import io.micronaut.bots.telegram.httpclient.UpdatesReceived
+import io.reactivex.Single
+import spock.lang.Specification
+import spock.lang.Unroll
+import spock.util.concurrent.PollingConditions
+
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionStage
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.RejectedExecutionException
+import java.util.function.Supplier
+
+class TelegramUpdatePollerSpec extends Specification {
+
+    Queue<Single<UpdatesReceived>> responses = new ConcurrentLinkedQueue<>()
+    List<Integer> offsets = new CopyOnWriteArrayList<>()
+    List<String> sent = new CopyOnWriteArrayList<>()
+
+    TelegramApi api = Stub(TelegramApi) {
+        getUpdates(_ as String, _ as GetUpdates) >> { String token, GetUpdates getUpdates ->
+            offsets << getUpdates.offset
+            responses.poll() ?: Single.never()
+        }
+        sendMessage(_ as String, _ as SendMessage) >> { String token, SendMessage sendMessage ->
+            sent << sendMessage.text
+            Single.just(new MessageSent())
+        }
+    }
+
+    TelegramBot bot = new TelegramBot('123:ABC', '@ThisBot', api)
+
+    ChatBotRegistry registry = Stub(ChatBotRegistry) {
+        getBots(TelegramBot) >> [bot]
+    }
+
+    TelegramPollingConfigurationProperties configuration = new TelegramPollingConfigurationProperties(
+            threads: 1,
+            retryDelay: Duration.ofMillis(10),
+            maxRetryDelay: Duration.ofMillis(50))
+
+    PollingConditions conditions = new PollingConditions(timeout: 5)
+
+    TelegramUpdatePoller poller
+
+    void cleanup() {
+        poller?.close()
+    }
+
+    void "the offset advances past the dispatched updates and their replies are sent"() {
+        given:
+        responses << updates(1, 2, 3)
+        start { List<Update> updates -> updates.collect { DispatchResult.success(Optional.of(reply(it.updateId))) } }
+
+        expect:
+        conditions.eventually {
+            assert offsets == [null, 4]
+            assert sent == ['1', '2', '3']
+        }
+        poller.received == 3
+        poller.pendingUpdates == 0
+    }
+
+    void "the offset stops at the first rejected update, which is polled again after a backoff"() {
+        given:
+        responses << updates(1, 2, 3) << updates(2, 3)
+        List<List<Integer>> dispatched = new CopyOnWriteArrayList<>()
+        start { List<Update> updates ->
+            dispatched << updates*.updateId
+            if (dispatched.size() > 1) {
+                return updates.collect { DispatchResult.success(Optional.of(reply(it.updateId))) }
+            }
+            [DispatchResult.success(Optional.of(reply(1))),
+             DispatchResult.failure(new RejectedExecutionException('queue full')),
+             DispatchResult.success(Optional.of(reply(3)))]
+        }
+
+        expect:
+        conditions.eventually {
+            assert offsets == [null, 2, 4]
+            assert sent == ['1', '3', '2']
+        }
+        dispatched == [[1, 2, 3], [2]]
+        poller.rejected == 1
+    }
+
+    void "a rejected batch is polled again from its first update"() {
+        given:
+        responses << updates(5, 6) << updates(5, 6)
+        int dispatches = 0
+        start { List<Update> updates ->
+            if (dispatches++ == 0) {
+                throw new RejectedExecutionException('queue full')
+            }
+            updates.collect { DispatchResult.success(Optional.empty()) }
+        }
+
+        expect:
+        conditions.eventually {
+            assert offsets == [null, 5, 7]
+        }
+        poller.rejected == 2
+    }
+
+    void "updates whose handler failed are confirmed and not polled again"() {
+        given:
+        responses << updates(1, 2)
+        start { List<Update> updates ->
+            [DispatchResult.failure(new IllegalStateException('handler failed')),
+             DispatchResult.success(Optional.of(reply(2)))]
+        }
+
+        expect:
+        conditions.eventually {
+            assert offsets == [null, 3]
+            assert sent == ['2']
+        }
+        poller.rejected == 0
+    }
+
+    void "a failed poll is retried from the same offset"() {
+        given:
+        responses << Single.error(new IOException('connection reset')) << updates(1)
+        start { List<Update> updates -> updates.collect { DispatchResult.success(Optional.empty()) } }
+
+        expect:
+        conditions.eventually {
+            assert offsets == [null, null, 2]
+        }
+    }
+
+    @Unroll
+    void "rejected updates are dispatched when polled again and the ones handled after them are not, deduplication enabled: #deduplication"() {
+        given:
+        List<Integer> handled = new CopyOnWriteArrayList<>()
+        CommandHandler handler = new CommandHandler() {
+            @Override
+            <T extends ChatBotMessageSend> Optional<T> handle(ChatBot chatBot, ChatBotMessageReceive update) {
+                handled << ((Update) update).updateId
+                Optional.empty()
+            }
+
+            @Override
+            int getOrder() {
+                0
+            }
+        }
+        CommandHandlerRegistry commandHandlerRegistry = Stub(CommandHandlerRegistry) {
+            findCommandHandler(_ as CharSequence, _ as Integer, _ as Integer) >> handler
+        }
+        ChatBotMessageParser parser = Stub(ChatBotMessageParser) {
+            parseMessageId(_ as ChatBot, _ as ChatBotMessageReceive) >> { ChatBot chatBot, Update update -> Optional.of(update.updateId) }
+            parseContext(_ as ChatBot, _ as ChatBotMessageReceive) >> { ChatBot chatBot, Update update ->
+                DispatchContext.builder(DispatchContext.KIND_MESSAGE)
+                        .text('/cmd')
+                        .textWithoutBotName('/cmd')
+                        .chatId(update.updateId as Long)
+                        .userId(1L)
+                        .build()
+            }
+        }
+        boolean full = true
+        ChatExecutor chatExecutor = Stub(ChatExecutor) {
+            submit(_, _) >> { Object key, Supplier<?> task ->
+                CompletableFuture<Object> result = new CompletableFuture<>()
+                if (key == 2L && full) {
+                    full = false
+                    result.completeExceptionally(new RejectedExecutionException('queue full'))
+                } else {
+                    result.complete(task.get())
+                }
+                (CompletionStage<Object>) result
+            }
+        }
+        DefaultUpdateDispatcher dispatcher = new DefaultUpdateDispatcher(commandHandlerRegistry,
+                parser,
+                [],
+                chatExecutor,
+                new UpdateDeduplicator(new UpdateDeduplicationConfigurationProperties(enabled: deduplication)),
+                Stub(AdmissionController) { admit(_, _) >> true },
+                new ReplyCache(new ReplyCacheConfigurationProperties(), Stub(MessageComposer)))
+        responses << updates(1, 2, 3) << updates(2, 3)
+        poller = new TelegramUpdatePoller(registry, dispatcher, new TelegramMessageSender(), configuration)
+        poller.start()
+
+        expect:
+        conditions.eventually {
+            assert offsets == [null, 2, 4]
+            assert handled == [1, 3, 2]
+        }
+
+        where:
+        deduplication << [true, false]
+    }
+
+    private void start(Closure<List<DispatchResult>> dispatch) {
+        AsyncChatBotMessageDispatcher dispatcher = Stub(AsyncChatBotMessageDispatcher) {
+            dispatchAll(_ as ChatBot, _ as List) >> { ChatBot chatBot, List<Update> updates ->
+                CompletableFuture.completedFuture(dispatch.call(updates))
+            }
+        }
+        poller = new TelegramUpdatePoller(registry, dispatcher, new TelegramMessageSender(), configuration)
+        poller.start()
+    }
+
+    private static Single<UpdatesReceived> updates(Integer... ids) {
+        Single.just(new UpdatesReceived(ok: true, result: ids.collect { new Update(updateId: it) }))
+    }
+
+    private static SendMessage reply(Integer updateId) {
+        new SendMessage(chatId: 1L, text: updateId as String)
+    }
+}